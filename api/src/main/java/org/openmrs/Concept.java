@@ -23,6 +23,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -49,7 +50,6 @@ import org.openmrs.api.db.hibernate.search.bridge.OpenmrsObjectValueBridge;
 import org.openmrs.customdatatype.CustomValueDescriptor;
 import org.openmrs.customdatatype.Customizable;
 import org.openmrs.util.LocaleUtility;
-import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.ObjectUtils;
@@ -143,6 +143,12 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * getCompatibleNames().
 	 */
 	private Map<Locale, List<ConceptName>> compatibleCache;
+	
+	/**
+	 * The names grouped by locale, language and country. Built on-the-fly by getNameIndex() and
+	 * dropped when names are added or removed or the locale of a name changes.
+	 */
+	private transient volatile NameIndex nameIndex;
 
 	private Set<ConceptAttribute> attributes = new LinkedHashSet<>();
 
@@ -464,7 +470,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * <strong>Should</strong> return name in broader locale in case none is found in specific one
 	 */
 	public ConceptName getName() {
-		if (getNames().isEmpty()) {
+		if (!hasNames()) {
 			log.debug("there are no names defined for: {}", conceptId);
 			return null;
 		}
@@ -495,8 +501,8 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 			}
 		}
 		
-		for (ConceptName cn : getNames()) {
-			if (cn.isFullySpecifiedName()) {
+		for (ConceptName cn : getNameIndex().all) {
+			if (!cn.getVoided() && cn.isFullySpecifiedName()) {
 				return cn;
 			}
 		}
@@ -556,27 +562,25 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * @since 1.9
 	 **/
 	public ConceptName getName(Locale locale, ConceptNameType ofType, ConceptNameTag havingTag) {
-		Collection<ConceptName> namesInLocale = getNames(locale);
-		if (!namesInLocale.isEmpty()) {
-			//Pass the possible candidates through a stream and save the ones that match requirements to the list
-			List<ConceptName> matches = namesInLocale.stream().filter(
-				c->(ofType==null || ofType.equals(c.getConceptNameType())) && (havingTag==null || c.hasTag(havingTag))
-			).collect(Collectors.toList());
-			
-			// if we have any matches, we'll return one of them
-			if (matches.size() == 1) {
-				return matches.get(0);
-			} else if (matches.size() > 1) {
-				for (ConceptName match : matches) {
-					if (match.getLocalePreferred()) {
-						return match;
-					}
+		ConceptName firstMatch = null;
+		for (ConceptName name : getNameIndex().inLocale(locale)) {
+			if (isInLocale(name, locale) && (ofType == null || ofType.equals(name.getConceptNameType()))
+			        && (havingTag == null || name.hasTag(havingTag))) {
+				// if there are several matches, the one marked as preferred is returned
+				if (isPreferred(name)) {
+					return name;
+				}
+				if (firstMatch == null) {
+					firstMatch = name;
 				}
-				// none was explicitly marked as preferred
-				return matches.get(0);
 			}
 		}
 		
+		// none was explicitly marked as preferred
+		if (firstMatch != null) {
+			return firstMatch;
+		}
+		
 		// if we reach here, there were no matching names, so try to look in the parent locale
 		Locale parent = new Locale(locale.getLanguage());
 		if (!parent.equals(locale)) {
@@ -605,7 +609,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	public ConceptName getName(Locale locale, boolean exact) {
 		
 		// fail early if this concept has no names defined
-		if (getNames().isEmpty()) {
+		if (!hasNames()) {
 			log.debug("there are no names defined for: {}", conceptId);
 			return null;
 		}
@@ -641,11 +645,21 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 		ConceptName fullySpecifiedName = getFullySpecifiedName(locale);
 		if (fullySpecifiedName != null) {
 			return fullySpecifiedName;
-		} else if (!getSynonyms(locale).isEmpty()) {
-			return getSynonyms(locale).iterator().next();
 		}
 		
-		return null;
+		// the same synonym getSynonyms(locale) returns first
+		ConceptName firstSynonym = null;
+		for (ConceptName name : getNameIndex().inLocale(locale)) {
+			if (isInLocale(name, locale) && name.isSynonym()) {
+				if (isPreferred(name)) {
+					return name;
+				}
+				if (firstSynonym == null) {
+					firstSynonym = name;
+				}
+			}
+		}
+		return firstSynonym;
 	}
 	
 	public ConceptName getPreferredName(Locale forLocale) {
@@ -672,8 +686,8 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 			return null;
 		}
 		
-		for (ConceptName nameInLocale : getNames(forLocale)) {
-			if (ObjectUtils.nullSafeEquals(nameInLocale.getLocalePreferred(), true)) {
+		for (ConceptName nameInLocale : getNameIndex().inLocale(forLocale)) {
+			if (isInLocale(nameInLocale, forLocale) && isPreferred(nameInLocale)) {
 				return nameInLocale;
 			}
 		}
@@ -681,21 +695,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 		if (exact) {
 			return null;
 		} else {
-			// look for partially locale match - any language matches takes precedence over country matches.
-			ConceptName bestMatch = null;
-
-			for (ConceptName nameInLocale : getPartiallyCompatibleNames(forLocale)) {
-				if (ObjectUtils.nullSafeEquals(nameInLocale.getLocalePreferred(), true)) {
-					Locale nameLocale = nameInLocale.getLocale();
-					if (forLocale.getLanguage().equals(nameLocale.getLanguage())) {
-						return nameInLocale;
-					} else {
-						bestMatch = nameInLocale;
-					}
-
-				}
-			}
-
+			ConceptName bestMatch = getPartiallyCompatibleName(forLocale, Concept::isPreferred);
 			if (bestMatch != null) {
 				return bestMatch;
 			}
@@ -712,30 +712,23 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * <strong>Should</strong> return the name marked as fully specified for the given locale
 	 */
 	public ConceptName getFullySpecifiedName(Locale locale) {
-		if (locale != null && !getNames(locale).isEmpty()) {
-			//get the first fully specified name, since every concept must have a fully specified name,
-			//then, this loop will have to return a name
-			for (ConceptName conceptName : getNames(locale)) {
-				if (ObjectUtils.nullSafeEquals(conceptName.isFullySpecifiedName(), true)) {
+		if (locale == null) {
+			return null;
+		}
+		
+		boolean hasNamesInLocale = false;
+		for (ConceptName conceptName : getNameIndex().inLocale(locale)) {
+			if (isInLocale(conceptName, locale)) {
+				//get the first fully specified name, since every concept must have a fully specified name,
+				//then, this loop will have to return a name
+				if (conceptName.isFullySpecifiedName()) {
 					return conceptName;
 				}
+				hasNamesInLocale = true;
 			}
-			
-			// look for partially locale match - any language matches takes precedence over country matches.
-			ConceptName bestMatch = null;
-			for (ConceptName conceptName : getPartiallyCompatibleNames(locale)) {
-				if (ObjectUtils.nullSafeEquals(conceptName.isFullySpecifiedName(), true)) {
-					Locale nameLocale = conceptName.getLocale();
-					if (locale.getLanguage().equals(nameLocale.getLanguage())) {
-						return conceptName;
-					}
-					bestMatch = conceptName;
-				}
-			}
-			return bestMatch;
-			
 		}
-		return null;
+		
+		return hasNamesInLocale ? getPartiallyCompatibleName(locale, ConceptName::isFullySpecifiedName) : null;
 	}
 	
 	/**
@@ -747,26 +740,86 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * @return Collection of ConceptNames with the given locale
 	 */
 	public Collection<ConceptName> getNames(Locale locale) {
-		return getNames().stream()
-				.filter(n -> n.getLocale().equals(locale))
-				.collect(Collectors.toSet());
+		Set<ConceptName> namesInLocale = new HashSet<>();
+		for (ConceptName name : getNameIndex().inLocale(locale)) {
+			if (isInLocale(name, locale)) {
+				namesInLocale.add(name);
+			}
+		}
+		return namesInLocale;
 	}
 	
 	/**
-	 * Returns all names available for locale language "or" country. <br>
-	 * <br>
+	 * Finds a name for the locale language "or" country matching the given condition, any language
+	 * match takes precedence over country matches.
 	 * 
-	 * @param locale locale for which names should be returned
-	 * @return Collection of ConceptNames with the given locale language or country
+	 * @param locale locale for which a name should be returned
+	 * @param condition the condition the name has to match
+	 * @return a matching name with the given locale language or country, or null if none is found
 	 */
-	private Collection<ConceptName> getPartiallyCompatibleNames(Locale locale) {
+	private ConceptName getPartiallyCompatibleName(Locale locale, Predicate<ConceptName> condition) {
+		NameIndex index = getNameIndex();
 		String language = locale.getLanguage();
-		String country = locale.getCountry();
+		for (ConceptName name : index.inLanguage(language)) {
+			if (!name.getVoided() && language.equals(name.getLocale().getLanguage()) && condition.test(name)) {
+				return name;
+			}
+		}
 		
-		return getNames().stream()
-				.filter(n -> language.equals(n.getLocale().getLanguage()) || 
-							StringUtils.isNotBlank(country) && country.equals(n.getLocale().getCountry()))
-				.collect(Collectors.toSet());
+		String country = locale.getCountry();
+		ConceptName bestMatch = null;
+		if (StringUtils.isNotBlank(country)) {
+			for (ConceptName name : index.inCountry(country)) {
+				if (!name.getVoided() && country.equals(name.getLocale().getCountry()) && condition.test(name)) {
+					bestMatch = name;
+				}
+			}
+		}
+		return bestMatch;
+	}
+	
+	/**
+	 * @return true if there is any non voided name
+	 */
+	private boolean hasNames() {
+		for (ConceptName name : getNameIndex().all) {
+			if (!name.getVoided()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static boolean isInLocale(ConceptName name, Locale locale) {
+		return !name.getVoided() && locale.equals(name.getLocale());
+	}
+	
+	private static boolean isPreferred(ConceptName name) {
+		return ObjectUtils.nullSafeEquals(name.getLocalePreferred(), true);
+	}
+	
+	/**
+	 * Drops the index of the names so that it is built again on the next name lookup
+	 */
+	void clearNameIndex() {
+		nameIndex = null;
+	}
+	
+	/**
+	 * Gets the index of the names, building it if the names were modified since it was built
+	 * 
+	 * @return the index
+	 */
+	private NameIndex getNameIndex() {
+		if (names == null) {
+			names = new HashSet<>();
+		}
+		NameIndex index = nameIndex;
+		if (index == null || !index.isBuiltFrom(names)) {
+			index = new NameIndex(names);
+			nameIndex = index;
+		}
+		return index;
 	}
 	
 	/**
@@ -865,23 +918,16 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * @return the short name, or null if none has been explicitly set
 	 */
 	public ConceptName getShortNameInLocale(Locale locale) {
-		ConceptName bestMatch = null;
-		if (locale != null && !getShortNames().isEmpty()) {
-			for (ConceptName shortName : getShortNames()) {
-				Locale nameLocale = shortName.getLocale();
-				if (nameLocale.equals(locale)) {
-					return shortName;
-				}
-				// test for partially locale match - any language matches takes precedence over country matches.
-				if (OpenmrsUtil.nullSafeEquals(locale.getLanguage(), nameLocale.getLanguage())) {
-					bestMatch = shortName;
-				} else if (bestMatch == null && StringUtils.isNotBlank(locale.getCountry())
-				        && locale.getCountry().equals(nameLocale.getCountry())) {
-					bestMatch = shortName;
-				}
+		if (locale == null) {
+			return null;
+		}
+		for (ConceptName name : getNameIndex().inLocale(locale)) {
+			if (isInLocale(name, locale) && name.isShort()) {
+				return name;
 			}
 		}
-		return bestMatch;
+		// test for partially locale match - any language matches takes precedence over country matches.
+		return getPartiallyCompatibleName(locale, ConceptName::isShort);
 	}
 	
 	/**
@@ -1012,6 +1058,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 */
 	public void setNames(Collection<ConceptName> names) {
 		this.names = names;
+		this.nameIndex = null;
 	}
 	
 	/**
@@ -1053,6 +1100,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 					}
 				}
 				names.add(conceptName);
+				nameIndex = null;
 				if (compatibleCache != null) {
 					// clear the locale cache, forcing it to be rebuilt
 					compatibleCache.clear();
@@ -1069,6 +1117,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 */
 	public boolean removeName(ConceptName conceptName) {
 		if (names != null) {
+			nameIndex = null;
 			return names.remove(conceptName);
 		} else {
 			return false;
@@ -1702,4 +1751,75 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 		attribute.setOwner(this);
 	}
 
+	
+	/**
+	 * The names of a concept grouped by locale, language and country so that a name lookup only has to
+	 * look at the few names in the requested locale. Since name types, preferred and voided flags can
+	 * change in place the index doesn't group by those and callers have to check every candidate.
+	 */
+	private static final class NameIndex {
+		
+		private static final ConceptName[] NO_NAMES = new ConceptName[0];
+		
+		private final Collection<ConceptName> source;
+		
+		private final int size;
+		
+		private final ConceptName[] all;
+		
+		private final Map<Locale, ConceptName[]> byLocale;
+		
+		private final Map<String, ConceptName[]> byLanguage;
+		
+		private final Map<String, ConceptName[]> byCountry;
+		
+		NameIndex(Collection<ConceptName> names) {
+			source = names;
+			all = names.toArray(NO_NAMES);
+			size = all.length;
+			Map<Locale, List<ConceptName>> locales = new HashMap<>();
+			Map<String, List<ConceptName>> languages = new HashMap<>();
+			Map<String, List<ConceptName>> countries = new HashMap<>();
+			for (ConceptName name : all) {
+				Locale locale = name.getLocale();
+				if (locale == null) {
+					continue;
+				}
+				locales.computeIfAbsent(locale, l -> new ArrayList<>()).add(name);
+				languages.computeIfAbsent(locale.getLanguage(), l -> new ArrayList<>()).add(name);
+				if (StringUtils.isNotBlank(locale.getCountry())) {
+					countries.computeIfAbsent(locale.getCountry(), c -> new ArrayList<>()).add(name);
+				}
+			}
+			byLocale = toArrays(locales);
+			byLanguage = toArrays(languages);
+			byCountry = toArrays(countries);
+		}
+		
+		private static <K> Map<K, ConceptName[]> toArrays(Map<K, List<ConceptName>> groups) {
+			Map<K, ConceptName[]> arrays = new HashMap<>(groups.size() * 2);
+			groups.forEach((key, group) -> arrays.put(key, group.toArray(NO_NAMES)));
+			return arrays;
+		}
+		
+		/**
+		 * @param names the current names of the concept
+		 * @return true if the index was built from the given collection and its size didn't change
+		 */
+		boolean isBuiltFrom(Collection<ConceptName> names) {
+			return source == names && size == names.size();
+		}
+		
+		ConceptName[] inLocale(Locale locale) {
+			return locale == null ? NO_NAMES : byLocale.getOrDefault(locale, NO_NAMES);
+		}
+		
+		ConceptName[] inLanguage(String language) {
+			return byLanguage.getOrDefault(language, NO_NAMES);
+		}
+		
+		ConceptName[] inCountry(String country) {
+			return byCountry.getOrDefault(country, NO_NAMES);
+		}
+	}
 }
@@ -135,6 +135,10 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	}
 	
 	public void setLocale(Locale locale) {
+		if (this.locale != null && concept != null && !this.locale.equals(locale)) {
+			// the concept looks up its names by locale
+			concept.clearNameIndex();
+		}
 		this.locale = locale;
 	}
 
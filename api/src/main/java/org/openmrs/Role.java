@@ -17,6 +17,7 @@ import java.util.Set;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
+import org.openmrs.api.context.EffectivePrivileges;
 import org.openmrs.util.RoleConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -95,6 +96,7 @@ public class Role extends BaseChangeableOpenmrsMetadata {
 		}
 		if (privilege != null && !containsPrivilege(privileges, privilege.getPrivilege())) {
 			privileges.add(privilege);
+			EffectivePrivileges.invalidateAll();
 		}
 	}
 	
@@ -113,8 +115,8 @@ public class Role extends BaseChangeableOpenmrsMetadata {
 	 * @param privilege Privilege to remove
 	 */
 	public void removePrivilege(Privilege privilege) {
-		if (privileges != null) {
-			privileges.remove(privilege);
+		if (privileges != null && privileges.remove(privilege)) {
+			EffectivePrivileges.invalidateAll();
 		}
 	}
 	
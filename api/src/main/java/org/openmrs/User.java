@@ -48,6 +48,7 @@ import org.hibernate.annotations.Parameter;
 import org.hibernate.envers.Audited;
 import org.hibernate.envers.NotAudited;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.EffectivePrivileges;
 import org.openmrs.util.LocaleUtility;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
@@ -343,6 +344,7 @@ public class User extends BaseOpenmrsObject implements java.io.Serializable, Att
 		}
 		if (!roles.contains(role) && role != null) {
 			roles.add(role);
+			EffectivePrivileges.invalidateAll();
 		}
 		
 		return this;
@@ -355,8 +357,8 @@ public class User extends BaseOpenmrsObject implements java.io.Serializable, Att
 	 * @return this user with the given role removed
 	 */
 	public User removeRole(Role role) {
-		if (roles != null) {
-			roles.remove(role);
+		if (roles != null && roles.remove(role)) {
+			EffectivePrivileges.invalidateAll();
 		}
 		
 		return this;
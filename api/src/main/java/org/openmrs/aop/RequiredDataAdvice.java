@@ -9,6 +9,8 @@
  */
 package org.openmrs.aop;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -111,9 +113,7 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		if (methodName.startsWith("save") || methodName.startsWith("create")) {
 			
 			// if the first argument is an OpenmrsObject, handle it now
-			Reflect reflect = new Reflect(OpenmrsObject.class);
-			
-			if (reflect.isSuperClass(mainArgument)) {
+			if (mainArgument instanceof OpenmrsObject) {
 				// fail early if the method name is not like saveXyz(Xyz)
 				if (!methodNameEndsWithClassName(method, mainArgument.getClass())) {
 					return;
@@ -278,27 +278,59 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 			return;
 		}
 		
-		Class<? extends OpenmrsObject> openmrsObjectClass = openmrsObject.getClass();
-		
 		if (alreadyHandled == null) {
 			alreadyHandled = new HashSet<>();
 		}
 		
-		// fetch all handlers for the object being saved
-		List<H> handlers = HandlerUtil.getHandlersForType(handlerType, openmrsObjectClass);
+		// fetch the handlers and child collections for the class of the object being saved
+		HandlingPlan<H> handlingPlan = getHandlingPlan(handlerType, openmrsObject.getClass());
 		
 		// loop over all handlers, calling onSave on each
-		for (H handler : handlers) {
+		for (H handler : handlingPlan.handlers) {
 			handler.handle(openmrsObject, currentUser, currentDate, other);
 		}
 		
 		alreadyHandled.add(openmrsObject);
 		
-		Reflect reflect = new Reflect(OpenmrsObject.class);
-		List<Field> allInheritedFields = reflect.getInheritedFields(openmrsObjectClass);
-		
 		// loop over all child collections of OpenmrsObjects and recursively save on those
-		for (Field field : allInheritedFields) {
+		for (ChildCollectionAccessor accessor : handlingPlan.childCollections) {
+			
+			// the collection we'll be looping over
+			Collection<OpenmrsObject> childCollection = accessor.getChildCollection(openmrsObject);
+			
+			if (childCollection != null) {
+				for (OpenmrsObject collectionElement : childCollection) {
+					if (!alreadyHandled.contains(collectionElement)) {
+						recursivelyHandle(handlerType, collectionElement, currentUser, currentDate,
+							other, alreadyHandled);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets the {@link HandlingPlan} for the given handler type and class, the plan is built the first
+	 * time it is requested and cached by {@link HandlerUtil} until the next context refresh.
+	 *
+	 * @param handlerType the type of Handler to get (should extend {@link RequiredDataHandler})
+	 * @param openmrsObjectClass the class of the object being acted upon
+	 * @return the handling plan
+	 */
+	@SuppressWarnings("unchecked")
+	private static <H extends RequiredDataHandler<OpenmrsObject>> HandlingPlan<H> getHandlingPlan(Class<H> handlerType,
+		Class<? extends OpenmrsObject> openmrsObjectClass) {
+		return HandlerUtil.getHandlingPlan(handlerType, openmrsObjectClass,
+			type -> buildHandlingPlan(handlerType, openmrsObjectClass));
+	}
+	
+	private static <H extends RequiredDataHandler<OpenmrsObject>> HandlingPlan<H> buildHandlingPlan(Class<H> handlerType,
+		Class<? extends OpenmrsObject> openmrsObjectClass) {
+		List<H> handlers = HandlerUtil.getHandlersForType(handlerType, openmrsObjectClass);
+		List<ChildCollectionAccessor> childCollections = new ArrayList<>();
+		
+		Reflect reflect = new Reflect(OpenmrsObject.class);
+		for (Field field : reflect.getInheritedFields(openmrsObjectClass)) {
 			
 			// skip field if it's declared independent
 			if (Reflect.isAnnotationPresent(openmrsObjectClass, field.getName(), Independent.class)) {
@@ -306,20 +338,11 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 			}
 			
 			if (reflect.isCollectionField(field) && !isHandlerMarkedAsDisabled(handlerType, field)) {
-				
-				// the collection we'll be looping over
-				Collection<OpenmrsObject> childCollection = getChildCollection(openmrsObject, field);
-				
-				if (childCollection != null) {
-					for (OpenmrsObject collectionElement : childCollection) {
-						if (!alreadyHandled.contains(collectionElement)) {
-							recursivelyHandle(handlerType, collectionElement, currentUser, currentDate,
-								other, alreadyHandled);
-						}
-					}
-				}
+				childCollections.add(new ChildCollectionAccessor(openmrsObjectClass, field));
 			}
 		}
+		
+		return new HandlingPlan<>(handlers, childCollections);
 	}
 	
 	/**
@@ -420,4 +443,73 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		
 		return false;
 	}
+	
+	/**
+	 * The handlers and the child collections to walk for a given handler type and class, these are
+	 * resolved once so that handling an object graph does not need to look them up via reflection for
+	 * every object in it.
+	 */
+	private static class HandlingPlan<H> {
+		
+		private final List<H> handlers;
+		
+		private final List<ChildCollectionAccessor> childCollections;
+		
+		private HandlingPlan(List<H> handlers, List<ChildCollectionAccessor> childCollections) {
+			this.handlers = handlers;
+			this.childCollections = childCollections;
+		}
+	}
+	
+	/**
+	 * Reads a child collection off of an OpenmrsObject through a method handle resolved once for the
+	 * field, falling back to {@link RequiredDataAdvice#getChildCollection(OpenmrsObject, Field)} if
+	 * no method handle could be resolved so that the same errors are reported.
+	 */
+	private static class ChildCollectionAccessor {
+		
+		private final Field field;
+		
+		private final MethodHandle methodHandle;
+		
+		private ChildCollectionAccessor(Class<? extends OpenmrsObject> openmrsObjectClass, Field field) {
+			this.field = field;
+			this.methodHandle = findMethodHandle(openmrsObjectClass, field);
+		}
+		
+		private static MethodHandle findMethodHandle(Class<? extends OpenmrsObject> openmrsObjectClass, Field field) {
+			try {
+				if (field.isAnnotationPresent(AllowDirectAccess.class)) {
+					field.setAccessible(true);
+					return MethodHandles.lookup().unreflectGetter(field);
+				}
+				Method getterMethod = openmrsObjectClass.getMethod("get" + StringUtils.capitalize(field.getName()),
+					(Class[]) null);
+				return MethodHandles.lookup().unreflect(getterMethod);
+			}
+			catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+				return null;
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		private Collection<OpenmrsObject> getChildCollection(OpenmrsObject openmrsObject) {
+			if (methodHandle == null) {
+				return RequiredDataAdvice.getChildCollection(openmrsObject, field);
+			}
+			
+			try {
+				return (Collection<OpenmrsObject>) methodHandle.invoke(openmrsObject);
+			}
+			catch (Error e) {
+				throw e;
+			}
+			catch (Throwable e) {
+				// only exceptions are left, invoke is declared to throw Throwable
+				String fieldName = field.getName();
+				throw new APIException(UNABLE_GETTER_METHOD, new Object[] { "run", "get" + StringUtils.capitalize(fieldName),
+					fieldName, openmrsObject.getClass() }, e);
+			}
+		}
+	}
 }
@@ -945,6 +945,10 @@ public interface ConceptService extends OpenmrsService {
 	
 	/**
 	 * Returns an iterator for all concepts, including retired and expired.
+	 * <p>
+	 * Concepts are fetched in chunks together with their names, descriptions, answers, set members
+	 * and mappings. The concepts of a chunk are evicted from the session when the next chunk is
+	 * fetched, so they must not be changed after moving on to the next chunk.
 	 * 
 	 * @return the Iterator
 	 * <strong>Should</strong> start with the smallest concept id
@@ -953,6 +957,21 @@ public interface ConceptService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_CONCEPTS)
 	public Iterator<Concept> conceptIterator();
 	
+	/**
+	 * Splits the concepts into ranges of concept ids with about the same number of concepts and
+	 * returns an iterator like {@link #conceptIterator()} for each range, so that the concepts can be
+	 * processed by several workers. Each iterator must be used by one thread at a time with its own
+	 * session open, e.g. in a {@link org.openmrs.api.context.Daemon} thread.
+	 * 
+	 * @param parts the number of iterators to return, less are returned if there are less concepts
+	 * @return iterators which together return all concepts, each concept once
+	 * @throws IllegalArgumentException if parts is less than 1
+	 * <strong>Should</strong> return all concepts once across the iterators
+	 * @since 3.0.0
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public List<Iterator<Concept>> conceptIterators(int parts);
+	
 	/**
 	 * Looks up a concept via {@link ConceptMap} This will return the {@link Concept} which contains
 	 * a {@link ConceptMap} entry whose <code>sourceCode</code> is equal to the passed
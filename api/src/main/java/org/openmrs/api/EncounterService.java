@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.openmrs.Cohort;
 import org.openmrs.Encounter;
@@ -444,6 +445,26 @@ public interface EncounterService extends OpenmrsService {
 	 */
 	public Map<Integer, List<Encounter>> getAllEncounters(Cohort patients);
 	
+	/**
+	 * Passes the non voided encounters of a cohort of patients to the given consumer one patient at a
+	 * time in ascending patient id order, the encounters of each patient are ordered by encounter
+	 * datetime with the most recent first. Unlike {@link #getAllEncounters(Cohort)} the encounters are
+	 * loaded in chunks of patients and evicted from the session once the chunk is processed along with
+	 * the patients, obs and other entities loaded with them, so the memory used stays the same no
+	 * matter how large the cohort is. Entities which were in the session before are left in it. The
+	 * encounters should therefore be treated as read only, they are detached once the consumer
+	 * returns.
+	 * 
+	 * @param patients Cohort of patients to search, null for all patients
+	 * @param consumer receives the patient id and the encounters of each patient with encounters
+	 * <strong>Should</strong> pass the encounters of each patient in the cohort in patient id order
+	 * <strong>Should</strong> pass the encounters of all patients if the cohort is null
+	 * <strong>Should</strong> evict the entities loaded with the encounters but not those loaded before
+	 * @since 3.0.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_ENCOUNTERS })
+	public void forEachPatientEncounters(Cohort patients, BiConsumer<Integer, List<Encounter>> consumer);
+	
 	/**
 	 * Return the number of encounters matching a patient name or patient identifier
 	 * 
@@ -9,6 +9,7 @@
  */
 package org.openmrs.api;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -129,6 +130,35 @@ public interface ObsService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.ADD_OBS, PrivilegeConstants.EDIT_OBS })
 	public Obs saveObs(Obs obs, String changeMessage) throws APIException;
 	
+	/**
+	 * Saves the changes made to several obs at once, like {@link #saveObs(Obs, String)} does for each
+	 * of them: every changed obs is written to the database as a new obs which points back to the
+	 * changed one via its previousVersion field and the changed obs is voided with changeMessage as
+	 * the void reason. Changed members of unchanged obs groups are revised the same way and their new
+	 * revisions are added to the group. New and voided obs are saved as they are.
+	 * <p>
+	 * Unlike calling {@link #saveObs(Obs, String)} for each obs, the changed obs are not evicted and
+	 * fetched again, the statuses of all changed obs are read with one query and all changed obs are
+	 * voided with one update statement. The changed obs are left read only in the session. The void
+	 * handlers are run on the changed obs, but {@link #voidObs(Obs, String)} is not called for them so
+	 * advice around it doesn't apply, and since the update statement bypasses the session no hibernate
+	 * interceptors or event listeners are notified of the voided obs.
+	 * 
+	 * @param obsToRevise the obs to save
+	 * @param changeMessage String explaining why the obs are being changed
+	 * @return the saved obs in the order they were passed, i.e. the new revision of every changed obs
+	 *         and the passed obs otherwise
+	 * @throws APIException if changeMessage is blank
+	 * <strong>Should</strong> create a new revision of each changed obs and void the changed obs
+	 * <strong>Should</strong> revise changed members of an unchanged obs group
+	 * <strong>Should</strong> not void an obs with no changes
+	 * <strong>Should</strong> fail if changeMessage is blank
+	 * <strong>Should</strong> run the void handlers on the voided obs and their members
+	 * @since 3.0.0
+	 */
+	@Authorized( { PrivilegeConstants.ADD_OBS, PrivilegeConstants.EDIT_OBS })
+	public List<Obs> reviseObs(Collection<Obs> obsToRevise, String changeMessage) throws APIException;
+	
 	/**
 	 * Equivalent to deleting an observation
 	 * 
@@ -348,6 +348,18 @@ public interface OrderService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.ADD_ORDERS)
 	public Long getNextOrderNumberSeedSequenceValue();
 	
+	/**
+	 * Reserves a block of consecutive order number seeds in a single short transaction, the seeds in
+	 * the block can then be assigned without going back to the database.
+	 * 
+	 * @param count the number of seeds to reserve
+	 * @return the first seed in the reserved block
+	 * @since 3.0.0
+	 * <strong>Should</strong> advance the next order number seed by the number of reserved seeds
+	 */
+	@Authorized(PrivilegeConstants.ADD_ORDERS)
+	public Long reserveOrderNumberSeedSequenceValues(int count);
+	
 	/**
 	 * Gets the order matching the specified order number and its previous orders in the ordering
 	 * they occurred, i.e if this order has a previous order, fetch it and if it also has a previous
@@ -24,6 +24,7 @@ import org.openmrs.PatientProgram;
 import org.openmrs.annotation.Authorized;
 import org.openmrs.api.db.PatientDAO;
 import org.openmrs.comparator.PatientIdentifierTypeDefaultComparator;
+import org.openmrs.patient.DuplicatePatientSearch;
 import org.openmrs.patient.IdentifierValidator;
 import org.openmrs.person.PersonMergeLogData;
 import org.openmrs.serialization.SerializationException;
@@ -491,6 +492,39 @@ public interface PatientService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.GET_PATIENTS })
 	public List<Patient> getDuplicatePatientsByAttributes(List<String> attributes) throws APIException;
 	
+	/**
+	 * Scans the next patients of the given search for duplicates. Once all patients were scanned, the
+	 * search is completed so that its duplicates can be fetched with
+	 * {@link #getDuplicatePatients(DuplicatePatientSearch, int, int)}. Unlike
+	 * {@link #getDuplicatePatientsByAttributes(List)}, patients are matched on blocking keys made while
+	 * scanning the patients once, names are matched by their Soundex codes.
+	 * 
+	 * @param search the search to continue
+	 * @param maxPatients the maximum number of patients to scan
+	 * @return true if there are more patients to scan, false once the search is complete
+	 * <strong>Should</strong> complete the search after all patients were scanned
+	 * <strong>Should</strong> resume the search after the last scanned patient
+	 * @since 3.0.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_PATIENTS })
+	public boolean scanForDuplicatePatients(DuplicatePatientSearch search, int maxPatients) throws APIException;
+	
+	/**
+	 * Gets a page of the groups of patients found by a complete search for duplicate patients
+	 * 
+	 * @param search the complete search
+	 * @param startIndex the index of the first group to return
+	 * @param length the maximum number of groups to return
+	 * @return the groups of patients that are likely duplicates of each other
+	 * @throws APIException if the search is not complete
+	 * <strong>Should</strong> return patients that match on the soundex of their names
+	 * <strong>Should</strong> return the groups of the given page
+	 * @since 3.0.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_PATIENTS })
+	public List<List<Patient>> getDuplicatePatients(DuplicatePatientSearch search, int startIndex, int length)
+	        throws APIException;
+	
 	/**
 	 * Convenience method to join two patients' information into one record.
 	 * <ol>
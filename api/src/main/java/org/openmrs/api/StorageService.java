@@ -14,6 +14,8 @@ import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.openmrs.api.stream.StreamDataWriter;
 import org.openmrs.api.storage.ObjectMetadata;
 
@@ -40,6 +42,37 @@ public interface StorageService extends OpenmrsService {
 	 */
 	InputStream getData(String key) throws IOException;
 
+	/**
+	 * Get InputStream to read a range of the data for the given key.
+	 * <p>
+	 * The stream ends early if the data ends before the range, it is empty if the range starts after the
+	 * end of the data. Data is immutable so ranges read one after another belong together as long as the
+	 * {@link ObjectMetadata#getEntityTag()} of the key stays the same.
+	 * <p>
+	 * The default implementation skips the data before the range, implementations should override it to
+	 * start reading at the offset.
+	 *
+	 * @param key unique key
+	 * @param offset the position of the first byte to read
+	 * @param length the maximum number of bytes to read
+	 * @return data
+	 * @throws IOException wrong key or IO error
+	 * @since 3.0.0
+	 */
+	default InputStream getData(String key, long offset, long length) throws IOException {
+		if (offset < 0 || length < 0) {
+			throw new IllegalArgumentException("Offset and length must not be negative, got offset " + offset 
+				+ " and length " + length);
+		}
+		InputStream in = getData(key);
+		try {
+			IOUtils.skip(in, offset);
+			return BoundedInputStream.builder().setInputStream(in).setMaxCount(length).get();
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
 
 	/**
 	 * Get InputStream to read temporary data for the given key.
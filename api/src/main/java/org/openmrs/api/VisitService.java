@@ -393,4 +393,25 @@ public interface VisitService extends OpenmrsService {
 	 */
 	@Authorized(PrivilegeConstants.EDIT_VISITS)
 	public void stopVisits(Date maximumStartDate);
+	
+	/**
+	 * Stops the next active visits after the visit with the specified id which were started before or
+	 * on the specified date and match any of the visit types specified by the
+	 * {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE} global property. The visits are stopped in
+	 * the order of their ids, so calling this method again with the last of the returned ids stops
+	 * the next chunk of visits. The stopped visits are flushed and evicted from the session.
+	 * 
+	 * @param maximumStartDate Visits started on or before this date time value will get stopped, if
+	 *            null the current date time is used
+	 * @param lastVisitId the id of the last visit stopped by the previous call, null to start with
+	 *            the first active visit
+	 * @param maxVisits the maximum number of visits to stop
+	 * @return the ids of the stopped visits in ascending order, an empty list if there are no more
+	 *         visits to stop
+	 * <strong>Should</strong> close the next unvoided active visits matching the specified visit types
+	 * <strong>Should</strong> return an empty list if there are no more visits to stop
+	 * @since 3.0.0
+	 */
+	@Authorized(PrivilegeConstants.EDIT_VISITS)
+	public List<Integer> stopVisits(Date maximumStartDate, Integer lastVisitId, int maxVisits);
 }
@@ -1430,6 +1430,51 @@ public class Context {
 		getContextDAO().updateSearchIndexForType(type);
 	}
 
+	/**
+	 * Updates the search index for the objects of the given type that match the given restriction,
+	 * for instance only the attributes of one attribute type. Unlike
+	 * {@link #updateSearchIndexForType(Class)} the index is not purged, the existing documents are
+	 * replaced as the objects are re-indexed, so searches keep finding them meanwhile.
+	 * <p>
+	 * The objects are re-indexed in the current transaction, so they are found by the searches run
+	 * later in the transaction. Use {@link #updateSearchIndexForType(Class, String, Map, boolean)} to
+	 * re-index many objects after the transaction is committed instead.
+	 *
+	 * @param type the type of the objects to re-index
+	 * @param restriction an HQL condition on the properties of the type the objects must match, for
+	 *            instance {@code attributeType.personAttributeTypeId = :attributeTypeId}, null to
+	 *            re-index all objects of the type
+	 * @param parameters the values of the named parameters of the restriction
+	 * @since 3.0.0
+	 */
+	public static void updateSearchIndexForType(Class<?> type, String restriction, Map<String, Object> parameters) {
+		getContextDAO().updateSearchIndexForType(type, restriction, parameters, false);
+	}
+
+	/**
+	 * Updates the search index for the objects of the given type that match the given restriction
+	 * like {@link #updateSearchIndexForType(Class, String, Map)}, optionally once the current
+	 * transaction is committed.
+	 * <p>
+	 * After commit the objects are re-indexed in partitions of ids on several threads with sessions
+	 * of their own, which suits re-indexing many objects, but searches in the transaction do not see
+	 * the re-indexed objects. The last re-indexed id is saved in the application data directory
+	 * after each partition, so if a re-index fails, calling this method again with the same arguments
+	 * carries on after the last completed partition.
+	 *
+	 * @param type the type of the objects to re-index
+	 * @param restriction an HQL condition on the properties of the type the objects must match, null
+	 *            to re-index all objects of the type
+	 * @param parameters the values of the named parameters of the restriction
+	 * @param afterCommit true to re-index the objects once the current transaction is committed,
+	 *            false to re-index them in the current transaction
+	 * @since 3.0.0
+	 */
+	public static void updateSearchIndexForType(Class<?> type, String restriction, Map<String, Object> parameters,
+	        boolean afterCommit) {
+		getContextDAO().updateSearchIndexForType(type, restriction, parameters, afterCommit);
+	}
+
 	/**
 	 * Updates the search index for objects of the given types using mass indexer.
 	 * 
@@ -27,7 +27,9 @@ import org.openmrs.module.DaemonToken;
 import org.openmrs.module.Module;
 import org.openmrs.module.ModuleException;
 import org.openmrs.module.ModuleFactory;
+import org.openmrs.module.ModuleStartupExecutor;
 import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.executor.ExecutorSchedulerTask;
 import org.openmrs.scheduler.timer.TimerSchedulerTask;
 import org.openmrs.util.OpenmrsSecurityManager;
 import org.openmrs.util.OpenmrsThreadPoolHolder;
@@ -185,6 +187,74 @@ public final class Daemon {
 		}
 	}
 	
+	/**
+	 * Executes the given task in the current thread authenticated as the daemon user, so the task
+	 * runs on the thread its scheduler started for it, e.g. a virtual thread, instead of blocking
+	 * that thread while a daemon thread runs it. <br>
+	 * <br>
+	 * This can only be called from {@link ExecutorSchedulerTask} during actual task execution
+	 *
+	 * @param task the task to run
+	 * <strong>Should</strong> not be called from other methods other than ExecutorSchedulerTask
+	 * <strong>Should</strong> run the task in the current thread as the daemon user
+	 * @since 3.0.0
+	 */
+	public static void executeScheduledTaskInCurrentThread(final Task task) {
+		// quick check to make sure we're only being called by ourselves
+		Class<?> callerClass = new OpenmrsSecurityManager().getCallerClass(0);
+		if (!ExecutorSchedulerTask.class.isAssignableFrom(callerClass)) {
+			throw new APIException("Scheduler.executor.task.only", new Object[] { callerClass.getName() });
+		}
+		
+		isDaemonThread.set(true);
+		try {
+			Context.openSession();
+			TimerSchedulerTask.execute(task);
+		}
+		finally {
+			try {
+				Context.closeSession();
+			} finally {
+				isDaemonThread.remove();
+				daemonThreadUser.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Runs the given step of starting a module in the current thread authenticated as the daemon
+	 * user, so the modules started by a daemon thread can be started concurrently on the threads of
+	 * the {@link ModuleStartupExecutor}. <br>
+	 * <br>
+	 * This can only be called from {@link ModuleStartupExecutor} on behalf of a daemon thread
+	 *
+	 * @param step the step to run
+	 * <strong>Should</strong> not be called from other methods other than ModuleStartupExecutor
+	 * <strong>Should</strong> run the step in the current thread as the daemon user
+	 * @since 3.0.0
+	 */
+	public static void runModuleStartupStepInCurrentThread(final Runnable step) {
+		// quick check to make sure we're only being called by ourselves
+		Class<?> callerClass = new OpenmrsSecurityManager().getCallerClass(0);
+		if (callerClass != ModuleStartupExecutor.class) {
+			throw new APIException("Module.startup.executor.only", new Object[] { callerClass.getName() });
+		}
+		
+		isDaemonThread.set(true);
+		try {
+			Context.openSession();
+			step.run();
+		}
+		finally {
+			try {
+				Context.closeSession();
+			} finally {
+				isDaemonThread.remove();
+				daemonThreadUser.remove();
+			}
+		}
+	}
+	
 	/**
 	 * Call this method if you are inside a Daemon thread (for example in a Module activator or a
 	 * scheduled task) and you want to start up a new parallel Daemon thread. You may only call this
@@ -0,0 +1,159 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.context;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmrs.Privilege;
+import org.openmrs.Role;
+import org.openmrs.User;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The privileges a user ends up with once all their roles, the roles those inherit from and the
+ * Authenticated and Anonymous roles are taken into account. The privileges are kept as a
+ * {@link BitSet} over a dictionary that gives every privilege name that was ever looked at a fixed
+ * index, so checking a privilege doesn't have to walk the roles of the user.
+ * <p>
+ * All instances become stale whenever {@link #invalidateAll()} is called, which happens when a
+ * user, role or privilege is saved or purged and when roles or privileges are added to or removed
+ * from a user or role, {@link UserContext} then computes the privileges of its user again.
+ *
+ * @since 3.0.0
+ */
+public final class EffectivePrivileges {
+
+	/**
+	 * The index of each privilege name, the lower case names are the ones that get an index and any
+	 * other spelling that was looked up is added as an alias for it
+	 */
+	private static final Map<String, Integer> dictionary = new ConcurrentHashMap<>();
+
+	private static final AtomicInteger nextIndex = new AtomicInteger();
+
+	private static final AtomicLong generation = new AtomicLong();
+
+	private static final Object INVALIDATED_IN_TRANSACTION_KEY = EffectivePrivileges.class.getName() + ".invalidated";
+
+	private final User user;
+
+	private final boolean superUser;
+
+	private final BitSet privileges;
+
+	private final long computedInGeneration;
+
+	private EffectivePrivileges(User user, boolean superUser, BitSet privileges, long computedInGeneration) {
+		this.user = user;
+		this.superUser = superUser;
+		this.privileges = privileges;
+		this.computedInGeneration = computedInGeneration;
+	}
+
+	/**
+	 * Computes the privileges granted by the given roles, the roles are not expanded to their parents
+	 * so the caller has to pass them all
+	 *
+	 * @param user the user the privileges are computed for, null if no user is authenticated
+	 * @param superUser whether the user is a super user and hence has all privileges
+	 * @param roles all roles of the user
+	 * @return the effective privileges
+	 */
+	static EffectivePrivileges compute(User user, boolean superUser, Collection<Role> roles) {
+		// the generation is read first so that an invalidation while computing makes the result stale
+		long computedInGeneration = generation.get();
+		BitSet privileges = new BitSet(dictionary.size());
+		for (Role role : roles) {
+			if (role == null || role.getPrivileges() == null) {
+				continue;
+			}
+			for (Privilege privilege : role.getPrivileges()) {
+				if (privilege != null && privilege.getPrivilege() != null) {
+					privileges.set(register(privilege.getPrivilege()));
+				}
+			}
+		}
+		return new EffectivePrivileges(user, superUser, privileges, computedInGeneration);
+	}
+
+	/**
+	 * @param privilege the name of the privilege, it is compared case insensitively like
+	 *            {@link Role#hasPrivilege(String)} does
+	 * @return true if the privilege is granted
+	 */
+	boolean hasPrivilege(String privilege) {
+		if (superUser) {
+			return true;
+		}
+		Integer index = indexOf(privilege);
+		return index != null && privileges.get(index);
+	}
+
+	/**
+	 * @param currentUser the user the privileges are needed for
+	 * @return true if these privileges were computed for the given user and nothing changed since
+	 */
+	boolean isCurrent(User currentUser) {
+		return user == currentUser && computedInGeneration == generation.get();
+	}
+
+	/**
+	 * Marks the effective privileges of all users as stale. When called in a transaction, they are
+	 * marked as stale again once the transaction completes since other threads may have computed
+	 * them from the data that was committed before.
+	 */
+	public static void invalidateAll() {
+		generation.incrementAndGet();
+		if (TransactionSynchronizationManager.isSynchronizationActive()
+		        && !TransactionSynchronizationManager.hasResource(INVALIDATED_IN_TRANSACTION_KEY)) {
+			TransactionSynchronizationManager.bindResource(INVALIDATED_IN_TRANSACTION_KEY, Boolean.TRUE);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(INVALIDATED_IN_TRANSACTION_KEY);
+					generation.incrementAndGet();
+				}
+			});
+		}
+	}
+
+	private static Integer indexOf(String privilege) {
+		if (privilege == null) {
+			return null;
+		}
+		Integer index = dictionary.get(privilege);
+		if (index == null) {
+			index = dictionary.get(privilege.toLowerCase(Locale.ROOT));
+			if (index != null) {
+				// remember the spelling so that it is found right away next time
+				dictionary.putIfAbsent(privilege, index);
+			}
+		}
+		return index;
+	}
+
+	private static int register(String privilege) {
+		Integer index = indexOf(privilege);
+		if (index != null) {
+			return index;
+		}
+		index = dictionary.computeIfAbsent(privilege.toLowerCase(Locale.ROOT), key -> nextIndex.getAndIncrement());
+		dictionary.putIfAbsent(privilege, index);
+		return index;
+	}
+}
@@ -81,7 +81,7 @@ public class ServiceContext implements ApplicationContextAware {
 
 	private ApplicationContext applicationContext;
 	
-	private static boolean refreshingContext = false;
+	private static volatile boolean refreshingContext = false;
 	
 	private static final Object refreshingContextLock = new Object();
 	
@@ -91,8 +91,11 @@ public class ServiceContext implements ApplicationContextAware {
 	 */
 	private boolean useSystemClassLoader = false;
 	
-	// Cached service objects
-	Map<Class, Object> services = new HashMap<>();
+	/**
+	 * Cached service objects, the map is never modified once it is published, {@link #setService(Class, Object)}
+	 * publishes a modified copy instead so that {@link #getService(Class)} can read it without locking
+	 */
+	volatile Map<Class, Object> services = Collections.emptyMap();
 	
 	// Advisors added to services by this service
 	Map<Class, Set<Advisor>> addedAdvisors = new HashMap<>();
@@ -156,10 +159,7 @@ public class ServiceContext implements ApplicationContextAware {
 				ServiceContextHolder.instance.removeAddedAOP(serviceClass);
 			}
 			
-			if (ServiceContextHolder.instance.services != null) {
-				ServiceContextHolder.instance.services.clear();
-				ServiceContextHolder.instance.services = null;
-			}
+			ServiceContextHolder.instance.services = null;
 			
 			if (ServiceContextHolder.instance.addedAdvisors != null) {
 				ServiceContextHolder.instance.addedAdvisors.clear();
@@ -673,6 +673,15 @@ public class ServiceContext implements ApplicationContextAware {
 			log.trace("Getting service: " + cls);
 		}
 		
+		// the services are published as a map that is never modified, so unless the context is
+		// refreshing they can be read without taking the lock
+		if (!refreshingContext) {
+			Object service = services.get(cls);
+			if (service != null) {
+				return (T) service;
+			}
+		}
+		
 		// if the context is refreshing, wait until it is
 		// done -- otherwise a null service might be returned
 		synchronized (refreshingContextLock) {
@@ -733,7 +742,7 @@ public class ServiceContext implements ApplicationContextAware {
 						moveAddedAOP(cachedService, advisedService);
 					}
 					
-					services.put(cls, advisedService);
+					publishService(cls, advisedService);
 				}
 				log.debug("Service: {} set successfully", cls);
 			}
@@ -745,6 +754,19 @@ public class ServiceContext implements ApplicationContextAware {
 		}
 	}
 	
+	/**
+	 * Publishes a copy of the services with the given service added, readers see either the old or
+	 * the new services but never a map that is being modified
+	 *
+	 * @param cls the service interface
+	 * @param service the service proxy
+	 */
+	private synchronized void publishService(Class<?> cls, Object service) {
+		Map<Class, Object> newServices = new HashMap<>(services);
+		newServices.put(cls, service);
+		services = Collections.unmodifiableMap(newServices);
+	}
+	
 	/**
 	 * Allow other services to be added to our service layer <br>
 	 * <br>
@@ -10,12 +10,11 @@
 package org.openmrs.api.context;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmrs.Location;
@@ -57,9 +56,15 @@ public class UserContext implements Serializable {
 	private User user = null;
 	
 	/**
-	 * User's permission proxies
+	 * User's permission proxies along with how many times each of them was added
 	 */
-	private List<String> proxies = Collections.synchronizedList(new ArrayList<>());
+	private Map<String, Integer> proxies = new ConcurrentHashMap<>();
+	
+	/**
+	 * The privileges of the user computed from their roles, they are computed on the first privilege
+	 * check after the user changed or the roles or privileges were modified
+	 */
+	private transient volatile EffectivePrivileges effectivePrivileges = null;
 	
 	/**
 	 * User's locale
@@ -246,7 +251,7 @@ public class UserContext implements Serializable {
 		
 		log.debug("Adding proxy privilege: {}", privilege);
 		
-		proxies.add(privilege);
+		proxies.merge(privilege, 1, Integer::sum);
 	}
 	
 	/**
@@ -256,7 +261,9 @@ public class UserContext implements Serializable {
 	 */
 	public void removeProxyPrivilege(String privilege) {
 		log.debug("Removing proxy privilege: {}", privilege);
-		proxies.remove(privilege);
+		if (privilege != null) {
+			proxies.computeIfPresent(privilege, (key, count) -> count > 1 ? count - 1 : null);
+		}
 	}
 	
 	/**
@@ -331,31 +338,54 @@ public class UserContext implements Serializable {
 	public boolean hasPrivilege(String privilege) {
 		log.debug("Checking '{}' against proxies: {}", privilege, proxies);
 		// check proxied privileges
-		for (String s : new ArrayList<>(proxies)) {
-			if (s.equals(privilege)) {
-				notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-				return true;
-			}
-		}
-		
-		// if a user has logged in, check their privileges
-		if (isAuthenticated()
-			&& (getAuthenticatedUser().hasPrivilege(privilege) || getAuthenticatedRole().hasPrivilege(privilege))) {
-			
-			// check user's privileges
+		if (privilege != null && proxies.containsKey(privilege)) {
 			notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
 			return true;
-			
 		}
 		
-		if (getAnonymousRole().hasPrivilege(privilege)) {
-			notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-			return true;
+		// all authenticated users have the "" (empty) privilege
+		boolean hasPrivilege;
+		if (StringUtils.isEmpty(privilege)) {
+			hasPrivilege = isAuthenticated();
+		} else {
+			hasPrivilege = getEffectivePrivileges().hasPrivilege(privilege);
+		}
+		
+		notifyPrivilegeListeners(getAuthenticatedUser(), privilege, hasPrivilege);
+		return hasPrivilege;
+	}
+	
+	/**
+	 * Gets the privileges of the authenticated user, including the ones of the Authenticated and
+	 * Anonymous roles, computing them again if the user changed or roles or privileges were modified
+	 * since they were last computed
+	 *
+	 * @return the effective privileges
+	 */
+	private EffectivePrivileges getEffectivePrivileges() {
+		User currentUser = getAuthenticatedUser();
+		EffectivePrivileges privileges = effectivePrivileges;
+		if (privileges != null && privileges.isCurrent(currentUser)) {
+			return privileges;
 		}
 		
-		// default return value
-		notifyPrivilegeListeners(getAuthenticatedUser(), privilege, false);
-		return false;
+		if (privileges != null) {
+			// the cached roles may have been modified as well
+			anonymousRole = null;
+			authenticatedRole = null;
+		}
+		
+		Set<Role> roles = new HashSet<>();
+		roles.add(getAnonymousRole());
+		boolean superUser = false;
+		if (currentUser != null) {
+			roles.addAll(currentUser.getAllRoles());
+			roles.add(getAuthenticatedRole());
+			superUser = currentUser.isSuperUser();
+		}
+		privileges = EffectivePrivileges.compute(currentUser, superUser, roles);
+		effectivePrivileges = privileges;
+		return privileges;
 	}
 	
 	/**
@@ -321,6 +321,20 @@ public interface ConceptDAO {
 	 */
 	public Iterator<Concept> conceptIterator();
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#conceptIterators(int)
+	 * @since 3.0.0
+	 */
+	public Iterator<Concept> conceptIterator(Integer fromConceptId, Integer toConceptId);
+	
+	/**
+	 * @param parts the number of ranges to split the concepts into
+	 * @return the smallest concept id of each range, in order, ranges holding about the same number of
+	 *         concepts, less than the given number of ids if there are less concepts
+	 * @since 3.0.0
+	 */
+	public List<Integer> getConceptIdRangeStarts(int parts);
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptsByMapping(java.lang.String, java.lang.String)
 	 * 
@@ -11,6 +11,7 @@ package org.openmrs.api.db;
 
 import java.sql.Connection;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Future;
 
@@ -203,6 +204,13 @@ public interface ContextDAO {
 	 * @see Context#updateSearchIndexForType(Class)
 	 */
 	public void updateSearchIndexForType(Class<?> type);
+	
+	/**
+	 * @see Context#updateSearchIndexForType(Class, String, Map, boolean)
+	 * @since 3.0.0
+	 */
+	public void updateSearchIndexForType(Class<?> type, String restriction, Map<String, Object> parameters,
+	        boolean afterCommit);
 
 	/**
 	 * @see Context#updateSearchIndex(Class[])
@@ -12,6 +12,7 @@ package org.openmrs.api.db;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.openmrs.Cohort;
 import org.openmrs.Encounter;
@@ -168,6 +169,11 @@ public interface EncounterDAO {
 	 */
 	public Map<Integer, List<Encounter>> getAllEncounters(Cohort patients);
 	
+	/**
+	 * @see EncounterService#forEachPatientEncounters(Cohort, BiConsumer)
+	 */
+	public void forEachPatientEncounters(Cohort patients, BiConsumer<Integer, List<Encounter>> consumer);
+	
 	/**
 	 * Return the number of encounters matching a patient name or patient identifier
 	 * 
@@ -9,8 +9,10 @@
  */
 package org.openmrs.api.db;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
@@ -19,6 +21,7 @@ import org.openmrs.Location;
 import org.openmrs.Obs;
 import org.openmrs.ObsReferenceRange;
 import org.openmrs.Person;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.api.ObsService;
 import org.openmrs.util.OpenmrsConstants.PERSON_TYPE;
@@ -88,6 +91,31 @@ public interface ObsDAO {
 	 * @since 2.1.0
 	 */
 	public Obs.Status getSavedStatus(Obs obs);
+	
+	/**
+	 * Gets the values of status currently saved in the database for the given obs with one query,
+	 * bypassing any caches.
+	 * 
+	 * @param obsIds the ids of the obs
+	 * @return the saved status of each obs keyed by its id
+	 * @since 3.0.0
+	 */
+	public Map<Integer, Obs.Status> getSavedStatuses(Collection<Integer> obsIds);
+	
+	/**
+	 * Voids the given obs with one update statement. The obs are made read only in the current session
+	 * beforehand, so any other changes made to them are not written to the database, which is what is
+	 * needed when the changes were saved as new revisions of the obs. The obs objects themselves are
+	 * left as they are, it is up to the caller to run the void handlers on them. Since the rows are
+	 * updated directly, no hibernate interceptors or event listeners are notified of the update.
+	 * 
+	 * @param obsToVoid the saved obs to void
+	 * @param voidedBy the user voiding the obs
+	 * @param dateVoided the date the obs are voided
+	 * @param voidReason the void reason
+	 * @since 3.0.0
+	 */
+	public void voidRevisedObs(Collection<Obs> obsToVoid, User voidedBy, Date dateVoided, String voidReason);
 
 	/**
 	 * @see org.openmrs.api.ObsService#getObservations(java.util.List, java.util.List,
@@ -105,6 +105,11 @@ public interface OrderDAO {
 	 */
 	public Long getNextOrderNumberSeedSequenceValue();
 	
+	/**
+	 * @see org.openmrs.api.OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	public Long reserveOrderNumberSeedSequenceValues(int count);
+	
 	/**
 	 * @see org.openmrs.api.OrderService#getActiveOrders(org.openmrs.Patient, org.openmrs.OrderType,
 	 *      org.openmrs.CareSetting, java.util.Date)
@@ -9,6 +9,7 @@
  */
 package org.openmrs.api.db;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.openmrs.Allergies;
@@ -186,6 +187,40 @@ public interface PatientDAO {
 	 */
 	public List<Patient> getDuplicatePatientsByAttributes(List<String> attributes) throws DAOException;
 	
+	/**
+	 * Gets the ids of the patients following the given one in ascending order
+	 * 
+	 * @param lastPatientId the id of the patient preceding the ones to get, null to start with the
+	 *            first patient
+	 * @param maxResults the maximum number of ids to return
+	 * @param includeVoided whether voided patients are included
+	 * @return the patient ids
+	 * @since 3.0.0
+	 */
+	public List<Integer> getPatientIds(Integer lastPatientId, int maxResults, boolean includeVoided)
+	        throws DAOException;
+	
+	/**
+	 * Gets the values duplicate patients are found by for the given patients, one row for every
+	 * unvoided name and unvoided identifier of a patient holding the patient id, gender, birthdate,
+	 * given name, middle name, family name and identifier.
+	 * 
+	 * @param patientIds the ids of the patients
+	 * @return the values of the patients
+	 * @see org.openmrs.patient.DuplicatePatientSearch
+	 * @since 3.0.0
+	 */
+	public List<Object[]> getDuplicatePatientValues(Collection<Integer> patientIds) throws DAOException;
+	
+	/**
+	 * Gets the patients with the given ids with one query
+	 * 
+	 * @param patientIds the ids of the patients
+	 * @return the patients in no particular order
+	 * @since 3.0.0
+	 */
+	public List<Patient> getPatientsByIds(Collection<Integer> patientIds) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.api.PatientService#isIdentifierInUseByAnotherPatient(PatientIdentifier)
 	 */
@@ -169,4 +169,19 @@ public interface VisitDAO {
 	 */
 	public Visit getNextVisit(Visit previousVisit, Collection<VisitType> visitTypes, Date maximumStartDate);
 	
+	/**
+	 * Gets the next active visits which match the specified visit types in the order of their ids
+	 * 
+	 * @param lastVisitId the id of the visit that precedes the ones we are fetching, null to start at
+	 *            the first visit
+	 * @param visitTypes a collection of visit types to match against
+	 * @param maximumStartDate the next visits should have been created before or at this date time
+	 * @param maxResults the maximum number of visits to return
+	 * @return the visits
+	 * <strong>Should</strong> return the next unvoided active visits matching the specified types and startDate
+	 * @since 3.0.0
+	 */
+	public List<Visit> getNextVisits(Integer lastVisitId, Collection<VisitType> visitTypes, Date maximumStartDate,
+	        int maxResults);
+	
 }
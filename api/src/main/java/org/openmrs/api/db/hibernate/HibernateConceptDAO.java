@@ -25,6 +25,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
@@ -92,6 +93,11 @@ public class HibernateConceptDAO implements ConceptDAO {
 	
 	private static final Logger log = LoggerFactory.getLogger(HibernateConceptDAO.class);
 	
+	/**
+	 * The number of concepts the concept iterator fetches at once
+	 */
+	private static final int CONCEPT_ITERATOR_CHUNK_SIZE = 100;
+	
 	private SessionFactory sessionFactory;
 	
 	private SearchSessionFactory searchSessionFactory;
@@ -605,10 +611,10 @@ public class HibernateConceptDAO implements ConceptDAO {
 			locale = loc;
 		}
 
-		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(ConceptName.class, f -> 
+		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(ConceptName.class, f -> 
 			newConceptNamePredicate(f, name, !searchOnPhrase, Collections.singletonList(locale),
 				false, false, classes, null, datatypes, null, null),
-			"concept.conceptId", ConceptName::getConcept));
+			"concept.conceptId", Concept.class));
 	}
 	
 	private LinkedHashSet<Concept> transformNamesToConcepts(List<ConceptName> names) {
@@ -1046,21 +1052,62 @@ public class HibernateConceptDAO implements ConceptDAO {
 	 */
 	@Override
 	public Iterator<Concept> conceptIterator() {
-		return new ConceptIterator();
+		return new ConceptIterator(null, null);
 	}
 	
 	/**
-	 * An iterator that loops over all concepts in the dictionary one at a time
+	 * @see org.openmrs.api.db.ConceptDAO#conceptIterator(Integer, Integer)
+	 */
+	@Override
+	public Iterator<Concept> conceptIterator(Integer fromConceptId, Integer toConceptId) {
+		return new ConceptIterator(fromConceptId, toConceptId);
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ConceptDAO#getConceptIdRangeStarts(int)
+	 */
+	@Override
+	public List<Integer> getConceptIdRangeStarts(int parts) {
+		Session session = sessionFactory.getCurrentSession();
+		long count = session.createQuery("select count(*) from Concept", Long.class).uniqueResult();
+		
+		List<Integer> starts = new ArrayList<>(parts);
+		for (int i = 0; i < parts; i++) {
+			int position = (int) (count * i / parts);
+			List<Integer> conceptIds = session.createQuery("select c.conceptId from Concept c order by c.conceptId",
+			    Integer.class).setFirstResult(position).setMaxResults(1).list();
+			if (!conceptIds.isEmpty() && !starts.contains(conceptIds.get(0))) {
+				starts.add(conceptIds.get(0));
+			}
+		}
+		return starts;
+	}
+	
+	/**
+	 * An iterator that loops over the concepts in the dictionary in chunks ordered by concept id. The
+	 * names, descriptions, answers, set members and mappings of all concepts of a chunk are fetched
+	 * together in a query per collection and the concepts of a chunk are evicted from the session
+	 * when the next chunk is fetched.
 	 */
 	private class ConceptIterator implements Iterator<Concept> {
 		
-		Concept currentConcept = null;
+		private final Integer toConceptId;
+		
+		private Integer lastConceptId;
+		
+		private List<Concept> chunk = Collections.emptyList();
+		
+		private int index;
 		
-		Concept nextConcept;
+		private boolean lastChunk;
 		
-		public ConceptIterator() {
-			final int firstConceptId = getMinConceptId();
-			nextConcept = getConcept(firstConceptId);
+		/**
+		 * @param fromConceptId the smallest concept id to return or null to start with the first concept
+		 * @param toConceptId the largest concept id to return or null to end with the last concept
+		 */
+		public ConceptIterator(Integer fromConceptId, Integer toConceptId) {
+			this.lastConceptId = fromConceptId != null ? fromConceptId - 1 : null;
+			this.toConceptId = toConceptId;
 		}
 		
 		/**
@@ -1068,7 +1115,10 @@ public class HibernateConceptDAO implements ConceptDAO {
 		 */
 		@Override
 		public boolean hasNext() {
-			return nextConcept != null;
+			if (index >= chunk.size() && !lastChunk) {
+				fetchNextChunk();
+			}
+			return index < chunk.size();
 		}
 		
 		/**
@@ -1076,14 +1126,10 @@ public class HibernateConceptDAO implements ConceptDAO {
 		 */
 		@Override
 		public Concept next() {
-			if (currentConcept != null) {
-				sessionFactory.getCurrentSession().evict(currentConcept);
+			if (!hasNext()) {
+				throw new NoSuchElementException();
 			}
-			
-			currentConcept = nextConcept;
-			nextConcept = getNextConcept(currentConcept);
-			
-			return currentConcept;
+			return chunk.get(index++);
 		}
 		
 		/**
@@ -1094,8 +1140,44 @@ public class HibernateConceptDAO implements ConceptDAO {
 			throw new UnsupportedOperationException();
 		}
 		
+		private void fetchNextChunk() {
+			Session session = sessionFactory.getCurrentSession();
+			for (Concept concept : chunk) {
+				session.evict(concept);
+			}
+			
+			CriteriaBuilder cb = session.getCriteriaBuilder();
+			CriteriaQuery<Concept> cq = cb.createQuery(Concept.class);
+			Root<Concept> root = cq.from(Concept.class);
+			
+			List<Predicate> predicates = new ArrayList<>();
+			if (lastConceptId != null) {
+				predicates.add(cb.greaterThan(root.get("conceptId"), lastConceptId));
+			}
+			if (toConceptId != null) {
+				predicates.add(cb.lessThanOrEqualTo(root.get("conceptId"), toConceptId));
+			}
+			cq.where(predicates.toArray(new Predicate[] {}));
+			cq.orderBy(cb.asc(root.get("conceptId")));
+			
+			chunk = session.createQuery(cq).setMaxResults(CONCEPT_ITERATOR_CHUNK_SIZE).getResultList();
+			index = 0;
+			lastChunk = chunk.size() < CONCEPT_ITERATOR_CHUNK_SIZE;
+			if (chunk.isEmpty()) {
+				return;
+			}
+			lastConceptId = chunk.get(chunk.size() - 1).getConceptId();
+			
+			// fetching the concepts again with a collection initializes that collection for all of them, one
+			// collection per query so that the rows of different collections are not multiplied
+			for (String collection : new String[] { "names", "descriptions", "answers", "conceptSets",
+			        "conceptMappings" }) {
+				session.createQuery("select distinct c from Concept c left join fetch c." + collection
+				        + " where c in (:concepts)", Concept.class).setParameterList("concepts", chunk).list();
+			}
+		}
 	}
-
+	
 	/**
 	 * @see org.openmrs.api.db.ConceptDAO#getConceptsByMapping(String, String, boolean)
 	 */
@@ -1964,10 +2046,10 @@ public class HibernateConceptDAO implements ConceptDAO {
 		
 		boolean searchExactLocale = (exactLocale == null) ? false : exactLocale;
 		
-		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(ConceptName.class, f -> 
+		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(ConceptName.class, f -> 
 			newConceptNamePredicate(f, name, true, locales, searchExactLocale, false,
 			null, null, null, null, null), 
-			"concept.conceptId", ConceptName::getConcept));
+			"concept.conceptId", Concept.class));
 	}
 	
 	/**
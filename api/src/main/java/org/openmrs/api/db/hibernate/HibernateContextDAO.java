@@ -10,13 +10,20 @@
 package org.openmrs.api.db.hibernate;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -24,10 +31,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.hibernate.CacheMode;
 import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
 import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.massindexing.MassIndexer;
+import org.hibernate.search.mapper.orm.massindexing.MassIndexerReindexParameterStep;
 import org.hibernate.search.mapper.orm.session.SearchSession;
 import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
 import org.hibernate.stat.QueryStatistics;
@@ -42,6 +54,7 @@ import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.api.context.Daemon;
 import org.openmrs.api.db.ContextDAO;
 import org.openmrs.api.db.UserDAO;
+import org.openmrs.api.db.hibernate.search.SearchIndexOutbox;
 import org.openmrs.api.db.hibernate.search.session.SearchSessionFactory;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
@@ -52,6 +65,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.orm.hibernate5.SessionFactoryUtils;
 import org.springframework.orm.hibernate5.SessionHolder;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
@@ -67,6 +81,18 @@ public class HibernateContextDAO implements ContextDAO {
 	
 	private static final Long DEFAULT_UNLOCK_ACCOUNT_WAITING_TIME = TimeUnit.MILLISECONDS.convert(5L, TimeUnit.MINUTES);
 	
+	/**
+	 * The number of ids re-indexed at a time by {@link #updateSearchIndexForType(Class, String, Map, boolean)}
+	 */
+	private static final int REINDEX_PARTITION_SIZE = 50000;
+	
+	private static final int REINDEX_MAX_THREADS = 4;
+	
+	/**
+	 * The application data folder the checkpoints of the re-indexes run after commit are written to
+	 */
+	private static final String REINDEX_CHECKPOINT_DIRECTORY = "search_index_checkpoints";
+	
 	/**
 	 * Hibernate session factory
 	 */
@@ -75,6 +101,9 @@ public class HibernateContextDAO implements ContextDAO {
 	@Autowired
 	private SearchSessionFactory searchSessionFactory;
 	
+	@Autowired
+	private SearchIndexOutbox searchIndexOutbox;
+	
 	private UserDAO userDao;
 	
 	/**
@@ -561,6 +590,192 @@ public class HibernateContextDAO implements ContextDAO {
 		}
 	}
 
+	/**
+	 * @see org.openmrs.api.db.ContextDAO#updateSearchIndexForType(Class, String, Map, boolean)
+	 */
+	@Override
+	@Transactional
+	public void updateSearchIndexForType(Class<?> type, String restriction, Map<String, Object> parameters,
+	        boolean afterCommit) {
+		Map<String, Object> params = parameters != null ? parameters : Collections.emptyMap();
+		if (!afterCommit) {
+			reindexInTransaction(type, restriction, params);
+		} else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// the mass indexer reads in sessions of its own which only see committed changes
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				
+				@Override
+				public void afterCommit() {
+					reindex(type, restriction, params);
+				}
+			});
+		} else {
+			reindex(type, restriction, params);
+		}
+	}
+	
+	/**
+	 * Re-indexes the matching objects with the current session, so the changes of the current
+	 * transaction are indexed and searches later in the transaction find them. Nothing is purged,
+	 * the existing documents are replaced as the objects are re-indexed.
+	 */
+	private void reindexInTransaction(Class<?> type, String restriction, Map<String, Object> parameters) {
+		Session session = sessionFactory.getCurrentSession();
+		SearchIndexingPlan indexingPlan = searchSessionFactory.getSearchSession().indexingPlan();
+		
+		//Prepare session for batch work
+		session.flush();
+		indexingPlan.execute();
+		
+		Query<?> query = session.createQuery(
+		    "from " + type.getName() + (StringUtils.isBlank(restriction) ? "" : " where " + restriction), type);
+		parameters.forEach(query::setParameter);
+		
+		FlushMode flushMode = session.getHibernateFlushMode();
+		CacheMode cacheMode = session.getCacheMode();
+		try {
+			session.setHibernateFlushMode(FlushMode.MANUAL);
+			session.setCacheMode(CacheMode.IGNORE);
+			
+			try (ScrollableResults<?> results = query.setFetchSize(1000).scroll(ScrollMode.FORWARD_ONLY)) {
+				int index = 0;
+				while (results.next()) {
+					index++;
+					indexingPlan.addOrUpdate(results.get());
+					if (index % 1000 == 0) {
+						indexingPlan.execute();
+						session.clear();
+						index = 0;
+					}
+				}
+			}
+			finally {
+				indexingPlan.execute();
+				session.clear();
+			}
+		}
+		finally {
+			session.setHibernateFlushMode(flushMode);
+			session.setCacheMode(cacheMode);
+		}
+	}
+	
+	/**
+	 * Re-indexes the matching objects in partitions of {@link #REINDEX_PARTITION_SIZE} ids, each
+	 * partition is loaded on several threads with sessions of their own. Nothing is purged, the
+	 * existing documents are replaced as the new ones are written. The last re-indexed id is written
+	 * to a checkpoint file in the application data directory after each partition, so a re-index
+	 * that failed, even before a restart, carries on from there when it is run again.
+	 */
+	private void reindex(Class<?> type, String restriction, Map<String, Object> parameters) {
+		String idName = sessionFactory.unwrap(SessionFactoryImplementor.class).getRuntimeMetamodels()
+		        .getMappingMetamodel().getEntityDescriptor(type).getIdentifierPropertyName();
+		String condition = StringUtils.isBlank(restriction) ? "" : "(" + restriction + ") and ";
+		String checkpointKey = type.getName() + "|" + restriction + "|" + new TreeMap<>(parameters);
+		
+		Object[] range;
+		try (Session session = sessionFactory.openSession()) {
+			Query<Object[]> query = session.createQuery("select min(" + idName + "), max(" + idName + ") from "
+			        + type.getName() + (StringUtils.isBlank(restriction) ? "" : " where " + restriction), Object[].class);
+			parameters.forEach(query::setParameter);
+			range = query.uniqueResult();
+		}
+		if (range == null || range[0] == null) {
+			log.debug("No {} to re-index", type.getSimpleName());
+			return;
+		}
+		
+		Integer checkpoint = readReindexCheckpoint(checkpointKey);
+		long firstId = checkpoint != null ? checkpoint + 1L : ((Number) range[0]).longValue();
+		long maxId = ((Number) range[1]).longValue();
+		int threads = Math.min(REINDEX_MAX_THREADS, Runtime.getRuntime().availableProcessors());
+		long start = System.currentTimeMillis();
+		if (checkpoint != null) {
+			log.info("Resuming re-indexing {} after id {}", type.getSimpleName(), checkpoint);
+		}
+		
+		for (long from = firstId; from <= maxId; from += REINDEX_PARTITION_SIZE) {
+			int to = (int) Math.min(from + REINDEX_PARTITION_SIZE - 1, maxId);
+			MassIndexer massIndexer = searchSessionFactory.getSearchSession().massIndexer(type).purgeAllOnStart(false)
+			        .mergeSegmentsOnFinish(false).typesToIndexInParallel(1).threadsToLoadObjects(threads)
+			        .cacheMode(CacheMode.IGNORE);
+			MassIndexerReindexParameterStep step = massIndexer.type(type)
+			        .reindexOnly(condition + idName + " >= :reindexFromId and " + idName + " <= :reindexToId")
+			        .param("reindexFromId", (int) from).param("reindexToId", to);
+			for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+				step = step.param(parameter.getKey(), parameter.getValue());
+			}
+			
+			try {
+				massIndexer.startAndWait();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while re-indexing " + type.getSimpleName(), e);
+			}
+			writeReindexCheckpoint(checkpointKey, to);
+			log.debug("Re-indexed {} up to id {}", type.getSimpleName(), to);
+		}
+		
+		writeReindexCheckpoint(checkpointKey, null);
+		log.info("Re-indexed {} ids {} to {} in {} ms", type.getSimpleName(), firstId, maxId,
+		    System.currentTimeMillis() - start);
+	}
+	
+	/**
+	 * @param checkpointKey the type, restriction and parameters of the re-index
+	 * @return the last id re-indexed by an interrupted re-index with the given key, null if none
+	 */
+	private Integer readReindexCheckpoint(String checkpointKey) {
+		File checkpointFile = getReindexCheckpointFile(checkpointKey);
+		if (!checkpointFile.isFile()) {
+			return null;
+		}
+		Properties checkpoint = new Properties();
+		try (InputStream in = Files.newInputStream(checkpointFile.toPath())) {
+			checkpoint.load(in);
+		}
+		catch (IOException e) {
+			log.warn("Failed to read the re-index checkpoint {}, starting over", checkpointFile, e);
+			return null;
+		}
+		// different keys may have the same hash
+		if (!checkpointKey.equals(checkpoint.getProperty("key"))) {
+			return null;
+		}
+		return Integer.valueOf(checkpoint.getProperty("lastId"));
+	}
+	
+	/**
+	 * @param checkpointKey the type, restriction and parameters of the re-index
+	 * @param lastId the last re-indexed id, null to remove the checkpoint once the re-index is done
+	 */
+	private void writeReindexCheckpoint(String checkpointKey, Integer lastId) {
+		File checkpointFile = getReindexCheckpointFile(checkpointKey);
+		try {
+			if (lastId == null) {
+				Files.deleteIfExists(checkpointFile.toPath());
+				return;
+			}
+			Properties checkpoint = new Properties();
+			checkpoint.setProperty("key", checkpointKey);
+			checkpoint.setProperty("lastId", lastId.toString());
+			File tempFile = new File(checkpointFile.getParentFile(), checkpointFile.getName() + ".tmp");
+			try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+				checkpoint.store(out, null);
+			}
+			Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e) {
+			log.warn("Failed to write the re-index checkpoint {}", checkpointFile, e);
+		}
+	}
+	
+	private File getReindexCheckpointFile(String checkpointKey) {
+		return new File(OpenmrsUtil.getDirectoryInApplicationDataDirectory(REINDEX_CHECKPOINT_DIRECTORY),
+		        Integer.toHexString(checkpointKey.hashCode()) + ".checkpoint");
+	}
+	
 	@Override
 	@Transactional
 	public void updateSearchIndex(Class<?>... types) {
@@ -577,6 +792,10 @@ public class HibernateContextDAO implements ContextDAO {
 	@Override
 	@Transactional
 	public void updateSearchIndexForObject(Object object) {
+		if (searchIndexOutbox.isEnabled()) {
+			searchIndexOutbox.add(sessionFactory.getCurrentSession(), object);
+			return;
+		}
 		SearchIndexingPlan indexingPlan = searchSessionFactory.getSearchSession().indexingPlan();
 		indexingPlan.addOrUpdate(object);
 		indexingPlan.execute();
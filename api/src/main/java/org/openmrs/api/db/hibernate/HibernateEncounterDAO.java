@@ -16,21 +16,31 @@ import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
 import org.openmrs.Cohort;
 import org.openmrs.Encounter;
 import org.openmrs.EncounterProvider;
@@ -59,6 +69,12 @@ import org.openmrs.parameter.EncounterSearchCriteria;
  */
 public class HibernateEncounterDAO implements EncounterDAO {
 
+	/**
+	 * The number of patients whose encounters are loaded at a time for a cohort, it also keeps the
+	 * number of parameters of the IN clause below the limits of the databases
+	 */
+	private static final int PATIENT_CHUNK_SIZE = 1000;
+
 	/**
 	 * Hibernate session factory
 	 */
@@ -350,60 +366,139 @@ public class HibernateEncounterDAO implements EncounterDAO {
 	 */
 	@Override
 	public Map<Integer, List<Encounter>> getAllEncounters(Cohort patients) {
+		Map<Integer, List<Encounter>> encountersByPatient = new HashMap<>();
+		loadEncountersByPatient(patients, encountersByPatient::put, false);
+		return encountersByPatient;
+	}
+
+	/**
+	 * @see EncounterDAO#forEachPatientEncounters(Cohort, BiConsumer)
+	 */
+	@Override
+	public void forEachPatientEncounters(Cohort patients, BiConsumer<Integer, List<Encounter>> consumer) {
+		loadEncountersByPatient(patients, consumer, true);
+	}
+
+	/**
+	 * Loads the non voided encounters of the given patients in chunks of {@link #PATIENT_CHUNK_SIZE}
+	 * patients, the encounters of each chunk are scrolled through and passed to the consumer one
+	 * patient at a time in ascending patient id order.
+	 *
+	 * @param patients the patients to load the encounters for, null loads the encounters of all
+	 *            patients
+	 * @param consumer receives the id of each patient along with the patient's encounters
+	 * @param evict whether to evict the encounters of each chunk from the session once they are
+	 *            processed
+	 */
+	private void loadEncountersByPatient(Cohort patients, BiConsumer<Integer, List<Encounter>> consumer,
+	        boolean evict) {
 		Session session = sessionFactory.getCurrentSession();
+		List<Integer> sortedPatientIds = null;
+		if (patients != null) {
+			Set<Integer> patientIds = new TreeSet<>();
+			patients.getMemberships().forEach(m -> patientIds.add(m.getPatientId()));
+			sortedPatientIds = new ArrayList<>(patientIds);
+		}
+
+		int position = 0;
+		Integer lastPatientId = null;
+		while (true) {
+			List<Integer> chunk;
+			if (sortedPatientIds != null) {
+				chunk = sortedPatientIds.subList(position, Math.min(position + PATIENT_CHUNK_SIZE,
+				    sortedPatientIds.size()));
+				position += chunk.size();
+			} else {
+				chunk = getNextPatientIdsWithEncounters(session, lastPatientId);
+			}
+			if (chunk.isEmpty()) {
+				return;
+			}
+			lastPatientId = chunk.get(chunk.size() - 1);
+
+			Set<Object> alreadyLoaded = evict ? getEntitiesInSession(session) : null;
+			try (ScrollableResults<Encounter> results = createEncountersByPatientQuery(session, chunk)
+			        .scroll(ScrollMode.FORWARD_ONLY)) {
+				Integer currentPatientId = null;
+				List<Encounter> encounters = new ArrayList<>();
+				while (results.next()) {
+					Encounter encounter = results.get();
+					Integer patientId = encounter.getPatient().getPersonId();
+					if (currentPatientId != null && !currentPatientId.equals(patientId)) {
+						consumer.accept(currentPatientId, encounters);
+						encounters = new ArrayList<>();
+					}
+					currentPatientId = patientId;
+					encounters.add(encounter);
+				}
+				if (currentPatientId != null) {
+					consumer.accept(currentPatientId, encounters);
+				}
+			}
+
+			if (evict) {
+				// the patients, obs, providers etc loaded along with the encounters are evicted as well
+				for (Object entity : getEntitiesInSession(session)) {
+					if (!alreadyLoaded.contains(entity) && session.contains(entity)) {
+						session.evict(entity);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the entities in the persistence context of the given session compared by identity
+	 */
+	private Set<Object> getEntitiesInSession(Session session) {
+		Set<Object> entities = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Map.Entry<Object, EntityEntry> entry : ((SessionImplementor) session).getPersistenceContextInternal()
+		        .reentrantSafeEntityEntries()) {
+			entities.add(entry.getKey());
+		}
+		return entities;
+	}
+
+	/**
+	 * Creates the query for the non voided encounters of the given patients ordered by patient id and
+	 * then by encounter datetime with the most recent first
+	 */
+	private Query<Encounter> createEncountersByPatientQuery(Session session, List<Integer> patientIds) {
 		CriteriaBuilder cb = session.getCriteriaBuilder();
 		CriteriaQuery<Encounter> cq = cb.createQuery(Encounter.class);
 		Root<Encounter> root = cq.from(Encounter.class);
 
-		List<Predicate> predicates = createEncounterPredicates(cb, root, patients);
-		cq.where(predicates.toArray(new Predicate[]{}));
-
-		cq.orderBy(
-			cb.desc(root.get("patient").get("personId")), 
-			cb.desc(root.get("encounterDatetime"))
-		);
+		cq.where(cb.isFalse(root.get("voided")), root.get("patient").get("personId").in(patientIds));
+		cq.orderBy(cb.asc(root.get("patient").get("personId")), cb.desc(root.get("encounterDatetime")));
 
-		TypedQuery<Encounter> query = session.createQuery(cq);
+		Query<Encounter> query = session.createQuery(cq);
+		query.setFetchSize(PATIENT_CHUNK_SIZE);
 		query.setHint("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
 		query.setHint("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
-
-		Map<Integer, List<Encounter>> encountersBypatient = new HashMap<>();
-		List<Encounter> allEncounters = query.getResultList();
-		for (Encounter encounter : allEncounters) {
-			Integer patientId = encounter.getPatient().getPersonId();
-			List<Encounter> encounters = encountersBypatient.get(patientId);
-
-			if (encounters == null) {
-				encounters = new ArrayList<>();
-			}
-
-			encounters.add(encounter);
-			if (!encountersBypatient.containsKey(patientId)) {
-				encountersBypatient.put(patientId, encounters);
-			}
-		}
-		return encountersBypatient;
+		return query;
 	}
 
-
 	/**
-	 * Create the criteria for fetching all encounters based on cohort
+	 * Gets the next chunk of ids of patients with non voided encounters, it uses keyset paging so that
+	 * each chunk costs the same no matter how far along the patients it is.
 	 *
-	 * @param patients
-	 * @return a map of patient with their encounters
+	 * @param lastPatientId the last patient id of the previous chunk or null for the first chunk
+	 * @return the patient ids in ascending order
 	 */
-	private List<Predicate> createEncounterPredicates(CriteriaBuilder cb, Root<Encounter> root, Cohort patients) {
+	private List<Integer> getNextPatientIdsWithEncounters(Session session, Integer lastPatientId) {
+		CriteriaBuilder cb = session.getCriteriaBuilder();
+		CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+		Root<Encounter> root = cq.from(Encounter.class);
+		Path<Integer> patientId = root.get("patient").get("personId");
+
 		List<Predicate> predicates = new ArrayList<>();
 		predicates.add(cb.isFalse(root.get("voided")));
-
-		// only include this where clause if patients were passed in
-		if (patients != null) {
-			ArrayList<Integer> patientIds = new ArrayList<>();
-			patients.getMemberships().forEach(m -> patientIds.add(m.getPatientId()));
-			predicates.add(root.get("patient").get("personId").in(patientIds));
+		if (lastPatientId != null) {
+			predicates.add(cb.greaterThan(patientId, lastPatientId));
 		}
+		cq.select(patientId).distinct(true).where(predicates.toArray(new Predicate[] {})).orderBy(cb.asc(patientId));
 
-		return predicates;
+		return session.createQuery(cq).setMaxResults(PATIENT_CHUNK_SIZE).getResultList();
 	}
 
 	/**
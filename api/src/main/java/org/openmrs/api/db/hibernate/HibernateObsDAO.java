@@ -10,8 +10,11 @@
 package org.openmrs.api.db.hibernate;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
@@ -352,4 +355,56 @@ public class HibernateObsDAO implements ObsDAO {
 			session.setHibernateFlushMode(flushMode);
 		}
 	}
+	
+	/**
+	 * @see org.openmrs.api.db.ObsDAO#getSavedStatuses(Collection)
+	 */
+	@Override
+	public Map<Integer, Obs.Status> getSavedStatuses(Collection<Integer> obsIds) {
+		Map<Integer, Obs.Status> statuses = new HashMap<>();
+		if (obsIds.isEmpty()) {
+			return statuses;
+		}
+		
+		// avoid premature flushes when this internal method is called from inside a service method
+		Session session = sessionFactory.getCurrentSession();
+		FlushMode flushMode = session.getHibernateFlushMode();
+		session.setHibernateFlushMode(FlushMode.MANUAL);
+		try {
+			NativeQuery<Object[]> sql = session.createNativeQuery(
+				"select obs_id, status from obs where obs_id in (:obsIds)", Object[].class);
+			sql.setParameterList("obsIds", obsIds);
+			for (Object[] row : sql.getResultList()) {
+				statuses.put(((Number) row[0]).intValue(), Obs.Status.valueOf((String) row[1]));
+			}
+			return statuses;
+		}
+		finally {
+			session.setHibernateFlushMode(flushMode);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ObsDAO#voidRevisedObs(Collection, User, Date, String)
+	 */
+	@Override
+	public void voidRevisedObs(Collection<Obs> obsToVoid, User voidedBy, Date dateVoided, String voidReason) {
+		if (obsToVoid.isEmpty()) {
+			return;
+		}
+		
+		Session session = sessionFactory.getCurrentSession();
+		List<Integer> obsIds = new ArrayList<>(obsToVoid.size());
+		for (Obs obs : obsToVoid) {
+			if (session.contains(obs)) {
+				session.setReadOnly(obs, true);
+			}
+			obsIds.add(obs.getObsId());
+		}
+		
+		session.createMutationQuery("update Obs set voided = true, voidedBy = :voidedBy, dateVoided = :dateVoided, "
+		        + "voidReason = :voidReason where obsId in (:obsIds) and voided = false")
+		        .setParameter("voidedBy", voidedBy).setParameter("dateVoided", dateVoided)
+		        .setParameter("voidReason", voidReason).setParameterList("obsIds", obsIds).executeUpdate();
+	}
 }
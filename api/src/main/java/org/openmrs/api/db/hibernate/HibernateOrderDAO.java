@@ -425,6 +425,18 @@ public class HibernateOrderDAO implements OrderDAO {
 	 */
 	@Override
 	public Long getNextOrderNumberSeedSequenceValue() {
+		return reserveOrderNumberSeedSequenceValues(1);
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.OrderDAO#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Override
+	public Long reserveOrderNumberSeedSequenceValues(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("The number of order number seeds to reserve must be at least 1");
+		}
+		
 		GlobalProperty globalProperty = sessionFactory.getCurrentSession().get(GlobalProperty.class,
 		    OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED, LockOptions.UPGRADE);
 		
@@ -447,7 +459,7 @@ public class HibernateOrderDAO implements OrderDAO {
 			        new Object[] { OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED });
 		}
 		
-		globalProperty.setPropertyValue(String.valueOf(gpNumericValue + 1));
+		globalProperty.setPropertyValue(String.valueOf(gpNumericValue + count));
 		
 		sessionFactory.getCurrentSession().save(globalProperty);
 		
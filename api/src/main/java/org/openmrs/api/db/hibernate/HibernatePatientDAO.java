@@ -11,6 +11,7 @@ package org.openmrs.api.db.hibernate;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -19,6 +20,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import jakarta.persistence.TemporalType;
@@ -78,6 +80,12 @@ public class HibernatePatientDAO implements PatientDAO {
 	
 	private SearchSessionFactory searchSessionFactory;
 	
+	/**
+	 * The column names of the properties duplicate patients are searched by, keyed by class and
+	 * property name
+	 */
+	private final Map<String, String> columnNames = new ConcurrentHashMap<>();
+	
 	/**
 	 * Set session factory
 	 *
@@ -458,6 +466,45 @@ public class HibernatePatientDAO implements PatientDAO {
 		return patients;
 	}
 
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#getPatientIds(Integer, int, boolean)
+	 */
+	@Override
+	public List<Integer> getPatientIds(Integer lastPatientId, int maxResults, boolean includeVoided) {
+		String hql = "select p.patientId from Patient p where p.patientId > :lastPatientId"
+		        + (includeVoided ? "" : " and p.voided = false") + " order by p.patientId";
+		return sessionFactory.getCurrentSession().createQuery(hql, Integer.class)
+		        .setParameter("lastPatientId", lastPatientId != null ? lastPatientId : 0).setMaxResults(maxResults)
+		        .list();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#getDuplicatePatientValues(Collection)
+	 */
+	@Override
+	public List<Object[]> getDuplicatePatientValues(Collection<Integer> patientIds) {
+		if (patientIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return sessionFactory.getCurrentSession().createQuery(
+		    "select p.patientId, p.gender, p.birthdate, n.givenName, n.middleName, n.familyName, i.identifier "
+		            + "from Patient p left join p.names n on n.voided = false "
+		            + "left join p.identifiers i on i.voided = false where p.patientId in (:patientIds)",
+		    Object[].class).setParameterList("patientIds", patientIds).list();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#getPatientsByIds(Collection)
+	 */
+	@Override
+	public List<Patient> getPatientsByIds(Collection<Integer> patientIds) {
+		if (patientIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return sessionFactory.getCurrentSession().createQuery("from Patient p where p.patientId in (:patientIds)",
+		    Patient.class).setParameterList("patientIds", patientIds).list();
+	}
+	
 	private String getDuplicatePatientsSQLString(List<String> attributes) {
 		StringBuilder outerSelect = new StringBuilder("select distinct t1.patient_id from patient t1 ");
 		final String t5 = " = t5.";
@@ -478,19 +525,7 @@ public class HibernatePatientDAO implements PatientDAO {
 			}
 			if (patientFieldNames.contains(attribute)) {
 
-				SessionFactoryImplementor sfi =
-					sessionFactory.unwrap(SessionFactoryImplementor.class);
-
-				AbstractEntityPersister aep =
-					(AbstractEntityPersister)
-						sfi.getRuntimeMetamodels()
-							.getMappingMetamodel()
-							.getEntityDescriptor(Patient.class);
-
-				String[] properties = aep.getPropertyColumnNames(attribute);
-				if (properties.length >= 1) {
-					attribute = properties[0];
-				}
+				attribute = getColumnName(Patient.class, attribute);
 				whereConditions.add(" t1." + attribute + t5 + attribute);
 				innerFields.add("p1." + attribute);
 			} else if (personFieldNames.contains(attribute)) {
@@ -501,22 +536,7 @@ public class HibernatePatientDAO implements PatientDAO {
 					innerSelect.append("inner join person person1 on p1.patient_id = person1.person_id ");
 				}
 
-				SessionFactoryImplementor sfi =
-					sessionFactory.unwrap(SessionFactoryImplementor.class);
-
-				AbstractEntityPersister aep =
-					(AbstractEntityPersister)
-						sfi.getRuntimeMetamodels()
-							.getMappingMetamodel()
-							.getEntityDescriptor(Person.class);
-				
-				
-				if (aep != null) {
-					String[] properties = aep.getPropertyColumnNames(attribute);
-					if (properties != null && properties.length >= 1) {
-						attribute = properties[0];
-					}
-				}
+				attribute = getColumnName(Person.class, attribute);
 
 				whereConditions.add(" t2." + attribute + t5 + attribute);
 				innerFields.add("person1." + attribute);
@@ -527,22 +547,7 @@ public class HibernatePatientDAO implements PatientDAO {
 				}
 
 				//Since we are firing a native query get the actual table column name from the field name of the entity
-				SessionFactoryImplementor sfi =
-					sessionFactory.unwrap(SessionFactoryImplementor.class);
-
-				AbstractEntityPersister aep =
-					(AbstractEntityPersister)
-						sfi.getRuntimeMetamodels()
-							.getMappingMetamodel()
-							.getEntityDescriptor(PersonName.class);
-				
-				if (aep != null) {
-					String[] properties = aep.getPropertyColumnNames(attribute);
-
-					if (properties != null && properties.length >= 1) {
-						attribute = properties[0];
-					}
-				}
+				attribute = getColumnName(PersonName.class, attribute);
 
 				whereConditions.add(" t3." + attribute + t5 + attribute);
 				innerFields.add("pn1." + attribute);
@@ -552,22 +557,7 @@ public class HibernatePatientDAO implements PatientDAO {
 					innerSelect.append("inner join patient_identifier pi1 on p1.patient_id = pi1.patient_id ");
 				}
 
-				SessionFactoryImplementor sfi =
-					sessionFactory.unwrap(SessionFactoryImplementor.class);
-
-				AbstractEntityPersister aep =
-					(AbstractEntityPersister)
-						sfi.getRuntimeMetamodels()
-							.getMappingMetamodel()
-							.getEntityDescriptor(PatientIdentifier.class);
-				
-				if (aep != null) {
-
-					String[] properties = aep.getPropertyColumnNames(attribute);
-					if (properties != null && properties.length >= 1) {
-						attribute = properties[0];
-					}
-				}
+				attribute = getColumnName(PatientIdentifier.class, attribute);
 
 				whereConditions.add(" t4." + attribute + t5 + attribute);
 				innerFields.add("pi1." + attribute);
@@ -589,6 +579,26 @@ public class HibernatePatientDAO implements PatientDAO {
 		return null;
 	}
 
+	/**
+	 * @param entityClass the entity class
+	 * @param property the name of a property of the entity
+	 * @return the name of the column the property is mapped to, the property name if it is not mapped
+	 *         to a column
+	 */
+	private String getColumnName(Class<?> entityClass, String property) {
+		return columnNames.computeIfAbsent(entityClass.getName() + "." + property, key -> {
+			AbstractEntityPersister aep = (AbstractEntityPersister) sessionFactory.unwrap(SessionFactoryImplementor.class)
+			        .getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(entityClass);
+			if (aep != null) {
+				String[] properties = aep.getPropertyColumnNames(property);
+				if (properties != null && properties.length >= 1) {
+					return properties[0];
+				}
+			}
+			return property;
+		});
+	}
+	
 	private void sortDuplicatePatients(List<Patient> patients, List<Integer> patientIds) {
 
 		Map<Integer, Integer> patientIdOrder = new HashMap<>();
@@ -750,15 +760,15 @@ public class HibernatePatientDAO implements PatientDAO {
 		PersonQuery personQuery = new PersonQuery();
 
 		return SearchQueryUnique.searchCount(searchSessionFactory,
-			SearchQueryUnique.newQuery(PatientIdentifier.class, f ->
+			SearchQueryUnique.newEntityQuery(PatientIdentifier.class, f ->
 					newPatientIdentifierSearchPredicate(f, query, includeVoided, false),
-				 "patient.personId", PatientIdentifier::getPatient).join(
-					 SearchQueryUnique.newQuery(PersonName.class, f ->
+				 "patient.personId", Patient.class).join(
+					 SearchQueryUnique.newEntityQuery(PersonName.class, f ->
 						personQuery.getPatientNameQuery(f, query, includeVoided),
-					 "person.personId", pN -> getPatient(pN.getPerson().getId())).join(
-						 SearchQueryUnique.newQuery(PersonAttribute.class,
+					 "person.personId", Patient.class).join(
+						 SearchQueryUnique.newEntityQuery(PersonAttribute.class,
 						f -> personQuery.getPatientAttributeQuery(f, query, includeVoided),
-						 "person.personId", pA -> getPatient(pA.getPerson().getId())
+						 "person.personId", Patient.class
 					))));
 	}
 
@@ -789,7 +799,7 @@ public class HibernatePatientDAO implements PatientDAO {
 			return patients;
 		}
 		
-		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(PatientIdentifier.class, 
+		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(PatientIdentifier.class, 
 			f -> f.bool().with(b -> {
 			b.must(getPatientIdentifierSearchPredicate(f, query, matchExactly));
 			List<Integer> identifierTypeIds = new ArrayList<Integer>();
@@ -798,7 +808,7 @@ public class HibernatePatientDAO implements PatientDAO {
 			}
 			b.filter(f.terms().field("identifierType.patientIdentifierTypeId").matchingAny(identifierTypeIds));
 			b.filter(f.match().field("patient.isPatient").matching(true));
-		}).toPredicate(), "patient.personId", PatientIdentifier::getPatient), tmpStart, tmpLength);
+		}).toPredicate(), "patient.personId", Patient.class), tmpStart, tmpLength);
 	}
 	
 	public List<Patient> findPatients(String query, boolean includeVoided, Integer start, Integer length) {
@@ -827,15 +837,15 @@ public class HibernatePatientDAO implements PatientDAO {
 		PersonQuery personQuery = new PersonQuery();
 
 		patients = SearchQueryUnique.search(searchSessionFactory,
-			SearchQueryUnique.newQuery(PatientIdentifier.class, f -> 
+			SearchQueryUnique.newEntityQuery(PatientIdentifier.class, f -> 
 					newPatientIdentifierSearchPredicate(f, query, includeVoided, false), 
-				 "patient.personId", PatientIdentifier::getPatient).join(
-					 SearchQueryUnique.newQuery(PersonName.class, f -> 
+				 "patient.personId", Patient.class).join(
+					 SearchQueryUnique.newEntityQuery(PersonName.class, f -> 
 					personQuery.getPatientNameQuery(f, query, includeVoided),
-					 "person.personId", pN -> getPatient(pN.getPerson().getId())).join(
-						 SearchQueryUnique.newQuery(PersonAttribute.class,
+					 "person.personId", Patient.class).join(
+						 SearchQueryUnique.newEntityQuery(PersonAttribute.class,
 						f -> personQuery.getPatientAttributeQuery(f, query, includeVoided), 
-						"person.personId", pA -> getPatient(pA.getPerson().getId())
+						"person.personId", Patient.class
 						))), start, length);
 
 		return patients;
@@ -90,9 +90,9 @@ public class HibernatePersonDAO implements PersonDAO {
 	private Set<Person> executeSoundexOnePersonNameQuery(String name, Integer birthyear, boolean includeVoided , String gender) {
 		PersonQuery personQuery = new PersonQuery();
 
-		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(PersonName.class,
+		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(PersonName.class,
 				f -> personQuery.getSoundexPersonNameQuery(f, name, birthyear, includeVoided,
-					gender), "person.personId", PersonName::getPerson), null,
+					gender), "person.personId", Person.class), null,
 			HibernatePersonDAO.getMaximumSearchResults());
 		
 		return new LinkedHashSet<>(results);
@@ -114,9 +114,9 @@ public class HibernatePersonDAO implements PersonDAO {
 															boolean includeVoided , String gender) {
 		PersonQuery personQuery = new PersonQuery();
 
-		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(PersonName.class,
+		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(PersonName.class,
 				f -> personQuery.getSoundexPersonNameSearchOnThreeNames(f, name1, name2, name3,
-					birthyear, includeVoided, gender), "person.personId",  PersonName::getPerson),
+					birthyear, includeVoided, gender), "person.personId",  Person.class),
 			null, HibernatePersonDAO.getMaximumSearchResults());
 		
 		return new LinkedHashSet<>(results);
@@ -136,9 +136,9 @@ public class HibernatePersonDAO implements PersonDAO {
 														  boolean includeVoided , String gender) {
 		PersonQuery personQuery = new PersonQuery();
 
-		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(PersonName.class,
+		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(PersonName.class,
 				f -> personQuery.getSoundexPersonNameSearchOnTwoNames(f, searchName1, searchName2,
-					birthyear, includeVoided, gender), "person.personId", PersonName::getPerson), null,
+					birthyear, includeVoided, gender), "person.personId", Person.class), null,
 			HibernatePersonDAO.getMaximumSearchResults());
 		
 		return new LinkedHashSet<>(results);
@@ -157,9 +157,9 @@ public class HibernatePersonDAO implements PersonDAO {
 														String gender) {
 		PersonQuery personQuery = new PersonQuery();
 
-		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(PersonName.class,
+		List<Person> results = SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(PersonName.class,
 				f -> personQuery.getSoundexPersonNameSearchOnNNames(f, searchNames, birthyear,
-					includeVoided, gender), "person.personId",  PersonName::getPerson), null, 
+					includeVoided, gender), "person.personId",  Person.class), null, 
 			HibernatePersonDAO.getMaximumSearchResults());
 		
 		return new LinkedHashSet<>(results);
@@ -266,11 +266,11 @@ public class HibernatePersonDAO implements PersonDAO {
 
 		PersonQuery personQuery = new PersonQuery();
 
-		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(PersonName.class,
+		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newEntityQuery(PersonName.class,
 				f -> personQuery.getPersonNameQueryWithOrParser(f, searchString, includeVoided, dead),
-				"person.personId", PersonName::getPerson).join(SearchQueryUnique.newQuery(PersonAttribute.class,
+				"person.personId", Person.class).join(SearchQueryUnique.newEntityQuery(PersonAttribute.class,
 				f -> personQuery.getPersonAttributeQueryWithOrParser(f, searchString, includeVoided), 
-				"person.personId", PersonAttribute::getPerson)), null,
+				"person.personId", Person.class)), null,
 			HibernatePersonDAO.getMaximumSearchResults());
 	}
 	
@@ -30,6 +30,7 @@ import org.hibernate.integrator.spi.Integrator;
 import org.hibernate.service.spi.SessionFactoryServiceRegistry;
 import org.openmrs.api.cache.CacheConfig;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.search.SearchIndexOutbox;
 import org.openmrs.module.Module;
 import org.openmrs.module.ModuleFactory;
 import org.openmrs.util.OpenmrsUtil;
@@ -181,6 +182,11 @@ public class HibernateSessionFactoryBean extends LocalSessionFactoryBean impleme
 			log.error(MarkerFactory.getMarker("FATAL"), "Unable to load default hibernate properties", e);
 		}
 		
+		if (SearchIndexOutbox.OUTBOX_MODE.equalsIgnoreCase(config.getProperty(SearchIndexOutbox.INDEXING_MODE_PROPERTY))) {
+			// the changed entities are indexed in the background by the SearchIndexOutbox instead
+			config.setProperty("hibernate.search.indexing.listeners.enabled", "false");
+		}
+		
 		log.debug("Replacing variables in hibernate properties");
 		final String applicationDataDirectory = OpenmrsUtil.getApplicationDataDirectory();
 		for (Entry<Object, Object> entry : config.entrySet()) {
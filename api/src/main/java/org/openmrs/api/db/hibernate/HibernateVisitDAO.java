@@ -367,6 +367,17 @@ public class HibernateVisitDAO implements VisitDAO {
 	 */
 	@Override
 	public Visit getNextVisit(Visit previousVisit, Collection<VisitType> visitTypes, Date maximumStartDate) {
+		List<Visit> visits = getNextVisits(previousVisit != null ? previousVisit.getVisitId() : null, visitTypes,
+		    maximumStartDate, 1);
+		return visits.isEmpty() ? null : visits.get(0);
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#getNextVisits(Integer, Collection, Date, int)
+	 */
+	@Override
+	public List<Visit> getNextVisits(Integer lastVisitId, Collection<VisitType> visitTypes, Date maximumStartDate,
+	        int maxResults) {
 		Session session = sessionFactory.getCurrentSession();
 		CriteriaBuilder cb = session.getCriteriaBuilder();
 		CriteriaQuery<Visit> cq = cb.createQuery(Visit.class);
@@ -375,7 +386,7 @@ public class HibernateVisitDAO implements VisitDAO {
 		List<Predicate> predicates = new ArrayList<>();
 
 		predicates.add(cb.isFalse(root.get("voided")));
-		predicates.add(cb.greaterThan(root.get("visitId"), (previousVisit != null) ? previousVisit.getVisitId() : 0));
+		predicates.add(cb.greaterThan(root.get("visitId"), (lastVisitId != null) ? lastVisitId : 0));
 		predicates.add(cb.isNull(root.get("stopDatetime")));
 
 		if (maximumStartDate != null) {
@@ -389,6 +400,6 @@ public class HibernateVisitDAO implements VisitDAO {
 		cq.where(predicates.toArray(new Predicate[]{}))
 			.orderBy(cb.asc(root.get("visitId")));
 
-		return session.createQuery(cq).setMaxResults(1).uniqueResult();
+		return session.createQuery(cq).setMaxResults(maxResults).getResultList();
 	}
 }
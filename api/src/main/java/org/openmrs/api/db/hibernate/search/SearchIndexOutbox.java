@@ -0,0 +1,523 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.entity.SearchIndexedEntity;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.hibernate.search.util.common.SearchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Updates the search index in the background instead of in the transactions that change the indexed
+ * entities, it is used when the runtime property {@value #INDEXING_MODE_PROPERTY} is set to
+ * {@value #OUTBOX_MODE}. Hibernate Search then does not index changed entities when they are
+ * flushed, instead the inserted, updated and deleted entities of a transaction are recorded and
+ * added to the outbox once it was committed. The outbox keeps each entity once however often it is
+ * changed until it is indexed, a background thread loads the entities in batches and lets Hibernate
+ * Search update their documents and the documents of the entities that embed them.
+ * <p>
+ * A search session obtained from the {@link org.openmrs.api.db.hibernate.search.session.SearchSessionFactory}
+ * indexes the flushed changes of the current transaction first, so the transaction finds what it
+ * wrote. If such a transaction is rolled back, the entities it changed are indexed again right away
+ * from their committed state, so no documents of rolled back changes are left in the index. An
+ * entity which fails to be indexed is retried by the next runs up to {@value #MAX_ATTEMPTS} times
+ * without holding up the other entities of its batch. The number of entities waiting to be indexed
+ * and how long the oldest one waits are available from {@link #getQueueDepth()} and
+ * {@link #getLagMillis()}.
+ *
+ * @since 3.0.0
+ */
+@Component("searchIndexOutbox")
+public class SearchIndexOutbox implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+		PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+	private static final Logger log = LoggerFactory.getLogger(SearchIndexOutbox.class);
+
+	/**
+	 * The runtime property that selects how the search index is updated
+	 */
+	public static final String INDEXING_MODE_PROPERTY = "search.indexing.mode";
+
+	/**
+	 * The value of {@link #INDEXING_MODE_PROPERTY} that makes the search index be updated in the
+	 * background
+	 */
+	public static final String OUTBOX_MODE = "outbox";
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final long POLL_INTERVAL_MILLIS = 500;
+
+	/**
+	 * The number of times an entity is tried to be indexed before it is given up on
+	 */
+	static final int MAX_ATTEMPTS = 3;
+
+	private static final Object CHANGES_KEY = new Object();
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Value("${" + INDEXING_MODE_PROPERTY + ":}")
+	private String indexingMode;
+
+	/**
+	 * The entities waiting to be indexed in the order they were first changed, with the time they were
+	 * added, guarded by itself
+	 */
+	private final Map<EntityKey, Long> pending = new LinkedHashMap<>();
+
+	/**
+	 * The entities which Hibernate Search refused to add to an indexing plan since they are neither
+	 * indexed nor embedded in an indexed entity, which only depends on the mapping
+	 */
+	private final Set<String> ignoredEntityNames = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The number of times the entities which failed to be indexed were tried so far
+	 */
+	private final Map<EntityKey, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+	private final AtomicLong indexedCount = new AtomicLong();
+
+	private volatile Map<String, Class<?>> indexedTypes;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * @return true if the search index is updated in the background
+	 */
+	public boolean isEnabled() {
+		return OUTBOX_MODE.equalsIgnoreCase(indexingMode);
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!isEnabled()) {
+			return;
+		}
+		EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory).getServiceRegistry().getService(
+		    EventListenerRegistry.class);
+		registry.getEventListenerGroup(EventType.POST_INSERT).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_UPDATE).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_DELETE).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_COLLECTION_RECREATE).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_COLLECTION_UPDATE).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_COLLECTION_REMOVE).appendListener(this);
+
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "OpenMRS Search Index Outbox");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::indexPending, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS,
+		    TimeUnit.MILLISECONDS);
+		log.info("The search index is updated in the background");
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (executor == null) {
+			return;
+		}
+		executor.shutdown();
+		try {
+			if (executor.awaitTermination(30, TimeUnit.SECONDS)) {
+				// index what was added since the last run
+				indexPending();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (getQueueDepth() > 0) {
+			log.warn("{} entities were not indexed before shutting down", getQueueDepth());
+		}
+	}
+
+	/**
+	 * @return the number of entities waiting to be indexed
+	 */
+	public int getQueueDepth() {
+		synchronized (pending) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * @return how many milliseconds the entity waiting the longest to be indexed has been waiting, 0
+	 *         if no entity is waiting
+	 */
+	public long getLagMillis() {
+		synchronized (pending) {
+			Iterator<Long> times = pending.values().iterator();
+			return times.hasNext() ? System.currentTimeMillis() - times.next() : 0;
+		}
+	}
+
+	/**
+	 * @return the number of entities indexed in the background since OpenMRS started
+	 */
+	public long getIndexedCount() {
+		return indexedCount.get();
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		record(event.getPersister().getEntityName(), event.getId());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		record(event.getPersister().getEntityName(), event.getId());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		record(event.getPersister().getEntityName(), event.getId());
+	}
+
+	@Override
+	public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+		recordOwner(event);
+	}
+
+	@Override
+	public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+		recordOwner(event);
+	}
+
+	@Override
+	public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+		recordOwner(event);
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	/**
+	 * Adds the given entity to the outbox, once the current transaction was committed if there is one
+	 *
+	 * @param session the session the entity belongs to
+	 * @param entity the entity to index
+	 */
+	public void add(Session session, Object entity) {
+		record(session.getEntityName(entity), session.getIdentifier(entity));
+	}
+
+	/**
+	 * Indexes the flushed changes of the current transaction in the given search session, so that
+	 * searches in the transaction find them. They are indexed again once the transaction completed.
+	 *
+	 * @param searchSession the search session of the current transaction
+	 */
+	public void indexChangesOfCurrentTransaction(SearchSession searchSession) {
+		TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(CHANGES_KEY);
+		if (changes == null || changes.unindexed.isEmpty()) {
+			return;
+		}
+		SearchIndexingPlan indexingPlan = searchSession.indexingPlan();
+		for (EntityKey key : changes.unindexed) {
+			addToIndexingPlan(searchSession.toOrmSession(), indexingPlan, key);
+		}
+		indexingPlan.execute();
+		changes.unindexed.clear();
+		changes.indexedInTransaction = true;
+	}
+
+	private void recordOwner(AbstractCollectionEvent event) {
+		if (event.getAffectedOwnerIdOrNull() != null) {
+			record(event.getAffectedOwnerEntityName(), event.getAffectedOwnerIdOrNull());
+		}
+	}
+
+	private void record(String entityName, Object id) {
+		if (id == null || ignoredEntityNames.contains(entityName)) {
+			return;
+		}
+		EntityKey key = new EntityKey(entityName, id);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			// the changes are committed as they are flushed
+			add(List.of(key));
+			return;
+		}
+
+		TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(CHANGES_KEY);
+		if (changes == null) {
+			TransactionChanges newChanges = new TransactionChanges();
+			TransactionSynchronizationManager.bindResource(CHANGES_KEY, newChanges);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(CHANGES_KEY);
+					if (status != STATUS_ROLLED_BACK) {
+						add(newChanges.all);
+					} else if (newChanges.indexedInTransaction) {
+						// the documents of the rolled back changes are replaced by the committed state
+						indexNow(new ArrayList<>(newChanges.all));
+					}
+				}
+			});
+			changes = newChanges;
+		}
+		changes.all.add(key);
+		changes.unindexed.add(key);
+	}
+
+	private void add(Iterable<EntityKey> keys) {
+		long now = System.currentTimeMillis();
+		synchronized (pending) {
+			for (EntityKey key : keys) {
+				pending.putIfAbsent(key, now);
+			}
+		}
+	}
+
+	/**
+	 * Indexes the pending entities in batches until none are left, the entities which failed are added
+	 * back to be retried by the next run
+	 */
+	void indexPending() {
+		List<EntityKey> failed = new ArrayList<>();
+		try {
+			List<EntityKey> batch;
+			while (!(batch = takeBatch()).isEmpty()) {
+				indexBatch(batch, failed);
+			}
+		}
+		catch (RuntimeException e) {
+			// keep the executor running
+			log.error("Error while updating the search index", e);
+		}
+		add(failed);
+	}
+
+	/**
+	 * Indexes the given entities in batches in the current thread, the entities which failed are added
+	 * to the outbox
+	 */
+	private void indexNow(List<EntityKey> keys) {
+		List<EntityKey> failed = new ArrayList<>();
+		try {
+			for (int i = 0; i < keys.size(); i += BATCH_SIZE) {
+				indexBatch(keys.subList(i, Math.min(i + BATCH_SIZE, keys.size())), failed);
+			}
+		}
+		catch (RuntimeException e) {
+			log.error("Error while updating the search index", e);
+		}
+		add(failed);
+	}
+
+	private List<EntityKey> takeBatch() {
+		List<EntityKey> batch = new ArrayList<>(BATCH_SIZE);
+		synchronized (pending) {
+			Iterator<EntityKey> keys = pending.keySet().iterator();
+			while (keys.hasNext() && batch.size() < BATCH_SIZE) {
+				batch.add(keys.next());
+				keys.remove();
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * Indexes a batch of entities, if it fails its entities are indexed one at a time so that only the
+	 * entities which fail themselves are retried
+	 *
+	 * @param batch the entities to index
+	 * @param failed the entities to retry later
+	 */
+	private void indexBatch(List<EntityKey> batch, List<EntityKey> failed) {
+		try {
+			index(batch);
+			indexedCount.addAndGet(batch.size());
+			if (!failedAttempts.isEmpty()) {
+				batch.forEach(failedAttempts::remove);
+			}
+		}
+		catch (RuntimeException e) {
+			if (batch.size() > 1) {
+				for (EntityKey key : batch) {
+					indexBatch(List.of(key), failed);
+				}
+				return;
+			}
+
+			EntityKey key = batch.get(0);
+			int attempts = failedAttempts.merge(key, 1, Integer::sum);
+			if (attempts < MAX_ATTEMPTS) {
+				log.warn("Failed to index {} with id {}, it will be retried", key.entityName, key.id, e);
+				failed.add(key);
+			} else {
+				failedAttempts.remove(key);
+				log.error("Failed to index {} with id {} {} times, giving up", key.entityName, key.id, attempts, e);
+			}
+		}
+	}
+
+	/**
+	 * Loads the given entities in a new session and updates their documents
+	 *
+	 * @param keys the entities to index
+	 */
+	void index(List<EntityKey> keys) {
+		try (Session session = sessionFactory.openSession()) {
+			session.setHibernateFlushMode(FlushMode.MANUAL);
+			session.setDefaultReadOnly(true);
+			Transaction transaction = session.beginTransaction();
+			try {
+				SearchIndexingPlan indexingPlan = Search.session(session).indexingPlan();
+				for (EntityKey key : keys) {
+					addToIndexingPlan(session, indexingPlan, key);
+				}
+				indexingPlan.execute();
+				transaction.commit();
+			}
+			catch (RuntimeException e) {
+				transaction.rollback();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Adds the entity with the given key to the indexing plan, if it was deleted its document is
+	 * purged
+	 */
+	private void addToIndexingPlan(Session session, SearchIndexingPlan indexingPlan, EntityKey key) {
+		if (ignoredEntityNames.contains(key.entityName)) {
+			return;
+		}
+		Object entity = session.get(key.entityName, key.id);
+		try {
+			if (entity != null) {
+				indexingPlan.addOrUpdate(entity);
+			} else {
+				Class<?> indexedType = getIndexedTypes().get(key.entityName);
+				if (indexedType != null) {
+					indexingPlan.purge(indexedType, key.id, null);
+				}
+			}
+		}
+		catch (SearchException e) {
+			// adding to the plan only fails for types Hibernate Search can't index, indexing an entity
+			// fails when the plan is executed
+			log.debug("Not indexing {} since it is neither indexed nor embedded in an indexed entity", key.entityName);
+			ignoredEntityNames.add(key.entityName);
+		}
+	}
+
+	private Map<String, Class<?>> getIndexedTypes() {
+		Map<String, Class<?>> types = indexedTypes;
+		if (types == null) {
+			types = new ConcurrentHashMap<>();
+			for (SearchIndexedEntity<?> indexedEntity : Search.mapping(sessionFactory).allIndexedEntities()) {
+				types.put(indexedEntity.name(), indexedEntity.javaClass());
+				types.put(indexedEntity.javaClass().getName(), indexedEntity.javaClass());
+			}
+			indexedTypes = types;
+		}
+		return types;
+	}
+
+	/**
+	 * The changed entities of a transaction
+	 */
+	private static class TransactionChanges {
+
+		private final Set<EntityKey> all = new LinkedHashSet<>();
+
+		private final Set<EntityKey> unindexed = new LinkedHashSet<>();
+
+		private boolean indexedInTransaction;
+	}
+
+	/**
+	 * The name and id of an entity
+	 */
+	static final class EntityKey {
+
+		private final String entityName;
+
+		private final Object id;
+
+		EntityKey(String entityName, Object id) {
+			this.entityName = entityName;
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof EntityKey)) {
+				return false;
+			}
+			EntityKey other = (EntityKey) o;
+			return entityName.equals(other.entityName) && id.equals(other.id);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(entityName, id);
+		}
+	}
+}
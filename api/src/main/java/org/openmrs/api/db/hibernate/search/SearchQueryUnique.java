@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -35,6 +36,10 @@ import org.openmrs.api.db.hibernate.search.session.SearchSessionFactory;
  * <p>
  * The same <code>max</code> limit applies when combining results of multiple queries. 
  * Up to <code>max</code> unique keys from the previous queries are removed from results in the following queries.
+ * <p>
+ * Queries created with {@link #newEntityQuery(Class, Function, String, Class)} only fetch the unique keys of
+ * the hits and load the entities they identify with a single batched lookup per query, keeping the order of
+ * the hits, rather than loading the hits and mapping each of them to the result one by one.
  * 
  * @param <T> query scope
  * @param <R> query return type
@@ -45,6 +50,7 @@ public class SearchQueryUnique<T, R> {
 	Function<SearchPredicateFactory, SearchPredicate> search;
 	Function<T, R> mapper;
 	String uniqueKey;
+	Class<R> resultClass;
 	SearchQueryUnique<?, R> joinedQuery;
 
 	public SearchQueryUnique(Class<? extends T> scope, Function<SearchPredicateFactory, SearchPredicate> search,
@@ -57,6 +63,16 @@ public class SearchQueryUnique<T, R> {
 		this.joinedQuery = joinedQuery;
 	}
 
+	/**
+	 * @since 3.0.0
+	 */
+	public SearchQueryUnique(Class<? extends T> scope, Function<SearchPredicateFactory, SearchPredicate> search,
+							 String uniqueKey, Class<R> resultClass,
+							 SearchQueryUnique<?, R> joinedQuery) {
+		this(scope, search, uniqueKey, (Function<T, R>) null, joinedQuery);
+		this.resultClass = resultClass;
+	}
+
 	public Class<? extends T> getScope() {
 		return scope;
 	}
@@ -73,6 +89,14 @@ public class SearchQueryUnique<T, R> {
 		return uniqueKey;
 	}
 
+	/**
+	 * @return the entity type the unique key identifies or <code>null</code> if the results are mapped from the hits
+	 * @since 3.0.0
+	 */
+	public Class<R> getResultClass() {
+		return resultClass;
+	}
+
 	public SearchQueryUnique<?, R> getJoinedQuery() {
 		return joinedQuery;
 	}
@@ -105,6 +129,26 @@ public class SearchQueryUnique<T, R> {
 		return new SearchQueryUnique<>(scope, search, uniqueKey, mapper, null);
 	}
 
+	/**
+	 * Creates a new query for {@link #search(SearchSessionFactory, SearchQueryUnique)} which returns the entities
+	 * identified by the unique keys of the hits. The entities are loaded in a single batch for all hits rather
+	 * than one by one.
+	 * 
+	 * @param scope the index type to be searched
+	 * @param search the search predicate
+	 * @param uniqueKey the field holding the id of the result entity
+	 * @param resultClass the type of the result entity
+	 * @return the search
+	 * @param <T> the index type
+	 * @param <R> the result type
+	 * @since 3.0.0
+	 */
+	public static <T,R> SearchQueryUnique<T,R> newEntityQuery(Class<? extends T> scope,
+															  Function<SearchPredicateFactory, SearchPredicate> search,
+															  String uniqueKey, Class<R> resultClass) {
+		return new SearchQueryUnique<>(scope, search, uniqueKey, resultClass, null);
+	}
+
 	/**
 	 * See {@link #newQuery(Class, Function, String, Function)}.
 	 * 
@@ -118,7 +162,7 @@ public class SearchQueryUnique<T, R> {
 	public static <T,R> SearchQueryUnique<T,R> newQuery(Class<? extends T> scope,
 														Function<SearchPredicateFactory, SearchPredicate> search,
 														String uniqueKey) {
-		return new SearchQueryUnique<>(scope, search, uniqueKey, null,null);
+		return new SearchQueryUnique<>(scope, search, uniqueKey, (Function<T, R>) null, null);
 	}
 
 	public static class SearchUniqueResults<T> {
@@ -224,12 +268,12 @@ public class SearchQueryUnique<T, R> {
 			SearchScope<?> scope = searchSession.scope(nextQuery.getScope());
 			SearchPredicateFactory predicateFactory = scope.predicate();
 			SearchPredicate searchPredicate = nextQuery.getSearch().apply(predicateFactory);
-			SearchQuery<?> query;
+			final String uniqueKey = nextQuery.getUniqueKey();
+			SearchPredicate uniquePredicate;
 
 			final Collection<Object> previousQueryUniqueKeys = new ArrayList<>(uniqueKeys);
 			
-			if (nextQuery.getUniqueKey() != null) {
-				final String uniqueKey = nextQuery.getUniqueKey();
+			if (uniqueKey != null) {
 				// Find unique keys and duplicate ids
 				SearchQuery<List<?>> uniqueKeyQuery = searchSession.search(scope).select(f ->
 					f.composite(
@@ -263,18 +307,27 @@ public class SearchQueryUnique<T, R> {
 					uniqueKeys = new ArrayList<>(uniqueKeys).subList(0, maxClauseCount);
 				}
 				
-				query = searchSession.search(scope).where(f -> f.bool().with(b -> {
+				uniquePredicate = predicateFactory.bool().with(b -> {
 					b.must(searchPredicate);
 					if (!duplicateIds.isEmpty()) {
-						b.filter(f.not(f.id().matchingAny(duplicateIds)));
+						b.filter(predicateFactory.not(predicateFactory.id().matchingAny(duplicateIds)));
 					}
 					// Get rid of unique keys that were added to results in a previous query
 					if (!previousQueryUniqueKeys.isEmpty()) {
-						b.filter(f.not(f.terms().field(uniqueKey).matchingAny(previousQueryUniqueKeys)));
+						b.filter(predicateFactory.not(predicateFactory.terms().field(uniqueKey)
+							.matchingAny(previousQueryUniqueKeys)));
 					}
-				})).toQuery();
+				}).toPredicate();
+			} else {
+				uniquePredicate = searchPredicate;
+			}
+
+			SearchQuery<?> query;
+			if (nextQuery.getResultClass() != null && uniqueKey != null) {
+				// Only fetch the keys as the results are loaded by them
+				query = searchSession.search(scope).select(f -> f.field(uniqueKey)).where(uniquePredicate).toQuery();
 			} else {
-				query = searchSession.search(scope).where(searchPredicate).toQuery();
+				query = searchSession.search(scope).where(uniquePredicate).toQuery();
 			}
 
 			List<?> partialResults;
@@ -287,7 +340,9 @@ public class SearchQueryUnique<T, R> {
 			}
 
 			if (!partialResults.isEmpty()) {
-				if (nextQuery.getMapper() != null) {
+				if (nextQuery.getResultClass() != null && uniqueKey != null) {
+					results.addAll(loadByKeys(searchSession, nextQuery.getResultClass(), partialResults));
+				} else if (nextQuery.getMapper() != null) {
 					//noinspection unchecked
 					results.addAll(partialResults.stream().map((Function<Object, T>) nextQuery.getMapper()).collect(Collectors.toList()));
 				} else {
@@ -324,6 +379,19 @@ public class SearchQueryUnique<T, R> {
 		return new SearchUniqueResults<>(results, offset, limit, includeTotalHitCount ? totalHitCount : null);
 	}
 
+	/**
+	 * Loads the entities with the given ids in batches, skipping the ones that don't exist.
+	 * 
+	 * @param searchSession searchSession
+	 * @param resultClass the entity type
+	 * @param keys the ids of the entities
+	 * @return the entities in the order of the ids
+	 */
+	private static <R> List<R> loadByKeys(SearchSession searchSession, Class<R> resultClass, List<?> keys) {
+		List<R> entities = searchSession.toOrmSession().byMultipleIds(resultClass).multiLoad(keys);
+		return entities.stream().filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
 	/**
 	 * Finds unique keys for the specified search.
 	 * <p>
@@ -12,6 +12,7 @@ package org.openmrs.api.db.hibernate.search.session;
 import org.hibernate.SessionFactory;
 import org.hibernate.search.mapper.orm.Search;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.openmrs.api.db.hibernate.search.SearchIndexOutbox;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
@@ -28,12 +29,19 @@ public class SearchSessionFactoryImpl implements SearchSessionFactory {
 	@Autowired
 	private ApplicationEventPublisher eventPublisher;
 	
+	@Autowired
+	private SearchIndexOutbox searchIndexOutbox;
+	
 	/**
 	 * @see SearchSessionFactory#getSearchSession()
 	 */
 	@Override
 	public SearchSession getSearchSession() {
 		SearchSession delegateSession = Search.session(sessionFactory.getCurrentSession());
+		if (searchIndexOutbox.isEnabled()) {
+			// let the transaction find what it changed before the outbox indexes it
+			searchIndexOutbox.indexChangesOfCurrentTransaction(delegateSession);
+		}
 		return new EventPublisherDelegatingSearchSession(delegateSession, eventPublisher);
 	}
 }
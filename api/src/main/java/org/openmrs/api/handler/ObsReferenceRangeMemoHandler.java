@@ -0,0 +1,43 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.handler;
+
+import java.util.Date;
+
+import org.openmrs.Obs;
+import org.openmrs.User;
+import org.openmrs.annotation.Handler;
+import org.openmrs.aop.RequiredDataAdvice;
+import org.openmrs.util.ConceptReferenceRangeUtility;
+
+/**
+ * This class deals with {@link Obs} objects when they are saved, voided or unvoided via a save*,
+ * void* or unvoid* method in an Openmrs Service, including the obs of a saved or voided encounter.
+ * This handler is automatically called by the {@link RequiredDataAdvice} AOP class. <br>
+ * The handler makes the reference range criteria evaluated later in the transaction look up the
+ * latest obs of the person and concept again.
+ *
+ * @see RequiredDataHandler
+ * @see ConceptReferenceRangeUtility#clearMemoizedObs(Obs)
+ * @see org.openmrs.util.ConceptReferenceRangeObsEventListener
+ * @since 3.0.0
+ */
+@Handler(supports = Obs.class)
+public class ObsReferenceRangeMemoHandler implements SaveHandler<Obs>, VoidHandler<Obs>, UnvoidHandler<Obs> {
+
+	/**
+	 * @see org.openmrs.api.handler.RequiredDataHandler#handle(org.openmrs.OpenmrsObject,
+	 *      org.openmrs.User, java.util.Date, java.lang.String)
+	 */
+	@Override
+	public void handle(Obs obs, User currentUser, Date currentDate, String other) {
+		ConceptReferenceRangeUtility.clearMemoizedObs(obs);
+	}
+}
@@ -91,6 +91,8 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 	
 	private HttpClient implementationIdHttpClient;
 	
+	private GlobalPropertyCache globalPropertyCache;
+	
 	/**
 	 * Default empty constructor
 	 */
@@ -108,6 +110,14 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 	public void setEventListeners(EventListeners eventListeners) {
 		this.eventListeners = eventListeners;
 	}
+	
+	/**
+	 * @param globalPropertyCache the cache to read global property values from
+	 * @since 3.0.0
+	 */
+	public void setGlobalPropertyCache(GlobalPropertyCache globalPropertyCache) {
+		this.globalPropertyCache = globalPropertyCache;
+	}
 		
 	/**
 	 * Static-ish variable used to cache the system variables. This is not static so that every time
@@ -164,6 +174,22 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 			return null;
 		}
 		
+		if (globalPropertyCache != null) {
+			GlobalPropertyCache.CachedGlobalProperty cached = globalPropertyCache.get(propertyName);
+			if (cached == null) {
+				long loadVersion = globalPropertyCache.startLoad(propertyName);
+				cached = globalPropertyCache.put(propertyName, dao.getGlobalPropertyObject(propertyName), loadVersion);
+			}
+			
+			// the view privilege is cached along with the value, most properties don't have one
+			String viewPrivilege = cached.getViewPrivilege();
+			if (viewPrivilege != null && !Context.getAuthenticatedUser().hasPrivilege(viewPrivilege)) {
+				throw new APIException("GlobalProperty.error.privilege.required.view", new Object[] { viewPrivilege,
+				        propertyName });
+			}
+			return cached.getValue();
+		}
+		
 		GlobalProperty gp = dao.getGlobalPropertyObject(propertyName);
 		if (gp != null) {
 			if (canViewGlobalProperty(gp)) {
@@ -280,6 +306,9 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 		
 		gp.setPropertyValue(propertyValue);
 		dao.saveGlobalProperty(gp);
+		if (globalPropertyCache != null) {
+			globalPropertyCache.evict(propertyName);
+		}
 	}
 	
 	/**
@@ -66,6 +66,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ConceptDAO;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.customdatatype.CustomDatatypeUtil;
+import org.openmrs.util.ConceptReferenceRangeUtility;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.validator.ObsValidator;
@@ -185,6 +186,10 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		if (!concept.getSet() && (!concept.getSetMembers().isEmpty())) {
 			concept.setSet(true);
 		}
+		
+		if (concept instanceof ConceptNumeric) {
+			ConceptReferenceRangeUtility.clearCompiledCriteria();
+		}
 
 		return dao.saveConcept(concept);
 	}
@@ -1052,6 +1057,25 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		return dao.conceptIterator();
 	}
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#conceptIterators(int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Iterator<Concept>> conceptIterators(int parts) {
+		if (parts < 1) {
+			throw new IllegalArgumentException("The number of parts must be at least 1, got " + parts);
+		}
+		
+		List<Integer> starts = dao.getConceptIdRangeStarts(parts);
+		List<Iterator<Concept>> iterators = new ArrayList<>(starts.size());
+		for (int i = 0; i < starts.size(); i++) {
+			Integer toConceptId = i + 1 < starts.size() ? starts.get(i + 1) - 1 : null;
+			iterators.add(dao.conceptIterator(starts.get(i), toConceptId));
+		}
+		return iterators;
+	}
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptByUuid(java.lang.String)
 	 */
@@ -2070,6 +2094,7 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	 */
 	@Override
 	public ConceptReferenceRange saveConceptReferenceRange(ConceptReferenceRange conceptReferenceRange) {
+		ConceptReferenceRangeUtility.clearCompiledCriteria();
 		return dao.saveConceptReferenceRange(conceptReferenceRange);
 	}
 
@@ -2150,6 +2175,7 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Override
 	public void purgeConceptReferenceRange(ConceptReferenceRange conceptReferenceRange) {
 		checkIfLocked();
+		ConceptReferenceRangeUtility.clearCompiledCriteria();
 		dao.purgeConceptReferenceRange(conceptReferenceRange);
 	}
 }
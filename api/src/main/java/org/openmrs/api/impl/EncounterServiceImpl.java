@@ -16,6 +16,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -649,6 +650,16 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 		return dao.getAllEncounters(patients);
 	}
 	
+	/**
+	 * @see org.openmrs.api.EncounterService#forEachPatientEncounters(org.openmrs.Cohort,
+	 *      java.util.function.BiConsumer)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachPatientEncounters(Cohort patients, BiConsumer<Integer, List<Encounter>> consumer) {
+		dao.forEachPatientEncounters(patients, consumer);
+	}
+	
 	/**
 	 * @see org.openmrs.api.EncounterService#getEncounters(java.lang.String, java.lang.Integer,
 	 *      java.lang.Integer, boolean)
@@ -0,0 +1,365 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.impl;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.GlobalPropertyListener;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A utility class which caches the values of global properties along with the privilege required to
+ * view them, so that reading a global property doesn't go to the database every time. Entries are
+ * evicted whenever hibernate writes a global property to the database, including the writes made by
+ * DAOs which don't go through the {@link org.openmrs.api.AdministrationService}. This class is also
+ * registered as a {@link GlobalPropertyListener} for all global properties so that a global property
+ * saved or purged through the service is evicted right away rather than when the session is flushed.
+ * Global properties updated with SQL or bulk queries must be evicted explicitly.
+ * <p>
+ * The entries are kept in the {@value #CACHE_NAME} cache of the API cache manager, in cluster mode
+ * it is an invalidation cache so an entry evicted on one node is evicted on the other nodes as well.
+ * Global properties changed in a transaction that is still in progress are read from the database
+ * until the transaction completes, so that uncommitted values are never cached.
+ * <p>
+ * A value read from the database is only cached if its global property was not evicted since the
+ * read began, see {@link #startLoad(String)}, otherwise a value read before a concurrent transaction
+ * committed could be cached after that transaction evicted it and would be served until it expires.
+ *
+ * @since 3.0.0
+ */
+public class GlobalPropertyCache implements GlobalPropertyListener, PostInsertEventListener, PostUpdateEventListener,
+		PostDeleteEventListener {
+
+	public static final String CACHE_NAME = "globalProperties";
+
+	/**
+	 * Key under which the names of the global properties changed in the current transaction are bound
+	 */
+	private static final Object CHANGED_PROPERTIES_KEY = new Object();
+
+	private CacheManager cacheManager;
+
+	private SessionFactory sessionFactory;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Incremented on every eviction, the versions of loads and evictions are taken from it
+	 */
+	private final AtomicLong version = new AtomicLong();
+
+	/**
+	 * The version of the last eviction of each global property, there is one entry per global
+	 * property name
+	 */
+	private final ConcurrentMap<String, Long> evictionVersions = new ConcurrentHashMap<>();
+
+	/**
+	 * The version of the last time all global properties were evicted
+	 */
+	private volatile long clearVersion;
+
+	public void setCacheManager(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	public void setSessionFactory(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	/**
+	 * Registers this cache with hibernate so that it is notified of the global properties written to
+	 * the database
+	 */
+	public void registerListeners() {
+		EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory).getServiceRegistry().getService(
+		    EventListenerRegistry.class);
+		registry.getEventListenerGroup(EventType.POST_INSERT).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_UPDATE).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_DELETE).appendListener(this);
+	}
+
+	/**
+	 * Gets the cached value of the global property with the given name
+	 *
+	 * @param propertyName the name of the global property
+	 * @return the cached value or null if the global property is not cached
+	 */
+	public CachedGlobalProperty get(String propertyName) {
+		String key = getKey(propertyName);
+		if (!isChangedInCurrentTransaction(key)) {
+			Cache.ValueWrapper cached = getCache().get(key);
+			if (cached != null && cached.get() != null) {
+				hitCount.increment();
+				return (CachedGlobalProperty) cached.get();
+			}
+		}
+
+		missCount.increment();
+		return null;
+	}
+
+	/**
+	 * Must be called before the global property with the given name is read from the database to be
+	 * cached with {@link #put(String, GlobalProperty, long)}
+	 *
+	 * @param propertyName the name of the global property
+	 * @return the version to pass to {@link #put(String, GlobalProperty, long)}
+	 */
+	public long startLoad(String propertyName) {
+		return version.get();
+	}
+
+	/**
+	 * Caches the value of the given global property, it is not cached if the global property was
+	 * changed in the current transaction or was evicted since its load started.
+	 *
+	 * @param propertyName the name of the global property
+	 * @param globalProperty the global property as loaded from the database or null if it does not
+	 *            exist
+	 * @param loadVersion the version returned by {@link #startLoad(String)} before the global property
+	 *            was read from the database
+	 * @return the value to use for the global property
+	 */
+	public CachedGlobalProperty put(String propertyName, GlobalProperty globalProperty, long loadVersion) {
+		CachedGlobalProperty value = new CachedGlobalProperty(globalProperty);
+		String key = getKey(propertyName);
+		if (!isChangedInCurrentTransaction(key)) {
+			// evictions of the global property wait until the value is cached, so it can't be cached after
+			// an eviction it missed
+			evictionVersions.compute(key, (k, evictionVersion) -> {
+				if ((evictionVersion == null || evictionVersion <= loadVersion) && clearVersion <= loadVersion) {
+					putForExternalRead(key, value);
+				}
+				return evictionVersion;
+			});
+		}
+		return value;
+	}
+
+	/**
+	 * Evicts the global property with the given name, if there is a transaction in progress the global
+	 * property is read from the database until the transaction completes and is evicted once more then.
+	 *
+	 * @param propertyName the name of the global property
+	 */
+	public void evict(String propertyName) {
+		String key = getKey(propertyName);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			getChangedPropertiesInCurrentTransaction().add(key);
+		}
+		evictKey(key);
+	}
+
+	/**
+	 * Evicts all global properties
+	 */
+	public void clear() {
+		clearVersion = version.incrementAndGet();
+		getCache().clear();
+	}
+
+	/**
+	 * @return the number of times a global property was found in the cache
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * @return the number of times a global property had to be read from the database
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#supportsPropertyName(java.lang.String)
+	 */
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return true;
+	}
+
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#globalPropertyChanged(org.openmrs.GlobalProperty)
+	 */
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		evict(newValue.getProperty());
+	}
+
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#globalPropertyDeleted(java.lang.String)
+	 */
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		evict(propertyName);
+	}
+
+	/**
+	 * @see org.hibernate.event.spi.PostInsertEventListener#onPostInsert(org.hibernate.event.spi.PostInsertEvent)
+	 */
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		evictIfGlobalProperty(event.getEntity());
+	}
+
+	/**
+	 * @see org.hibernate.event.spi.PostUpdateEventListener#onPostUpdate(org.hibernate.event.spi.PostUpdateEvent)
+	 */
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		evictIfGlobalProperty(event.getEntity());
+	}
+
+	/**
+	 * @see org.hibernate.event.spi.PostDeleteEventListener#onPostDelete(org.hibernate.event.spi.PostDeleteEvent)
+	 */
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		evictIfGlobalProperty(event.getEntity());
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	private void evictIfGlobalProperty(Object entity) {
+		if (entity instanceof GlobalProperty) {
+			evict(((GlobalProperty) entity).getProperty());
+		}
+	}
+
+	private Cache getCache() {
+		return cacheManager.getCache(CACHE_NAME);
+	}
+
+	/**
+	 * Evicts the entry and makes the loads that started before not cache their value
+	 */
+	private void evictKey(String key) {
+		evictionVersions.compute(key, (k, evictionVersion) -> {
+			getCache().evict(key);
+			return version.incrementAndGet();
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private void putForExternalRead(String key, CachedGlobalProperty value) {
+		Cache cache = getCache();
+		Object nativeCache = cache.getNativeCache();
+		if (nativeCache instanceof org.infinispan.Cache) {
+			// doesn't invalidate the entry on the other nodes of the cluster, it is only read from the database
+			((org.infinispan.Cache<Object, Object>) nativeCache).putForExternalRead(key, value);
+		} else {
+			cache.put(key, value);
+		}
+	}
+
+	/**
+	 * Global property names are not case sensitive
+	 */
+	private static String getKey(String propertyName) {
+		return propertyName.toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean isChangedInCurrentTransaction(String key) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return false;
+		}
+
+		@SuppressWarnings("unchecked")
+		Set<String> changedProperties = (Set<String>) TransactionSynchronizationManager.getResource(CHANGED_PROPERTIES_KEY);
+		return changedProperties != null && changedProperties.contains(key);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<String> getChangedPropertiesInCurrentTransaction() {
+		Set<String> changedProperties = (Set<String>) TransactionSynchronizationManager.getResource(CHANGED_PROPERTIES_KEY);
+		if (changedProperties == null) {
+			Set<String> newChangedProperties = new HashSet<>();
+			TransactionSynchronizationManager.bindResource(CHANGED_PROPERTIES_KEY, newChangedProperties);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_PROPERTIES_KEY);
+					// another transaction may have read the previous value in the meantime
+					newChangedProperties.forEach(key -> evictKey(key));
+				}
+			});
+			changedProperties = newChangedProperties;
+		}
+		return changedProperties;
+	}
+
+	/**
+	 * The cached value of a global property and the privilege required to view it
+	 */
+	public static class CachedGlobalProperty implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String value;
+
+		private final String viewPrivilege;
+
+		private CachedGlobalProperty(GlobalProperty globalProperty) {
+			if (globalProperty != null) {
+				value = globalProperty.getPropertyValue();
+				viewPrivilege = globalProperty.getViewPrivilege() != null ? globalProperty.getViewPrivilege().getPrivilege()
+				        : null;
+			} else {
+				value = null;
+				viewPrivilege = null;
+			}
+		}
+
+		/**
+		 * @return the value of the global property or null if it does not exist
+		 */
+		public String getValue() {
+			return value;
+		}
+
+		/**
+		 * @return the privilege required to view the global property or null if none is required
+		 */
+		public String getViewPrivilege() {
+			return viewPrivilege;
+		}
+	}
+}
@@ -10,18 +10,26 @@
 package org.openmrs.api.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.Encounter;
 import org.openmrs.Location;
 import org.openmrs.Obs;
+import org.openmrs.OpenmrsObject;
 import org.openmrs.Patient;
 import org.openmrs.Person;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.aop.RequiredDataAdvice;
 import org.openmrs.api.APIException;
@@ -31,6 +39,7 @@ import org.openmrs.api.PatientService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ObsDAO;
 import org.openmrs.api.handler.SaveHandler;
+import org.openmrs.api.handler.VoidHandler;
 import org.openmrs.obs.ComplexData;
 import org.openmrs.obs.ComplexObsHandler;
 import org.openmrs.util.OpenmrsClassLoader;
@@ -113,6 +122,129 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService {
 		}
 	}
 
+	/**
+	 * @see org.openmrs.api.ObsService#reviseObs(Collection, String)
+	 */
+	@Override
+	public List<Obs> reviseObs(Collection<Obs> obsToRevise, String changeMessage) throws APIException {
+		if (StringUtils.isBlank(changeMessage)) {
+			throw new APIException("Obs.error.ChangeMessage.required", (Object[]) null);
+		}
+		
+		// work out which obs changed before anything is written, the changed obs are mapped to their new revisions
+		Map<Obs, Obs> revisions = new LinkedHashMap<>();
+		List<Obs> obsToSave = new ArrayList<>();
+		List<Obs> result = new ArrayList<>(obsToRevise.size());
+		for (Obs obs : obsToRevise) {
+			result.add(collectRevisions(obs, revisions, obsToSave));
+		}
+		
+		List<Integer> revisedObsIds = new ArrayList<>(revisions.size());
+		for (Obs obs : revisions.keySet()) {
+			revisedObsIds.add(obs.getObsId());
+		}
+		Map<Integer, Obs.Status> savedStatuses = dao.getSavedStatuses(revisedObsIds);
+		for (Map.Entry<Obs, Obs> revision : revisions.entrySet()) {
+			updateStatusIfNecessary(revision.getValue(), savedStatuses.get(revision.getKey().getObsId()));
+		}
+		
+		// the changed obs are voided before their new revisions are saved so that they are read only
+		// by the time the session may get flushed and their changes don't end up in their own rows
+		Set<Obs> obsToVoid = new LinkedHashSet<>();
+		for (Obs obs : revisions.keySet()) {
+			collectObsToVoid(obs, obsToVoid);
+		}
+		User voidedBy = Context.getAuthenticatedUser();
+		Date dateVoided = new Date();
+		dao.voidRevisedObs(obsToVoid, voidedBy, dateVoided, changeMessage);
+		// voidObs isn't called for them, the void handlers are run here instead with the values written
+		// by the update, any other changes they make are not saved since the obs are read only by now
+		Set<OpenmrsObject> alreadyVoided = new HashSet<>();
+		for (Obs obs : obsToVoid) {
+			if (!alreadyVoided.contains(obs)) {
+				RequiredDataAdvice.recursivelyHandle(VoidHandler.class, obs, voidedBy, dateVoided, changeMessage,
+				    alreadyVoided);
+			}
+		}
+		
+		for (Obs obs : obsToSave) {
+			RequiredDataAdvice.recursivelyHandle(SaveHandler.class, obs, obs.getObsId() == null ? null : changeMessage);
+			saveObsAndNewMembers(obs);
+		}
+		for (Obs newObs : revisions.values()) {
+			RequiredDataAdvice.recursivelyHandle(SaveHandler.class, newObs, changeMessage);
+			saveObsAndNewMembers(newObs);
+			//delete the previous file from the appdata/complex_obs folder
+			if (newObs.getPreviousVersion().isComplex()) {
+				getHandler(newObs.getPreviousVersion()).purgeComplexData(newObs.getPreviousVersion());
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @param obs the obs to check for changes
+	 * @param revisions the changed obs found so far mapped to their new revisions
+	 * @param obsToSave the new and voided obs found so far
+	 * @return the new revision of the obs if it changed, otherwise the obs
+	 */
+	private Obs collectRevisions(Obs obs, Map<Obs, Obs> revisions, List<Obs> obsToSave) {
+		if (obs == null) {
+			throw new APIException("Obs.error.cannot.be.null", (Object[]) null);
+		}
+		
+		handleExistingObsWithComplexConcept(obs);
+		ensureRequirePrivilege(obs);
+		
+		if (obs.getObsId() == null || obs.getVoided()) {
+			obsToSave.add(obs);
+			return obs;
+		}
+		
+		setPersonFromEncounter(obs);
+		if (obs.isDirty()) {
+			Obs newObs = Obs.newInstance(obs);
+			unsetVoidedAndCreationProperties(newObs, obs);
+			revisions.put(obs, newObs);
+			return newObs;
+		}
+		
+		if (obs.isObsGrouping()) {
+			for (Obs member : new ArrayList<>(obs.getGroupMembers(true))) {
+				Obs savedMember = collectRevisions(member, revisions, obsToSave);
+				if (savedMember != member) {
+					obs.addGroupMember(savedMember);
+				}
+			}
+		}
+		return obs;
+	}
+	
+	private void collectObsToVoid(Obs obs, Set<Obs> obsToVoid) {
+		if (obs.getObsId() == null || obs.getVoided()) {
+			return;
+		}
+		obsToVoid.add(obs);
+		if (obs.hasGroupMembers()) {
+			for (Obs member : obs.getGroupMembers()) {
+				collectObsToVoid(member, obsToVoid);
+			}
+		}
+	}
+	
+	private void saveObsAndNewMembers(Obs obs) {
+		dao.saveObs(obs);
+		if (obs.hasGroupMembers(true)) {
+			for (Obs member : obs.getGroupMembers(true)) {
+				if (member.getObsId() == null) {
+					handleExistingObsWithComplexConcept(member);
+					saveObsAndNewMembers(member);
+				}
+			}
+		}
+	}
+	
 	private void setPersonFromEncounter(Obs obs) {
 		Encounter encounter = obs.getEncounter();
 		if (encounter != null) {
@@ -68,6 +68,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.openmrs.Order.Action.DISCONTINUE;
 import static org.openmrs.Order.Action.REVISE;
@@ -90,6 +91,23 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	protected OrderDAO dao;
 	
 	private static OrderNumberGenerator orderNumberGenerator = null;
+	
+	private static volatile OrderNumberSeedBlock orderNumberSeedBlock = null;
+	
+	private static final Object ORDER_NUMBER_SEED_BLOCK_LOCK = new Object();
+	
+	/**
+	 * Orders of the same patient are saved one after the other, so that an order saved concurrently
+	 * can't be missed when checking that the new order doesn't duplicate an active one. The patients
+	 * are spread over a fixed number of locks.
+	 */
+	private static final Object[] PATIENT_ORDER_LOCKS = new Object[64];
+	
+	static {
+		for (int i = 0; i < PATIENT_ORDER_LOCKS.length; i++) {
+			PATIENT_ORDER_LOCKS[i] = new Object();
+		}
+	}
 
 	public OrderServiceImpl() {
 	}
@@ -106,8 +124,10 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveOrder(Order order, OrderContext orderContext) throws APIException {
-		return saveOrder(order, orderContext, false);
+	public Order saveOrder(Order order, OrderContext orderContext) throws APIException {
+		synchronized (getPatientOrderLock(order.getPatient())) {
+			return saveOrder(order, orderContext, false);
+		}
 	}
 	
 	/**
@@ -151,8 +171,15 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
-		return saveOrder(order, orderContext, true);
+	public Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
+		synchronized (getPatientOrderLock(order.getPatient())) {
+			return saveOrder(order, orderContext, true);
+		}
+	}
+	
+	private static Object getPatientOrderLock(Patient patient) {
+		int hash = patient != null ? patient.getUuid().hashCode() : 0;
+		return PATIENT_ORDER_LOCKS[Math.floorMod(hash, PATIENT_ORDER_LOCKS.length)];
 	}
 
 	private Order saveOrder(Order order, OrderContext orderContext, boolean isRetrospective) {
@@ -639,7 +666,46 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public String getNewOrderNumber(OrderContext orderContext) throws APIException {
-		return ORDER_NUMBER_PREFIX + Context.getOrderService().getNextOrderNumberSeedSequenceValue();
+		return ORDER_NUMBER_PREFIX + getNextOrderNumberSeed();
+	}
+	
+	/**
+	 * Hands out the next order number seed from the block reserved by this server, a new block is
+	 * reserved when the current one is used up. Only reserving a block requires a lock, handing out
+	 * seeds from a reserved block doesn't.
+	 * 
+	 * @return the next order number seed
+	 */
+	private Long getNextOrderNumberSeed() {
+		while (true) {
+			OrderNumberSeedBlock block = orderNumberSeedBlock;
+			if (block != null) {
+				Long seed = block.nextSeed();
+				if (seed != null) {
+					return seed;
+				}
+			}
+			
+			synchronized (ORDER_NUMBER_SEED_BLOCK_LOCK) {
+				// another thread may have reserved a new block while we were waiting
+				if (orderNumberSeedBlock == block) {
+					int blockSize = getOrderNumberSeedBlockSize();
+					Long firstSeed = Context.getOrderService().reserveOrderNumberSeedSequenceValues(blockSize);
+					setOrderNumberSeedBlock(new OrderNumberSeedBlock(firstSeed, blockSize));
+				}
+			}
+		}
+	}
+	
+	private int getOrderNumberSeedBlockSize() {
+		Integer blockSize = Context.getAdministrationService().getGlobalPropertyValue(
+		    OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE, 1);
+		if (blockSize < 1) {
+			log.warn("Invalid value {} for the {} global property, using 1 instead", blockSize,
+			    OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE);
+			return 1;
+		}
+		return blockSize;
 	}
 	
 	/**
@@ -675,10 +741,19 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	@Transactional(propagation = Propagation.REQUIRES_NEW)
-	public synchronized Long getNextOrderNumberSeedSequenceValue() {
+	public Long getNextOrderNumberSeedSequenceValue() {
 		return dao.getNextOrderNumberSeedSequenceValue();
 	}
 	
+	/**
+	 * @see org.openmrs.api.OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public Long reserveOrderNumberSeedSequenceValues(int count) {
+		return dao.reserveOrderNumberSeedSequenceValues(count);
+	}
+	
 	/**
 	 * @see org.openmrs.api.OrderService#getOrderHistoryByOrderNumber(java.lang.String)
 	 */
@@ -927,7 +1002,9 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public boolean supportsPropertyName(String propertyName) {
-		return OpenmrsConstants.GP_ORDER_NUMBER_GENERATOR_BEAN_ID.equals(propertyName);
+		return OpenmrsConstants.GP_ORDER_NUMBER_GENERATOR_BEAN_ID.equals(propertyName)
+		        || OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED.equals(propertyName)
+		        || OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE.equals(propertyName);
 	}
 	
 	/**
@@ -935,7 +1012,7 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public void globalPropertyChanged(GlobalProperty newValue) {
-		setOrderNumberGenerator(null);
+		resetOrderNumberState(newValue.getProperty());
 	}
 	
 	/**
@@ -943,7 +1020,16 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public void globalPropertyDeleted(String propertyName) {
-		setOrderNumberGenerator(null);
+		resetOrderNumberState(propertyName);
+	}
+	
+	private void resetOrderNumberState(String propertyName) {
+		if (OpenmrsConstants.GP_ORDER_NUMBER_GENERATOR_BEAN_ID.equals(propertyName)) {
+			setOrderNumberGenerator(null);
+		} else {
+			// the seed or block size was changed by an administrator, discard what is left of the reserved block
+			setOrderNumberSeedBlock(null);
+		}
 	}
 	
 	/**
@@ -953,6 +1039,36 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 		OrderServiceImpl.orderNumberGenerator = orderNumberGenerator;
 	}
 	
+	/**
+	 * Helper method to deter instance methods from setting static fields
+	 */
+	private static void setOrderNumberSeedBlock(OrderNumberSeedBlock orderNumberSeedBlock) {
+		OrderServiceImpl.orderNumberSeedBlock = orderNumberSeedBlock;
+	}
+	
+	/**
+	 * A block of consecutive order number seeds reserved by this server
+	 */
+	private static class OrderNumberSeedBlock {
+		
+		private final AtomicLong nextSeed;
+		
+		private final long endSeed;
+		
+		private OrderNumberSeedBlock(long firstSeed, int size) {
+			this.nextSeed = new AtomicLong(firstSeed);
+			this.endSeed = firstSeed + size;
+		}
+		
+		/**
+		 * @return the next seed in this block or null if the block is used up
+		 */
+		private Long nextSeed() {
+			long seed = nextSeed.getAndIncrement();
+			return seed < endSeed ? seed : null;
+		}
+	}
+	
 	/**
 	 * @see org.openmrs.api.OrderService#getOrderType(Integer)
 	 */
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -61,6 +62,7 @@ import org.openmrs.api.db.PatientDAO;
 import org.openmrs.api.db.hibernate.HibernateUtil;
 import org.openmrs.parameter.EncounterSearchCriteria;
 import org.openmrs.parameter.EncounterSearchCriteriaBuilder;
+import org.openmrs.patient.DuplicatePatientSearch;
 import org.openmrs.patient.IdentifierValidator;
 import org.openmrs.patient.impl.LuhnIdentifierValidator;
 import org.openmrs.person.PersonMergeLog;
@@ -538,6 +540,55 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		return dao.getDuplicatePatientsByAttributes(attributes);
 	}
 	
+	/**
+	 * @see org.openmrs.api.PatientService#scanForDuplicatePatients(DuplicatePatientSearch, int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public boolean scanForDuplicatePatients(DuplicatePatientSearch search, int maxPatients) throws APIException {
+		if (search.isComplete()) {
+			return false;
+		}
+		
+		List<Integer> patientIds = dao.getPatientIds(search.getLastPatientId(), maxPatients, search.isIncludeVoided());
+		search.addPatients(patientIds, dao.getDuplicatePatientValues(patientIds));
+		if (patientIds.size() < maxPatients) {
+			search.complete(dao::getDuplicatePatientValues);
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * @see org.openmrs.api.PatientService#getDuplicatePatients(DuplicatePatientSearch, int, int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<List<Patient>> getDuplicatePatients(DuplicatePatientSearch search, int startIndex, int length)
+	        throws APIException {
+		List<List<Integer>> duplicates = search.getDuplicates();
+		List<List<Integer>> page = duplicates.subList(Math.min(startIndex, duplicates.size()), Math.min(startIndex
+		        + length, duplicates.size()));
+		
+		// the patients of the whole page are loaded with one query
+		List<Integer> patientIds = new ArrayList<>();
+		page.forEach(patientIds::addAll);
+		Map<Integer, Patient> patientsById = new HashMap<>();
+		for (Patient patient : dao.getPatientsByIds(patientIds)) {
+			patientsById.put(patient.getPatientId(), patient);
+		}
+		
+		List<List<Patient>> result = new ArrayList<>(page.size());
+		for (List<Integer> group : page) {
+			List<Patient> patients = new ArrayList<>(group.size());
+			for (Integer patientId : group) {
+				patients.add(patientsById.get(patientId));
+			}
+			result.add(patients);
+		}
+		return result;
+	}
+	
 	/**
 	 * generate a relationship hash for use in mergePatients; follows the convention:
 	 * [relationshipType][A|B][relativeId]
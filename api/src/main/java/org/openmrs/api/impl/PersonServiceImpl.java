@@ -37,6 +37,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -186,7 +187,9 @@ public class PersonServiceImpl extends BaseOpenmrsService implements PersonServi
 			Boolean oldSearchable = dao.getSavedPersonAttributeTypeSearchable(type);
 			if (oldSearchable == null || !oldSearchable.equals(type.getSearchable())) {
 				//we need to update index searchable property has changed
-				Context.updateSearchIndexForType(PersonAttribute.class);
+				Context.updateSearchIndexForType(PersonAttribute.class,
+				    "attributeType.personAttributeTypeId = :attributeTypeId",
+				    Collections.singletonMap("attributeTypeId", attributeType.getPersonAttributeTypeId()));
 			}
 		}
 		
@@ -36,6 +36,7 @@ import org.openmrs.api.CannotDeleteRoleWithChildrenException;
 import org.openmrs.api.InvalidActivationKeyException;
 import org.openmrs.api.UserService;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.EffectivePrivileges;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.LoginCredential;
 import org.openmrs.api.db.UserDAO;
@@ -117,6 +118,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		// TODO Check required fields for user!!
 		OpenmrsUtil.validatePassword(user.getUsername(), password, user.getSystemId());
 		
+		EffectivePrivileges.invalidateAll();
 		return dao.saveUser(user, password);
 	}
 	
@@ -178,6 +180,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 				+ " is already in use.");
 		}
 		
+		EffectivePrivileges.invalidateAll();
 		return dao.saveUser(user, null);
 	}
 	
@@ -251,6 +254,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 			throw new APIException("Privilege.cannot.delete.core", (Object[]) null);
 		}
 		
+		EffectivePrivileges.invalidateAll();
 		dao.deletePrivilege(privilege);
 	}
 	
@@ -259,6 +263,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 	 */
 	@Override
 	public Privilege savePrivilege(Privilege privilege) throws APIException {
+		EffectivePrivileges.invalidateAll();
 		return dao.savePrivilege(privilege);
 	}
 	
@@ -297,6 +302,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 			throw new CannotDeleteRoleWithChildrenException();
 		}
 		
+		EffectivePrivileges.invalidateAll();
 		dao.deleteRole(role);
 	}
 	
@@ -313,6 +319,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		
 		checkPrivileges(role);
 		
+		EffectivePrivileges.invalidateAll();
 		return dao.saveRole(role);
 	}
 	
@@ -499,6 +506,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 	 */
 	@Override
 	public void purgeUser(User user) throws APIException {
+		EffectivePrivileges.invalidateAll();
 		dao.deleteUser(user);
 	}
 	
@@ -511,6 +519,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 			throw new APIException("cascade.do.not.think", (Object[]) null);
 		}
 		
+		EffectivePrivileges.invalidateAll();
 		dao.deleteUser(user);
 	}
 	
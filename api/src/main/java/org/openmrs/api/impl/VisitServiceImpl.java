@@ -21,6 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.openmrs.Concept;
 import org.openmrs.Location;
 import org.openmrs.Patient;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.VisitAttribute;
 import org.openmrs.VisitAttributeType;
@@ -29,8 +30,10 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.VisitService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.VisitDAO;
+import org.openmrs.api.handler.SaveHandler;
 import org.openmrs.customdatatype.CustomDatatypeUtil;
 import org.openmrs.parameter.VisitSearchCriteria;
+import org.openmrs.util.HandlerUtil;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.PrivilegeConstants;
 import org.openmrs.validator.ValidateUtil;
@@ -45,6 +48,11 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class VisitServiceImpl extends BaseOpenmrsService implements VisitService {
 	
+	/**
+	 * The number of visits {@link #stopVisits(Date)} loads, stops and flushes at a time
+	 */
+	private static final int STOP_VISITS_CHUNK_SIZE = 500;
+	
 	private VisitDAO dao;
 	
 	/**
@@ -360,32 +368,61 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 	 */
 	@Override
 	public void stopVisits(Date maximumStartDate) {
-		
 		final List<VisitType> visitTypesToStop = getVisitTypesToStop();
+		if (visitTypesToStop.isEmpty()) {
+			return;
+		}
 		
+		Date stopDate = new Date();
+		List<Integer> stoppedVisitIds = Collections.emptyList();
+		do {
+			Integer lastVisitId = stoppedVisitIds.isEmpty() ? null : stoppedVisitIds.get(stoppedVisitIds.size() - 1);
+			stoppedVisitIds = stopVisits(visitTypesToStop, maximumStartDate, stopDate, lastVisitId,
+			    STOP_VISITS_CHUNK_SIZE);
+		} while (stoppedVisitIds.size() == STOP_VISITS_CHUNK_SIZE);
+	}
+	
+	/**
+	 * @see org.openmrs.api.VisitService#stopVisits(Date, Integer, int)
+	 */
+	@Override
+	public List<Integer> stopVisits(Date maximumStartDate, Integer lastVisitId, int maxVisits) {
+		final List<VisitType> visitTypesToStop = getVisitTypesToStop();
+		if (visitTypesToStop.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return stopVisits(visitTypesToStop, maximumStartDate, new Date(), lastVisitId, maxVisits);
+	}
+	
+	private List<Integer> stopVisits(List<VisitType> visitTypesToStop, Date maximumStartDate, Date stopDate,
+	        Integer lastVisitId, int maxVisits) {
 		if (maximumStartDate == null) {
 			maximumStartDate = new Date();
 		}
-			
-		if (visitTypesToStop.isEmpty()) {
-			return;
+		
+		List<Visit> visits = dao.getNextVisits(lastVisitId, visitTypesToStop, maximumStartDate, maxVisits);
+		if (visits.isEmpty()) {
+			return Collections.emptyList();
 		}
 		
-		int counter = 0;
-		Date stopDate = new Date();
-		Visit nextVisit = dao.getNextVisit(null, visitTypesToStop, maximumStartDate);
-		while (nextVisit != null) {
-			nextVisit.setStopDatetime(stopDate);
-			dao.saveVisit(nextVisit);
-			if (counter++ > 50) {
-				//ensure changes are persisted to DB before reclaiming memory
-				Context.flushSession();
-				Context.clearSession();
-				counter = 0;
+		// the visits are saved through the dao so the save handlers of the visit are run here, unlike
+		// VisitService.saveVisit this doesn't load the encounters of each visit
+		List<SaveHandler> saveHandlers = HandlerUtil.getHandlersForType(SaveHandler.class, Visit.class);
+		User currentUser = Context.getAuthenticatedUser();
+		List<Integer> stoppedVisitIds = new ArrayList<>(visits.size());
+		for (Visit visit : visits) {
+			visit.setStopDatetime(stopDate);
+			for (SaveHandler saveHandler : saveHandlers) {
+				saveHandler.handle(visit, currentUser, stopDate, null);
 			}
-					
-		nextVisit = dao.getNextVisit(nextVisit, visitTypesToStop, maximumStartDate);
+			dao.saveVisit(visit);
+			stoppedVisitIds.add(visit.getVisitId());
 		}
+		
+		//ensure changes are persisted to DB in JDBC batches before reclaiming memory
+		Context.flushSession();
+		Context.clearSession();
+		return stoppedVisitIds;
 	}
 	
 	private List<VisitType> getVisitTypesToStop() {
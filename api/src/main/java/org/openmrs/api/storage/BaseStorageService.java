@@ -83,6 +83,19 @@ public abstract class BaseStorageService extends BaseOpenmrsService implements S
 		return saveTempData(streamService.streamData(writer, metadata != null ? metadata.getLength() : null), metadata);
 	}
 
+	/**
+	 * @param offset the position of the first byte to read
+	 * @param length the maximum number of bytes to read
+	 * @throws IllegalArgumentException if the offset or the length is negative
+	 * @since 3.0.0
+	 */
+	protected void assertValidRange(long offset, long length) {
+		if (offset < 0 || length < 0) {
+			throw new IllegalArgumentException("Offset and length must not be negative, got offset " + offset 
+				+ " and length " + length);
+		}
+	}
+
 	protected String newKey(String moduleIdOrGroup, String keySuffix, String filename) {
 		if (keySuffix == null) {
 			keySuffix = LocalDateTime.now().format(keyDateTimeFormat) + RandomStringUtils.insecure().nextAlphanumeric(8);
@@ -13,13 +13,18 @@ import jakarta.activation.MimetypesFileTypeMap;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openmrs.api.StorageService;
@@ -63,6 +68,21 @@ public class LocalStorageService extends BaseStorageService implements StorageSe
 		return Files.newInputStream(getPath(key));
 	}
 
+	@Override
+	public InputStream getData(final String key, long offset, long length) throws IOException {
+		assertValidRange(offset, length);
+		FileChannel channel = FileChannel.open(getPath(key), StandardOpenOption.READ);
+		try {
+			// reads start at the position without going through the data before it
+			channel.position(offset);
+			return BoundedInputStream.builder().setInputStream(Channels.newInputStream(channel))
+				.setMaxCount(length).get();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
 	/**
 	 * It needs to be evaluated each time as it changes over time in tests...
 	 * <p>
@@ -85,7 +105,17 @@ public class LocalStorageService extends BaseStorageService implements StorageSe
 				.setLength(attributes.size())
 				.setMimeType(mimetypes.getContentType(filename))
 				.setFilename(filename)
-				.setCreationTime(attributes.creationTime().toInstant()).build();
+				.setCreationTime(attributes.creationTime().toInstant())
+				.setEntityTag(getEntityTag(attributes)).build();
+	}
+
+	/**
+	 * Files are never changed after they are saved so the size and the modification time are enough to 
+	 * tell them apart from a file saved under the same key after the previous one was purged.
+	 */
+	private String getEntityTag(BasicFileAttributes attributes) {
+		return "\"" + Long.toHexString(attributes.size()) + "-" 
+			+ Long.toHexString(attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS)) + "\"";
 	}
 
 	Path getPath(String key) {
@@ -24,6 +24,7 @@ public class ObjectMetadata {
 	private String mimeType;
 	private String filename;
 	private Instant creationTime;
+	private String entityTag;
 	
 	public ObjectMetadata() {}
 
@@ -96,12 +97,31 @@ public class ObjectMetadata {
 		this.creationTime = creationTime;
 	}
 
+	/**
+	 * The entity tag changes whenever the data stored under a key changes, it can be compared with the tag
+	 * of data read earlier to tell whether it is still the same.
+	 * 
+	 * @return entity tag in the form of an HTTP entity tag including the quotes or null if not known
+	 * @since 3.0.0
+	 */
+	public String getEntityTag() {
+		return entityTag;
+	}
+
+	/**
+	 * @since 3.0.0
+	 */
+	public void setEntityTag(String entityTag) {
+		this.entityTag = entityTag;
+	}
+
 	public static class Builder {
 		private Long length;
 		private String mimeType;
 		private String filename;
 		private Instant creationTime;
 		private Map<String, String> customMetadata;
+		private String entityTag;
 
 		public Builder setLength(Long length) {
 			this.length = length;
@@ -128,8 +148,18 @@ public class ObjectMetadata {
 			return this;
 		}
 
+		/**
+		 * @since 3.0.0
+		 */
+		public Builder setEntityTag(String entityTag) {
+			this.entityTag = entityTag;
+			return this;
+		}
+
 		public ObjectMetadata build() {
-			return new ObjectMetadata(length, mimeType, filename, creationTime, customMetadata);
+			ObjectMetadata metadata = new ObjectMetadata(length, mimeType, filename, creationTime, customMetadata);
+			metadata.setEntityTag(entityTag);
+			return metadata;
 		}
 	}
 }
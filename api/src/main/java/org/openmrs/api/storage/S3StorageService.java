@@ -128,6 +128,32 @@ public class S3StorageService extends BaseStorageService implements StorageServi
 		return waitForResponse(object);
     }
 
+	@Override
+	public InputStream getData(String key, long offset, long length) throws IOException {
+		assertValidRange(offset, length);
+		if (length == 0) {
+			// an empty range cannot be requested, only check that the key exists
+			getMetadata(key);
+			return InputStream.nullInputStream();
+		}
+		
+		GetObjectRequest request = GetObjectRequest.builder().bucket(bucketName).key(encodeKey(key))
+			.range("bytes=" + offset + "-" + (offset + length - 1)).build();
+		CompletableFuture<ResponseInputStream<GetObjectResponse>> object = s3AsyncClient.getObject(request, 
+			AsyncResponseTransformer.toBlockingInputStream());
+		try {
+			return object.get();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof S3Exception && ((S3Exception) e.getCause()).statusCode() == 416) {
+				// the range starts after the end of the data
+				return InputStream.nullInputStream();
+			}
+			throw new IOException(e);
+		}
+	}
+
 	private <T> T waitForResponse(CompletableFuture<T> object) throws IOException {
 		T result;
 		try {
@@ -147,6 +173,7 @@ public class S3StorageService extends BaseStorageService implements StorageServi
 		ObjectMetadata metadata = new ObjectMetadata();
 		metadata.setMimeType(awsMetadata.contentType());
 		metadata.setLength(awsMetadata.contentLength());
+		metadata.setEntityTag(awsMetadata.eTag());
 		return metadata;
     }
 
@@ -16,11 +16,13 @@ import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -37,7 +39,8 @@ import org.springframework.util.unit.DataSize;
  * separate thread using {@link TaskExecutor}.
  * <p>
  * It's providing the {@link java.io.PipedInputStream}/{@link java.io.PipedOutputStream} mechanism in a thread safe way 
- * with the use of {@link BlockingQueue}.
+ * with the use of {@link BlockingQueue}. The data is passed in chunks of bytes which are reused once read, so that
+ * streaming doesn't allocate per byte and at most {@link #BUFFER_SIZE} bytes are buffered per stream.
  * 
  * @since 2.8.0, 2.7.5, 2.6.16, 2.5.15
  */
@@ -45,21 +48,62 @@ import org.springframework.util.unit.DataSize;
 public class StreamDataService {
 	public static final int BUFFER_SIZE = (int) DataSize.ofKilobytes(128).toBytes();
 	
+	/**
+	 * The number of bytes passed from the writing to the reading thread at a time
+	 */
+	private static final int CHUNK_SIZE = (int) DataSize.ofKilobytes(16).toBytes();
+	
+	/**
+	 * The number of chunks per stream, together they buffer {@link #BUFFER_SIZE} bytes
+	 */
+	private static final int CHUNK_COUNT = BUFFER_SIZE / CHUNK_SIZE;
+	
+	private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+	
+	private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+	
 	private static final Logger log = LoggerFactory.getLogger(StreamDataService.class);
 	private final TaskExecutor taskExecutor;
 	
+	private Duration timeout = DEFAULT_TIMEOUT;
+	
 	public StreamDataService(@Autowired TaskExecutor taskExecutor) {
 		this.taskExecutor = taskExecutor;
 	}
 	
+	/**
+	 * Sets how long the reading end waits for the writer to write something and the writer waits
+	 * for the reading end to read, for tests.
+	 * 
+	 * @param timeout the timeout
+	 */
+	void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+	
+	/**
+	 * The reading end of the pipe. Data is passed from the writing end in chunks of
+	 * {@link #CHUNK_SIZE} bytes which are handed back to the writing end once they are read, so at
+	 * most {@link #CHUNK_COUNT} chunks are allocated per pipe and the writer blocks when all of them
+	 * are waiting to be read.
+	 */
 	private static class QueueInputStream extends InputStream {
-		private final BlockingQueue<Integer> blockingQueue;
+		private final BlockingQueue<ByteBuffer> blockingQueue;
+		private final BlockingQueue<ByteBuffer> freeChunks;
 		private final long timeoutNanos;
+		/**
+		 * The number of bytes written so far, updated lazily by the writer since it is only read when
+		 * the reading end timed out
+		 */
+		private final AtomicLong writtenBytes = new AtomicLong();
 		private volatile IOException streamException;
+		private ByteBuffer currentChunk;
+		private boolean endOfStream = false;
 
-		public QueueInputStream() {
-			this.blockingQueue = new LinkedBlockingQueue<>(BUFFER_SIZE);
-			this.timeoutNanos = Duration.ofSeconds(30).toNanos();
+		public QueueInputStream(Duration timeout) {
+			this.blockingQueue = new ArrayBlockingQueue<>(CHUNK_COUNT + 1);
+			this.freeChunks = new ArrayBlockingQueue<>(CHUNK_COUNT);
+			this.timeoutNanos = timeout.toNanos();
 		}
 
 		public QueueOutputStream newQueueOutputStream() {
@@ -68,37 +112,83 @@ public class StreamDataService {
 
 		@Override
 		public int read() throws IOException {
+			checkStreamException();
+			int result = nextChunk() ? 255 & currentChunk.get() : -1;
+			releaseChunkIfRead();
+			checkStreamException();
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) {
+				return 0;
+			}
+			checkStreamException();
+			
+			int read = 0;
+			// only block for the first chunk, return whatever is available after that
+			while (read < len && (read == 0 || currentChunk != null || !blockingQueue.isEmpty()) && nextChunk()) {
+				int count = Math.min(len - read, currentChunk.remaining());
+				currentChunk.get(b, off + read, count);
+				read += count;
+				releaseChunkIfRead();
+			}
+			
+			checkStreamException();
+			return read == 0 ? -1 : read;
+		}
+
+		@Override
+		public int available() throws IOException {
+			checkStreamException();
+			return currentChunk != null ? currentChunk.remaining() : 0;
+		}
+
+		/**
+		 * Makes sure there is a chunk with remaining data to be read, waits for the writer if needed
+		 * 
+		 * @return false if the end of stream is reached
+		 * @throws IOException if the writer didn't write anything for the timeout
+		 */
+		private boolean nextChunk() throws IOException {
+			if (currentChunk != null) {
+				return true;
+			}
+			if (endOfStream) {
+				return false;
+			}
 			try {
-				checkStreamException();
-				
-				int result;
-				Integer peek = this.blockingQueue.peek();
-				if (Integer.valueOf(-1).equals(peek)) {
-					result = -1;
-				} else {
-					Integer value = this.blockingQueue.poll(this.timeoutNanos, TimeUnit.NANOSECONDS);
-					if (value == null) {
-						// Timeout
-						result = -1;
-					} else if (value == -1) {
-						// End of stream. Put the end of stream back in the queue for consistency.
-						this.blockingQueue.clear();
-						if (!this.blockingQueue.offer(-1, timeoutNanos, TimeUnit.NANOSECONDS)) {
-							throw new IOException("Failed to write to full queue");
-						}
-						result = -1;
-					} else {
-						result = 255 & value;
+				long written = writtenBytes.get();
+				ByteBuffer chunk = blockingQueue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+				while (chunk == null) {
+					// a slow writer may still be filling the chunk, it only timed out if it stopped writing
+					if (writtenBytes.get() == written) {
+						IOException timeoutException = new IOException("Timed out waiting for data to be written");
+						propagateStreamException(timeoutException);
+						throw timeoutException;
 					}
+					written = writtenBytes.get();
+					chunk = blockingQueue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
 				}
-
-				checkStreamException();
-				return result;
+				if (chunk == END_OF_STREAM) {
+					endOfStream = true;
+					return false;
+				}
+				currentChunk = chunk;
+				return true;
 			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				InterruptedIOException interruptedIoException = new InterruptedIOException();
-				interruptedIoException.initCause(e);
-				throw interruptedIoException;
+				throw interrupted(e);
+			}
+		}
+
+		private void releaseChunkIfRead() {
+			if (currentChunk != null && !currentChunk.hasRemaining()) {
+				currentChunk.clear();
+				// the pool can't overflow since it only takes back the chunks it handed out
+				freeChunks.offer(currentChunk);
+				currentChunk = null;
 			}
 		}
 
@@ -125,8 +215,16 @@ public class StreamDataService {
 		}
 	}
 	
+	/**
+	 * The writing end of the pipe, bytes are collected in a chunk which is passed to the reading end
+	 * once it is full, flushed or the stream is closed.
+	 */
 	private static class QueueOutputStream extends OutputStream {
 		private final QueueInputStream queueInputStream;
+		private int allocatedChunks = 0;
+		private long writtenBytes = 0;
+		private ByteBuffer currentChunk;
+		private boolean closed = false;
 		
 		public QueueOutputStream(QueueInputStream queueInputStream) {
 			this.queueInputStream = queueInputStream;
@@ -138,18 +236,58 @@ public class StreamDataService {
 		 */
 		@Override
 		public void write(int b) throws IOException {
-			try {
-				queueInputStream.checkStreamException();
-				
-				if (!queueInputStream.blockingQueue.offer(255 & b, queueInputStream.timeoutNanos, TimeUnit.NANOSECONDS)) {
-					IOException streamException = new IOException("Failed to write to full queue");
-					queueInputStream.propagateStreamException(streamException);
+			queueInputStream.checkStreamException();
+			if (closed) {
+				return;
+			}
+			
+			if (currentChunk == null) {
+				currentChunk = takeFreeChunk();
+			}
+			currentChunk.put((byte) b);
+			queueInputStream.writtenBytes.lazySet(++writtenBytes);
+			if (!currentChunk.hasRemaining()) {
+				passCurrentChunk();
+			}
+		}
+
+		/**
+		 * @throws IOException when queue full or interrupted
+		 */
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			queueInputStream.checkStreamException();
+			if (closed) {
+				return;
+			}
+			
+			int written = 0;
+			while (written < len) {
+				if (currentChunk == null) {
+					currentChunk = takeFreeChunk();
+				}
+				int count = Math.min(len - written, currentChunk.remaining());
+				currentChunk.put(b, off + written, count);
+				written += count;
+				writtenBytes += count;
+				queueInputStream.writtenBytes.lazySet(writtenBytes);
+				if (!currentChunk.hasRemaining()) {
+					passCurrentChunk();
 				}
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				InterruptedIOException interruptedIoException = new InterruptedIOException();
-				interruptedIoException.initCause(e);
-				throw interruptedIoException;
+			}
+		}
+
+		/**
+		 * Passes the bytes written so far to the reading end.
+		 * 
+		 * @throws IOException when queue full or interrupted
+		 */
+		@Override
+		public void flush() throws IOException {
+			queueInputStream.checkStreamException();
+			if (!closed && currentChunk != null && currentChunk.position() > 0) {
+				passCurrentChunk();
 			}
 		}
 
@@ -161,21 +299,73 @@ public class StreamDataService {
 		 */
 		@Override
 		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			
 			try {
-				queueInputStream.checkStreamException();
-				
-				// Indicate the end of stream
-				if (!this.queueInputStream.blockingQueue.offer(-1, queueInputStream.timeoutNanos, TimeUnit.NANOSECONDS)) {
-					IOException streamException = new IOException("Failed to write to full queue");
-					queueInputStream.propagateStreamException(streamException);
+				if (queueInputStream.streamException == null && currentChunk != null && currentChunk.position() > 0) {
+					passCurrentChunk();
 				}
+			} finally {
+				// Indicate the end of stream, the reading end checks for a propagated exception once it gets it
+				offer(END_OF_STREAM);
+			}
+			queueInputStream.checkStreamException();
+		}
+
+		private ByteBuffer takeFreeChunk() throws IOException {
+			ByteBuffer chunk = queueInputStream.freeChunks.poll();
+			if (chunk != null) {
+				return chunk;
+			}
+			if (allocatedChunks < CHUNK_COUNT) {
+				allocatedChunks++;
+				return ByteBuffer.allocate(CHUNK_SIZE);
+			}
+			
+			// all chunks are waiting to be read
+			try {
+				chunk = queueInputStream.freeChunks.poll(queueInputStream.timeoutNanos, TimeUnit.NANOSECONDS);
 			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				InterruptedIOException interruptedIoException = new InterruptedIOException();
-				interruptedIoException.initCause(e);
-				throw interruptedIoException;
+				throw interrupted(e);
+			}
+			if (chunk == null) {
+				throw fullQueue();
 			}
+			return chunk;
+		}
+
+		private void passCurrentChunk() throws IOException {
+			currentChunk.flip();
+			ByteBuffer chunk = currentChunk;
+			currentChunk = null;
+			offer(chunk);
 		}
+
+		private void offer(ByteBuffer chunk) throws IOException {
+			try {
+				if (!queueInputStream.blockingQueue.offer(chunk, queueInputStream.timeoutNanos, TimeUnit.NANOSECONDS)) {
+					throw fullQueue();
+				}
+			} catch (InterruptedException e) {
+				throw interrupted(e);
+			}
+		}
+
+		private IOException fullQueue() {
+			IOException streamException = new IOException("Failed to write to full queue");
+			queueInputStream.propagateStreamException(streamException);
+			return streamException;
+		}
+	}
+
+	private static InterruptedIOException interrupted(InterruptedException e) {
+		Thread.currentThread().interrupt();
+		InterruptedIOException interruptedIoException = new InterruptedIOException();
+		interruptedIoException.initCause(e);
+		return interruptedIoException;
 	}
 
 	/**
@@ -200,7 +390,7 @@ public class StreamDataService {
 			}
 			return new ByteArrayInputStream(out.toByteArray());
 		} else {
-			QueueInputStream in = new QueueInputStream();
+			QueueInputStream in = new QueueInputStream(timeout);
 
 			taskExecutor.execute(() -> {
 				QueueOutputStream out = in.newQueueOutputStream();
@@ -9,7 +9,15 @@
  */
 package org.openmrs.hl7;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.StringUtils;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +29,12 @@ import ca.uhn.hl7v2.HL7Exception;
  * table depending on success or failure of the processing. You may, however, set a global property
  * that causes the processor to ignore messages regarding unknown patients from a non-local HL7
  * source. (i.e. those messages neither go to the archive or the error table.)
+ * <p>
+ * The queue is processed in batches, when the {@link OpenmrsConstants#GP_HL7_PROCESSOR_PARALLELISM}
+ * global property is greater than 1 and the processor runs in a daemon thread, the entries of a
+ * batch are split into that many lanes which are processed at the same time, each in its own
+ * session. Entries for the same patient identifier always go to the same lane so that they are
+ * processed in the order they were received.
  *
  * @version 1.0
  */
@@ -29,12 +43,15 @@ public class HL7InQueueProcessor /* implements Runnable */{
 	
 	private static final Logger log = LoggerFactory.getLogger(HL7InQueueProcessor.class);
 	
+	/**
+	 * The number of queue entries fetched at a time, the session is cleared after each batch
+	 */
+	private static final int BATCH_SIZE = 100;
+	
 	private static Boolean isRunning = false; // allow only one running
 
 	private static final Object lock = new Object();
 	
-	private static Integer count = 0;
-	
 	// processor per JVM
 	
 	/**
@@ -44,8 +61,12 @@ public class HL7InQueueProcessor /* implements Runnable */{
 	public HL7InQueueProcessor() {
 	}
 	
+	/**
+	 * @deprecated As of 3.0.0, the session is cleared after each batch of queue entries instead of
+	 *             after a number of processed entries
+	 */
+	@Deprecated
 	public static void setCount(Integer count) {
-		HL7InQueueProcessor.count = count;
 	}
 	
 	/**
@@ -64,18 +85,6 @@ public class HL7InQueueProcessor /* implements Runnable */{
 		catch (HL7Exception e) {
 			log.error("Unable to process hl7 in queue", e);
 		}
-		setCount(count + 1);
-		if (count > 25) {
-			// clean up memory after processing each queue entry (otherwise, the
-			// memory-intensive process may crash or eat up all our memory)
-			try {
-				Context.getHL7Service().garbageCollect();
-			}
-			catch (Exception e) {
-				log.error("Exception while performing garbagecollect in hl7 inbound processor", e);
-			}
-		}
-		
 	}
 	
 	/**
@@ -96,7 +105,7 @@ public class HL7InQueueProcessor /* implements Runnable */{
 	}
 	
 	/**
-	 * Starts up a thread to process all existing HL7InQueue entries
+	 * Processes all existing HL7InQueue entries
 	 */
 	public void processHL7InQueue() throws HL7Exception {
 		synchronized (lock) {
@@ -108,8 +117,28 @@ public class HL7InQueueProcessor /* implements Runnable */{
 		}
 		try {
 			log.debug("Start processing hl7 in queue");
-			while (processNextHL7InQueue()) {
-				// loop until queue is empty
+			int parallelism = getParallelism();
+			if (parallelism > 1 && !Daemon.isDaemonThread()) {
+				log.debug("Processing hl7 in queue serially since only daemon threads can start worker threads");
+				parallelism = 1;
+			}
+			
+			// entries are fetched after the last one of the previous batch, so an entry that is left
+			// pending because its transaction was rolled back is not fetched over and over again
+			Integer lastHL7InQueueId = null;
+			List<HL7InQueue> batch = Context.getHL7Service().getNextHL7InQueues(null, BATCH_SIZE);
+			while (!batch.isEmpty()) {
+				lastHL7InQueueId = batch.get(batch.size() - 1).getHL7InQueueId();
+				if (parallelism > 1) {
+					processBatchInParallel(batch, parallelism);
+				} else {
+					batch.forEach(this::processHL7InQueue);
+				}
+				
+				// free memory since the batch is processed
+				Context.flushSession();
+				Context.clearSession();
+				batch = Context.getHL7Service().getNextHL7InQueues(lastHL7InQueueId, BATCH_SIZE);
 			}
 			log.debug("Done processing hl7 in queue");
 		}
@@ -118,4 +147,96 @@ public class HL7InQueueProcessor /* implements Runnable */{
 		}
 	}
 	
+	/**
+	 * Splits the given batch into lanes by patient identifier and processes the lanes in parallel,
+	 * each lane in a new daemon thread with its own session. Returns once all lanes are processed.
+	 */
+	private void processBatchInParallel(List<HL7InQueue> batch, int parallelism) {
+		List<List<Integer>> lanes = new ArrayList<>(parallelism);
+		for (int i = 0; i < parallelism; i++) {
+			lanes.add(new ArrayList<>());
+		}
+		for (HL7InQueue hl7InQueue : batch) {
+			String patientKey = getPatientKey(hl7InQueue.getHL7Data());
+			Object laneKey = patientKey != null ? patientKey : hl7InQueue.getHL7InQueueId();
+			lanes.get(Math.floorMod(laneKey.hashCode(), parallelism)).add(hl7InQueue.getHL7InQueueId());
+		}
+		
+		List<Future<?>> futures = new ArrayList<>(parallelism);
+		for (List<Integer> lane : lanes) {
+			if (!lane.isEmpty()) {
+				futures.add(Daemon.runNewDaemonTask(() -> processLane(lane)));
+			}
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.warn("Interrupted while waiting for the hl7 in queue to be processed");
+				return;
+			}
+			catch (ExecutionException e) {
+				log.error("Error while processing hl7 in queue", e.getCause());
+			}
+		}
+	}
+	
+	/**
+	 * Processes the queue entries with the given ids one after the other, the entries are loaded
+	 * again since the lane runs in its own session
+	 */
+	private void processLane(List<Integer> hl7InQueueIds) {
+		HL7Service hl7Service = Context.getHL7Service();
+		for (Integer hl7InQueueId : hl7InQueueIds) {
+			try {
+				HL7InQueue hl7InQueue = hl7Service.getHL7InQueue(hl7InQueueId);
+				if (hl7InQueue != null && HL7Constants.HL7_STATUS_PENDING.equals(hl7InQueue.getMessageState())) {
+					processHL7InQueue(hl7InQueue);
+				}
+			}
+			catch (Exception e) {
+				log.error("Unable to process hl7 in queue entry " + hl7InQueueId, e);
+			}
+		}
+	}
+	
+	private static int getParallelism() {
+		String parallelism = Context.getAdministrationService().getGlobalProperty(
+		    OpenmrsConstants.GP_HL7_PROCESSOR_PARALLELISM, "1");
+		try {
+			return Math.max(1, Integer.parseInt(parallelism.trim()));
+		}
+		catch (NumberFormatException e) {
+			log.warn("Invalid value for global property {}: {}", OpenmrsConstants.GP_HL7_PROCESSOR_PARALLELISM,
+			    parallelism);
+			return 1;
+		}
+	}
+	
+	/**
+	 * Gets the patient identifier list (PID-3) of the given hl7 message without parsing the whole
+	 * message, it is used to keep the messages for the same patient in order.
+	 *
+	 * @param hl7Data the hl7 message
+	 * @return the patient identifier list or null if the message has none
+	 * <strong>Should</strong> return the patient identifier list of the message
+	 * <strong>Should</strong> return null if the message has no PID segment
+	 * <strong>Should</strong> use the field separator of the message
+	 */
+	static String getPatientKey(String hl7Data) {
+		if (hl7Data == null || hl7Data.length() < 4 || !hl7Data.startsWith("MSH")) {
+			return null;
+		}
+		char fieldSeparator = hl7Data.charAt(3);
+		for (String segment : hl7Data.split("[\r\n]+")) {
+			if (segment.startsWith("PID" + fieldSeparator)) {
+				String[] fields = StringUtils.splitPreserveAllTokens(segment, fieldSeparator);
+				return fields.length > 3 && StringUtils.isNotBlank(fields[3]) ? fields[3] : null;
+			}
+		}
+		return null;
+	}
+	
 }
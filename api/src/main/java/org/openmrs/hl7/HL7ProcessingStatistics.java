@@ -0,0 +1,92 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.hl7;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the number of times and the total time spent in each stage of processing inbound hl7
+ * messages, so that it can be told which stage slows down draining the inbound queue.
+ *
+ * @since 3.0.0
+ */
+public class HL7ProcessingStatistics {
+
+	/**
+	 * The stages of processing an inbound hl7 message
+	 */
+	public enum Stage {
+		/**
+		 * Parsing the hl7 string into a message
+		 */
+		PARSE,
+		/**
+		 * Finding the patient the message is about
+		 */
+		PATIENT_RESOLVE,
+		/**
+		 * Creating and saving the encounter and its obs
+		 */
+		OBS_CREATION
+	}
+
+	private static final Map<Stage, LongAdder> counts = new EnumMap<>(Stage.class);
+
+	private static final Map<Stage, LongAdder> timesNanos = new EnumMap<>(Stage.class);
+
+	static {
+		for (Stage stage : Stage.values()) {
+			counts.put(stage, new LongAdder());
+			timesNanos.put(stage, new LongAdder());
+		}
+	}
+
+	private HL7ProcessingStatistics() {
+	}
+
+	/**
+	 * Records that the given stage was run
+	 *
+	 * @param stage the stage
+	 * @param startNanos the value of {@link System#nanoTime()} when the stage started
+	 */
+	public static void record(Stage stage, long startNanos) {
+		counts.get(stage).increment();
+		timesNanos.get(stage).add(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @param stage the stage
+	 * @return the number of times the given stage was run
+	 */
+	public static long getCount(Stage stage) {
+		return counts.get(stage).sum();
+	}
+
+	/**
+	 * @param stage the stage
+	 * @return the total time spent in the given stage in nanoseconds
+	 */
+	public static long getTotalTimeNanos(Stage stage) {
+		return timesNanos.get(stage).sum();
+	}
+
+	/**
+	 * Resets the counts and times of all stages
+	 */
+	public static void reset() {
+		for (Stage stage : Stage.values()) {
+			counts.get(stage).reset();
+			timesNanos.get(stage).reset();
+		}
+	}
+}
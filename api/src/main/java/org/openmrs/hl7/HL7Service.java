@@ -218,6 +218,20 @@ public interface HL7Service extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_HL7_IN_QUEUE)
 	public HL7InQueue getNextHL7InQueue() throws APIException;
 	
+	/**
+	 * Gets the next pending queue items in the order they were received, starting after the given
+	 * queue item so that a batch can be fetched while the previous ones are still being processed.
+	 * 
+	 * @param afterHL7InQueueId the id of the last queue item of the previous batch or null to start
+	 *            with the first pending queue item
+	 * @param maxResults the maximum number of queue items to return
+	 * @return the pending queue items ordered by id
+	 * <strong>Should</strong> return pending queue items after the given id in id order
+	 * @since 3.0.0
+	 */
+	@Authorized(PrivilegeConstants.GET_HL7_IN_QUEUE)
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) throws APIException;
+	
 	/**
 	 * Completely delete the hl7 in queue item from the database.
 	 * 
@@ -417,6 +431,7 @@ public interface HL7Service extends OpenmrsService {
 	 * <strong>Should</strong> create HL7InArchive after successful parsing
 	 * <strong>Should</strong> create HL7InError after failed parsing
 	 * <strong>Should</strong> fail if given inQueue is already marked as processing
+	 * <strong>Should</strong> fail if given inQueue was claimed by another processor
 	 * <strong>Should</strong> parse oru r01 message using overridden parser provided by a module
 	 */
 	public HL7InQueue processHL7InQueue(HL7InQueue inQueue) throws HL7Exception;
@@ -80,6 +80,22 @@ public interface HL7DAO {
 	 */
 	public HL7InQueue getNextHL7InQueue() throws DAOException;
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#getNextHL7InQueues(Integer, int)
+	 */
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) throws DAOException;
+	
+	/**
+	 * Marks the given queue item as processing if it still has the expected state in the database.
+	 * 
+	 * @param hl7InQueueId the id of the queue item
+	 * @param expectedMessageState the state the queue item had when it was read
+	 * @return true if the queue item was claimed, false if its state was changed in the meantime, e.g.
+	 *         by another server processing it
+	 * @since 3.0.0
+	 */
+	public boolean claimHL7InQueue(Integer hl7InQueueId, Integer expectedMessageState) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.hl7.HL7Service#purgeHL7InQueue(org.openmrs.hl7.HL7InQueue)
 	 */
@@ -235,6 +235,29 @@ public class HibernateHL7DAO implements HL7DAO {
 		return JpaUtils.getSingleResultOrNull(query);
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.db.HL7DAO#getNextHL7InQueues(Integer, int)
+	 */
+	@Override
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) throws DAOException {
+		return sessionFactory.getCurrentSession().createQuery(
+		    "from HL7InQueue as hiq where hiq.messageState = :state and hiq.HL7InQueueId > :afterId order by HL7InQueueId",
+		    HL7InQueue.class).setParameter("state", HL7Constants.HL7_STATUS_PENDING).setParameter("afterId",
+		    afterHL7InQueueId != null ? afterHL7InQueueId : 0).setMaxResults(maxResults).list();
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.db.HL7DAO#claimHL7InQueue(Integer, Integer)
+	 */
+	@Override
+	public boolean claimHL7InQueue(Integer hl7InQueueId, Integer expectedMessageState) throws DAOException {
+		// the update locks the row until the transaction ends, so only one transaction can claim it
+		return sessionFactory.getCurrentSession().createMutationQuery(
+		    "update HL7InQueue set messageState = :processing where HL7InQueueId = :id and messageState = :expected")
+		        .setParameter("processing", HL7Constants.HL7_STATUS_PROCESSING).setParameter("id", hl7InQueueId)
+		        .setParameter("expected", expectedMessageState).executeUpdate() == 1;
+	}
+	
 	/**
 	 * @see org.openmrs.hl7.db.HL7DAO#deleteHL7InQueue(org.openmrs.hl7.HL7InQueue)
 	 */
@@ -40,6 +40,7 @@ import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.hl7.HL7Constants;
 import org.openmrs.hl7.HL7InQueueProcessor;
+import org.openmrs.hl7.HL7ProcessingStatistics;
 import org.openmrs.obs.ComplexData;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
@@ -198,8 +199,11 @@ public class ORUR01Handler implements Application {
 		String messageControlId = msh.getMessageControlID().getValue();
 		log.debug("Found HL7 message in inbound queue with control id = {}", messageControlId);
 		// create the encounter
+		long patientResolveStart = System.nanoTime();
 		Patient patient = getPatient(pid);
+		HL7ProcessingStatistics.record(HL7ProcessingStatistics.Stage.PATIENT_RESOLVE, patientResolveStart);
 		log.debug("Processing HL7 message for patient {}", patient.getPatientId());
+		long obsCreationStart = System.nanoTime();
 		Encounter encounter = createEncounter(msh, patient, pv1, orc);
 		
 		// do the discharge to location logic
@@ -371,6 +375,7 @@ public class ORUR01Handler implements Application {
 		for (ConceptProposal proposal : conceptProposals) {
 			Context.getConceptService().saveConceptProposal(proposal);
 		}
+		HL7ProcessingStatistics.record(HL7ProcessingStatistics.Stage.OBS_CREATION, obsCreationStart);
 		
 		return oru;
 		
@@ -60,6 +60,7 @@ import org.openmrs.hl7.HL7Constants;
 import org.openmrs.hl7.HL7InArchive;
 import org.openmrs.hl7.HL7InError;
 import org.openmrs.hl7.HL7InQueue;
+import org.openmrs.hl7.HL7ProcessingStatistics;
 import org.openmrs.hl7.HL7QueueItem;
 import org.openmrs.hl7.HL7Service;
 import org.openmrs.hl7.HL7Source;
@@ -288,6 +289,15 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 		return dao.getNextHL7InQueue();
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#getNextHL7InQueues(java.lang.Integer, int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) {
+		return dao.getNextHL7InQueues(afterHL7InQueueId, maxResults);
+	}
+	
 	/**
 	 * @see org.openmrs.hl7.HL7Service#getHL7InArchiveByState(java.lang.Integer)
 	 */
@@ -687,6 +697,11 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 		if (OpenmrsUtil.nullSafeEquals(HL7Constants.HL7_STATUS_PROCESSING, hl7InQueue.getMessageState())) {
 			throw new HL7Exception("The hl7InQueue message with id: " + hl7InQueue.getHL7InQueueId()
 			        + " is already processing. " + ",key=" + hl7InQueue.getHL7SourceKey() + ")");
+		} else if (hl7InQueue.getHL7InQueueId() != null
+		        && !dao.claimHL7InQueue(hl7InQueue.getHL7InQueueId(), hl7InQueue.getMessageState())) {
+			// another server or thread claimed it after it was read
+			throw new HL7Exception("The hl7InQueue message with id: " + hl7InQueue.getHL7InQueueId()
+			        + " was claimed for processing by someone else. " + ",key=" + hl7InQueue.getHL7SourceKey() + ")");
 		} else {
 			hl7InQueue.setMessageState(HL7Constants.HL7_STATUS_PROCESSING);
 		}
@@ -699,7 +714,9 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 			// Parse the inbound HL7 message using the parser
 			// NOT making a direct call here so that AOP can happen around this
 			// method
+			long parseStart = System.nanoTime();
 			Message parsedMessage = Context.getHL7Service().parseHL7String(hl7Message);
+			HL7ProcessingStatistics.record(HL7ProcessingStatistics.Stage.PARSE, parseStart);
 			
 			// Send the parsed message to our receiver routine for processing
 			// into db
@@ -10,34 +10,50 @@
 package org.openmrs.messagesource.impl;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openmrs.messagesource.MutableMessageSource;
 import org.openmrs.messagesource.PresentationMessage;
-import org.openmrs.messagesource.PresentationMessageMap;
 import org.springframework.context.support.AbstractMessageSource;
 
 /**
  * A MutableMessageSource backed by a localized map of PresentationMessageCollections, providing
  * in-memory storage of PresentationMessages. Useful for temporary storage, as a cache for other
  * sources, and for testing.
+ * <p>
+ * The messages are kept in an immutable snapshot which is replaced as a whole whenever messages are
+ * added, removed or merged, so messages are looked up without locking while they are changed. The
+ * {@link MessageFormat} of a message is created once and reused. A message which is not found in
+ * the requested locale is looked up in the locale without its variant and then in its language, the
+ * locales to look in are worked out once per locale.
  */
 public class CachedMessageSource extends AbstractMessageSource implements MutableMessageSource {
 	
-	Map<Locale, PresentationMessageMap> localizedMap = new HashMap<>();
+	private volatile Messages messages = new Messages(Collections.emptyMap());
+	
+	private final Object lock = new Object();
 	
 	/* (non-Javadoc)
 	 * @see org.openmrs.messagesource.MutableMessageSource#addPresentation(org.openmrs.api.PresentationMessage)
 	 */
 	@Override
 	public void addPresentation(PresentationMessage message) {
-		PresentationMessageMap codeMessageMap = localizedMap
-				.computeIfAbsent(message.getLocale(), k -> new PresentationMessageMap(message.getLocale()));
-		codeMessageMap.put(message.getCode(), message);
+		synchronized (lock) {
+			Map<Locale, Map<String, CachedMessage>> copy = messages.copy(message.getLocale());
+			copy.computeIfAbsent(message.getLocale(), k -> new HashMap<>()).put(message.getCode(),
+			    new CachedMessage(message));
+			messages = new Messages(copy);
+		}
 	}
 	
 	/**
@@ -46,7 +62,7 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 	 */
 	@Override
 	public Collection<Locale> getLocales() {
-		return localizedMap.keySet();
+		return new HashSet<>(messages.byLocale.keySet());
 	}
 	
 	/* (non-Javadoc)
@@ -56,8 +72,10 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 	public Collection<PresentationMessage> getPresentations() {
 		Collection<PresentationMessage> allMessages = new ArrayList<>();
 		
-		for (PresentationMessageMap codeMessageMap : localizedMap.values()) {
-			allMessages.addAll(codeMessageMap.values());
+		for (Map<String, CachedMessage> codeMessageMap : messages.byLocale.values()) {
+			for (CachedMessage cachedMessage : codeMessageMap.values()) {
+				allMessages.add(cachedMessage.message);
+			}
 		}
 		
 		return allMessages;
@@ -68,16 +86,39 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 	 */
 	@Override
 	public void removePresentation(PresentationMessage message) {
-		PresentationMessageMap codeMessageMap = localizedMap.get(message.getLocale());
-		if ((codeMessageMap != null) && codeMessageMap.containsKey(message.getCode())) {
-			codeMessageMap.remove(message.getCode());
+		synchronized (lock) {
+			Map<String, CachedMessage> codeMessageMap = messages.byLocale.get(message.getLocale());
+			if ((codeMessageMap != null) && codeMessageMap.containsKey(message.getCode())) {
+				Map<Locale, Map<String, CachedMessage>> copy = messages.copy(message.getLocale());
+				copy.get(message.getLocale()).remove(message.getCode());
+				messages = new Messages(copy);
+			}
 		}
 	}
 	
+	/**
+	 * Adds the messages of the given source at once, lookups see either none or all of them
+	 *
+	 * @see org.openmrs.messagesource.MutableMessageSource#merge(MutableMessageSource, boolean)
+	 * <strong>Should</strong> add all messages of the given source
+	 * <strong>Should</strong> not overwrite existing messages unless asked to
+	 */
 	@Override
 	public void merge(MutableMessageSource fromSource, boolean overwrite) {
-		for (PresentationMessage message : fromSource.getPresentations()) {
-			addPresentation(message);
+		Collection<PresentationMessage> fromMessages = fromSource.getPresentations();
+		synchronized (lock) {
+			Map<Locale, Map<String, CachedMessage>> copy = new HashMap<>();
+			for (Map.Entry<Locale, Map<String, CachedMessage>> entry : messages.byLocale.entrySet()) {
+				copy.put(entry.getKey(), new HashMap<>(entry.getValue()));
+			}
+			for (PresentationMessage message : fromMessages) {
+				Map<String, CachedMessage> codeMessageMap = copy.computeIfAbsent(message.getLocale(),
+				    k -> new HashMap<>());
+				if (overwrite || !codeMessageMap.containsKey(message.getCode())) {
+					codeMessageMap.put(message.getCode(), new CachedMessage(message));
+				}
+			}
+			messages = new Messages(copy);
 		}
 	}
 	
@@ -88,12 +129,9 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 	 */
 	@Override
 	public PresentationMessage getPresentation(String key, Locale forLocale) {
-		PresentationMessage foundPM = null;
-		PresentationMessageMap codeMessageMap = localizedMap.get(forLocale);
-		if ((codeMessageMap != null) && codeMessageMap.containsKey(key)) {
-			foundPM = codeMessageMap.get(key);
-		}
-		return foundPM;
+		Map<String, CachedMessage> codeMessageMap = messages.byLocale.get(forLocale);
+		CachedMessage cachedMessage = codeMessageMap != null ? codeMessageMap.get(key) : null;
+		return cachedMessage != null ? cachedMessage.message : null;
 	}
 	
 	/**
@@ -101,10 +139,13 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 	 */
 	@Override
 	public Collection<PresentationMessage> getPresentationsInLocale(Locale locale) {
-		Collection<PresentationMessage> foundPresentations = null;
-		PresentationMessageMap codeMessageMap = localizedMap.get(locale);
-		if (codeMessageMap != null) {
-			foundPresentations = codeMessageMap.values();
+		Map<String, CachedMessage> codeMessageMap = messages.byLocale.get(locale);
+		if (codeMessageMap == null) {
+			return null;
+		}
+		Collection<PresentationMessage> foundPresentations = new ArrayList<>(codeMessageMap.size());
+		for (CachedMessage cachedMessage : codeMessageMap.values()) {
+			foundPresentations.add(cachedMessage.message);
 		}
 		return foundPresentations;
 	}
@@ -112,16 +153,98 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 	/**
 	 * @see org.springframework.context.support.AbstractMessageSource#resolveCode(java.lang.String,
 	 *      java.util.Locale)
+	 * <strong>Should</strong> fall back to the language of the locale
 	 */
 	@Override
 	protected MessageFormat resolveCode(String code, Locale locale) {
-		MessageFormat resolvedMessageFormatForCode = null;
+		CachedMessage cachedMessage = messages.find(code, locale);
+		if (cachedMessage == null) {
+			return null;
+		}
+		MessageFormat messageFormat = cachedMessage.messageFormat;
+		if (messageFormat == null) {
+			// AbstractMessageSource synchronizes on the format while using it, so it can be shared
+			messageFormat = createMessageFormat(cachedMessage.message.getMessage(), cachedMessage.message.getLocale());
+			cachedMessage.messageFormat = messageFormat;
+		}
+		return messageFormat;
+	}
+	
+	/**
+	 * A message together with its format once it was needed
+	 */
+	private static final class CachedMessage {
+		
+		private final PresentationMessage message;
 		
-		PresentationMessage pmForCode = getPresentation(code, locale);
-		if (pmForCode != null) {
-			resolvedMessageFormatForCode = new MessageFormat(pmForCode.getMessage());
+		private volatile MessageFormat messageFormat;
+		
+		private CachedMessage(PresentationMessage message) {
+			this.message = message;
 		}
-		return resolvedMessageFormatForCode;
 	}
 	
+	/**
+	 * An immutable snapshot of the messages by locale and code
+	 */
+	private static final class Messages {
+		
+		private final Map<Locale, Map<String, CachedMessage>> byLocale;
+		
+		/**
+		 * The maps of the locales to look up a message in for each requested locale, in order
+		 */
+		private final Map<Locale, List<Map<String, CachedMessage>>> fallbacks = new ConcurrentHashMap<>();
+		
+		private Messages(Map<Locale, Map<String, CachedMessage>> byLocale) {
+			Map<Locale, Map<String, CachedMessage>> map = new HashMap<>();
+			for (Map.Entry<Locale, Map<String, CachedMessage>> entry : byLocale.entrySet()) {
+				map.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+			}
+			this.byLocale = Collections.unmodifiableMap(map);
+		}
+		
+		/**
+		 * @param changedLocale the locale which is going to be changed
+		 * @return a copy of the messages where the map of the given locale is a mutable copy
+		 */
+		private Map<Locale, Map<String, CachedMessage>> copy(Locale changedLocale) {
+			Map<Locale, Map<String, CachedMessage>> copy = new HashMap<>(byLocale);
+			Map<String, CachedMessage> codeMessageMap = byLocale.get(changedLocale);
+			if (codeMessageMap != null) {
+				copy.put(changedLocale, new HashMap<>(codeMessageMap));
+			}
+			return copy;
+		}
+		
+		private CachedMessage find(String code, Locale locale) {
+			List<Map<String, CachedMessage>> maps = fallbacks.get(locale);
+			if (maps == null) {
+				maps = fallbacks.computeIfAbsent(locale, this::getFallbacks);
+			}
+			for (int i = 0; i < maps.size(); i++) {
+				CachedMessage cachedMessage = maps.get(i).get(code);
+				if (cachedMessage != null) {
+					return cachedMessage;
+				}
+			}
+			return null;
+		}
+		
+		private List<Map<String, CachedMessage>> getFallbacks(Locale locale) {
+			Set<Locale> candidates = new LinkedHashSet<>();
+			candidates.add(locale);
+			candidates.add(new Locale(locale.getLanguage(), locale.getCountry()));
+			candidates.add(new Locale(locale.getLanguage()));
+			
+			List<Map<String, CachedMessage>> maps = new ArrayList<>(candidates.size());
+			for (Locale candidate : candidates) {
+				Map<String, CachedMessage> codeMessageMap = byLocale.get(candidate);
+				if (codeMessageMap != null) {
+					maps.add(codeMessageMap);
+				}
+			}
+			return maps;
+		}
+	}
 }
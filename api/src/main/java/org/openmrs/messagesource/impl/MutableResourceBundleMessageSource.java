@@ -21,6 +21,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openmrs.messagesource.MutableMessageSource;
 import org.openmrs.messagesource.PresentationMessage;
@@ -57,6 +58,14 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 	/** Cached list of available locales. */
 	private Collection<Locale> locales;
 	
+	/** Cached properties files, searching the classpath for them is slow. */
+	private volatile Resource[] propertiesFiles;
+	
+	private volatile long propertiesFilesCached;
+	
+	/** The messages of each properties file by its URL, loaded again once the file was modified. */
+	private final Map<String, LoadedPropertiesFile> loadedPropertiesFiles = new ConcurrentHashMap<>();
+	
 	/**
 	 * @see org.openmrs.messagesource.MessageSourceService#getLocales()
 	 */
@@ -138,14 +147,8 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 		Collection<PresentationMessage> presentations = new ArrayList<>();
 		
 		for (Resource propertiesFile : findPropertiesFiles()) {
-			Locale currentLocale = parseLocaleFrom(propertiesFile.getFilename());
-			Properties props = new Properties();
 			try {
-				OpenmrsUtil.loadProperties(props, propertiesFile.getInputStream());
-				for (Map.Entry<Object, Object> property : props.entrySet()) {
-					presentations.add(new PresentationMessage(property.getKey().toString(), currentLocale, property
-					        .getValue().toString(), ""));
-				}
+				presentations.addAll(loadPresentations(propertiesFile));
 			}
 			catch (Exception e) {
 				// skip over errors in loading a single file
@@ -155,6 +158,47 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 		return presentations;
 	}
 	
+	/**
+	 * Loads the messages of the given properties file unless they were already loaded and the file
+	 * was not modified since.
+	 *
+	 * @param propertiesFile the properties file
+	 * @return the messages of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	private List<PresentationMessage> loadPresentations(Resource propertiesFile) throws IOException {
+		String url = propertiesFile.getURL().toString();
+		long lastModified = getLastModified(propertiesFile);
+		LoadedPropertiesFile loaded = loadedPropertiesFiles.get(url);
+		if (loaded != null && lastModified > 0 && loaded.lastModified == lastModified) {
+			return loaded.presentations;
+		}
+		
+		Locale currentLocale = parseLocaleFrom(propertiesFile.getFilename());
+		Properties props = new Properties();
+		OpenmrsUtil.loadProperties(props, propertiesFile.getInputStream());
+		List<PresentationMessage> presentations = new ArrayList<>(props.size());
+		for (Map.Entry<Object, Object> property : props.entrySet()) {
+			presentations.add(new PresentationMessage(property.getKey().toString(), currentLocale, property.getValue()
+			        .toString(), ""));
+		}
+		presentations = Collections.unmodifiableList(presentations);
+		loadedPropertiesFiles.put(url, new LoadedPropertiesFile(lastModified, presentations));
+		return presentations;
+	}
+	
+	/**
+	 * @return when the given file was last modified, 0 if that is not known
+	 */
+	private long getLastModified(Resource propertiesFile) {
+		try {
+			return propertiesFile.lastModified();
+		}
+		catch (IOException e) {
+			return 0;
+		}
+	}
+	
 	/**
 	 * Override to obtain a local reference to the basenames.
 	 *
@@ -193,6 +237,8 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 			basenames = names;
 		}
 		
+		// the started modules may have changed
+		propertiesFiles = null;
 		super.setBasenames(basenames);
 	}
 	
@@ -268,12 +314,28 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 	}
 	
 	/**
-	 * Searches the filesystem for message properties files. ABKTODO: consider caching this, rather
-	 * than searching every time
+	 * Returns the message properties files, the result of searching for them is cached for the cache
+	 * seconds of this message source.
 	 *
 	 * @return an array of property file names
 	 */
 	private Resource[] findPropertiesFiles() {
+		Resource[] files = propertiesFiles;
+		long now = System.currentTimeMillis();
+		if (files == null || cacheMilliseconds <= 0 || now - cacheMilliseconds > propertiesFilesCached) {
+			files = searchPropertiesFiles();
+			propertiesFilesCached = now;
+			propertiesFiles = files;
+		}
+		return files;
+	}
+	
+	/**
+	 * Searches the filesystem for message properties files.
+	 *
+	 * @return an array of property file names
+	 */
+	private Resource[] searchPropertiesFiles() {
 		Set<Resource> resourceSet = new HashSet<>();
 		try {
 			String pattern = "classpath*:messages*.properties";
@@ -371,4 +433,19 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 		return null;
 	}
 	
+	/**
+	 * The messages loaded from a properties file
+	 */
+	private static final class LoadedPropertiesFile {
+		
+		private final long lastModified;
+		
+		private final List<PresentationMessage> presentations;
+		
+		private LoadedPropertiesFile(long lastModified, List<PresentationMessage> presentations) {
+			this.lastModified = lastModified;
+			this.presentations = presentations;
+		}
+	}
+	
 }
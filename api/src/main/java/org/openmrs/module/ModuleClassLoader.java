@@ -11,7 +11,6 @@ package org.openmrs.module;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -41,6 +40,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -55,11 +56,30 @@ import org.slf4j.LoggerFactory;
  * Standard implementation of module class loader. <br>
  * Code adapted from the Java Plug-in Framework (JPF) - LGPL - Copyright (C)<br>
  * 2004-2006 Dmitry Olshansky
+ * <p>
+ * The class loader is parallel capable, classes of different names are loaded concurrently and the
+ * modules imported by a module are looked up through an index of the packages they provide rather
+ * than by asking each of them in turn.
  */
 public class ModuleClassLoader extends URLClassLoader {
 	
 	private static final Logger log = LoggerFactory.getLogger(ModuleClassLoader.class);
 	
+	/**
+	 * The maximum number of names of classes which couldn't be found that a class loader remembers
+	 */
+	private static final int MAX_CLASSES_NOT_FOUND = 1000;
+	
+	/**
+	 * Incremented whenever a module is started or stopped, which makes the lookup caches of all
+	 * module class loaders stale
+	 */
+	private static final AtomicLong lookupGeneration = new AtomicLong();
+	
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+	
 	private final Module module;
 	
 	private Module[] requiredModules;
@@ -72,7 +92,15 @@ public class ModuleClassLoader extends URLClassLoader {
 	
 	private Set<String> providedPackages = new LinkedHashSet<>();
 	
-	private boolean disposed = false;
+	/**
+	 * Whether all classes of this class loader are in one of the provided packages, which is only
+	 * known when all its urls are jar files
+	 */
+	private volatile boolean providedPackagesComplete = false;
+	
+	private volatile LookupCache lookupCache;
+	
+	private volatile boolean disposed = false;
 	
 	
 	/**
@@ -126,9 +154,13 @@ public class ModuleClassLoader extends URLClassLoader {
 				}
 			}
 		} else {
+			boolean onlyJars = true;
 			for (URL url : urls) {
-				providedPackages.addAll(ModuleUtil.getPackagesFromFile(OpenmrsUtil.url2file(url)));
+				File file = OpenmrsUtil.url2file(url);
+				onlyJars &= file.getName().endsWith(".jar");
+				providedPackages.addAll(ModuleUtil.getPackagesFromFile(file));
 			}
+			providedPackagesComplete = onlyJars;
 		}
 	}
 	
@@ -229,47 +261,30 @@ public class ModuleClassLoader extends URLClassLoader {
 			log.error("Failed to add development folder to the classpath", ex);
 		}
 		
-		File tmpModuleDir = getLibCacheFolderForModule(module);
-		
-		//add module jar to classpath only if we are not in dev mode
-		if (devDir == null) {
-			File tmpModuleJar = new File(tmpModuleDir, module.getModuleId() + ".jar");
-			
-			if (!tmpModuleJar.exists()) {
-				try {
-					tmpModuleJar.createNewFile();
-				}
-				catch (IOException io) {
-					log.warn("Unable to create tmpModuleFile", io);
-				}
-			}
-			
-			// copy the module jar into that temporary folder
-			FileInputStream in = null;
-			FileOutputStream out = null;
+		// the module file and its lib folder are extracted only if this version of the module wasn't before
+		File moduleContentDir;
+		try {
+			moduleContentDir = ModuleLibraryCache.getFolder(module);
+		}
+		catch (IOException io) {
+			log.warn("Unable to use the library cache for module " + module.getModuleId() + ", extracting it again", io);
+			moduleContentDir = getLibCacheFolderForModule(module);
 			try {
-				in = new FileInputStream(module.getFile());
-				out = new FileOutputStream(tmpModuleJar);
-				OpenmrsUtil.copyFile(in, out);
+				ModuleLibraryCache.extract(module, moduleContentDir);
 			}
-			catch (IOException io) {
-				log.warn("Unable to copy tmpModuleFile", io);
-			}
-			finally {
-				try {
-					in.close();
-				}
-				catch (Exception e) { /* pass */}
-				try {
-					out.close();
-				}
-				catch (Exception e) { /* pass */}
+			catch (IOException e) {
+				log.warn("Error while expanding module " + module.getModuleId(), e);
 			}
+		}
+		
+		//add module jar to classpath only if we are not in dev mode
+		if (devDir == null) {
+			File moduleJar = new File(moduleContentDir, module.getModuleId() + ".jar");
 			
 			// add the module jar as a url in the classpath of the classloader
 			URL moduleFileURL;
 			try {
-				moduleFileURL = ModuleUtil.file2url(tmpModuleJar);
+				moduleFileURL = ModuleUtil.file2url(moduleJar);
 				result.add(moduleFileURL);
 			}
 			catch (MalformedURLException e) {
@@ -279,10 +294,7 @@ public class ModuleClassLoader extends URLClassLoader {
 		
 		// add each defined jar in the /lib folder, add as a url in the classpath of the classloader
 		try {
-			log.debug("Expanding /lib folder in module");
-			
-			ModuleUtil.expandJar(module.getFile(), tmpModuleDir, "lib", true);
-			File libdir = new File(tmpModuleDir, "lib");
+			File libdir = new File(moduleContentDir, "lib");
 			
 			if (libdir != null && libdir.exists()) {
 				Map<String, String> startedRelatedModules = new HashMap<>();
@@ -331,9 +343,6 @@ public class ModuleClassLoader extends URLClassLoader {
 		catch (MalformedURLException e) {
 			log.warn("Error while adding module 'lib' folder to URL result list");
 		}
-		catch (IOException io) {
-			log.warn("Error while expanding lib folder", io);
-		}
 		
 		// add each xml document to the url list
 		
@@ -527,6 +536,10 @@ public class ModuleClassLoader extends URLClassLoader {
 		for (URL u : newUrls) {
 			addURL(u);
 		}
+		if (!newUrls.isEmpty()) {
+			// the packages of the new urls are not known, so this class loader has to be asked for any class
+			providedPackagesComplete = false;
+		}
 		
 		if (log.isDebugEnabled()) {
 			StringBuilder buf = new StringBuilder();
@@ -541,6 +554,17 @@ public class ModuleClassLoader extends URLClassLoader {
 		requiredModules = collectRequiredModuleImports(getModule());
 		awareOfModules = collectAwareOfModuleImports(getModule());
 		libraryCache.entrySet().removeIf(uriFileEntry -> uriFileEntry.getValue() == null);
+		clearLookupCaches();
+	}
+	
+	/**
+	 * Makes all module class loaders forget the modules they import and the classes they couldn't
+	 * find, it has to be called whenever a module is started or stopped.
+	 *
+	 * @since 3.0.0
+	 */
+	static void clearLookupCaches() {
+		lookupGeneration.incrementAndGet();
 	}
 	
 	/**
@@ -555,6 +579,7 @@ public class ModuleClassLoader extends URLClassLoader {
 		libraryCache.clear();
 		requiredModules = null;
 		awareOfModules = null;
+		lookupCache = null;
 		disposed = true;
 	}
 	
@@ -576,30 +601,16 @@ public class ModuleClassLoader extends URLClassLoader {
 		// Check if the class has already been loaded by this class loader
 		Class<?> result = findLoadedClass(name);
 		if (result == null) {
-			if (probeParentLoaderLast) {
-				try {
-					result = loadClass(name, resolve, this, null);
-				}
-				catch (ClassNotFoundException cnfe) {
-					// Continue trying...
-				}
-				
-				if (result == null && getParent() != null) {
-					result = getParent().loadClass(name);
-				}
-			} else {
-				try {
-					if (getParent() != null) {
-						result = getParent().loadClass(name);
-					}
-				}
-				catch (ClassNotFoundException cnfe) {
-					// Continue trying...
-				}
-				
-				if (result == null) {
-					result = loadClass(name, resolve, this, null);
-				}
+			LookupCache cache = getLookupCache();
+			if (cache.classesNotFound.contains(name)) {
+				throw new ClassNotFoundException(name);
+			}
+			try {
+				result = loadClassFromModulesAndParent(name);
+			}
+			catch (ClassNotFoundException e) {
+				cache.addClassNotFound(name);
+				throw e;
 			}
 		}
 		
@@ -610,9 +621,40 @@ public class ModuleClassLoader extends URLClassLoader {
 		return result;
 	}
 	
+	private Class<?> loadClassFromModulesAndParent(final String name) throws ClassNotFoundException {
+		Class<?> result = null;
+		if (probeParentLoaderLast) {
+			try {
+				result = loadClass(name, false, this, null);
+			}
+			catch (ClassNotFoundException cnfe) {
+				// Continue trying...
+			}
+			
+			if (result == null && getParent() != null) {
+				result = getParent().loadClass(name);
+			}
+		} else {
+			try {
+				if (getParent() != null) {
+					result = getParent().loadClass(name);
+				}
+			}
+			catch (ClassNotFoundException cnfe) {
+				// Continue trying...
+			}
+			
+			if (result == null) {
+				result = loadClass(name, false, this, null);
+			}
+		}
+		return result;
+	}
+	
 	/**
 	 * Custom loadClass implementation to allow for loading from a given ModuleClassLoader and skip
-	 * the modules that have been tried already
+	 * the modules that have been tried already. Besides this class loader, only the class loaders of
+	 * imported modules which provide the package of the class are asked for it.
 	 * 
 	 * @param name String path and name of the class to load
 	 * @param resolve boolean whether or not to resolve this class before returning
@@ -621,7 +663,7 @@ public class ModuleClassLoader extends URLClassLoader {
 	 * @return Class that has been loaded
 	 * @throws ClassNotFoundException if no class found
 	 */
-	protected synchronized Class<?> loadClass(final String name, final boolean resolve, final ModuleClassLoader requestor,
+	protected Class<?> loadClass(final String name, final boolean resolve, final ModuleClassLoader requestor,
 	        Set<String> seenModules) throws ClassNotFoundException {
 		
 		if (log.isTraceEnabled()) {
@@ -653,18 +695,8 @@ public class ModuleClassLoader extends URLClassLoader {
 			throw new ClassNotFoundException(msg);
 		}
 		
-		// Check if the class has already been loaded by this class loader
-		Class<?> result = findLoadedClass(name);
-		
-		// Try loading the class with this class loader 
-		if (result == null) {
-			try {
-				result = findClass(name);
-			}
-			catch (ClassNotFoundException e) {
-				// Continue trying...
-			}
-		}
+		// Try loading the class with this class loader
+		Class<?> result = findOwnClass(name);
 		
 		// We were able to "find" a class
 		if (result != null) {
@@ -673,22 +705,90 @@ public class ModuleClassLoader extends URLClassLoader {
 			return result;
 		}
 		
-		// Look through this module's imports to see if the class
-		// can be loaded from them.
-		
-		if (seenModules == null) {
-			seenModules = new HashSet<>();
+		// Look through the modules imported by this module and the modules imported by those to see
+		// if the class can be loaded from them.
+		int indexOfLastDot = name.lastIndexOf('.');
+		String packageName = indexOfLastDot > 0 ? name.substring(0, indexOfLastDot) : "";
+		for (ModuleClassLoader importedClassLoader : getLookupCache().importedClassLoaders) {
+			if ((seenModules != null && seenModules.contains(importedClassLoader.getModule().getModuleId()))
+			        || importedClassLoader.isDisposed() || !importedClassLoader.mayProvidePackage(packageName)) {
+				continue;
+			}
+			
+			result = importedClassLoader.findOwnClass(name);
+			if (result != null) {
+				importedClassLoader.checkClassVisibility(result, requestor);
+				
+				return result;
+			}
 		}
 		
-		// Add this module to the list of modules we've tried already
+		throw new ClassNotFoundException(name);
+	}
+	
+	/**
+	 * Finds a class among the classes of this class loader, holding the lock for the class name only
+	 *
+	 * @param name the name of the class
+	 * @return the class or null if this class loader doesn't have it
+	 */
+	private Class<?> findOwnClass(final String name) {
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> result = findLoadedClass(name);
+			if (result == null) {
+				try {
+					result = findClass(name);
+				}
+				catch (ClassNotFoundException e) {
+					// Continue trying...
+				}
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * @param packageName the package of a class, empty for the default package
+	 * @return false if this class loader is known to have no classes in the package
+	 */
+	private boolean mayProvidePackage(String packageName) {
+		return !providedPackagesComplete || packageName.isEmpty() || providedPackages.contains(packageName);
+	}
+	
+	private LookupCache getLookupCache() {
+		long generation = lookupGeneration.get();
+		LookupCache cache = lookupCache;
+		if (cache == null || cache.generation != generation) {
+			cache = new LookupCache(generation, collectImportedClassLoaders());
+			lookupCache = cache;
+		}
+		return cache;
+	}
+	
+	/**
+	 * Collects the class loaders of the started modules this module imports, directly or through
+	 * other imported modules, in the order they are to be asked for classes
+	 *
+	 * @return the class loaders of the imported modules
+	 */
+	private ModuleClassLoader[] collectImportedClassLoaders() {
+		List<ModuleClassLoader> result = new ArrayList<>();
+		Set<String> seenModules = new HashSet<>();
 		seenModules.add(getModule().getModuleId());
-		
+		collectImportedClassLoaders(this, seenModules, result);
+		return result.toArray(new ModuleClassLoader[0]);
+	}
+	
+	private static void collectImportedClassLoaders(ModuleClassLoader moduleClassLoader, Set<String> seenModules,
+	        List<ModuleClassLoader> result) {
 		List<Module> importedModules = new ArrayList<>();
-		if (requiredModules != null) {
-			Collections.addAll(importedModules, requiredModules);
+		Module[] required = moduleClassLoader.requiredModules;
+		if (required != null) {
+			Collections.addAll(importedModules, required);
 		}
-		if (awareOfModules != null) {
-			Collections.addAll(importedModules, awareOfModules);
+		Module[] awareOf = moduleClassLoader.awareOfModules;
+		if (awareOf != null) {
+			Collections.addAll(importedModules, awareOf);
 		}
 		
 		for (Module importedModule : importedModules) {
@@ -696,22 +796,39 @@ public class ModuleClassLoader extends URLClassLoader {
 				continue;
 			}
 			
-			ModuleClassLoader moduleClassLoader = ModuleFactory.getModuleClassLoader(importedModule);
-			
 			// Module class loader may be null if module has not been started yet
-			if (moduleClassLoader != null) {
-				try {
-					result = moduleClassLoader.loadClass(name, resolve, requestor, seenModules);
-					
-					return result;
-				}
-				catch (ClassNotFoundException e) {
-					// Continue trying...
-				}
+			ModuleClassLoader importedClassLoader = ModuleFactory.getModuleClassLoader(importedModule);
+			if (importedClassLoader != null && ModuleFactory.isModuleStarted(importedModule)) {
+				seenModules.add(importedModule.getModuleId());
+				result.add(importedClassLoader);
+				collectImportedClassLoaders(importedClassLoader, seenModules, result);
 			}
 		}
+	}
+	
+	/**
+	 * The class loaders of the imported modules and the names of the classes which couldn't be found,
+	 * valid until a module is started or stopped.
+	 */
+	private static final class LookupCache {
 		
-		throw new ClassNotFoundException(name);
+		private final long generation;
+		
+		private final ModuleClassLoader[] importedClassLoaders;
+		
+		private final Set<String> classesNotFound = ConcurrentHashMap.newKeySet();
+		
+		private LookupCache(long generation, ModuleClassLoader[] importedClassLoaders) {
+			this.generation = generation;
+			this.importedClassLoaders = importedClassLoaders;
+		}
+		
+		private void addClassNotFound(String name) {
+			if (classesNotFound.size() >= MAX_CLASSES_NOT_FOUND) {
+				classesNotFound.clear();
+			}
+			classesNotFound.add(name);
+		}
 	}
 	
 	/**
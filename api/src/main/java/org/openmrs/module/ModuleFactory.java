@@ -86,7 +86,12 @@ public class ModuleFactory {
 	
 	private static final Cache<String, DaemonToken> daemonTokens = CacheBuilder.newBuilder().softValues().build();
 	
-	private static final Set<String> actualStartupOrder = new LinkedHashSet<>();
+	private static final Set<String> actualStartupOrder = Collections.synchronizedSet(new LinkedHashSet<>());
+	
+	/**
+	 * Held while a module updates the database at startup, since modules are started concurrently
+	 */
+	private static final Object databaseUpdateLock = new Object();
 	
 	/**
 	 * Add a module (in the form of a jar file) to the list of openmrs modules Returns null if an error
@@ -245,12 +250,18 @@ public class ModuleFactory {
 				modules = (List<Module>) ex.getExtraData();
 			}
 			
-			// try and start the modules that should be started
-			for (Module mod : modules) {
+			// drop the extracted modules which were removed or replaced since the last start and
+			// extract the modules which changed concurrently
+			ModuleLibraryCache.prune(getLoadedModules());
+			ModuleLibraryCache.extractAll(modules);
+			
+			// try and start the modules that should be started, modules which don't depend on each
+			// other are started concurrently
+			ModuleStartupExecutor.run("start", modules, mod -> {
 				
 				if (mod.isStarted()) {
 					// skip over modules that are already started
-					continue;
+					return;
 				}
 				
 				// Skip module if required ones are not started
@@ -259,7 +270,7 @@ public class ModuleFactory {
 					log.error(message);
 					mod.setStartupErrorMessage(message);
 					notifySuperUsersAboutModuleFailure(mod);
-					continue;
+					return;
 				}
 				
 				try {
@@ -271,7 +282,7 @@ public class ModuleFactory {
 					mod.setStartupErrorMessage("Error while starting module", e);
 					notifySuperUsersAboutModuleFailure(mod);
 				}
-			}
+			});
 		}
 	}
 	
@@ -472,8 +483,10 @@ public class ModuleFactory {
 	public static List<Module> getStartedModulesInOrder() {
 		List<Module> modules = new ArrayList<>();
 		if (actualStartupOrder != null) {
-			for (String moduleId : actualStartupOrder) {
-				modules.add(getStartedModulesMap().get(moduleId));
+			synchronized (actualStartupOrder) {
+				for (String moduleId : actualStartupOrder) {
+					modules.add(getStartedModulesMap().get(moduleId));
+				}
 			}
 		} else {
 			modules.addAll(getStartedModules());
@@ -651,17 +664,19 @@ public class ModuleFactory {
 				
 				// Sort this module's extensions, and merge them into the full extensions map
 				Comparator<Extension> sortOrder = (e1, e2) -> Integer.valueOf(e1.getOrder()).compareTo(e2.getOrder());
-				for (Map.Entry<String, List<Extension>> moduleExtensionEntry : moduleExtensionMap.entrySet()) {
-					// Sort this module's extensions for current extension point
-					List<Extension> sortedModuleExtensions = moduleExtensionEntry.getValue();
-					sortedModuleExtensions.sort(sortOrder);
-					
-					// Get existing extensions, and append the ones from the new module
-					List<Extension> extensions = getExtensionMap().computeIfAbsent(moduleExtensionEntry.getKey(),
-						k -> new ArrayList<>());
-					for (Extension ext : sortedModuleExtensions) {
-						log.debug("Adding to mapping ext: " + ext.getExtensionId() + " ext.class: " + ext.getClass());
-						extensions.add(ext);
+				synchronized (extensionMap) {
+					for (Map.Entry<String, List<Extension>> moduleExtensionEntry : moduleExtensionMap.entrySet()) {
+						// Sort this module's extensions for current extension point
+						List<Extension> sortedModuleExtensions = moduleExtensionEntry.getValue();
+						sortedModuleExtensions.sort(sortOrder);
+						
+						// Get existing extensions, and append the ones from the new module
+						List<Extension> extensions = getExtensionMap().computeIfAbsent(moduleExtensionEntry.getKey(),
+							k -> new ArrayList<>());
+						for (Extension ext : sortedModuleExtensions) {
+							log.debug("Adding to mapping ext: " + ext.getExtensionId() + " ext.class: " + ext.getClass());
+							extensions.add(ext);
+						}
 					}
 				}
 				
@@ -671,31 +686,35 @@ public class ModuleFactory {
 				// calls that might hinder startup
 				SortedMap<String, String> diffs = SqlDiffFileParser.getSqlDiffs(module);
 				
-				try {
-					// this method must check and run queries against the database.
-					// to do this, it must be "authenticated".  Give the current
-					// "user" the proxy privilege so this can be done. ("user" might
-					// be nobody because this is being run at startup)
-					Context.addProxyPrivilege("");
-					
-					for (Map.Entry<String, String> entry : diffs.entrySet()) {
-						String version = entry.getKey();
-						String sql = entry.getValue();
-						if (StringUtils.hasText(sql)) {
-							runDiff(module, version, sql);
+				// modules update the database one at a time
+				synchronized (databaseUpdateLock) {
+					try {
+						// this method must check and run queries against the database.
+						// to do this, it must be "authenticated".  Give the current
+						// "user" the proxy privilege so this can be done. ("user" might
+						// be nobody because this is being run at startup)
+						Context.addProxyPrivilege("");
+						
+						for (Map.Entry<String, String> entry : diffs.entrySet()) {
+							String version = entry.getKey();
+							String sql = entry.getValue();
+							if (StringUtils.hasText(sql)) {
+								runDiff(module, version, sql);
+							}
 						}
 					}
+					finally {
+						// take the "authenticated" privilege away from the current "user"
+						Context.removeProxyPrivilege("");
+					}
+					
+					// run module's optional liquibase.xml immediately after sqldiff.xml
+					runLiquibase(module);
 				}
-				finally {
-					// take the "authenticated" privilege away from the current "user"
-					Context.removeProxyPrivilege("");
-				}
-				
-				// run module's optional liquibase.xml immediately after sqldiff.xml
-				runLiquibase(module);
 				
 				// effectively mark this module as started successfully
 				getStartedModulesMap().put(moduleId, module);
+				ModuleClassLoader.clearLookupCaches();
 
 				actualStartupOrder.add(moduleId);
 				
@@ -722,7 +741,9 @@ public class ModuleFactory {
 				// done at initial app startup)
 				if (!module.getPrivileges().isEmpty() || !module.getGlobalProperties().isEmpty()) {
 					log.debug("Updating core dataset");
-					Context.checkCoreDataset();
+					synchronized (databaseUpdateLock) {
+						Context.checkCoreDataset();
+					}
 					// checkCoreDataset() currently doesn't throw an error. If
 					// it did, it needs to be
 					// caught and the module needs to be stopped and given a
@@ -780,30 +801,35 @@ public class ModuleFactory {
 	}
 	
 	private static void registerProvidedPackages(ModuleClassLoader moduleClassLoader) {
-		for (String providedPackage : moduleClassLoader.getProvidedPackages()) {
-			Set<ModuleClassLoader> newSet = new HashSet<>();
-			
-			Set<ModuleClassLoader> set = providedPackages.get(providedPackage);
-			if (set != null) {
-				newSet.addAll(set);
+		// modules are started concurrently and each of them replaces the sets of its packages
+		synchronized (providedPackages) {
+			for (String providedPackage : moduleClassLoader.getProvidedPackages()) {
+				Set<ModuleClassLoader> newSet = new HashSet<>();
+				
+				Set<ModuleClassLoader> set = providedPackages.get(providedPackage);
+				if (set != null) {
+					newSet.addAll(set);
+				}
+				
+				newSet.add(moduleClassLoader);
+				providedPackages.put(providedPackage, newSet);
 			}
-			
-			newSet.add(moduleClassLoader);
-			providedPackages.put(providedPackage, newSet);
 		}
 	}
 	
 	private static void unregisterProvidedPackages(ModuleClassLoader moduleClassLoader) {
-		for (String providedPackage : moduleClassLoader.getProvidedPackages()) {
-			Set<ModuleClassLoader> newSet = new HashSet<>();
-			
-			Set<ModuleClassLoader> set = providedPackages.get(providedPackage);
-			if (set != null) {
-				newSet.addAll(set);
+		synchronized (providedPackages) {
+			for (String providedPackage : moduleClassLoader.getProvidedPackages()) {
+				Set<ModuleClassLoader> newSet = new HashSet<>();
+				
+				Set<ModuleClassLoader> set = providedPackages.get(providedPackage);
+				if (set != null) {
+					newSet.addAll(set);
+				}
+				newSet.remove(moduleClassLoader);
+				
+				providedPackages.put(providedPackage, newSet);
 			}
-			newSet.remove(moduleClassLoader);
-			
-			providedPackages.put(providedPackage, newSet);
 		}
 	}
 	
@@ -1055,6 +1081,7 @@ public class ModuleFactory {
 			}
 			
 			getStartedModulesMap().remove(moduleId);
+			ModuleClassLoader.clearLookupCaches();
 			if (actualStartupOrder != null) {
 				actualStartupOrder.remove(moduleId);
 				for (Module depModule : dependentModulesStopped) {
@@ -0,0 +1,364 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.openmrs.util.OpenmrsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a copy of each module file together with the libraries from its lib folder in a folder of
+ * the application data directory which, unlike {@link org.openmrs.util.OpenmrsClassLoader#getLibCacheFolder()},
+ * is not emptied when OpenMRS starts. The folder of a module is named after the SHA-256 hash of the
+ * module file, so a module is only extracted again when its file changed. A module is extracted
+ * into a temporary folder which is then renamed, so a folder named after a hash is always complete.
+ * The folders of modules which are not loaded anymore and of older versions of the loaded modules
+ * are deleted by {@link #prune(Collection)}.
+ * <p>
+ * Several OpenMRS instances may share the application data directory, so each of them holds a
+ * shared lock on the &lt;hash&gt;.lock file next to the version of a module it uses. A version is
+ * only deleted once its lock file can be locked exclusively, and the temporary folders of
+ * extractions which are still in progress are never deleted.
+ *
+ * @since 3.0.0
+ */
+final class ModuleLibraryCache {
+
+	private static final Logger log = LoggerFactory.getLogger(ModuleLibraryCache.class);
+
+	private static final String CACHE_FOLDER_NAME = ".openmrs-module-lib-cache";
+
+	private static final String TEMP_FOLDER_SUFFIX = ".tmp";
+
+	private static final String LOCK_FILE_SUFFIX = ".lock";
+
+	/**
+	 * The hashes of the module files, keyed by path, size and last modification time so that a
+	 * module file is read only once
+	 */
+	private static final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+	private static final Map<String, Object> moduleLocks = new ConcurrentHashMap<>();
+
+	/**
+	 * The shared locks held on the versions used by this instance, keyed by module id
+	 */
+	private static final Map<String, VersionLock> versionLocks = new ConcurrentHashMap<>();
+
+	private static volatile File cacheFolder;
+
+	private ModuleLibraryCache() {
+	}
+
+	/**
+	 * Extracts the given modules concurrently unless they are extracted already
+	 *
+	 * @param modules the modules to extract
+	 */
+	static void extractAll(Collection<Module> modules) {
+		modules.parallelStream().filter(module -> module.getFile() != null).forEach(module -> {
+			try {
+				getFolder(module);
+			}
+			catch (IOException e) {
+				log.warn("Unable to extract module {} into the library cache", module.getModuleId(), e);
+			}
+		});
+	}
+
+	/**
+	 * Deletes the folders of the modules which are not among the given ones and the folders of the
+	 * given modules which don't match the current content of their module files
+	 *
+	 * @param loadedModules the modules which are loaded
+	 */
+	static void prune(Collection<Module> loadedModules) {
+		File[] moduleFolders = getCacheFolder().listFiles(File::isDirectory);
+		if (moduleFolders == null) {
+			return;
+		}
+
+		Map<String, File> moduleFiles = new HashMap<>();
+		for (Module module : loadedModules) {
+			if (module.getFile() != null) {
+				moduleFiles.put(module.getModuleId(), module.getFile());
+			}
+		}
+		for (File moduleFolder : moduleFolders) {
+			File moduleFile = moduleFiles.get(moduleFolder.getName());
+			try {
+				if (moduleFile == null) {
+					log.debug("Deleting {} from the library cache since the module is not loaded", moduleFolder);
+					releaseVersionLock(moduleFolder.getName());
+					deleteOtherVersions(moduleFolder, null);
+					// only succeeds if no other instance still uses a version of the module
+					Files.deleteIfExists(moduleFolder.toPath());
+				} else {
+					deleteOtherVersions(moduleFolder, hash(moduleFile));
+				}
+			}
+			catch (DirectoryNotEmptyException e) {
+				log.debug("Keeping {} in the library cache since it is still in use", moduleFolder);
+			}
+			catch (IOException e) {
+				log.warn("Unable to prune {} from the library cache", moduleFolder, e);
+			}
+		}
+	}
+
+	/**
+	 * Gets the folder holding the copy of the module file, named &lt;moduleId&gt;.jar, and its lib
+	 * folder, extracting the module file if this version of it wasn't extracted before
+	 *
+	 * @param module the module
+	 * @return the folder of the module's content
+	 * @throws IOException if the module file can't be read or extracted
+	 */
+	static File getFolder(Module module) throws IOException {
+		File moduleFolder = new File(getCacheFolder(), module.getModuleId());
+		String hash = hash(module.getFile());
+		File folder = new File(moduleFolder, hash);
+		if (folder.isDirectory() && isVersionLocked(module.getModuleId(), getLockFile(moduleFolder, hash))) {
+			return folder;
+		}
+
+		synchronized (moduleLocks.computeIfAbsent(module.getModuleId(), id -> new Object())) {
+			lockVersion(module.getModuleId(), moduleFolder, hash);
+			if (folder.isDirectory()) {
+				return folder;
+			}
+
+			log.debug("Extracting module {} into the library cache", module.getModuleId());
+			deleteOtherVersions(moduleFolder, hash);
+			Path tempFolder = Files.createTempDirectory(moduleFolder.toPath(), hash + TEMP_FOLDER_SUFFIX);
+			try {
+				extract(module, tempFolder.toFile());
+				moveAtomically(tempFolder, folder.toPath());
+			}
+			finally {
+				if (Files.exists(tempFolder)) {
+					OpenmrsUtil.deleteDirectory(tempFolder.toFile());
+				}
+			}
+		}
+		return folder;
+	}
+
+	/**
+	 * Copies the module file to &lt;moduleId&gt;.jar in the given folder and expands its lib folder
+	 * there
+	 *
+	 * @param module the module
+	 * @param folder the folder to extract to
+	 * @throws IOException if the module file can't be read or extracted
+	 */
+	static void extract(Module module, File folder) throws IOException {
+		FileUtils.copyFile(module.getFile(), new File(folder, module.getModuleId() + ".jar"));
+		ModuleUtil.expandJar(module.getFile(), folder, "lib", true);
+	}
+
+	private static void moveAtomically(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+			// another OpenMRS instance sharing the application data directory extracted it meanwhile
+			log.debug("Module folder {} was created concurrently", target);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target);
+		}
+	}
+
+	/**
+	 * Deletes the versions of a module other than the given one which aren't in use, the versions
+	 * being extracted and the versions locked by an instance are kept
+	 *
+	 * @param moduleFolder the folder of the module
+	 * @param hash the version to keep or null to delete all versions
+	 */
+	private static void deleteOtherVersions(File moduleFolder, String hash) {
+		File[] files = moduleFolder.listFiles();
+		if (files == null) {
+			return;
+		}
+		// also the lock files left behind by extractions which failed
+		Set<String> versions = new HashSet<>();
+		for (File file : files) {
+			String name = file.getName();
+			if (file.isDirectory() && !name.contains(TEMP_FOLDER_SUFFIX)) {
+				versions.add(name);
+			} else if (file.isFile() && name.endsWith(LOCK_FILE_SUFFIX)) {
+				versions.add(name.substring(0, name.length() - LOCK_FILE_SUFFIX.length()));
+			}
+		}
+		versions.remove(hash);
+		for (String versionName : versions) {
+			File version = new File(moduleFolder, versionName);
+			Path lockFile = getLockFile(moduleFolder, versionName);
+			try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			    StandardOpenOption.WRITE); FileLock lock = tryLock(channel)) {
+				if (lock == null) {
+					log.debug("Keeping {} in the library cache since it is still in use", version);
+					continue;
+				}
+				if (version.exists()) {
+					OpenmrsUtil.deleteDirectory(version);
+				}
+				// an instance waiting for this lock notices that the lock file is gone once it gets the lock
+				Files.delete(lockFile);
+			}
+			catch (IOException e) {
+				log.warn("Unable to delete {} from the library cache", version, e);
+			}
+		}
+	}
+
+	/**
+	 * Takes a shared lock on the given version of a module for this instance, releasing the lock on
+	 * the version it used before
+	 */
+	private static void lockVersion(String moduleId, File moduleFolder, String hash) throws IOException {
+		Path lockFile = getLockFile(moduleFolder, hash);
+		if (isVersionLocked(moduleId, lockFile)) {
+			return;
+		}
+		releaseVersionLock(moduleId);
+
+		Files.createDirectories(moduleFolder.toPath());
+		while (true) {
+			FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			    StandardOpenOption.WRITE);
+			try {
+				FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+				// the lock file may have been deleted together with its version before it was locked
+				if (Files.exists(lockFile)) {
+					versionLocks.put(moduleId, new VersionLock(lockFile, lock));
+					return;
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+			channel.close();
+		}
+	}
+
+	private static boolean isVersionLocked(String moduleId, Path lockFile) {
+		VersionLock held = versionLocks.get(moduleId);
+		return held != null && held.lockFile.equals(lockFile) && held.lock.isValid();
+	}
+
+	private static void releaseVersionLock(String moduleId) {
+		VersionLock held = versionLocks.remove(moduleId);
+		if (held != null) {
+			try {
+				// releases the lock as well
+				held.lock.channel().close();
+			}
+			catch (IOException e) {
+				log.warn("Unable to release the library cache lock of module {}", moduleId, e);
+			}
+		}
+	}
+
+	/**
+	 * @return the lock or null if the lock file is locked by this or another instance
+	 */
+	private static FileLock tryLock(FileChannel channel) throws IOException {
+		try {
+			return channel.tryLock();
+		}
+		catch (OverlappingFileLockException e) {
+			return null;
+		}
+	}
+
+	private static Path getLockFile(File moduleFolder, String hash) {
+		return moduleFolder.toPath().resolve(hash + LOCK_FILE_SUFFIX);
+	}
+
+	private static String hash(File moduleFile) throws IOException {
+		String key = moduleFile.getAbsolutePath() + ":" + moduleFile.length() + ":" + moduleFile.lastModified();
+		String hash = hashes.get(key);
+		if (hash == null) {
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is required to be supported by the JVM", e);
+			}
+			try (InputStream in = new DigestInputStream(Files.newInputStream(moduleFile.toPath()), digest)) {
+				in.transferTo(OutputStream.nullOutputStream());
+			}
+			hash = HexFormat.of().formatHex(digest.digest());
+			hashes.put(key, hash);
+		}
+		return hash;
+	}
+
+	private static File getCacheFolder() {
+		File folder = cacheFolder;
+		return folder != null ? folder : new File(OpenmrsUtil.getApplicationDataDirectory(), CACHE_FOLDER_NAME);
+	}
+
+	/**
+	 * Sets the folder the modules are extracted into, used by tests
+	 *
+	 * @param folder the folder or null to use the folder in the application data directory
+	 */
+	static void setCacheFolder(File folder) {
+		versionLocks.keySet().forEach(ModuleLibraryCache::releaseVersionLock);
+		cacheFolder = folder;
+	}
+
+	/**
+	 * A lock held on a version of a module and the file it is held on
+	 */
+	private static class VersionLock {
+
+		private final Path lockFile;
+
+		private final FileLock lock;
+
+		private VersionLock(Path lockFile, FileLock lock) {
+			this.lockFile = lockFile;
+			this.lock = lock;
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.util.CycleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a step of starting modules, like starting them in the API or in the web layer, for several
+ * modules on a bounded pool of threads. The step is run for a module once it finished for all the
+ * modules it requires or is aware of, so modules which don't depend on each other are handled
+ * concurrently. Afterwards, when each module's step started and how long it took is logged together
+ * with the chain of dependent modules that finished last, which is what determines how long the
+ * step takes. <br>
+ * <br>
+ * The step is run on each thread with the authentication of the thread which started the modules,
+ * i.e. as the daemon user when they are started by a daemon thread, otherwise as the same user.
+ *
+ * @since 3.0.0
+ */
+public class ModuleStartupExecutor {
+
+	private static final Logger log = LoggerFactory.getLogger(ModuleStartupExecutor.class);
+
+	/**
+	 * The step to run for each module
+	 */
+	@FunctionalInterface
+	public interface Step {
+
+		/**
+		 * @param module the module to run the step for
+		 * @throws Exception if the step failed for the module, it is logged and the step is still run
+		 *             for the modules depending on it
+		 */
+		void run(Module module) throws Exception;
+	}
+
+	private ModuleStartupExecutor() {
+	}
+
+	/**
+	 * Runs the given step for the given modules and waits until it finished for all of them. If the
+	 * modules depend on each other in a cycle, the step is run for one module after the other in the
+	 * given order.
+	 *
+	 * @param stepName the name of the step used when logging
+	 * @param modules the modules to run the step for
+	 * @param step the step
+	 */
+	public static void run(String stepName, Collection<Module> modules, Step step) {
+		if (modules.isEmpty()) {
+			return;
+		}
+
+		List<Module> orderedModules;
+		boolean concurrently = true;
+		try {
+			orderedModules = new ArrayList<>(ModuleFactory.getModulesInStartupOrder(modules));
+			orderedModules.retainAll(modules);
+		}
+		catch (CycleException e) {
+			log.warn("Modules depend on each other in a cycle, running the {} step for one module after the other",
+			    stepName);
+			orderedModules = new ArrayList<>(modules);
+			concurrently = false;
+		}
+
+		int threads = concurrently ? Math.min(orderedModules.size(), Runtime.getRuntime().availableProcessors()) : 1;
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "OpenMRS Module Startup " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// the user context is held in a thread local, so it has to be passed on to the threads
+		boolean asDaemon = Daemon.isDaemonThread();
+		UserContext userContext = Context.isSessionOpen() ? Context.getUserContext() : null;
+
+		Map<Module, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+		Map<Module, Set<Module>> dependencies = new LinkedHashMap<>();
+		Map<Module, long[]> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+		long begin = System.nanoTime();
+		try {
+			for (Module module : orderedModules) {
+				Set<Module> moduleDependencies = concurrently ? getDependencies(module, futures.keySet())
+				        : Collections.emptySet();
+				dependencies.put(module, moduleDependencies);
+				CompletableFuture<?>[] dependencyFutures = moduleDependencies.stream().map(futures::get)
+				        .toArray(CompletableFuture[]::new);
+				futures.put(module, CompletableFuture.allOf(dependencyFutures)
+				        .thenRunAsync(() -> runStepInSession(asDaemon, userContext,
+				            () -> runStep(stepName, module, step, begin, timings)), executor));
+			}
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		logTimings(stepName, orderedModules, dependencies, timings, begin);
+	}
+
+	/**
+	 * Runs the given step in a session authenticated as the daemon user or, otherwise, as the user of
+	 * the given user context
+	 */
+	private static void runStepInSession(boolean asDaemon, UserContext userContext, Runnable runnable) {
+		if (asDaemon) {
+			Daemon.runModuleStartupStepInCurrentThread(runnable);
+			return;
+		}
+
+		if (userContext != null) {
+			Context.setUserContext(userContext);
+			Context.openSessionWithCurrentUser();
+		} else {
+			Context.openSession();
+		}
+		try {
+			runnable.run();
+		}
+		finally {
+			if (userContext != null) {
+				try {
+					Context.closeSessionWithCurrentUser();
+				}
+				finally {
+					Context.clearUserContext();
+				}
+			} else {
+				Context.closeSession();
+			}
+		}
+	}
+
+	private static void runStep(String stepName, Module module, Step step, long begin, Map<Module, long[]> timings) {
+		long start = System.nanoTime();
+		try {
+			step.run(module);
+		}
+		catch (Exception e) {
+			log.error("Error while running the " + stepName + " step for module " + module.getModuleId(), e);
+		}
+		finally {
+			timings.put(module, new long[] { start - begin, System.nanoTime() - begin });
+		}
+	}
+
+	/**
+	 * @param module the module
+	 * @param candidates the modules the given one may depend on
+	 * @return the candidates the module requires or is aware of
+	 */
+	private static Set<Module> getDependencies(Module module, Set<Module> candidates) {
+		Set<Module> result = new HashSet<>();
+		List<String> packages = new ArrayList<>();
+		if (module.getRequiredModules() != null) {
+			packages.addAll(module.getRequiredModules());
+		}
+		if (module.getAwareOfModules() != null) {
+			packages.addAll(module.getAwareOfModules());
+		}
+		for (String modulePackage : packages) {
+			Module dependency = ModuleFactory.getModuleByPackage(modulePackage);
+			if (dependency != null && candidates.contains(dependency)) {
+				result.add(dependency);
+			}
+		}
+		return result;
+	}
+
+	private static void logTimings(String stepName, List<Module> modules, Map<Module, Set<Module>> dependencies,
+	        Map<Module, long[]> timings, long begin) {
+		if (!log.isInfoEnabled()) {
+			return;
+		}
+
+		Module last = null;
+		for (Module module : modules) {
+			long[] timing = timings.get(module);
+			if (timing == null) {
+				continue;
+			}
+			log.info("Module {} {} step started after {} ms and took {} ms", module.getModuleId(), stepName,
+			    toMillis(timing[0]), toMillis(timing[1] - timing[0]));
+			if (last == null || timing[1] > timings.get(last)[1]) {
+				last = module;
+			}
+		}
+
+		// walk back from the module that finished last through the dependencies that finished last
+		List<String> criticalPath = new ArrayList<>();
+		for (Module module = last; module != null;) {
+			long[] timing = timings.get(module);
+			criticalPath.add(0, module.getModuleId() + " (" + toMillis(timing[1] - timing[0]) + " ms)");
+			Module latestDependency = null;
+			for (Module dependency : dependencies.get(module)) {
+				if (timings.containsKey(dependency)
+				        && (latestDependency == null || timings.get(dependency)[1] > timings.get(latestDependency)[1])) {
+					latestDependency = dependency;
+				}
+			}
+			module = latestDependency;
+		}
+		log.info("The {} step for {} modules took {} ms, critical path: {}", stepName, modules.size(),
+		    toMillis(System.nanoTime() - begin), String.join(" -> ", criticalPath));
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.notification.mail.velocity;
+
+import jakarta.annotation.PostConstruct;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openmrs.notification.Template;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts the parsed template of a {@link Template} from the {@link VelocityMessagePreparator} once
+ * the template is updated or deleted in the database, so the data access layer doesn't have to know
+ * about the preparator.
+ *
+ * @see VelocityMessagePreparator#evictTemplate(Integer)
+ * @since 3.0.0
+ */
+@Component
+public class TemplateEventListener implements PostUpdateEventListener, PostDeleteEventListener {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@PostConstruct
+	public void registerListener() {
+		EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory).getServiceRegistry().getService(
+		    EventListenerRegistry.class);
+		registry.getEventListenerGroup(EventType.POST_UPDATE).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_DELETE).appendListener(this);
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		evictIfTemplate(event.getEntity());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		evictIfTemplate(event.getEntity());
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	private void evictIfTemplate(Object entity) {
+		if (entity instanceof Template) {
+			VelocityMessagePreparator.evictTemplate(((Template) entity).getId());
+		}
+	}
+}
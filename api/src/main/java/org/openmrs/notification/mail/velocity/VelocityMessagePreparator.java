@@ -10,18 +10,26 @@
 package org.openmrs.notification.mail.velocity;
 
 import java.io.StringWriter;
-import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
-import org.apache.velocity.runtime.log.Log4JLogChute;
+import org.apache.velocity.runtime.parser.ParseException;
 import org.openmrs.notification.Message;
 import org.openmrs.notification.MessageException;
 import org.openmrs.notification.MessagePreparator;
 import org.openmrs.notification.Template;
+import org.openmrs.util.VelocityUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Prepares messages from templates with the Velocity runtime shared by the API. Parsed templates are
+ * cached by template id, or by content for templates that are not saved, so that sending a batch of
+ * messages with the same template parses it only once. A cached template is parsed again as soon as
+ * the content of the template it was parsed from is edited.
+ */
 public class VelocityMessagePreparator implements MessagePreparator {
 	
 	/**
@@ -29,24 +37,29 @@ public class VelocityMessagePreparator implements MessagePreparator {
 	 */
 	private static final Logger log = LoggerFactory.getLogger(VelocityMessagePreparator.class);
 	
+	private static final int MAX_PARSED_TEMPLATES = 100;
+	
 	/**
-	 * Velocity template engine
+	 * Parsed templates shared by all the preparators since a new one is created by
+	 * {@link org.openmrs.api.context.Context} whenever the message service has none
 	 */
-	private VelocityEngine engine;
+	private static final Cache<Object, ParsedTemplate> parsedTemplates = CacheBuilder.newBuilder()
+	        .maximumSize(MAX_PARSED_TEMPLATES).build();
+	
+	private static final LongAdder parseCount = new LongAdder();
+	
+	private static final LongAdder renderCount = new LongAdder();
+	
+	private static final LongAdder renderTimeNanos = new LongAdder();
 	
 	/**
-	 * Public constructor TODO: needs better error handling
+	 * Public constructor
 	 * 
-	 * @throws MessageException
+	 * @throws MessageException if the velocity engine fails to initialize
 	 */
 	public VelocityMessagePreparator() throws MessageException {
 		try {
-			engine = new VelocityEngine();
-			Properties props = new Properties();
-			props.put("runtime.log.logsystem.class", Log4JLogChute.class.getName());
-			props.put("runtime.log.logsystem.log4j.category", "velocity");
-			props.put("runtime.log.logsystem.log4j.logger", "velocity");
-			engine.init(props);
+			VelocityUtil.getRuntimeInstance();
 		}
 		catch (Exception e) {
 			log.error("Failed to create velocity engine " + e.getMessage(), e);
@@ -54,7 +67,6 @@ public class VelocityMessagePreparator implements MessagePreparator {
 		}
 	}
 	
-	// TODO: need better error handling
 	@Override
 	public Message prepare(Template template) throws MessageException {
 		
@@ -62,8 +74,11 @@ public class VelocityMessagePreparator implements MessagePreparator {
 		StringWriter writer = new StringWriter();
 		
 		try {
-			engine.evaluate(context, writer, "template", // I have no idea what this is used for
-			    template.getTemplate());
+			org.apache.velocity.Template parsedTemplate = getParsedTemplate(template);
+			long start = System.nanoTime();
+			parsedTemplate.merge(context, writer);
+			renderTimeNanos.add(System.nanoTime() - start);
+			renderCount.increment();
 		}
 		catch (Exception e) {
 			// need better error handling
@@ -80,4 +95,81 @@ public class VelocityMessagePreparator implements MessagePreparator {
 		
 		return message;
 	}
+	
+	/**
+	 * Evicts the parsed template of the template with the given id, templates are parsed again anyway
+	 * when their content changes so this only frees the memory used by a template that is deleted.
+	 * 
+	 * @param templateId the id of the template
+	 * @see TemplateEventListener
+	 * @since 3.0.0
+	 */
+	public static void evictTemplate(Integer templateId) {
+		parsedTemplates.invalidate(templateId);
+	}
+	
+	/**
+	 * Evicts all the parsed templates
+	 * 
+	 * @since 3.0.0
+	 */
+	public static void clearTemplates() {
+		parsedTemplates.invalidateAll();
+	}
+	
+	/**
+	 * @return the number of times a template was parsed because it was not cached or was edited
+	 * @since 3.0.0
+	 */
+	public static long getParseCount() {
+		return parseCount.sum();
+	}
+	
+	/**
+	 * @return the number of messages rendered
+	 * @since 3.0.0
+	 */
+	public static long getRenderCount() {
+		return renderCount.sum();
+	}
+	
+	/**
+	 * @return the total time spent rendering messages in nanoseconds
+	 * @since 3.0.0
+	 */
+	public static long getRenderTimeNanos() {
+		return renderTimeNanos.sum();
+	}
+	
+	/**
+	 * Gets the parsed template for the given template, parsing and caching it if it is not cached yet
+	 * or if its content changed since it was cached.
+	 */
+	private static org.apache.velocity.Template getParsedTemplate(Template template) throws ParseException {
+		String source = template.getTemplate();
+		Object key = template.getId() != null ? template.getId() : source;
+		ParsedTemplate parsed = parsedTemplates.getIfPresent(key);
+		if (parsed == null || !parsed.source.equals(source)) {
+			String name = template.getName() != null ? template.getName() : "template";
+			parsed = new ParsedTemplate(source, VelocityUtil.parseTemplate(name, source));
+			parseCount.increment();
+			parsedTemplates.put(key, parsed);
+		}
+		return parsed.template;
+	}
+	
+	/**
+	 * A parsed template along with the source it was parsed from
+	 */
+	private static class ParsedTemplate {
+		
+		private final String source;
+		
+		private final org.apache.velocity.Template template;
+		
+		private ParsedTemplate(String source, org.apache.velocity.Template template) {
+			this.source = source;
+			this.template = template;
+		}
+	}
 }
@@ -33,6 +33,8 @@ public class ComplexData implements java.io.Serializable {
 	
 	private Long length;
 	
+	private String entityTag;
+	
 	/**
 	 * Default constructor requires title and data.
 	 * 
@@ -121,4 +123,25 @@ public class ComplexData implements java.io.Serializable {
 		return this.length;
 	}
 	
+	/**
+	 * Set the data entity tag
+	 *
+	 * @param entityTag
+	 * @since 3.0.0
+	 */
+	public void setEntityTag(String entityTag) {
+		this.entityTag = entityTag;
+	}
+	
+	/**
+	 * Get the data entity tag, which changes whenever the data changes
+	 *
+	 * @return data entity tag or null if not known
+	 * @see org.openmrs.api.storage.ObjectMetadata#getEntityTag()
+	 * @since 3.0.0
+	 */
+	public String getEntityTag() {
+		return this.entityTag;
+	}
+	
 }
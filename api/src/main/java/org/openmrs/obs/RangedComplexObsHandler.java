@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.obs;
+
+import org.openmrs.Obs;
+import org.openmrs.api.APIException;
+
+/**
+ * A {@link ComplexObsHandler} which can fetch a range of the raw ComplexData without reading the data
+ * before it, e.g. to seek in a video or to resume a download of a large file.
+ * <p>
+ * Use case:
+ * 
+ * <pre>
+ *   Obs slice = handler.getObs(obs, offset, 1024 * 1024);
+ *   ComplexData complexData = slice.getComplexData();
+ *   if (complexData.getEntityTag().equals(entityTagOfThePreviousSlice)) {
+ *       InputStream data = (InputStream) complexData.getData();
+ *   }
+ * </pre>
+ * 
+ * @since 3.0.0
+ */
+public interface RangedComplexObsHandler extends ComplexObsHandler {
+	
+	/**
+	 * Fetches a range of the ComplexData from the location indicated from Obs.value_complex, attaches
+	 * it onto the Obs and returns the Obs. <br>
+	 * The data of the ComplexData is an InputStream of the range in the format of the
+	 * {@link ComplexObsHandler#RAW_VIEW} which must be closed by the caller. The length of the
+	 * ComplexData is the length of the whole data and the entity tag tells if the data is still the same
+	 * as when another range was fetched. A length of 0 can be used to get only the metadata.
+	 * 
+	 * @param obs an obs without complex data filled in
+	 * @param offset the position of the first byte to fetch
+	 * @param length the maximum number of bytes to fetch, less are returned if the data ends before
+	 * @return the obs with the range of the complex data filled in
+	 * @throws APIException if the data cannot be read
+	 */
+	public Obs getObs(Obs obs, long offset, long length) throws APIException;
+}
@@ -80,6 +80,35 @@ public class AbstractHandler {
 		return obs;
 	}
 
+	/**
+	 * @see org.openmrs.obs.RangedComplexObsHandler#getObs(Obs, long, long)
+	 * @since 3.0.0
+	 */
+	public Obs getObs(Obs obs, long offset, long length) throws APIException {
+		String key = parseDataKey(obs);
+		
+		InputStream in;
+		try {
+			in = storageService.getData(key, offset, length);
+		}
+		catch (IOException e) {
+			throw new APIException("Obs.error.while.trying.get.binary.complex", null, e);
+		}
+		
+		// the same filename as in the raw view
+		String filename = parseDataTitle(obs).replace(",", "").replace(" ", "");
+		ComplexData complexData = new ComplexData(filename, in);
+		try {
+			injectMissingMetadata(key, complexData);
+		}
+		catch (UncheckedIOException e) {
+			IOUtils.closeQuietly(in);
+			throw e;
+		}
+		obs.setComplexData(complexData);
+		return obs;
+	}
+
 	/**
 	 * @see org.openmrs.obs.ComplexObsHandler#saveObs(Obs) 
 	 */
@@ -152,6 +181,7 @@ public class AbstractHandler {
 				complexData.setMimeType(metadata.getMimeType());
 			}
 			complexData.setLength(metadata.getLength());
+			complexData.setEntityTag(metadata.getEntityTag());
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
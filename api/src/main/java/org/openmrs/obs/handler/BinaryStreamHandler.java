@@ -18,6 +18,7 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.storage.ObjectMetadata;
 import org.openmrs.obs.ComplexData;
 import org.openmrs.obs.ComplexObsHandler;
+import org.openmrs.obs.RangedComplexObsHandler;
 import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +32,7 @@ import org.springframework.util.Assert;
  * @since 1.8
  */
 @Component
-public class BinaryStreamHandler extends AbstractHandler implements ComplexObsHandler {
+public class BinaryStreamHandler extends AbstractHandler implements RangedComplexObsHandler {
 	
 	/** Views supported by this handler */
 	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, };
@@ -13,14 +13,21 @@ import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.io.FilenameUtils;
@@ -34,11 +41,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 /**
- * Handler for storing basic images for complex obs to the file system. The image mime type used is
- * taken from the image name. if the .* image name suffix matches
- * {@link javax.imageio.ImageIO#getWriterFormatNames()} then that mime type will be used to save the
- * image. Images are stored in the location specified by the global property: "obs.complex_obs_dir"
- * 
+ * Handler for storing basic images for complex obs to the file system. Images given as bytes or a
+ * stream are stored as they are, only their header is read to check that they are images of a
+ * format {@link javax.imageio.ImageIO} can read. Images given as a {@link BufferedImage} are
+ * written in the format matching the .* suffix of the image name. Images are stored in the location
+ * specified by the global property: "obs.complex_obs_dir"
+ * <p>
+ * The preview view is a thumbnail of the image, which is created the first time it is requested
+ * and stored next to the image, so later requests don't read the image again.
+ *
  * @see org.openmrs.util.OpenmrsConstants#GLOBAL_PROPERTY_COMPLEX_OBS_DIR
  * @since 1.5
  */
@@ -46,10 +57,24 @@ import org.springframework.stereotype.Component;
 public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 	
 	/** Views supported by this handler */
-	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW };
+	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.PREVIEW_VIEW };
 	
 	private static final Logger log = LoggerFactory.getLogger(ImageHandler.class);
 	
+	/**
+	 * The number of bytes read to find out the format and dimensions of an image
+	 */
+	private static final int HEADER_LENGTH = 64 * 1024;
+	
+	/**
+	 * The maximum width and height of thumbnails
+	 */
+	private static final int THUMBNAIL_SIZE = 256;
+	
+	private static final String THUMBNAIL_SUFFIX = ".thumbnail";
+	
+	private static final String THUMBNAIL_FORMAT = "png";
+	
 	private Set<String> extensions;
 	
 	/**
@@ -65,8 +90,9 @@ public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 	}
 	
 	/**
-	 * Currently supports all views and puts the Image file data into the ComplexData object
-	 * 
+	 * Puts the decoded image into the ComplexData object for the raw view and a stream of the
+	 * thumbnail for the preview view
+	 *
 	 * @see org.openmrs.obs.ComplexObsHandler#getObs(org.openmrs.Obs, java.lang.String)
 	 */
 	@Override
@@ -103,6 +129,10 @@ public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 			}
 			complexData.setLength(null); // Reset as loaded image size is not equal to file size
 			
+			obs.setComplexData(complexData);
+		} else if (ComplexObsHandler.PREVIEW_VIEW.equals(view)) {
+			ComplexData complexData = new ComplexData(key, getThumbnail(key));
+			complexData.setMimeType("image/" + THUMBNAIL_FORMAT);
 			obs.setComplexData(complexData);
 		} else {
 			// No other view supported
@@ -133,33 +163,40 @@ public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 				filename = splitTitle[1];
 			}
 			String extension = FilenameUtils.getExtension(filename);
-			String assignedKey = storageService.saveData((out) -> {
-				Object data = obs.getComplexData().getData();
-				
+			Object data = obs.getComplexData().getData();
+			ObjectMetadata metadata = ObjectMetadata.builder().setFilename(filename).build();
+			
+			String assignedKey;
+			if (data instanceof BufferedImage) {
+				assignedKey = storageService.saveData((out) -> {
+					ImageIO.write((BufferedImage) data, extension, out);
+					out.flush();
+				}, metadata, getObsDir());
+			} else {
 				InputStream in = null;
 				if (data instanceof byte[]) {
 					in = new ByteArrayInputStream((byte[]) data);
+					metadata.setLength((long) ((byte[]) data).length);
 				} else if (data instanceof InputStream) {
 					in = (InputStream) data;
 				}
-				
-				BufferedImage img = null;
-				if (in != null) {
-					img = ImageIO.read(in);
-				} else if (data instanceof BufferedImage) {
-					img = (BufferedImage) data;
+				if (in == null) {
+					throw new APIException("Obs.error.cannot.save.complex", new Object[] { obs.getObsId() });
 				}
 				
-				if (img == null) {
+				// only the header is read to check the image, the image is stored as it is
+				byte[] header = in.readNBytes(HEADER_LENGTH);
+				readHeader(header, metadata);
+				if (metadata.getMimeType() == null) {
 					throw new APIException("Obs.error.cannot.save.complex", new Object[] { obs.getObsId() });
 				}
-				ImageIO.write(img, extension, out);
-				out.flush();
-			}, ObjectMetadata.builder().setFilename(filename).build(), getObsDir());
-
+				assignedKey = storageService.saveData(new SequenceInputStream(new ByteArrayInputStream(header), in),
+				    metadata, getObsDir());
+			}
+			
 			// Set the Title and URI for the valueComplex
 			obs.setValueComplex(extension + " image |" + assignedKey);
-
+			
 			// Remove the ComlexData from the Obs
 			obs.setComplexData(null);
 		} catch (IOException e) {
@@ -169,4 +206,141 @@ public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 		return obs;
 	}
 	
+	/**
+	 * Purges the thumbnail of the image too
+	 *
+	 * @see org.openmrs.obs.ComplexObsHandler#purgeComplexData(org.openmrs.Obs)
+	 */
+	@Override
+	public boolean purgeComplexData(Obs obs) {
+		String thumbnailKey = getThumbnailKey(parseDataKey(obs));
+		if (thumbnailKey != null && storageService.exists(thumbnailKey)) {
+			try {
+				storageService.purgeData(thumbnailKey);
+			}
+			catch (IOException e) {
+				log.warn("Could not delete the thumbnail of obsId={} located at {}", obs.getObsId(), thumbnailKey);
+			}
+		}
+		return super.purgeComplexData(obs);
+	}
+	
+	/**
+	 * Sets the mime type and the dimensions of the image with the given header on the metadata, the
+	 * mime type is left null if the header is not of an image
+	 */
+	private void readHeader(byte[] header, ObjectMetadata metadata) throws IOException {
+		try (ImageInputStream imageIn = ImageIO.createImageInputStream(new ByteArrayInputStream(header))) {
+			Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageIn);
+			if (!imageReaders.hasNext()) {
+				return;
+			}
+			ImageReader imgReader = imageReaders.next();
+			metadata.setMimeType("image/" + imgReader.getFormatName().toLowerCase(Locale.ROOT));
+			imgReader.setInput(imageIn, true, true);
+			try {
+				Map<String, String> dimensions = new HashMap<>();
+				dimensions.put("width", String.valueOf(imgReader.getWidth(0)));
+				dimensions.put("height", String.valueOf(imgReader.getHeight(0)));
+				metadata.setCustomMetadata(dimensions);
+			}
+			catch (IOException e) {
+				// the dimensions are not within the header
+				log.debug("Could not read the dimensions of the image", e);
+			}
+			finally {
+				imgReader.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * @param key the key of the image
+	 * @return a stream of the thumbnail of the image, which is created and stored if it does not exist
+	 *         yet, or null if the image cannot be read
+	 */
+	private InputStream getThumbnail(String key) {
+		String thumbnailKey = getThumbnailKey(key);
+		try {
+			if (thumbnailKey != null && storageService.exists(thumbnailKey)) {
+				return storageService.getData(thumbnailKey);
+			}
+			
+			byte[] thumbnail = createThumbnail(key);
+			if (thumbnail == null) {
+				return null;
+			}
+			if (thumbnailKey != null) {
+				try {
+					int separator = thumbnailKey.lastIndexOf('/');
+					storageService.saveData(new ByteArrayInputStream(thumbnail), ObjectMetadata.builder()
+					        .setMimeType("image/" + THUMBNAIL_FORMAT).setLength((long) thumbnail.length).build(),
+					    separator < 0 ? null : thumbnailKey.substring(0, separator), thumbnailKey.substring(separator + 1));
+				}
+				catch (IOException | IllegalArgumentException e) {
+					// stored by a concurrent request or the key cannot be used for storing
+					log.debug("Could not store the thumbnail {}", thumbnailKey, e);
+				}
+			}
+			return new ByteArrayInputStream(thumbnail);
+		}
+		catch (IOException e) {
+			log.error("Trying to create the thumbnail of file: {}", key, e);
+			// Do not fail if image is missing
+			return null;
+		}
+	}
+	
+	/**
+	 * @return the key the thumbnail of the image with the given key is stored under
+	 */
+	private String getThumbnailKey(String key) {
+		return key != null ? key + THUMBNAIL_SUFFIX : null;
+	}
+	
+	/**
+	 * Reads the image with the given key subsampled to about the thumbnail size, so that large images
+	 * are not decoded at full resolution, and scales it to fit into the thumbnail size
+	 *
+	 * @return the encoded thumbnail or null if the data is not an image
+	 */
+	private byte[] createThumbnail(String key) throws IOException {
+		BufferedImage img;
+		try (InputStream in = storageService.getData(key); ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+			Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageIn);
+			if (!imageReaders.hasNext()) {
+				return null;
+			}
+			ImageReader imgReader = imageReaders.next();
+			imgReader.setInput(imageIn, true, true);
+			try {
+				int largestSide = Math.max(imgReader.getWidth(0), imgReader.getHeight(0));
+				int subsampling = Math.max(1, largestSide / (THUMBNAIL_SIZE * 2));
+				ImageReadParam param = imgReader.getDefaultReadParam();
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				img = imgReader.read(0, param);
+			}
+			finally {
+				imgReader.dispose();
+			}
+		}
+		
+		double scale = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(img.getWidth(), img.getHeight()));
+		int width = Math.max(1, (int) Math.round(img.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(img.getHeight() * scale));
+		BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = thumbnail.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.drawImage(img, 0, 0, width, height, null);
+		}
+		finally {
+			graphics.dispose();
+		}
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(thumbnail, THUMBNAIL_FORMAT, out);
+		return out.toByteArray();
+	}
+
 }
@@ -19,6 +19,7 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.storage.ObjectMetadata;
 import org.openmrs.obs.ComplexData;
 import org.openmrs.obs.ComplexObsHandler;
+import org.openmrs.obs.RangedComplexObsHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -32,7 +33,7 @@ import org.springframework.stereotype.Component;
  * @since 1.12
  */
 @Component
-public class MediaHandler extends AbstractHandler implements ComplexObsHandler {
+public class MediaHandler extends AbstractHandler implements RangedComplexObsHandler {
 	
 	/** Views supported by this handler */
 	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, };
@@ -84,6 +85,20 @@ public class MediaHandler extends AbstractHandler implements ComplexObsHandler {
 		return obs;
 	}
 	
+	/**
+	 * Sets the mime type probed from the filename like the raw view does
+	 * 
+	 * @see org.openmrs.obs.RangedComplexObsHandler#getObs(org.openmrs.Obs, long, long)
+	 * @since 3.0.0
+	 */
+	@Override
+	public Obs getObs(Obs obs, long offset, long length) throws APIException {
+		super.getObs(obs, offset, length);
+		ComplexData complexData = obs.getComplexData();
+		complexData.setMimeType(mimetypes.getContentType(complexData.getTitle()));
+		return obs;
+	}
+	
 	/**
 	 * @see org.openmrs.obs.ComplexObsHandler#getSupportedViews()
 	 */
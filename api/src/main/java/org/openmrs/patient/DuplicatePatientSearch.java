@@ -0,0 +1,398 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.language.Soundex;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
+import org.openmrs.api.APIException;
+
+/**
+ * The state of a search for patients that are likely duplicates of each other. Patients are
+ * compared by a blocking key made from the normalized values of the attributes to match, names are
+ * encoded with Soundex like the name search does, so two patients whose keys are equal end up in
+ * the same group.
+ * <p>
+ * The patients are scanned in chunks in the order of their ids, see
+ * {@link org.openmrs.api.PatientService#scanForDuplicatePatients(DuplicatePatientSearch, int)}, and
+ * only a hash of each key is kept in memory while scanning, packed with the patient id into one
+ * long. Once all patients were scanned, the patients sharing a hash are the candidates whose keys
+ * are computed again to group the patients whose keys are actually equal. Since the scan continues
+ * after {@link #getLastPatientId()}, a search can be resumed after it was interrupted, even after
+ * OpenMRS restarts if its progress was written with {@link #writeProgress(OutputStream)}.
+ *
+ * @since 3.0.0
+ */
+public class DuplicatePatientSearch {
+
+	/**
+	 * The attributes patients can be matched on
+	 */
+	public static final List<String> SUPPORTED_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList("givenName",
+	    "middleName", "familyName", "gender", "birthdate", "identifier"));
+
+	/**
+	 * The number of candidates whose keys are computed again at a time
+	 */
+	private static final int CANDIDATE_BATCH_SIZE = 1000;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private static final Soundex SOUNDEX = new Soundex();
+
+	private static final FastDateFormat DATE_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd");
+
+	private final List<String> attributes;
+
+	private final boolean includeVoided;
+
+	private final boolean parallel;
+
+	private Integer lastPatientId;
+
+	private long scannedPatientCount;
+
+	private long[] hashedKeys = new long[INITIAL_CAPACITY];
+
+	private int hashedKeyCount;
+
+	private List<List<Integer>> duplicates;
+
+	/**
+	 * @param attributes the attributes to match patients on, any of {@link #SUPPORTED_ATTRIBUTES}
+	 * @param includeVoided whether voided patients are searched too
+	 * @param parallel whether the hashed keys are sorted and the candidates grouped on several threads
+	 * @throws APIException if no attributes or attributes which are not supported are given
+	 */
+	public DuplicatePatientSearch(List<String> attributes, boolean includeVoided, boolean parallel) {
+		if (attributes == null || attributes.isEmpty()) {
+			throw new APIException("Patient.no.attribute", (Object[]) null);
+		}
+		List<String> trimmedAttributes = new ArrayList<>(attributes.size());
+		for (String attribute : attributes) {
+			String trimmedAttribute = StringUtils.trim(attribute);
+			if (!SUPPORTED_ATTRIBUTES.contains(trimmedAttribute)) {
+				throw new APIException("Unsupported attribute for finding duplicate patients: " + attribute);
+			}
+			trimmedAttributes.add(trimmedAttribute);
+		}
+		this.attributes = Collections.unmodifiableList(trimmedAttributes);
+		this.includeVoided = includeVoided;
+		this.parallel = parallel;
+	}
+
+	/**
+	 * @return the attributes patients are matched on
+	 */
+	public List<String> getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * @return whether voided patients are searched too
+	 */
+	public boolean isIncludeVoided() {
+		return includeVoided;
+	}
+
+	/**
+	 * @return whether the hashed keys are sorted and the candidates grouped on several threads
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * @return the id of the last scanned patient, null if no patient was scanned yet
+	 */
+	public Integer getLastPatientId() {
+		return lastPatientId;
+	}
+
+	/**
+	 * @return the number of patients scanned so far
+	 */
+	public long getScannedPatientCount() {
+		return scannedPatientCount;
+	}
+
+	/**
+	 * @return true once all patients were scanned and the duplicates are known
+	 */
+	public boolean isComplete() {
+		return duplicates != null;
+	}
+
+	/**
+	 * @return the groups of ids of patients that are likely duplicates of each other, ordered by
+	 *         their smallest id
+	 * @throws APIException if the search is not complete yet
+	 */
+	public List<List<Integer>> getDuplicates() {
+		if (duplicates == null) {
+			throw new APIException("The search for duplicate patients is not complete yet");
+		}
+		return duplicates;
+	}
+
+	/**
+	 * Adds the blocking keys of a chunk of scanned patients
+	 *
+	 * @param patientIds the ids of the scanned patients in ascending order
+	 * @param values the values of the patients as returned by
+	 *            {@link org.openmrs.api.db.PatientDAO#getDuplicatePatientValues(Collection)}
+	 */
+	public void addPatients(List<Integer> patientIds, List<Object[]> values) {
+		if (patientIds.isEmpty()) {
+			return;
+		}
+		for (Object[] row : values) {
+			String key = getKey(row);
+			if (key != null) {
+				addHashedKey(((long) key.hashCode() << 32) | (((Integer) row[0]) & 0xffffffffL));
+			}
+		}
+		lastPatientId = patientIds.get(patientIds.size() - 1);
+		scannedPatientCount += patientIds.size();
+	}
+
+	/**
+	 * Completes the search once all patients were scanned by computing the keys of the candidates
+	 * again and grouping the patients whose keys are equal
+	 *
+	 * @param valuesLoader loads the values of the patients with the given ids like
+	 *            {@link org.openmrs.api.db.PatientDAO#getDuplicatePatientValues(Collection)}
+	 */
+	public void complete(Function<Collection<Integer>, List<Object[]>> valuesLoader) {
+		long[] keys = Arrays.copyOf(hashedKeys, hashedKeyCount);
+		hashedKeys = null;
+		if (parallel) {
+			Arrays.parallelSort(keys);
+		} else {
+			Arrays.sort(keys);
+		}
+
+		List<Integer> candidates = getCandidates(keys);
+		Map<String, Set<Integer>> patientsByKey = parallel ? new ConcurrentHashMap<>() : new HashMap<>();
+		for (int i = 0; i < candidates.size(); i += CANDIDATE_BATCH_SIZE) {
+			List<Object[]> values = valuesLoader.apply(candidates.subList(i, Math.min(i + CANDIDATE_BATCH_SIZE,
+			    candidates.size())));
+			(parallel ? values.parallelStream() : values.stream()).forEach(row -> {
+				String key = getKey(row);
+				if (key != null) {
+					patientsByKey.computeIfAbsent(key, k -> Collections.synchronizedSet(new TreeSet<>()))
+					        .add((Integer) row[0]);
+				}
+			});
+		}
+
+		duplicates = mergeGroups(patientsByKey.values());
+	}
+
+	/**
+	 * Writes the progress of a search which is not complete yet, i.e. the last scanned patient and the
+	 * hashed keys found so far, so that it can be restored with {@link #readProgress(InputStream)}
+	 *
+	 * @param out the stream to write to, it is not closed
+	 * @throws IOException if writing fails
+	 * @throws APIException if the search is complete
+	 */
+	public void writeProgress(OutputStream out) throws IOException {
+		if (isComplete()) {
+			throw new APIException("The search for duplicate patients is complete already");
+		}
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeUTF(getConfiguration());
+		data.writeInt(lastPatientId != null ? lastPatientId : 0);
+		data.writeLong(scannedPatientCount);
+		data.writeInt(hashedKeyCount);
+		for (int i = 0; i < hashedKeyCount; i++) {
+			data.writeLong(hashedKeys[i]);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Restores the progress written by {@link #writeProgress(OutputStream)}, the progress is only
+	 * restored if it was written by a search on the same attributes which included voided patients or
+	 * not like this one.
+	 *
+	 * @param in the stream to read from, it is not closed
+	 * @return true if the progress was restored, false if it belongs to another kind of search
+	 * @throws IOException if reading fails
+	 */
+	public boolean readProgress(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (!getConfiguration().equals(data.readUTF())) {
+			return false;
+		}
+		int readLastPatientId = data.readInt();
+		long readScannedPatientCount = data.readLong();
+		int readHashedKeyCount = data.readInt();
+		long[] readHashedKeys = new long[Math.max(readHashedKeyCount, INITIAL_CAPACITY)];
+		for (int i = 0; i < readHashedKeyCount; i++) {
+			readHashedKeys[i] = data.readLong();
+		}
+
+		lastPatientId = readLastPatientId != 0 ? readLastPatientId : null;
+		scannedPatientCount = readScannedPatientCount;
+		hashedKeys = readHashedKeys;
+		hashedKeyCount = readHashedKeyCount;
+		duplicates = null;
+		return true;
+	}
+
+	/**
+	 * @return what the hashed keys depend on
+	 */
+	private String getConfiguration() {
+		return StringUtils.join(attributes, ",") + ";includeVoided=" + includeVoided;
+	}
+
+	private void addHashedKey(long hashedKey) {
+		if (hashedKeyCount == hashedKeys.length) {
+			hashedKeys = Arrays.copyOf(hashedKeys, hashedKeys.length * 2);
+		}
+		hashedKeys[hashedKeyCount++] = hashedKey;
+	}
+
+	/**
+	 * @param keys the sorted hashed keys
+	 * @return the ids of the patients sharing a hash with another patient
+	 */
+	private static List<Integer> getCandidates(long[] keys) {
+		Set<Integer> candidates = new TreeSet<>();
+		int start = 0;
+		while (start < keys.length) {
+			int end = start + 1;
+			boolean differentPatients = false;
+			while (end < keys.length && (keys[end] >>> 32) == (keys[start] >>> 32)) {
+				differentPatients |= keys[end] != keys[start];
+				end++;
+			}
+			if (differentPatients) {
+				for (int i = start; i < end; i++) {
+					candidates.add((int) keys[i]);
+				}
+			}
+			start = end;
+		}
+		return new ArrayList<>(candidates);
+	}
+
+	/**
+	 * Merges the groups of patients sharing a key which have a patient in common, since a patient
+	 * with several names or identifiers has several keys
+	 */
+	private static List<List<Integer>> mergeGroups(Collection<Set<Integer>> groups) {
+		Map<Integer, Integer> parents = new HashMap<>();
+		for (Set<Integer> group : groups) {
+			if (group.size() > 1) {
+				Integer first = group.iterator().next();
+				for (Integer patientId : group) {
+					union(parents, first, patientId);
+				}
+			}
+		}
+
+		Map<Integer, Set<Integer>> merged = new TreeMap<>();
+		for (Integer patientId : parents.keySet()) {
+			merged.computeIfAbsent(find(parents, patientId), root -> new TreeSet<>()).add(patientId);
+		}
+		return merged.values().stream().map(group -> (List<Integer>) new ArrayList<>(group))
+		        .sorted((group1, group2) -> group1.get(0).compareTo(group2.get(0))).collect(Collectors.toList());
+	}
+
+	private static Integer find(Map<Integer, Integer> parents, Integer patientId) {
+		Integer root = patientId;
+		Integer parent;
+		while ((parent = parents.get(root)) != null && !parent.equals(root)) {
+			root = parent;
+		}
+		return root;
+	}
+
+	private static void union(Map<Integer, Integer> parents, Integer patientId1, Integer patientId2) {
+		parents.putIfAbsent(patientId1, patientId1);
+		parents.putIfAbsent(patientId2, patientId2);
+		Integer root1 = find(parents, patientId1);
+		Integer root2 = find(parents, patientId2);
+		if (!root1.equals(root2)) {
+			parents.put(Math.max(root1, root2), Math.min(root1, root2));
+		}
+	}
+
+	/**
+	 * @param row the values of a patient, the patient id, gender, birthdate, given name, middle name,
+	 *            family name and identifier
+	 * @return the blocking key of the patient or null if any of the attributes has no value
+	 */
+	String getKey(Object[] row) {
+		StringBuilder key = new StringBuilder();
+		for (String attribute : attributes) {
+			String value = normalize(attribute, row);
+			if (StringUtils.isEmpty(value)) {
+				return null;
+			}
+			key.append(attribute).append('=').append(value).append('|');
+		}
+		return key.toString();
+	}
+
+	private static String normalize(String attribute, Object[] row) {
+		switch (attribute) {
+			case "gender":
+				return StringUtils.upperCase(StringUtils.trimToNull((String) row[1]), Locale.ROOT);
+			case "birthdate":
+				return row[2] == null ? null : DATE_FORMAT.format((Date) row[2]);
+			case "givenName":
+				return encodeName((String) row[3]);
+			case "middleName":
+				return encodeName((String) row[4]);
+			case "familyName":
+				return encodeName((String) row[5]);
+			case "identifier":
+				return row[6] == null ? null
+				        : ((String) row[6]).replaceAll("[^\\p{Alnum}]", "").toUpperCase(Locale.ROOT);
+			default:
+				return null;
+		}
+	}
+
+	private static String encodeName(String name) {
+		if (StringUtils.isBlank(name)) {
+			return null;
+		}
+		String encoded = SOUNDEX.soundex(name);
+		// names without any letters Soundex can encode are compared as they are
+		return StringUtils.isEmpty(encoded) ? name.trim().toUpperCase(Locale.ROOT) : encoded;
+	}
+}
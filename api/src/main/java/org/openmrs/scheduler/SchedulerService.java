@@ -167,4 +167,15 @@ public interface SchedulerService extends OpenmrsService {
 	 */
 	public void scheduleIfNotRunning(TaskDefinition taskDef);
 	
+	/**
+	 * Gets how the executions of the scheduled task with the given id went so far
+	 * 
+	 * @param id the identifier of the task
+	 * @return the execution metrics of the task or null if the task is not scheduled or the
+	 *         implementation does not keep track of them
+	 * @since 3.0.0
+	 */
+	@Authorized( { "Manage Scheduler" })
+	public TaskExecutionMetrics getTaskExecutionMetrics(Integer id);
+	
 }
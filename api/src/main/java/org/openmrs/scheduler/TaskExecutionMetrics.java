@@ -0,0 +1,88 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A snapshot of how the executions of a scheduled task went, see
+ * {@link SchedulerService#getTaskExecutionMetrics(Integer)}
+ *
+ * @since 3.0.0
+ */
+public class TaskExecutionMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long executionCount;
+
+	private final long failureCount;
+
+	private final long overrunCount;
+
+	private final Date lastStartTime;
+
+	private final long lastDurationMillis;
+
+	private final long lastQueueDelayMillis;
+
+	public TaskExecutionMetrics(long executionCount, long failureCount, long overrunCount, Date lastStartTime,
+	    long lastDurationMillis, long lastQueueDelayMillis) {
+		this.executionCount = executionCount;
+		this.failureCount = failureCount;
+		this.overrunCount = overrunCount;
+		this.lastStartTime = lastStartTime;
+		this.lastDurationMillis = lastDurationMillis;
+		this.lastQueueDelayMillis = lastQueueDelayMillis;
+	}
+
+	/**
+	 * @return the number of times the task was executed
+	 */
+	public long getExecutionCount() {
+		return executionCount;
+	}
+
+	/**
+	 * @return the number of executions that failed with an exception
+	 */
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return the number of executions that were skipped because the previous one was still running
+	 */
+	public long getOverrunCount() {
+		return overrunCount;
+	}
+
+	/**
+	 * @return when the last execution started or null if the task was not executed yet
+	 */
+	public Date getLastStartTime() {
+		return lastStartTime;
+	}
+
+	/**
+	 * @return how long the last execution took in milliseconds
+	 */
+	public long getLastDurationMillis() {
+		return lastDurationMillis;
+	}
+
+	/**
+	 * @return how long the last execution waited for a thread after it was triggered in milliseconds
+	 */
+	public long getLastQueueDelayMillis() {
+		return lastQueueDelayMillis;
+	}
+}
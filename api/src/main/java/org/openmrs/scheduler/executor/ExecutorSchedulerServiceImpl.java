@@ -0,0 +1,547 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openmrs.api.APIException;
+import org.openmrs.api.impl.BaseOpenmrsService;
+import org.openmrs.scheduler.SchedulerConstants;
+import org.openmrs.scheduler.SchedulerException;
+import org.openmrs.scheduler.SchedulerService;
+import org.openmrs.scheduler.SchedulerUtil;
+import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.TaskDefinition;
+import org.openmrs.scheduler.TaskExecutionMetrics;
+import org.openmrs.scheduler.TaskFactory;
+import org.openmrs.scheduler.db.SchedulerDAO;
+import org.openmrs.scheduler.timer.TimerSchedulerMemento;
+import org.openmrs.util.OpenmrsMemento;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Scheduler service that triggers all the scheduled tasks from a single shared scheduling thread and
+ * executes them on a task runner, by default a virtual thread per execution, so the number of
+ * platform threads does not grow with the number of scheduled tasks.
+ * <p>
+ * Unlike {@link java.util.Timer#scheduleAtFixedRate(java.util.TimerTask, Date, long)}, an
+ * execution that is due while the previous one is still running is skipped instead of being run
+ * right after it, and tasks without a start time are started with a random delay of up to a tenth
+ * of their repeat interval (at most {@link #MAX_START_JITTER_SECONDS} seconds) so that they don't
+ * all start at the same time on startup.
+ *
+ * @since 3.0.0
+ */
+@Transactional
+public class ExecutorSchedulerServiceImpl extends BaseOpenmrsService implements SchedulerService {
+
+	private static final Logger log = LoggerFactory.getLogger(ExecutorSchedulerServiceImpl.class);
+
+	/**
+	 * The maximum random delay added to the first execution of tasks without a start time
+	 */
+	public static final long MAX_START_JITTER_SECONDS = 60;
+
+	/**
+	 * Scheduled Task Map
+	 */
+	private final Map<Integer, ExecutorSchedulerTask> scheduledTasks = new ConcurrentHashMap<>();
+
+	private SchedulerDAO schedulerDAO;
+
+	private boolean useVirtualThreads = true;
+
+	private ScheduledThreadPoolExecutor scheduler;
+
+	private ExecutorService taskRunner;
+
+	/**
+	 * Gets the scheduler data access object.
+	 */
+	public SchedulerDAO getSchedulerDAO() {
+		return this.schedulerDAO;
+	}
+
+	/**
+	 * Sets the scheduler data access object.
+	 */
+	public void setSchedulerDAO(SchedulerDAO dao) {
+		this.schedulerDAO = dao;
+	}
+
+	/**
+	 * Sets whether the tasks are executed on virtual threads, if false they are executed on a pool of
+	 * platform threads which are only kept while there are tasks executing. Defaults to true.
+	 *
+	 * @param useVirtualThreads whether to use virtual threads
+	 */
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
+	/**
+	 * Start up hook for the scheduler and all of its scheduled tasks.
+	 */
+	@Override
+	public void onStartup() {
+		log.debug("Starting scheduler service ...");
+
+		// Get all of the tasks in the database
+		Collection<TaskDefinition> taskDefinitions = getSchedulerDAO().getTasks();
+
+		// Iterate through the tasks and start them if their startOnStartup flag is true
+		if (taskDefinitions != null) {
+			for (TaskDefinition taskDefinition : taskDefinitions) {
+				try {
+					// If the task is configured to start on startup, we schedule it to run
+					// Otherwise it needs to be started manually.
+					if (taskDefinition.getStartOnStartup()) {
+						scheduleTask(taskDefinition);
+					}
+				}
+				catch (Exception e) {
+					log.error("Failed to schedule task for class " + taskDefinition.getTaskClass(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Shutdown hook for the scheduler and all of its scheduled tasks.
+	 */
+	@Override
+	public void onShutdown() {
+		log.debug("Gracefully shutting down scheduler service ...");
+		try {
+			shutdownAllTasks();
+		}
+		catch (APIException e) {
+			log.error("Failed to stop all tasks due to API exception", e);
+		}
+		finally {
+			scheduledTasks.clear();
+			synchronized (this) {
+				if (scheduler != null) {
+					scheduler.shutdownNow();
+					scheduler = null;
+				}
+				if (taskRunner != null) {
+					taskRunner.shutdown();
+					taskRunner = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Shutdown all running tasks.
+	 */
+	public void shutdownAllTasks() {
+		for (TaskDefinition task : getScheduledTasks()) {
+			try {
+				shutdownTask(task);
+			}
+			catch (SchedulerException e) {
+				log.error("Failed to stop task " + task.getTaskClass() + " due to Scheduler exception", e);
+			}
+			catch (APIException e) {
+				log.error("Failed to stop task " + task.getTaskClass() + " due to API exception", e);
+			}
+		}
+	}
+
+	/**
+	 * Schedule the given task according to the given schedule.
+	 *
+	 * @param taskDefinition the task to be scheduled
+	 * <strong>Should</strong> handle zero repeat interval
+	 * <strong>Should</strong> execute a one-shot task
+	 */
+	@Override
+	public Task scheduleTask(TaskDefinition taskDefinition) throws SchedulerException {
+		Task clientTask = null;
+		if (taskDefinition != null) {
+
+			// Cancel any existing scheduled task for the same task definition
+			ExecutorSchedulerTask schedulerTask = scheduledTasks.remove(taskDefinition.getId());
+			if (schedulerTask != null) {
+				log.info("Shutting down the existing instance of this task to avoid conflicts!!");
+				schedulerTask.shutdown();
+			}
+
+			try {
+
+				// Create new task from task definition
+				clientTask = TaskFactory.getInstance().createInstance(taskDefinition);
+
+				// if we were unable to get a class, just quit
+				if (clientTask != null) {
+
+					schedulerTask = new ExecutorSchedulerTask(clientTask, getTaskRunner());
+					taskDefinition.setTaskInstance(clientTask);
+
+					// the repeat interval is recorded in seconds
+					long repeatInterval = 0;
+					if (taskDefinition.getRepeatInterval() != null) {
+						repeatInterval = taskDefinition.getRepeatInterval() * SchedulerConstants.SCHEDULER_MILLIS_PER_SECOND;
+					}
+
+					long initialDelay;
+					if (taskDefinition.getStartTime() != null) {
+						// the start time is most likely in the past, only the next execution time matters
+						Date nextTime = SchedulerUtil.getNextExecution(taskDefinition);
+						log.info("Starting task ... the task will execute for the first time at " + nextTime);
+						initialDelay = Math.max(0, nextTime.getTime() - System.currentTimeMillis());
+					} else if (repeatInterval > 0) {
+						initialDelay = SchedulerConstants.SCHEDULER_DEFAULT_DELAY + getStartJitter(repeatInterval);
+						log.info("Delaying start time by " + initialDelay + " milliseconds");
+					} else {
+						log.info("Starting one-shot task");
+						initialDelay = 0;
+					}
+
+					ScheduledFuture<?> future;
+					if (repeatInterval > 0) {
+						future = getScheduler().scheduleAtFixedRate(schedulerTask, initialDelay, repeatInterval,
+						    TimeUnit.MILLISECONDS);
+					} else {
+						future = getScheduler().schedule(schedulerTask, initialDelay, TimeUnit.MILLISECONDS);
+					}
+					schedulerTask.setFuture(future);
+
+					log.debug("Registering task {}", taskDefinition.getId());
+					scheduledTasks.put(taskDefinition.getId(), schedulerTask);
+
+					// Update the task status in the database
+					taskDefinition.setStarted(true);
+					saveTaskDefinition(taskDefinition);
+				}
+			}
+			catch (Exception e) {
+				log.error("Failed to schedule task " + taskDefinition.getName(), e);
+				throw new SchedulerException("Failed to schedule task", e);
+			}
+		}
+		return clientTask;
+	}
+
+	/**
+	 * Stops a running task.
+	 *
+	 * @param taskDefinition the task to be stopped
+	 * @see org.openmrs.scheduler.SchedulerService#shutdownTask(TaskDefinition)
+	 */
+	@Override
+	public void shutdownTask(TaskDefinition taskDefinition) throws SchedulerException {
+		if (taskDefinition != null) {
+
+			ExecutorSchedulerTask schedulerTask = scheduledTasks.remove(taskDefinition.getId());
+			if (schedulerTask != null) {
+				schedulerTask.shutdown();
+			}
+
+			// Update task that has been started
+			taskDefinition.setStarted(false);
+			saveTaskDefinition(taskDefinition);
+		}
+	}
+
+	/**
+	 * Loop over all currently started tasks and cycle them. This should be done after the
+	 * classloader has been changed (e.g. during module start/stop)
+	 */
+	@Override
+	public void rescheduleAllTasks() throws SchedulerException {
+		for (TaskDefinition task : getScheduledTasks()) {
+			try {
+				rescheduleTask(task);
+			}
+			catch (SchedulerException e) {
+				log.error("Failed to restart task: " + task.getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#rescheduleTask(org.openmrs.scheduler.TaskDefinition)
+	 */
+	@Override
+	public Task rescheduleTask(TaskDefinition taskDefinition) throws SchedulerException {
+		shutdownTask(taskDefinition);
+		return scheduleTask(taskDefinition);
+	}
+
+	/**
+	 * Get all scheduled tasks.
+	 *
+	 * @return all scheduled tasks
+	 */
+	@Override
+	public Collection<TaskDefinition> getScheduledTasks() {
+		List<TaskDefinition> list = new ArrayList<>();
+		for (Integer id : new ArrayList<>(scheduledTasks.keySet())) {
+			TaskDefinition task = getTask(id);
+			if (task != null) {
+				list.add(task);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Get all registered tasks.
+	 *
+	 * @return all registerd tasks
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<TaskDefinition> getRegisteredTasks() {
+		return getSchedulerDAO().getTasks();
+	}
+
+	/**
+	 * Get the task with the given identifier.
+	 *
+	 * @param id the identifier of the task
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public TaskDefinition getTask(Integer id) {
+		log.debug("get task {}", id);
+		return getSchedulerDAO().getTask(id);
+	}
+
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#getTaskByUuid(java.lang.String)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public TaskDefinition getTaskByUuid(String uuid) {
+		return getSchedulerDAO().getTaskByUuid(uuid);
+	}
+
+	/**
+	 * Get the task with the given name.
+	 *
+	 * @param name name of the task
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public TaskDefinition getTaskByName(String name) {
+		log.debug("get task {}", name);
+		TaskDefinition foundTask = null;
+		try {
+			foundTask = getSchedulerDAO().getTaskByName(name);
+		}
+		catch (ObjectRetrievalFailureException orfe) {
+			log.warn("getTaskByName(" + name + ") failed, because: " + orfe);
+		}
+		return foundTask;
+	}
+
+	/**
+	 * Save a task in the database.
+	 *
+	 * @param task the <code>TaskDefinition</code> to save
+	 */
+	@Override
+	public void saveTaskDefinition(TaskDefinition task) {
+		if (task.getId() != null) {
+			getSchedulerDAO().updateTask(task);
+		} else {
+			getSchedulerDAO().createTask(task);
+		}
+	}
+
+	/**
+	 * Delete the task with the given identifier.
+	 *
+	 * @param id the identifier of the task
+	 */
+	@Override
+	public void deleteTask(Integer id) {
+		TaskDefinition task = getTask(id);
+		if (task.getStarted()) {
+			throw new APIException("Scheduler.timer.task.delete", (Object[]) null);
+		}
+
+		// delete the task
+		getSchedulerDAO().deleteTask(id);
+	}
+
+	/**
+	 * Get system variables.
+	 */
+	@Override
+	public SortedMap<String, String> getSystemVariables() {
+		SortedMap<String, String> systemVariables = new TreeMap<>();
+		systemVariables.put("SCHEDULER_MILLIS_PER_SECOND", String.valueOf(SchedulerConstants.SCHEDULER_MILLIS_PER_SECOND));
+		return systemVariables;
+	}
+
+	/**
+	 * Saves and stops all active tasks
+	 *
+	 * @return OpenmrsMemento
+	 */
+	@Override
+	public OpenmrsMemento saveToMemento() {
+		Set<Integer> tasks = new HashSet<>();
+
+		for (TaskDefinition task : getScheduledTasks()) {
+			tasks.add(task.getId());
+			try {
+				shutdownTask(task);
+			}
+			catch (SchedulerException e) {
+				// just swallow exceptions
+				log.debug("Failed to stop task while saving memento " + task.getName(), e);
+			}
+		}
+
+		TimerSchedulerMemento memento = new TimerSchedulerMemento(tasks);
+		memento.saveErrorTasks();
+
+		return memento;
+	}
+
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#restoreFromMemento(org.openmrs.util.OpenmrsMemento)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void restoreFromMemento(OpenmrsMemento memento) {
+		if (memento instanceof TimerSchedulerMemento) {
+			TimerSchedulerMemento schedulerMemento = (TimerSchedulerMemento) memento;
+
+			Set<Integer> taskIds = (Set<Integer>) schedulerMemento.getState();
+
+			// try to start all of the tasks that were stopped right before this restore
+			for (Integer taskId : taskIds) {
+				TaskDefinition task = getTask(taskId);
+				try {
+					scheduleTask(task);
+				}
+				catch (Exception e) {
+					// essentially swallow exceptions
+					log.debug("EXPECTED ERROR IF STOPPING THIS TASK'S MODULE: Unable to start task " + taskId, e);
+
+					// save this errored task and try again next time we restore
+					schedulerMemento.addErrorTask(taskId);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#getStatus(java.lang.Integer)
+	 */
+	@Override
+	public String getStatus(Integer id) {
+		ExecutorSchedulerTask scheduledTask = scheduledTasks.get(id);
+		if (scheduledTask != null) {
+			if (scheduledTask.isRunning()) {
+				return "Currently executing";
+			}
+			Date nextExecutionTime = scheduledTask.getNextExecutionTime();
+			if (nextExecutionTime != null) {
+				return "Scheduled to execute at " + nextExecutionTime;
+			}
+		}
+		return "Not Running";
+	}
+
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#scheduleIfNotRunning(org.openmrs.scheduler.TaskDefinition)
+	 */
+	@Override
+	public void scheduleIfNotRunning(TaskDefinition taskDef) {
+		Task task = taskDef.getTaskInstance();
+		if (task == null) {
+			try {
+				scheduleTask(taskDef);
+			}
+			catch (SchedulerException e) {
+				log.error("Failed to schedule task, because:", e);
+			}
+		} else if (!task.isExecuting()) {
+			try {
+				rescheduleTask(taskDef);
+			}
+			catch (SchedulerException e) {
+				log.error("Failed to re-schedule task, because:", e);
+			}
+		}
+	}
+
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#getTaskExecutionMetrics(java.lang.Integer)
+	 */
+	@Override
+	public TaskExecutionMetrics getTaskExecutionMetrics(Integer id) {
+		ExecutorSchedulerTask scheduledTask = scheduledTasks.get(id);
+		return scheduledTask != null ? scheduledTask.getMetrics() : null;
+	}
+
+	/**
+	 * @return a random delay of up to a tenth of the given repeat interval and at most
+	 *         {@link #MAX_START_JITTER_SECONDS} seconds in milliseconds
+	 */
+	private static long getStartJitter(long repeatInterval) {
+		long maxJitter = Math.min(repeatInterval / 10, MAX_START_JITTER_SECONDS * SchedulerConstants.SCHEDULER_MILLIS_PER_SECOND);
+		return maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter) : 0;
+	}
+
+	private synchronized ScheduledThreadPoolExecutor getScheduler() {
+		if (scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "OpenMRS Scheduler");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.setRemoveOnCancelPolicy(true);
+		}
+		return scheduler;
+	}
+
+	private synchronized ExecutorService getTaskRunner() {
+		if (taskRunner == null) {
+			if (useVirtualThreads) {
+				taskRunner = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("OpenMRS Scheduler Task-", 0)
+				        .factory());
+			} else {
+				taskRunner = Executors.newCachedThreadPool(runnable -> {
+					Thread thread = new Thread(runnable, "OpenMRS Scheduler Task");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+		}
+		return taskRunner;
+	}
+}
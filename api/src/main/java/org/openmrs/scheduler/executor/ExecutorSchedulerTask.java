@@ -0,0 +1,165 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openmrs.api.context.Daemon;
+import org.openmrs.scheduler.SchedulerUtil;
+import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.TaskExecutionMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A task scheduled by the {@link ExecutorSchedulerServiceImpl}. It is triggered by the shared
+ * scheduling thread which hands the execution over to the task runner so that the scheduling thread
+ * is never blocked. The task runs as the daemon user on the thread of the task runner, i.e. on a
+ * virtual thread unless the scheduler is configured otherwise. A trigger that fires while the previous execution is still running is skipped
+ * and counted as an overrun rather than queued up, so a slow task never runs in bursts to catch up.
+ *
+ * @since 3.0.0
+ */
+public class ExecutorSchedulerTask implements Runnable {
+
+	private static final Logger log = LoggerFactory.getLogger(ExecutorSchedulerTask.class);
+
+	/** The task that will be executed */
+	private final Task task;
+
+	private final Executor taskRunner;
+
+	private final AtomicBoolean running = new AtomicBoolean(false);
+
+	private volatile ScheduledFuture<?> future;
+
+	private volatile boolean shutdown = false;
+
+	private long executionCount;
+
+	private long failureCount;
+
+	private long overrunCount;
+
+	private Date lastStartTime;
+
+	private long lastDurationMillis;
+
+	private long lastQueueDelayMillis;
+
+	public ExecutorSchedulerTask(Task task, Executor taskRunner) {
+		this.task = task;
+		this.taskRunner = taskRunner;
+	}
+
+	/**
+	 * Triggers an execution of the task unless the previous one is still running
+	 */
+	@Override
+	public void run() {
+		if (shutdown) {
+			return;
+		}
+		if (!running.compareAndSet(false, true)) {
+			synchronized (this) {
+				overrunCount++;
+			}
+			log.warn("Skipping an execution of task [{}] since the previous one is still running", task.getClass());
+			return;
+		}
+
+		long triggerTime = System.nanoTime();
+		try {
+			taskRunner.execute(() -> execute(triggerTime));
+		}
+		catch (RejectedExecutionException e) {
+			running.set(false);
+			log.warn("Unable to execute task [{}] since the scheduler is shutting down", task.getClass());
+		}
+	}
+
+	private void execute(long triggerTime) {
+		long startTime = System.nanoTime();
+		Date startDate = new Date();
+		boolean failed = false;
+		try {
+			Daemon.executeScheduledTaskInCurrentThread(task);
+		}
+		catch (Exception t) {
+			failed = true;
+			log.error(
+			    "FATAL ERROR: Task [" + task.getClass() + "] failed due to exception [" + t.getClass().getName() + "]", t);
+			SchedulerUtil.sendSchedulerError(t);
+		}
+		finally {
+			synchronized (this) {
+				executionCount++;
+				if (failed) {
+					failureCount++;
+				}
+				lastStartTime = startDate;
+				lastDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+				lastQueueDelayMillis = TimeUnit.NANOSECONDS.toMillis(startTime - triggerTime);
+			}
+			running.set(false);
+		}
+	}
+
+	/**
+	 * @param future the future of the scheduled triggers of this task
+	 */
+	void setFuture(ScheduledFuture<?> future) {
+		this.future = future;
+	}
+
+	/**
+	 * @return the time when the task is triggered next or null if it is not going to be triggered
+	 *         again
+	 */
+	public Date getNextExecutionTime() {
+		ScheduledFuture<?> scheduledFuture = future;
+		if (shutdown || scheduledFuture == null || scheduledFuture.isDone()) {
+			return null;
+		}
+		return new Date(System.currentTimeMillis() + scheduledFuture.getDelay(TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * @return true if the task is executing at the moment
+	 */
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	/**
+	 * @return a snapshot of the execution metrics of the task
+	 */
+	public synchronized TaskExecutionMetrics getMetrics() {
+		return new TaskExecutionMetrics(executionCount, failureCount, overrunCount, lastStartTime, lastDurationMillis,
+		        lastQueueDelayMillis);
+	}
+
+	/**
+	 * Stops triggering the task and invokes the task's shutdown() callback method
+	 */
+	public void shutdown() {
+		shutdown = true;
+		ScheduledFuture<?> scheduledFuture = future;
+		if (scheduledFuture != null) {
+			scheduledFuture.cancel(false);
+		}
+		task.shutdown();
+	}
+}
@@ -10,6 +10,7 @@
 package org.openmrs.scheduler.tasks;
 
 import java.util.Date;
+import java.util.List;
 
 import org.openmrs.api.context.Context;
 import org.openmrs.util.OpenmrsConstants;
@@ -27,6 +28,17 @@ public class AutoCloseVisitsTask extends AbstractTask {
 	
 	private static final Logger log = LoggerFactory.getLogger(AutoCloseVisitsTask.class);
 	
+	/**
+	 * The number of visits stopped in each transaction
+	 */
+	private static final int CHUNK_SIZE = 500;
+	
+	private volatile Integer lastStoppedVisitId;
+	
+	private volatile long stoppedVisitCount;
+	
+	private volatile long durationInMillis;
+	
 	/**
 	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
 	 */
@@ -37,7 +49,7 @@ public class AutoCloseVisitsTask extends AbstractTask {
 
 			startExecuting();
 			try {
-				Context.getVisitService().stopVisits(new Date());
+				stopVisits();
 			}
 			catch (Exception e) {
 				log.error("Error while auto closing visits:", e);
@@ -47,4 +59,59 @@ public class AutoCloseVisitsTask extends AbstractTask {
 			}
 		}
 	}
+	
+	/**
+	 * Stops the visits one chunk at a time, every chunk is stopped in its own transaction so that the
+	 * visits stopped so far stay stopped if the task fails or is shut down, the next run then carries
+	 * on with the visits that are still active.
+	 */
+	private void stopVisits() {
+		Date maximumStartDate = new Date();
+		long start = System.currentTimeMillis();
+		lastStoppedVisitId = null;
+		stoppedVisitCount = 0;
+		durationInMillis = 0;
+		
+		List<Integer> stoppedVisitIds;
+		do {
+			stoppedVisitIds = Context.getVisitService().stopVisits(maximumStartDate, lastStoppedVisitId, CHUNK_SIZE);
+			if (!stoppedVisitIds.isEmpty()) {
+				lastStoppedVisitId = stoppedVisitIds.get(stoppedVisitIds.size() - 1);
+				stoppedVisitCount += stoppedVisitIds.size();
+			}
+			durationInMillis = System.currentTimeMillis() - start;
+			log.debug("Stopped {} visits up to visit {} in {} ms", stoppedVisitCount, lastStoppedVisitId,
+			    durationInMillis);
+		} while (stoppedVisitIds.size() == CHUNK_SIZE);
+		
+		if (stoppedVisitCount > 0) {
+			log.info("Stopped {} visits in {} ms ({} visits per second)", stoppedVisitCount, durationInMillis,
+			    stoppedVisitCount * 1000 / Math.max(durationInMillis, 1));
+		}
+	}
+	
+	/**
+	 * @return the id of the last visit stopped by the current or last run of this task, null if none
+	 *         was stopped
+	 * @since 3.0.0
+	 */
+	public Integer getLastStoppedVisitId() {
+		return lastStoppedVisitId;
+	}
+	
+	/**
+	 * @return the number of visits stopped by the current or last run of this task
+	 * @since 3.0.0
+	 */
+	public long getStoppedVisitCount() {
+		return stoppedVisitCount;
+	}
+	
+	/**
+	 * @return how long the current or last run of this task has been stopping visits in milliseconds
+	 * @since 3.0.0
+	 */
+	public long getDurationInMillis() {
+		return durationInMillis;
+	}
 }
@@ -0,0 +1,236 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.context.Context;
+import org.openmrs.patient.DuplicatePatientSearch;
+import org.openmrs.scheduler.TaskDefinition;
+import org.openmrs.util.OpenmrsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A scheduled task that searches for patients that are likely duplicates of each other, see
+ * {@link DuplicatePatientSearch}. The task can be configured with these properties:
+ * <ul>
+ * <li>attributes: the comma separated attributes to match patients on, by default givenName,
+ * familyName, gender and birthdate</li>
+ * <li>includeVoided: whether voided patients are searched too, false by default</li>
+ * <li>parallel: whether the search may use several threads, true by default</li>
+ * <li>patientsPerChunk: the number of patients scanned in each transaction, 1000 by default</li>
+ * <li>maxPatientsPerRun: the number of patients scanned by each run of the task, by default all
+ * patients are scanned in one run</li>
+ * </ul>
+ * When a run stops before all patients were scanned, because of maxPatientsPerRun, an error or the
+ * task being shut down, the id of the last scanned patient is saved as the lastPatientId property of
+ * the task and the hashed keys found so far are written to a file in the application data
+ * directory, so that the next run carries on after the last scanned patient even if OpenMRS was
+ * restarted in the meantime. The result of the last complete search is available from
+ * {@link #getLastCompletedSearch()}.
+ *
+ * @since 3.0.0
+ */
+public class FindDuplicatePatientsTask extends AbstractTask {
+
+	private static final Logger log = LoggerFactory.getLogger(FindDuplicatePatientsTask.class);
+
+	public static final String PROPERTY_ATTRIBUTES = "attributes";
+
+	public static final String PROPERTY_INCLUDE_VOIDED = "includeVoided";
+
+	public static final String PROPERTY_PARALLEL = "parallel";
+
+	public static final String PROPERTY_PATIENTS_PER_CHUNK = "patientsPerChunk";
+
+	public static final String PROPERTY_MAX_PATIENTS_PER_RUN = "maxPatientsPerRun";
+
+	/**
+	 * The property the task saves the id of the last scanned patient of an incomplete search in
+	 */
+	public static final String PROPERTY_LAST_PATIENT_ID = "lastPatientId";
+
+	private static final String PROGRESS_DIRECTORY = "duplicate_patients";
+
+	private static final String DEFAULT_ATTRIBUTES = "givenName,familyName,gender,birthdate";
+
+	private static final int DEFAULT_PATIENTS_PER_CHUNK = 1000;
+
+	private static volatile DuplicatePatientSearch lastCompletedSearch;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
+	 */
+	@Override
+	public void execute() {
+		if (!isExecuting) {
+			log.debug("Starting Find Duplicate Patients Task...");
+
+			startExecuting();
+			try {
+				findDuplicatePatients();
+			}
+			catch (Exception e) {
+				log.error("Error while finding duplicate patients:", e);
+			}
+			finally {
+				stopExecuting();
+			}
+		}
+	}
+
+	/**
+	 * @see org.openmrs.scheduler.tasks.AbstractTask#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		shutdown = true;
+		super.shutdown();
+	}
+
+	private void findDuplicatePatients() {
+		DuplicatePatientSearch search = getSearch();
+		int patientsPerChunk = getIntProperty(PROPERTY_PATIENTS_PER_CHUNK, DEFAULT_PATIENTS_PER_CHUNK);
+		int maxPatientsPerRun = getIntProperty(PROPERTY_MAX_PATIENTS_PER_RUN, Integer.MAX_VALUE);
+
+		PatientService patientService = Context.getPatientService();
+		long start = System.currentTimeMillis();
+		long scannedBefore = search.getScannedPatientCount();
+		boolean morePatients = true;
+		try {
+			while (morePatients && !shutdown && search.getScannedPatientCount() - scannedBefore < maxPatientsPerRun) {
+				morePatients = patientService.scanForDuplicatePatients(search, patientsPerChunk);
+				// the scanned patients are not needed anymore
+				Context.clearSession();
+				log.debug("Scanned {} patients for duplicates up to patient {}", search.getScannedPatientCount(),
+				    search.getLastPatientId());
+			}
+		}
+		finally {
+			saveProgress(search);
+		}
+
+		if (search.isComplete()) {
+			lastCompletedSearch = search;
+			log.info("Found {} groups of duplicate patients among {} patients in {} ms", search.getDuplicates().size(),
+			    search.getScannedPatientCount(), System.currentTimeMillis() - start);
+		}
+	}
+
+	/**
+	 * @return the search saved by the previous run if it matches the configuration of this task,
+	 *         otherwise a new one
+	 */
+	private DuplicatePatientSearch getSearch() {
+		List<String> attributes = Arrays.asList(StringUtils.split(StringUtils.defaultIfBlank(
+		    getProperty(PROPERTY_ATTRIBUTES), DEFAULT_ATTRIBUTES), ","));
+		boolean includeVoided = Boolean.parseBoolean(getProperty(PROPERTY_INCLUDE_VOIDED));
+		boolean parallel = !"false".equalsIgnoreCase(getProperty(PROPERTY_PARALLEL));
+		DuplicatePatientSearch search = new DuplicatePatientSearch(attributes, includeVoided, parallel);
+
+		String lastPatientId = getProperty(PROPERTY_LAST_PATIENT_ID);
+		File progressFile = getProgressFile();
+		if (StringUtils.isNotBlank(lastPatientId) && progressFile != null && progressFile.isFile()) {
+			try (InputStream in = Files.newInputStream(progressFile.toPath())) {
+				if (search.readProgress(in) && lastPatientId.equals(String.valueOf(search.getLastPatientId()))) {
+					log.debug("Resuming the search for duplicate patients after patient {}", lastPatientId);
+					return search;
+				}
+			}
+			catch (IOException e) {
+				log.warn("Failed to read the progress of the search for duplicate patients, starting over", e);
+			}
+			search = new DuplicatePatientSearch(attributes, includeVoided, parallel);
+		}
+		return search;
+	}
+
+	/**
+	 * Saves the last scanned patient of the given search and writes its progress to a file if it is not
+	 * complete, otherwise removes the saved progress
+	 */
+	private void saveProgress(DuplicatePatientSearch search) {
+		TaskDefinition taskDefinition = getTaskDefinition();
+		File progressFile = getProgressFile();
+		if (progressFile == null) {
+			return;
+		}
+
+		String lastPatientId = null;
+		try {
+			if (search.isComplete() || search.getLastPatientId() == null) {
+				Files.deleteIfExists(progressFile.toPath());
+			} else {
+				File tempFile = new File(progressFile.getParentFile(), progressFile.getName() + ".tmp");
+				try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+					search.writeProgress(out);
+				}
+				Files.move(tempFile.toPath(), progressFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				lastPatientId = search.getLastPatientId().toString();
+			}
+		}
+		catch (IOException e) {
+			log.warn("Failed to save the progress of the search for duplicate patients", e);
+		}
+
+		if (!StringUtils.equals(lastPatientId, taskDefinition.getProperty(PROPERTY_LAST_PATIENT_ID))) {
+			if (lastPatientId != null) {
+				taskDefinition.setProperty(PROPERTY_LAST_PATIENT_ID, lastPatientId);
+			} else {
+				taskDefinition.getProperties().remove(PROPERTY_LAST_PATIENT_ID);
+			}
+			Context.getSchedulerService().saveTaskDefinition(taskDefinition);
+		}
+	}
+
+	/**
+	 * @return the file the progress of the search of this task is written to, null if the task is not
+	 *         saved
+	 */
+	private File getProgressFile() {
+		TaskDefinition taskDefinition = getTaskDefinition();
+		if (taskDefinition == null || taskDefinition.getId() == null) {
+			return null;
+		}
+		return new File(OpenmrsUtil.getDirectoryInApplicationDataDirectory(PROGRESS_DIRECTORY), "task-"
+		        + taskDefinition.getId() + ".progress");
+	}
+
+	private String getProperty(String name) {
+		TaskDefinition taskDefinition = getTaskDefinition();
+		return taskDefinition != null ? taskDefinition.getProperty(name) : null;
+	}
+
+	private int getIntProperty(String name, int defaultValue) {
+		int value = NumberUtils.toInt(getProperty(name), defaultValue);
+		return value > 0 ? value : defaultValue;
+	}
+
+	/**
+	 * @return the last search for duplicate patients that scanned all patients, null if no search was
+	 *         completed since OpenMRS started
+	 */
+	public static DuplicatePatientSearch getLastCompletedSearch() {
+		return lastCompletedSearch;
+	}
+}
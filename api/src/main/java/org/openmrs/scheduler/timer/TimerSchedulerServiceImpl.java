@@ -30,6 +30,7 @@ import org.openmrs.scheduler.SchedulerService;
 import org.openmrs.scheduler.SchedulerUtil;
 import org.openmrs.scheduler.Task;
 import org.openmrs.scheduler.TaskDefinition;
+import org.openmrs.scheduler.TaskExecutionMetrics;
 import org.openmrs.scheduler.TaskFactory;
 import org.openmrs.scheduler.db.SchedulerDAO;
 import org.openmrs.util.OpenmrsMemento;
@@ -40,7 +41,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Simple scheduler service that uses JDK timer to trigger and execute scheduled tasks.
+ * 
+ * @deprecated As of 3.0.0, use {@link org.openmrs.scheduler.executor.ExecutorSchedulerServiceImpl}
+ *             which shares a few threads between all the tasks instead of a timer thread per task
  */
+@Deprecated
 @Transactional
 public class TimerSchedulerServiceImpl extends BaseOpenmrsService implements SchedulerService {
 	
@@ -549,4 +554,14 @@ public class TimerSchedulerServiceImpl extends BaseOpenmrsService implements Sch
 		return getSchedulerDAO().getTaskByUuid(uuid);
 	}
 	
+	/**
+	 * Execution metrics are not kept track of by this implementation
+	 * 
+	 * @see org.openmrs.scheduler.SchedulerService#getTaskExecutionMetrics(java.lang.Integer)
+	 */
+	@Override
+	public TaskExecutionMetrics getTaskExecutionMetrics(Integer id) {
+		return null;
+	}
+	
 }
@@ -0,0 +1,80 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import jakarta.annotation.PostConstruct;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openmrs.Obs;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes the reference range criteria evaluated later in the transaction look up the latest obs of a
+ * person and concept again once an obs of theirs is written to the database, for instance an obs
+ * inserted after the criteria of its encounter were validated, or a purged obs. The obs changed in
+ * memory are already forgotten before they are written by the
+ * {@link org.openmrs.api.handler.ObsReferenceRangeMemoHandler}.
+ *
+ * @see ConceptReferenceRangeUtility#clearMemoizedObs(Obs)
+ * @since 3.0.0
+ */
+@Component
+public class ConceptReferenceRangeObsEventListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@PostConstruct
+	public void registerListener() {
+		EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory).getServiceRegistry().getService(
+		    EventListenerRegistry.class);
+		registry.getEventListenerGroup(EventType.POST_INSERT).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_UPDATE).appendListener(this);
+		registry.getEventListenerGroup(EventType.POST_DELETE).appendListener(this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		clearIfObs(event.getEntity());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		clearIfObs(event.getEntity());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		clearIfObs(event.getEntity());
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	private void clearIfObs(Object entity) {
+		if (entity instanceof Obs) {
+			ConceptReferenceRangeUtility.clearMemoizedObs((Obs) entity);
+		}
+	}
+}
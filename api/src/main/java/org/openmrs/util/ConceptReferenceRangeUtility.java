@@ -9,34 +9,83 @@
  */
 package org.openmrs.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang.StringUtils;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.ParseErrorException;
-import org.apache.velocity.runtime.log.Log4JLogChute;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.ASTMethod;
+import org.apache.velocity.runtime.parser.node.ASTReference;
+import org.apache.velocity.runtime.parser.node.Node;
 import org.joda.time.LocalTime;
 import org.openmrs.Concept;
 import org.openmrs.Obs;
 import org.openmrs.Person;
 import org.openmrs.api.APIException;
 import org.openmrs.api.context.Context;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Properties;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.io.StringWriter;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A utility class that evaluates the concept ranges 
+ * <p>
+ * Criteria are parsed once by a shared Velocity runtime and the compiled templates are kept in a
+ * bounded cache keyed by the criteria text. Within a transaction, the latest obs looked up through
+ * {@link #getLatestObs(String, Person)} are memoized per patient so that validating many obs for the
+ * same patient does not repeat the same queries, they are forgotten when an obs of the patient and
+ * concept is saved, voided, unvoided or purged. The results of the criteria which only read the
+ * latest obs and the gender, birth date and death of the patient are memoized too, keyed on those
+ * properties.
  * 
  * @since 2.7.0
  */
 public class ConceptReferenceRangeUtility {
 	
+	private static final int MAX_COMPILED_CRITERIA = 1000;
+	
+	private static final Cache<String, CompiledCriteria> compiledCriteria = CacheBuilder.newBuilder()
+		.maximumSize(MAX_COMPILED_CRITERIA).build();
+	
+	/**
+	 * The patient methods and properties criteria can read and still be memoized, their values are
+	 * part of the memo key
+	 */
+	private static final Set<String> MEMOIZABLE_PATIENT_PROPERTIES = new HashSet<>(Arrays.asList("getGender", "gender",
+		"getAge", "age", "getBirthdate", "birthdate", "getBirthdateEstimated", "birthdateEstimated", "getDead", "isDead",
+		"dead", "getDeathDate", "deathDate"));
+	
+	/**
+	 * Key under which the per transaction memo is bound to the current thread
+	 */
+	private static final Object TRANSACTION_MEMO_KEY = new Object();
+	
 	public ConceptReferenceRangeUtility() {
 	}
 	
+	/**
+	 * Removes all the compiled criteria from the cache, this is called whenever a concept that could
+	 * own reference ranges is saved.
+	 * 
+	 * @since 3.0.0
+	 */
+	public static void clearCompiledCriteria() {
+		compiledCriteria.invalidateAll();
+	}
+	
 	/**
 	 * This method evaluates the given criteria against the provided {@link Obs}.
 	 *
@@ -58,39 +107,174 @@ public class ConceptReferenceRangeUtility {
 			throw new IllegalArgumentException("Failed to evaluate criteria with reason: criteria is empty");
 		}
 		
+		CompiledCriteria compiled = getCompiledCriteria(criteria);
+		
+		Map<String, Boolean> criteriaResults = null;
+		String memoKey = null;
+		Person person = obs.getPerson();
+		if (person.getPersonId() != null && compiled.memoizable) {
+			criteriaResults = getTransactionMemo().getPersonMemo(person.getPersonId()).criteriaResults;
+			memoKey = getMemoKey(criteria, person);
+			Boolean result = criteriaResults.get(memoKey);
+			if (result != null) {
+				return result;
+			}
+		}
+		
 		VelocityContext velocityContext = new VelocityContext();
 		velocityContext.put("fn", this);
 		velocityContext.put("obs", obs);
 		
 		velocityContext.put("patient", obs.getPerson());
 		
-		VelocityEngine velocityEngine = new VelocityEngine();
+		StringWriter writer = new StringWriter();
 		try {
-			Properties props = new Properties();
-			props.put("runtime.log.logsystem.class", Log4JLogChute.class.getName());
-			props.put("runtime.log.logsystem.log4j.category", "velocity");
-			props.put("runtime.log.logsystem.log4j.logger", "velocity");
-			velocityEngine.init(props);
+			compiled.template.merge(velocityContext, writer);
 		}
 		catch (Exception e) {
-			throw new APIException("Failed to create the velocity engine: " + e.getMessage(), e);
+			throw new APIException("An error occurred while evaluating criteria: ", e);
 		}
 		
-		StringWriter writer = new StringWriter();
-		String wrappedCriteria = "#set( $criteria = " + criteria + " )$criteria";
+		boolean result = Boolean.parseBoolean(writer.toString());
+		if (criteriaResults != null) {
+			criteriaResults.put(memoKey, result);
+		}
 		
+		return result;
+	}
+	
+	/**
+	 * Gets the compiled template for the specified criteria, parsing and caching it if it is not yet
+	 * cached. The returned template is thread safe and can be merged concurrently.
+	 * 
+	 * @param criteria the criteria string
+	 * @return the compiled criteria
+	 */
+	private CompiledCriteria getCompiledCriteria(String criteria) {
 		try {
-			velocityEngine.evaluate(velocityContext, writer, ConceptReferenceRangeUtility.class.getName(), wrappedCriteria);
-			return Boolean.parseBoolean(writer.toString());
+			return compiledCriteria.get(criteria, () -> compileCriteria(criteria));
 		}
-		catch (ParseErrorException e) {
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof APIException) {
+				throw (APIException) e.getCause();
+			}
+			throw new APIException("An error occurred while evaluating criteria: ", e.getCause());
+		}
+	}
+	
+	private static CompiledCriteria compileCriteria(String criteria) {
+		String wrappedCriteria = "#set( $criteria = " + criteria + " )$criteria";
+		try {
+			Template template = VelocityUtil.parseTemplate(ConceptReferenceRangeUtility.class.getName(), wrappedCriteria);
+			return new CompiledCriteria(template, isMemoizable((Node) template.getData()));
+		}
+		catch (ParseException | ParseErrorException e) {
 			throw new APIException("An error occurred while evaluating criteria. Invalid criteria: " + criteria, e);
 		}
+		catch (APIException e) {
+			throw e;
+		}
 		catch (Exception e) {
 			throw new APIException("An error occurred while evaluating criteria: ", e);
 		}
 	}
 	
+	/**
+	 * Checks whether the result of the parsed criteria only depends on the latest obs and on the
+	 * patient properties which are part of the memo key, i.e. it does not reference the obs in any
+	 * form such as {@code $obs}, {@code $!obs} or {@code ${obs}}, does not read the current hour and
+	 * only reads the {@link #MEMOIZABLE_PATIENT_PROPERTIES} of the patient or passes it on to
+	 * {@link #getLatestObs(String, Person)}.
+	 * 
+	 * @param node the parsed criteria
+	 * @return true if the result of the criteria can be memoized
+	 */
+	private static boolean isMemoizable(Node node) {
+		if (node instanceof ASTReference) {
+			String root = ((ASTReference) node).getRootString();
+			String member = node.jjtGetNumChildren() > 0 ? node.jjtGetChild(0).getFirstToken().image : null;
+			if ("obs".equals(root)) {
+				return false;
+			}
+			if ("patient".equals(root) && (member != null ? !MEMOIZABLE_PATIENT_PROPERTIES.contains(member)
+			        : !(node.jjtGetParent() instanceof ASTMethod))) {
+				return false;
+			}
+			if ("fn".equals(root) && !"getLatestObs".equals(member)) {
+				return false;
+			}
+		}
+		
+		for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+			if (!isMemoizable(node.jjtGetChild(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return the key of the result of the given criteria for the given person, made of the criteria
+	 *         and the values of the {@link #MEMOIZABLE_PATIENT_PROPERTIES}
+	 */
+	private static String getMemoKey(String criteria, Person person) {
+		return person.getGender() + ":" + getTime(person.getBirthdate()) + ":" + person.getBirthdateEstimated() + ":"
+		        + person.getDead() + ":" + getTime(person.getDeathDate()) + ":" + criteria;
+	}
+	
+	private static Long getTime(Date date) {
+		return date != null ? date.getTime() : null;
+	}
+	
+	/**
+	 * Gets the memo bound to the current transaction, if there is no active transaction a new memo
+	 * is returned which means nothing is memoized across calls.
+	 * 
+	 * @return the memo
+	 */
+	private static TransactionMemo getTransactionMemo() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return new TransactionMemo();
+		}
+		
+		TransactionMemo memo = (TransactionMemo) TransactionSynchronizationManager.getResource(TRANSACTION_MEMO_KEY);
+		if (memo == null) {
+			memo = new TransactionMemo();
+			TransactionSynchronizationManager.bindResource(TRANSACTION_MEMO_KEY, memo);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_MEMO_KEY);
+				}
+			});
+		}
+		return memo;
+	}
+	
+	/**
+	 * Forgets the latest obs of the person and concept of the given obs, and the criteria results of
+	 * the person, memoized in the current transaction. This is called whenever an obs is saved,
+	 * voided or unvoided, and again once it is written to the database.
+	 * 
+	 * @param obs the obs which changed
+	 * @since 3.0.0
+	 */
+	public static void clearMemoizedObs(Obs obs) {
+		TransactionMemo memo = (TransactionMemo) TransactionSynchronizationManager.getResource(TRANSACTION_MEMO_KEY);
+		if (memo == null || obs.getPerson() == null || obs.getPerson().getPersonId() == null) {
+			return;
+		}
+		
+		PersonMemo personMemo = memo.personMemos.get(obs.getPerson().getPersonId());
+		if (personMemo != null) {
+			Integer conceptId = obs.getConcept() != null ? obs.getConcept().getConceptId() : null;
+			personMemo.latestObs.values().removeIf(latestObs -> latestObs.conceptId == null
+			        || latestObs.conceptId.equals(conceptId));
+			personMemo.criteriaResults.clear();
+		}
+	}
+	
 	/**
 	 * Gets the latest Obs by concept.
 	 *
@@ -101,8 +285,21 @@ public class ConceptReferenceRangeUtility {
 	 * @return Obs latest Obs
 	 */
 	public Obs getLatestObs(String conceptRef, Person person) {
-		Concept concept = Context.getConceptService().getConceptByReference(conceptRef);
-
+		if (person != null && person.getPersonId() != null) {
+			Map<String, LatestObs> latestObs = getTransactionMemo().getPersonMemo(person.getPersonId()).latestObs;
+			LatestObs memoized = latestObs.get(conceptRef);
+			if (memoized == null) {
+				Concept concept = Context.getConceptService().getConceptByReference(conceptRef);
+				memoized = new LatestObs(concept != null ? concept.getConceptId() : null, fetchLatestObs(concept, person));
+				latestObs.put(conceptRef, memoized);
+			}
+			return memoized.obs;
+		}
+		
+		return fetchLatestObs(Context.getConceptService().getConceptByReference(conceptRef), person);
+	}
+	
+	private Obs fetchLatestObs(Concept concept, Person person) {
 		if (concept != null) {
 			List<Obs> observations = Context.getObsService().getObservations(
 				Collections.singletonList(person), 
@@ -151,4 +348,58 @@ public class ConceptReferenceRangeUtility {
 			return getLatestObs(conceptRef, currentObs.getPerson());
 		}
 	}
+	
+	/**
+	 * A criteria template along with whether its results can be memoized
+	 */
+	private static class CompiledCriteria {
+		
+		private final Template template;
+		
+		private final boolean memoizable;
+		
+		private CompiledCriteria(Template template, boolean memoizable) {
+			this.template = template;
+			this.memoizable = memoizable;
+		}
+	}
+	
+	/**
+	 * Holds the values memoized for the duration of a single transaction
+	 */
+	private static class TransactionMemo {
+		
+		private final Map<Integer, PersonMemo> personMemos = new HashMap<>();
+		
+		private PersonMemo getPersonMemo(Integer personId) {
+			return personMemos.computeIfAbsent(personId, id -> new PersonMemo());
+		}
+	}
+	
+	/**
+	 * Holds the values memoized for one person, the criteria results are keyed by the criteria and
+	 * the patient properties they read, the latest obs by concept reference
+	 */
+	private static class PersonMemo {
+		
+		private final Map<String, Boolean> criteriaResults = new HashMap<>();
+		
+		private final Map<String, LatestObs> latestObs = new HashMap<>();
+	}
+	
+	/**
+	 * The latest obs of a concept, null if there is none, along with the concept id which is null if
+	 * the concept reference does not match any concept
+	 */
+	private static class LatestObs {
+		
+		private final Integer conceptId;
+		
+		private final Obs obs;
+		
+		private LatestObs(Integer conceptId, Obs obs) {
+			this.conceptId = conceptId;
+			this.obs = obs;
+		}
+	}
 }
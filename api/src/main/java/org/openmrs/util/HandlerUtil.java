@@ -14,6 +14,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.api.APIException;
@@ -37,6 +39,12 @@ public class HandlerUtil implements ApplicationListener<ContextRefreshedEvent> {
 	
 	private static volatile Map<Key, List<?>> cachedHandlers = new WeakHashMap<>();
 	
+	/**
+	 * Handling plans by type and handler type, kept with the type so that they do not keep the
+	 * classes of an unloaded module from being garbage collected
+	 */
+	private static volatile ClassValue<Map<Class<?>, Object>> cachedHandlingPlans = newHandlingPlanCache();
+	
 	private static class Key {
 		
 		public final Class<?> handlerType;
@@ -87,6 +95,43 @@ public class HandlerUtil implements ApplicationListener<ContextRefreshedEvent> {
 	
 	public static void clearCachedHandlers() {
 		cachedHandlers = new WeakHashMap<>();
+		cachedHandlingPlans = newHandlingPlanCache();
+	}
+	
+	private static ClassValue<Map<Class<?>, Object>> newHandlingPlanCache() {
+		return new ClassValue<Map<Class<?>, Object>>() {
+			
+			@Override
+			protected Map<Class<?>, Object> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<>();
+			}
+		};
+	}
+	
+	/**
+	 * Retrieves the plan describing how objects of the passed type are handled by handlers of the
+	 * passed handlerType, building it with the passed planBuilder if it is not yet cached. Plans are
+	 * cached along with the handlers and are cleared whenever the cached handlers are cleared.
+	 * 
+	 * @param handlerType the type of handlers the plan is for
+	 * @param type the type of objects the plan is for
+	 * @param planBuilder builds the plan for the passed type if it is not yet cached
+	 * @return the cached or newly built plan
+	 * @since 3.0.0
+	 */
+	@SuppressWarnings("unchecked")
+	public static <P, T> P getHandlingPlan(Class<?> handlerType, Class<T> type, Function<Class<T>, P> planBuilder) {
+		Map<Class<?>, Object> plans = cachedHandlingPlans.get(type);
+		Object plan = plans.get(handlerType);
+		if (plan != null) {
+			return (P) plan;
+		}
+		
+		// not computeIfAbsent since building a plan may need the plans of other types
+		P newPlan = planBuilder.apply(type);
+		plans.put(handlerType, newPlan);
+		
+		return newPlan;
 	}
 	
 	/**
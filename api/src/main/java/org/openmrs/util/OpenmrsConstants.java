@@ -349,6 +349,11 @@ public final class OpenmrsConstants {
 	
 	public static final String GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS = "hl7_processor.ignore_missing_patient_non_local";
 	
+	/**
+	 * @since 3.0.0
+	 */
+	public static final String GP_HL7_PROCESSOR_PARALLELISM = "hl7_processor.parallelism";
+	
 	public static final String GLOBAL_PROPERTY_TRUE_CONCEPT = "concept.true";
 	
 	public static final String GLOBAL_PROPERTY_FALSE_CONCEPT = "concept.false";
@@ -586,6 +591,11 @@ public final class OpenmrsConstants {
 	
 	public static final String GP_ORDER_NUMBER_GENERATOR_BEAN_ID = "order.orderNumberGeneratorBeanId";
 	
+	/**
+	 * @since 3.0.0
+	 */
+	public static final String GP_ORDER_NUMBER_SEED_BLOCK_SIZE = "order.orderNumberSeedBlockSize";
+	
 	/**
 	 * Specifies the uuid of the concept set where its members represent the possible drug routes
 	 */
@@ -897,6 +907,10 @@ public final class OpenmrsConstants {
 		        "If true, hl7 messages for patients that are not found and are non-local will silently be dropped/ignored",
 		        BooleanDatatype.class, null));
 		
+		props.add(new GlobalProperty(GP_HL7_PROCESSOR_PARALLELISM, "1",
+		        "The number of hl7 inbound queue entries that are processed at the same time, entries for the same "
+		                + "patient are always processed one at a time in the order they were received"));
+		
 		props
 		        .add(new GlobalProperty(
 		                GLOBAL_PROPERTY_SHOW_PATIENT_NAME,
@@ -1053,6 +1067,10 @@ public final class OpenmrsConstants {
 		props.add(new GlobalProperty(GP_ORDER_NUMBER_GENERATOR_BEAN_ID, "",
 		        "Specifies spring bean id of the order generator to use when assigning order numbers"));
 		
+		props.add(new GlobalProperty(GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "1",
+		        "The number of order number seeds each server reserves at a time when assigning order numbers, "
+		                + "seeds left unused in a reserved block are skipped when the server is restarted"));
+		
 		props.add(new GlobalProperty(GP_DRUG_ROUTES_CONCEPT_UUID, "",
 		        "Specifies the uuid of the concept set where its members represent the possible drug routes"));
 		
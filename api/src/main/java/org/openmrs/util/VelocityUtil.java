@@ -0,0 +1,84 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.io.StringReader;
+import java.util.Properties;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.log.Log4JLogChute;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+import org.openmrs.api.APIException;
+
+/**
+ * Holds the Velocity runtime shared by the API, it is initialized once the first time it is needed
+ * instead of every time a template is evaluated. Templates parsed with
+ * {@link #parseTemplate(String, String)} are thread safe and can be cached and merged concurrently.
+ *
+ * @since 3.0.0
+ */
+public class VelocityUtil {
+
+	private static volatile RuntimeInstance runtimeInstance;
+
+	private VelocityUtil() {
+	}
+
+	/**
+	 * Gets the shared velocity runtime, initializing it the first time it is needed
+	 *
+	 * @return the initialized velocity runtime
+	 * @throws APIException if the velocity runtime fails to initialize
+	 */
+	public static RuntimeInstance getRuntimeInstance() {
+		RuntimeInstance runtime = runtimeInstance;
+		if (runtime == null) {
+			synchronized (VelocityUtil.class) {
+				runtime = runtimeInstance;
+				if (runtime == null) {
+					runtime = new RuntimeInstance();
+					try {
+						Properties props = new Properties();
+						props.put("runtime.log.logsystem.class", Log4JLogChute.class.getName());
+						props.put("runtime.log.logsystem.log4j.category", "velocity");
+						props.put("runtime.log.logsystem.log4j.logger", "velocity");
+						runtime.init(props);
+					}
+					catch (Exception e) {
+						throw new APIException("Failed to create the velocity engine: " + e.getMessage(), e);
+					}
+					runtimeInstance = runtime;
+				}
+			}
+		}
+		return runtime;
+	}
+
+	/**
+	 * Parses the given template source with the shared velocity runtime
+	 *
+	 * @param name the name of the template, it is used in error messages
+	 * @param source the template source
+	 * @return the parsed template
+	 * @throws ParseException if the template source is invalid
+	 */
+	public static Template parseTemplate(String name, String source) throws ParseException {
+		RuntimeInstance runtime = getRuntimeInstance();
+		SimpleNode node = runtime.parse(new StringReader(source), name);
+		Template template = new Template();
+		template.setName(name);
+		template.setRuntimeServices(runtime);
+		template.setData(node);
+		template.initDocument();
+		return template;
+	}
+}
@@ -1248,6 +1248,60 @@ public class ConceptTest extends BaseContextSensitiveTest {
 		assertEquals(expectedConcepts, resultConcepts);
 	}
 	
+	/**
+	 * @see Concept#getFullySpecifiedName(Locale)
+	 * @see Concept#getPreferredName(Locale)
+	 * @see Concept#getShortNameInLocale(Locale)
+	 */
+	@Test
+	public void getName_shouldFindNamesInManyLocalesAfterTheNamesAreChanged() {
+		Locale[] locales = { Locale.US, Locale.FRANCE, Locale.GERMANY, new Locale("es", "ES"), new Locale("pt", "BR"),
+		        Locale.ITALY, new Locale("sw", "KE"), new Locale("ru", "RU"), Locale.JAPAN, new Locale("nl", "NL") };
+		Concept concept = new Concept(1);
+		int id = 0;
+		for (Locale locale : locales) {
+			concept.addName(createConceptName(++id, "fsn " + locale, locale, ConceptNameType.FULLY_SPECIFIED, true));
+			concept.addName(createConceptName(++id, "short " + locale, locale, ConceptNameType.SHORT, false));
+			concept.addName(createConceptName(++id, "synonym1 " + locale, locale, null, false));
+			concept.addName(createConceptName(++id, "synonym2 " + locale, locale, null, false));
+		}
+		assertEquals(40, concept.getNames().size());
+		for (Locale locale : locales) {
+			assertEquals("fsn " + locale, concept.getFullySpecifiedName(locale).getName());
+			assertEquals("fsn " + locale, concept.getPreferredName(locale).getName());
+			assertEquals("short " + locale, concept.getShortNameInLocale(locale).getName());
+			assertEquals(4, concept.getNames(locale).size());
+		}
+		assertEquals("fsn fr_FR", concept.getPreferredName(Locale.CANADA_FRENCH).getName());
+		assertEquals("short fr_FR", concept.getShortNameInLocale(Locale.CANADA_FRENCH).getName());
+		assertNull(concept.getFullySpecifiedName(Locale.CHINA));
+		
+		concept.getFullySpecifiedName(Locale.GERMANY).setLocalePreferred(false);
+		ConceptName germanSynonym = concept.getName(Locale.GERMANY, null, null);
+		for (ConceptName name : concept.getNames(Locale.GERMANY)) {
+			if (name.getName().equals("synonym1 de_DE")) {
+				germanSynonym = name;
+			}
+		}
+		germanSynonym.setLocalePreferred(true);
+		assertEquals(germanSynonym, concept.getPreferredName(Locale.GERMANY));
+		
+		concept.getShortNameInLocale(Locale.FRANCE).setVoided(true);
+		assertNull(concept.getShortNameInLocale(Locale.FRANCE));
+		
+		ConceptName italianName = createConceptName(++id, "new it_IT", Locale.ITALY, null, true);
+		concept.addName(italianName);
+		assertEquals(italianName, concept.getPreferredName(Locale.ITALY));
+		assertTrue(concept.removeName(italianName));
+		assertEquals(4, concept.getNames(Locale.ITALY).size());
+		assertNull(concept.getPreferredName(Locale.ITALY, true));
+		assertEquals("fsn it_IT", concept.getPreferredName(Locale.ITALY).getName());
+		
+		concept.getName(Locale.JAPAN, null, null).setLocale(Locale.UK);
+		assertEquals(3, concept.getNames(Locale.JAPAN).size());
+		assertEquals(1, concept.getNames(Locale.UK).size());
+	}
+	
 	/**
 	 * @see Concept#addSetMember(Concept)
 	 */
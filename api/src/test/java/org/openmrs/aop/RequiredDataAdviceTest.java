@@ -26,6 +26,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -42,7 +43,9 @@ import org.openmrs.BaseOpenmrsData;
 import org.openmrs.BaseOpenmrsMetadata;
 import org.openmrs.BaseOpenmrsObject;
 import org.openmrs.Concept;
+import org.openmrs.Encounter;
 import org.openmrs.Location;
+import org.openmrs.Obs;
 import org.openmrs.OpenmrsObject;
 import org.openmrs.Person;
 import org.openmrs.annotation.AllowDirectAccess;
@@ -637,6 +640,49 @@ public class RequiredDataAdviceTest extends BaseContextMockTest {
 		
 	}
 	
+	@Test
+	public void recursivelyHandle_shouldHandleEveryObsOfAnEncounterWithManyObs() {
+		
+		Map<String, SaveHandler> saveHandlers = new HashMap<>();
+		saveHandlers.put("saveHandler", saveHandler);
+		when(applicationContext.getBeansOfType(SaveHandler.class)).thenReturn(saveHandlers);
+		
+		Encounter encounter = new Encounter();
+		List<Obs> observations = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Obs obs = new Obs();
+			encounter.addObs(obs);
+			observations.add(obs);
+		}
+		
+		RequiredDataAdvice.recursivelyHandle(SaveHandler.class, encounter, null, new Date(), null, (Set<OpenmrsObject>) null);
+		
+		verify(saveHandler, times(1)).handle(eq(encounter), any(), any(), any());
+		for (Obs obs : observations) {
+			verify(saveHandler, times(1)).handle(eq(obs), any(), any(), any());
+		}
+	}
+	
+	@Test
+	public void recursivelyHandle_shouldUseHandlersRegisteredAfterCachedHandlersAreCleared() {
+		
+		when(applicationContext.getBeansOfType(SaveHandler.class)).thenReturn(new HashMap<>());
+		
+		SomeOpenmrsData openmrsObject = new SomeOpenmrsData();
+		RequiredDataAdvice.recursivelyHandle(SaveHandler.class, openmrsObject, null, new Date(), null,
+		    (Set<OpenmrsObject>) null);
+		verify(saveHandler, never()).handle(eq(openmrsObject), any(), any(), any());
+		
+		Map<String, SaveHandler> saveHandlers = new HashMap<>();
+		saveHandlers.put("saveHandler", saveHandler);
+		when(applicationContext.getBeansOfType(SaveHandler.class)).thenReturn(saveHandlers);
+		HandlerUtil.clearCachedHandlers();
+		
+		RequiredDataAdvice.recursivelyHandle(SaveHandler.class, openmrsObject, null, new Date(), null,
+		    (Set<OpenmrsObject>) null);
+		verify(saveHandler, times(1)).handle(eq(openmrsObject), any(), any(), any());
+	}
+	
 	class SomeOpenmrsData extends BaseOpenmrsData {
 		
 		@Override
@@ -47,6 +47,8 @@ import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Credentials;
 import org.openmrs.api.context.UsernamePasswordCredentials;
+import org.openmrs.api.db.OrderDAO;
+import org.openmrs.api.impl.GlobalPropertyCache;
 import org.openmrs.customdatatype.datatype.BooleanDatatype;
 import org.openmrs.customdatatype.datatype.DateDatatype;
 import org.openmrs.messagesource.MutableMessageSource;
@@ -615,6 +617,61 @@ public class AdministrationServiceTest extends BaseContextSensitiveTest {
 		assertNotNull(adminService.getGlobalProperty(property.getProperty()));
 	}
 
+	/**
+	 * @see org.openmrs.api.AdministrationService#getGlobalProperty(java.lang.String)
+	 */
+	@Test
+	public void getGlobalProperty_shouldReadTheValueFromTheCacheOnceItIsLoaded() {
+		GlobalPropertyCache globalPropertyCache = Context.getRegisteredComponent("globalPropertyCache",
+		    GlobalPropertyCache.class);
+
+		assertNull(adminService.getGlobalProperty("a-global-property-that-does-not-exist"));
+		long hitCount = globalPropertyCache.getHitCount();
+
+		assertNull(adminService.getGlobalProperty("A-GLOBAL-PROPERTY-THAT-DOES-NOT-EXIST"));
+		assertEquals(hitCount + 1, globalPropertyCache.getHitCount());
+	}
+
+	/**
+	 * @see org.openmrs.api.AdministrationService#getGlobalProperty(java.lang.String)
+	 */
+	@Test
+	public void getGlobalProperty_shouldReturnTheValueOfAGlobalPropertyLoadedByADataset() {
+		assertNull(adminService.getGlobalProperty("another-global-property"));
+
+		executeDataSet(ADMIN_INITIAL_DATA_XML);
+
+		assertEquals("anothervalue", adminService.getGlobalProperty("another-global-property"));
+	}
+
+	/**
+	 * @see org.openmrs.api.AdministrationService#getGlobalProperty(java.lang.String)
+	 */
+	@Test
+	public void getGlobalProperty_shouldReturnTheNewValueAfterTheGlobalPropertyIsSaved() {
+		executeDataSet(ADMIN_INITIAL_DATA_XML);
+		assertEquals("anothervalue", adminService.getGlobalProperty("another-global-property"));
+
+		adminService.setGlobalProperty("another-global-property", "newvalue");
+		assertEquals("newvalue", adminService.getGlobalProperty("another-global-property"));
+
+		adminService.purgeGlobalProperty(adminService.getGlobalPropertyObject("another-global-property"));
+		assertNull(adminService.getGlobalProperty("another-global-property"));
+	}
+
+	/**
+	 * @see org.openmrs.api.AdministrationService#getGlobalProperty(java.lang.String)
+	 */
+	@Test
+	public void getGlobalProperty_shouldReturnTheNewValueAfterTheGlobalPropertyIsWrittenByADAO() {
+		assertEquals("1", adminService.getGlobalProperty(OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED));
+
+		Context.getRegisteredComponent("orderDAO", OrderDAO.class).reserveOrderNumberSeedSequenceValues(5);
+		Context.flushSession();
+
+		assertEquals("6", adminService.getGlobalProperty(OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED));
+	}
+
 	/**
 	 * @see org.openmrs.api.AdministrationService#getGlobalPropertyObject(java.lang.String)
 	 */
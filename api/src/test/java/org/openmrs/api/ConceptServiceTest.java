@@ -711,6 +711,28 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		assertEquals(numberofconcepts, iteratorCount);
 	}
 	
+	/**
+	 * @see ConceptService#conceptIterators(int)
+	 */
+	@Test
+	public void conceptIterators_shouldReturnAllConceptsOnceAcrossTheIterators() {
+		List<Integer> expectedConceptIds = new ArrayList<>();
+		for (Concept concept : conceptService.getAllConcepts()) {
+			expectedConceptIds.add(concept.getConceptId());
+		}
+		
+		List<Iterator<Concept>> iterators = conceptService.conceptIterators(3);
+		assertEquals(3, iterators.size());
+		List<Integer> conceptIds = new ArrayList<>();
+		for (Iterator<Concept> iterator : iterators) {
+			while (iterator.hasNext() && conceptIds.size() <= expectedConceptIds.size()) {
+				conceptIds.add(iterator.next().getConceptId());
+			}
+		}
+		
+		assertThat(conceptIds, containsInAnyOrder(expectedConceptIds.toArray()));
+	}
+	
 	/**
 	 * @see ConceptService#saveConcept(Concept)
 	 */
@@ -37,8 +37,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.time.DateUtils;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -107,6 +110,9 @@ public class EncounterServiceTest extends BaseContextSensitiveTest {
 	@Autowired
 	AdministrationService adminService;
 	
+	@Autowired
+	SessionFactory sessionFactory;
+	
 	/**
 	 * This method is run before all of the tests in this class because it has the @Before
 	 * annotation on it. This will add the contents of {@link #ENC_INITIAL_DATA_XML} to the current
@@ -1857,6 +1863,67 @@ public class EncounterServiceTest extends BaseContextSensitiveTest {
 		assertEquals(1, allEncounters.size());
 		assertEquals(3, allEncounters.get(7).size());
 	}
+
+	/**
+	 * @see EncounterService#forEachPatientEncounters(Cohort, java.util.function.BiConsumer)
+	 */
+	@Test
+	public void forEachPatientEncounters_shouldPassTheEncountersOfEachPatientInTheCohortInPatientIdOrder() {
+		Cohort cohort = new Cohort();
+		cohort.addMember(7);
+		cohort.addMember(2);
+		List<Integer> patientIds = new ArrayList<>();
+		Map<Integer, List<Integer>> encounterIds = new HashMap<>();
+
+		Context.getEncounterService().forEachPatientEncounters(cohort, (patientId, encounters) -> {
+			patientIds.add(patientId);
+			encounterIds.put(patientId, encounters.stream().map(Encounter::getEncounterId).collect(Collectors.toList()));
+		});
+
+		assertEquals(Arrays.asList(2, 7), patientIds);
+		assertEquals(Arrays.asList(5, 4, 3), encounterIds.get(7));
+	}
+
+	/**
+	 * @see EncounterService#forEachPatientEncounters(Cohort, java.util.function.BiConsumer)
+	 */
+	@Test
+	public void forEachPatientEncounters_shouldPassTheEncountersOfAllPatientsIfTheCohortIsNull() {
+		List<Integer> patientIds = new ArrayList<>();
+		Map<Integer, List<Encounter>> expected = Context.getEncounterService().getAllEncounters(null);
+
+		Context.getEncounterService().forEachPatientEncounters(null, (patientId, encounters) -> {
+			patientIds.add(patientId);
+			assertEquals(expected.get(patientId).size(), encounters.size());
+		});
+
+		assertEquals(expected.keySet().stream().sorted().collect(Collectors.toList()), patientIds);
+	}
+
+	/**
+	 * @see EncounterService#forEachPatientEncounters(Cohort, java.util.function.BiConsumer)
+	 */
+	@Test
+	public void forEachPatientEncounters_shouldEvictTheEntitiesLoadedWithTheEncountersButNotThoseLoadedBefore() {
+		Session session = sessionFactory.getCurrentSession();
+		Patient loadedBefore = Context.getPatientService().getPatient(2);
+		Cohort cohort = new Cohort();
+		cohort.addMember(2);
+		cohort.addMember(7);
+		List<Encounter> processedEncounters = new ArrayList<>();
+		List<Obs> processedObs = new ArrayList<>();
+
+		Context.getEncounterService().forEachPatientEncounters(cohort, (patientId, encounters) -> {
+			processedEncounters.addAll(encounters);
+			encounters.forEach(encounter -> processedObs.addAll(encounter.getAllObs()));
+		});
+
+		assertFalse(processedEncounters.isEmpty());
+		assertFalse(processedObs.isEmpty());
+		processedEncounters.forEach(encounter -> assertFalse(session.contains(encounter)));
+		processedObs.forEach(obs -> assertFalse(session.contains(obs)));
+		assertTrue(session.contains(loadedBefore));
+	}
 	
 	/**
 	 * @see EncounterService#getEncounters(Patient, Location, Date, Date, java.util.Collection,
@@ -1818,6 +1818,112 @@ public class ObsServiceTest extends BaseContextSensitiveTest {
 		
 	}
 	
+	/**
+	 * @see ObsService#reviseObs(java.util.Collection, String)
+	 */
+	@Test
+	public void reviseObs_shouldCreateANewRevisionOfEachChangedObsAndVoidTheChangedObs() {
+		executeDataSet(ENCOUNTER_OBS_XML);
+		ObsService os = Context.getObsService();
+		Obs obs = os.getObs(13);
+		Obs otherObs = os.getObs(7);
+		obs.setValueNumeric(60.0);
+		otherObs.setComment("A new comment");
+		
+		List<Obs> revisedObs = os.reviseObs(Arrays.asList(obs, otherObs), "revising obs");
+		
+		assertEquals(2, revisedObs.size());
+		assertEquals(obs, revisedObs.get(0).getPreviousVersion());
+		assertEquals(otherObs, revisedObs.get(1).getPreviousVersion());
+		Context.flushSession();
+		Context.clearSession();
+		
+		Obs voidedObs = os.getObs(13);
+		assertTrue(voidedObs.getVoided());
+		assertEquals("revising obs", voidedObs.getVoidReason());
+		assertEquals(50.0, voidedObs.getValueNumeric());
+		assertTrue(os.getObs(7).getVoided());
+		Obs newObs = os.getObs(revisedObs.get(0).getObsId());
+		assertFalse(newObs.getVoided());
+		assertEquals(60.0, newObs.getValueNumeric());
+		assertEquals(Obs.Status.AMENDED, newObs.getStatus());
+		assertEquals("A new comment", os.getObs(revisedObs.get(1).getObsId()).getComment());
+	}
+	
+	/**
+	 * @see ObsService#reviseObs(java.util.Collection, String)
+	 */
+	@Test
+	public void reviseObs_shouldReviseChangedMembersOfAnUnchangedObsGroup() {
+		executeDataSet(ENCOUNTER_OBS_XML);
+		ObsService os = Context.getObsService();
+		Obs group = os.getObs(14);
+		Obs member = os.getObs(15);
+		member.setValueText("another value");
+		
+		List<Obs> revisedObs = os.reviseObs(Collections.singletonList(group), "revising obs");
+		
+		assertEquals(group, revisedObs.get(0));
+		Context.flushSession();
+		Context.clearSession();
+		
+		group = os.getObs(14);
+		assertFalse(group.getVoided());
+		assertTrue(os.getObs(15).getVoided());
+		assertFalse(os.getObs(16).getVoided());
+		assertEquals(2, group.getGroupMembers().size());
+		Obs newMember = os.getRevisionObs(os.getObs(15));
+		assertTrue(group.getGroupMembers().contains(newMember));
+		assertEquals("another value", newMember.getValueText());
+	}
+	
+	/**
+	 * @see ObsService#reviseObs(java.util.Collection, String)
+	 */
+	@Test
+	public void reviseObs_shouldNotVoidAnObsWithNoChanges() {
+		ObsService os = Context.getObsService();
+		Obs obs = os.getObs(7);
+		
+		List<Obs> revisedObs = os.reviseObs(Collections.singletonList(obs), "no change");
+		
+		assertEquals(Collections.singletonList(obs), revisedObs);
+		assertFalse(obs.getVoided());
+	}
+	
+	/**
+	 * @see ObsService#reviseObs(java.util.Collection, String)
+	 */
+	@Test
+	public void reviseObs_shouldFailIfChangeMessageIsBlank() {
+		ObsService os = Context.getObsService();
+		Obs obs = os.getObs(7);
+		obs.setComment("A new comment");
+		
+		assertThrows(APIException.class, () -> os.reviseObs(Collections.singletonList(obs), " "));
+	}
+	
+	/**
+	 * @see ObsService#reviseObs(java.util.Collection, String)
+	 */
+	@Test
+	public void reviseObs_shouldRunTheVoidHandlersOnTheVoidedObsAndTheirMembers() {
+		executeDataSet(ENCOUNTER_OBS_XML);
+		ObsService os = Context.getObsService();
+		Obs group = os.getObs(14);
+		group.setComment("A new comment");
+		
+		os.reviseObs(Collections.singletonList(group), "revising obs");
+		
+		for (Obs obs : Arrays.asList(group, os.getObs(15), os.getObs(16))) {
+			assertTrue(obs.getVoided());
+			assertEquals(Context.getAuthenticatedUser(), obs.getVoidedBy());
+			assertEquals("revising obs", obs.getVoidReason());
+			assertEquals(group.getDateVoided(), obs.getDateVoided());
+		}
+		assertNotNull(group.getDateVoided());
+	}
+	
 	/**
 	 * @see ObsService#saveObs(Obs,String)
 	 */
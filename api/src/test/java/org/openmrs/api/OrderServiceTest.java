@@ -286,6 +286,35 @@ public class OrderServiceTest extends BaseContextSensitiveTest {
 		assertEquals(N, uniqueOrderNumbers.size());
 	}
 
+	/**
+	 * @see OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Test
+	public void reserveOrderNumberSeedSequenceValues_shouldAdvanceTheNextOrderNumberSeedByTheNumberOfReservedSeeds() {
+		Long firstSeed = orderService.reserveOrderNumberSeedSequenceValues(5);
+		assertEquals(Long.valueOf(firstSeed + 5), orderService.getNextOrderNumberSeedSequenceValue());
+	}
+	
+	/**
+	 * @see OrderNumberGenerator#getNewOrderNumber(OrderContext)
+	 */
+	@Test
+	public void getNewOrderNumber_shouldHandOutOrderNumbersFromTheReservedBlock() {
+		adminService.saveGlobalProperty(new GlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "10"));
+		try {
+			OrderNumberGenerator generator = (OrderNumberGenerator) orderService;
+			long firstSeed = Long.parseLong(generator.getNewOrderNumber(null).substring("ORD-".length()));
+			assertEquals("ORD-" + (firstSeed + 1), generator.getNewOrderNumber(null));
+			assertEquals("ORD-" + (firstSeed + 2), generator.getNewOrderNumber(null));
+			
+			//the rest of the block is reserved so the next seed in the database is after the block
+			assertEquals(Long.valueOf(firstSeed + 10), orderService.getNextOrderNumberSeedSequenceValue());
+		}
+		finally {
+			adminService.saveGlobalProperty(new GlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "1"));
+		}
+	}
+	
 	/**
 	 * @see OrderService#getOrderByOrderNumber(String)
 	 */
@@ -70,6 +70,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.PatientServiceImpl;
 import org.openmrs.api.impl.PatientServiceImplTest;
 import org.openmrs.comparator.PatientIdentifierTypeDefaultComparator;
+import org.openmrs.patient.DuplicatePatientSearch;
 import org.openmrs.patient.IdentifierValidator;
 import org.openmrs.patient.impl.LuhnIdentifierValidator;
 import org.openmrs.person.PersonMergeLog;
@@ -3311,5 +3312,43 @@ public class PatientServiceTest extends BaseContextSensitiveTest {
 		PatientIdentifierException patientIdentifierException = assertThrows(PatientIdentifierException.class, () -> patientService.getIdentifierValidator("com.example.InvalidIdentifierValidator"));
 		assertEquals("Could not find patient identifier validator com.example.InvalidIdentifierValidator", patientIdentifierException.getMessage());
 	}
-
+	
+	/**
+	 * @see PatientService#scanForDuplicatePatients(DuplicatePatientSearch, int)
+	 */
+	@Test
+	public void scanForDuplicatePatients_shouldResumeTheSearchAfterTheLastScannedPatient() {
+		DuplicatePatientSearch search = new DuplicatePatientSearch(Arrays.asList("givenName", "familyName"), false,
+		        false);
+		
+		assertTrue(patientService.scanForDuplicatePatients(search, 2));
+		assertEquals(6, search.getLastPatientId());
+		assertTrue(patientService.scanForDuplicatePatients(search, 2));
+		assertEquals(8, search.getLastPatientId());
+		assertFalse(patientService.scanForDuplicatePatients(search, 2));
+		
+		assertTrue(search.isComplete());
+		assertEquals(4, search.getScannedPatientCount());
+	}
+	
+	/**
+	 * @see PatientService#getDuplicatePatients(DuplicatePatientSearch, int, int)
+	 */
+	@Test
+	public void getDuplicatePatients_shouldReturnPatientsThatMatchOnTheSoundexOfTheirNames() {
+		PersonName name = patientService.getPatient(8).getPersonName();
+		name.setGivenName("Colett");
+		name.setFamilyName("Chebaskwoni");
+		Context.flushSession();
+		DuplicatePatientSearch search = new DuplicatePatientSearch(Arrays.asList("givenName", "familyName"), false,
+		        true);
+		
+		assertFalse(patientService.scanForDuplicatePatients(search, 1000));
+		assertTrue(search.isComplete());
+		List<List<Patient>> duplicates = patientService.getDuplicatePatients(search, 0, 10);
+		
+		assertEquals(1, duplicates.size());
+		assertThat(duplicates.get(0), containsInAnyOrder(patientService.getPatient(7), patientService.getPatient(8)));
+		assertTrue(patientService.getDuplicatePatients(search, 1, 10).isEmpty());
+	}
 }
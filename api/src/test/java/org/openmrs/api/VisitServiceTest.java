@@ -889,6 +889,46 @@ public class VisitServiceTest extends BaseContextSensitiveTest {
 		assertTrue(activeVisitCount == 0, "Not all active unvoided vists were closed");
 	}
 	
+	/**
+	 * @see VisitService#stopVisits(Date, Integer, int)
+	 */
+	@Test
+	public void stopVisits_shouldCloseTheNextUnvoidedActiveVisitsMatchingTheSpecifiedVisitTypes() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		String[] visitTypeNames = StringUtils.split(Context.getAdministrationService().getGlobalProperty(
+		    OpenmrsConstants.GP_VISIT_TYPES_TO_AUTO_CLOSE), ",");
+		
+		String openVisitsQuery = "SELECT visit_id FROM visit WHERE voided = false AND date_stopped IS NULL AND visit_type_id IN (SELECT visit_type_id FROM visit_type WHERE NAME IN ('"
+		        + StringUtils.join(visitTypeNames, "','") + "')) ORDER BY visit_id";
+		List<List<Object>> activeVisits = Context.getAdministrationService().executeSQL(openVisitsQuery, true);
+		assertTrue(activeVisits.size() > 1, "There should be several active visits for this test to be valid");
+		Integer firstVisitId = ((Number) activeVisits.get(0).get(0)).intValue();
+		
+		List<Integer> stoppedVisitIds = visitService.stopVisits(null, null, 1);
+		
+		assertEquals(Collections.singletonList(firstVisitId), stoppedVisitIds);
+		Visit visit = visitService.getVisit(firstVisitId);
+		assertNotNull(visit.getStopDatetime());
+		assertNotNull(visit.getChangedBy());
+		assertEquals(activeVisits.size() - 1, Context.getAdministrationService().executeSQL(openVisitsQuery, true).size());
+		
+		stoppedVisitIds = visitService.stopVisits(null, firstVisitId, activeVisits.size());
+		
+		assertEquals(activeVisits.size() - 1, stoppedVisitIds.size());
+		assertEquals(0, Context.getAdministrationService().executeSQL(openVisitsQuery, true).size());
+	}
+	
+	/**
+	 * @see VisitService#stopVisits(Date, Integer, int)
+	 */
+	@Test
+	public void stopVisits_shouldReturnAnEmptyListIfThereAreNoMoreVisitsToStop() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		visitService.stopVisits(null);
+		
+		assertTrue(visitService.stopVisits(null, null, 10).isEmpty());
+	}
+	
 	/**
 	 * @see VisitService#saveVisit(Visit)
 	 */
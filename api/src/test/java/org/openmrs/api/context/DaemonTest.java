@@ -62,6 +62,28 @@ public class DaemonTest extends BaseContextSensitiveTest {
 		}
 	}
 	
+	/**
+	 * @see Daemon#executeScheduledTaskInCurrentThread(Task)
+	 */
+	@Test
+	public void executeScheduledTaskInCurrentThread_shouldNotBeCalledFromOtherMethodsOtherThanExecutorSchedulerTask() {
+		APIException exception = assertThrows(APIException.class,
+		    () -> Daemon.executeScheduledTaskInCurrentThread(new HelloWorldTask()));
+		assertThat(exception.getMessage(), startsWith(Context.getMessageSourceService().getMessage(
+		    "Scheduler.executor.task.only", new Object[] { this.getClass().getName() }, Locale.ENGLISH)));
+	}
+	
+	/**
+	 * @see Daemon#runModuleStartupStepInCurrentThread(Runnable)
+	 */
+	@Test
+	public void runModuleStartupStepInCurrentThread_shouldNotBeCalledFromOtherMethodsOtherThanModuleStartupExecutor() {
+		APIException exception = assertThrows(APIException.class, () -> Daemon.runModuleStartupStepInCurrentThread(() -> {
+		}));
+		assertThat(exception.getMessage(), startsWith(Context.getMessageSourceService().getMessage(
+		    "Module.startup.executor.only", new Object[] { this.getClass().getName() }, Locale.ENGLISH)));
+	}
+	
 	/**
 	 * This uses a task that just marks itself as run when its "execute" method is called. This
 	 * verifies that the Daemon class is getting past the class check and on to the task running
@@ -10,6 +10,7 @@
 package org.openmrs.api.context;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.never;
@@ -19,11 +20,18 @@ import static org.mockito.MockitoAnnotations.openMocks;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openmrs.api.APIException;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.ServiceNotFoundException;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 import org.openmrs.util.DatabaseUpdateException;
 import org.openmrs.util.InputRequiredException;
@@ -96,4 +104,45 @@ public class ServiceContextTest extends BaseContextSensitiveTest {
 		verify(spiedServiceContext, never()).getMessageService();
 		verify(spiedServiceContext, never()).getMessageSourceService();
 	}
+	
+	/**
+	 * @see ServiceContext#getService(Class)
+	 */
+	@Test
+	public void getService_shouldReturnTheSameServiceToConcurrentCallers() throws Exception {
+		Object expected = serviceContext.getService(PatientService.class);
+		int threads = 64;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				Callable<Boolean> lookup = () -> {
+					start.await();
+					for (int j = 0; j < 10000; j++) {
+						if (serviceContext.getService(PatientService.class) != expected) {
+							return false;
+						}
+					}
+					return true;
+				};
+				results.add(executor.submit(lookup));
+			}
+			start.countDown();
+			for (Future<Boolean> result : results) {
+				assertSame(Boolean.TRUE, result.get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * @see ServiceContext#getService(Class)
+	 */
+	@Test
+	public void getService_shouldThrowServiceNotFoundExceptionForAnUnknownService() {
+		assertThrows(ServiceNotFoundException.class, () -> serviceContext.getService(ServiceContextTest.class));
+	}
 }
@@ -14,6 +14,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openmrs.Person;
 import org.openmrs.PersonName;
+import org.openmrs.Privilege;
+import org.openmrs.Role;
 import org.openmrs.User;
 import org.openmrs.api.PersonService;
 import org.openmrs.api.UserService;
@@ -24,6 +26,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class UserContextTest extends BaseContextSensitiveTest {
 	
@@ -111,4 +115,48 @@ public class UserContextTest extends BaseContextSensitiveTest {
 		// assert
 		assertThat(locationId, nullValue());
 	}
+
+	@Test
+	void hasPrivilege_shouldReflectPrivilegesAddedToOrRemovedFromTheRolesOfTheUser() throws Exception {
+		Privilege privilege = new Privilege("Test Effective Privilege");
+		Role role = new Role("Test Effective Role");
+		try {
+			Context.logout();
+			Context.authenticate(new UsernamePasswordCredentials("testUser", "Test1234"));
+			assertFalse(Context.hasPrivilege("Test Effective Privilege"));
+			
+			Context.getAuthenticatedUser().addRole(role);
+			assertFalse(Context.hasPrivilege("Test Effective Privilege"));
+			
+			role.addPrivilege(privilege);
+			assertTrue(Context.hasPrivilege("Test Effective Privilege"));
+			assertTrue(Context.hasPrivilege("test effective privilege"));
+			
+			role.removePrivilege(privilege);
+			assertFalse(Context.hasPrivilege("Test Effective Privilege"));
+		}
+		finally {
+			Context.logout();
+			authenticate();
+		}
+	}
+	
+	@Test
+	void hasPrivilege_shouldKeepAProxyPrivilegeUntilItIsRemovedAsOftenAsItWasAdded() throws Exception {
+		Context.logout();
+		try {
+			assertFalse(Context.hasPrivilege("Test Proxy Privilege"));
+			
+			Context.addProxyPrivilege("Test Proxy Privilege");
+			Context.addProxyPrivilege("Test Proxy Privilege");
+			Context.removeProxyPrivilege("Test Proxy Privilege");
+			assertTrue(Context.hasPrivilege("Test Proxy Privilege"));
+			
+			Context.removeProxyPrivilege("Test Proxy Privilege");
+			assertFalse(Context.hasPrivilege("Test Proxy Privilege"));
+		}
+		finally {
+			authenticate();
+		}
+	}
 }
@@ -12,12 +12,14 @@ package org.openmrs.api.db;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import jakarta.annotation.Resource;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Properties;
 import java.util.Set;
@@ -25,8 +27,11 @@ import java.util.Set;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.openmrs.PersonAttribute;
 import org.openmrs.User;
 import org.openmrs.UserSessionListener;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.PersonService;
 import org.openmrs.api.UserService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.ContextAuthenticationException;
@@ -411,4 +416,42 @@ public class ContextDAOTest extends BaseContextSensitiveTest {
 				contains("admin:LOGOUT:SUCCESS"));
 		assertThat(testUserSessionListener.logins, empty());
 	}
+
+	/**
+	 * @see ContextDAO#updateSearchIndexForType(Class, String, java.util.Map, boolean)
+	 */
+	@Test
+	public void updateSearchIndexForType_shouldReindexOnlyTheObjectsMatchingTheRestrictionInTheCurrentTransaction() {
+		PersonService personService = Context.getPersonService();
+		PatientService patientService = Context.getPatientService();
+		personService.getPersonAttribute(17).setValue("Paris");
+		Context.flushSession();
+		// the attributes are not re-indexed when their type changes
+		personService.getPersonAttributeType(2).setSearchable(true);
+		personService.getPersonAttributeType(8).setSearchable(true);
+		Context.flushSession();
+		assertThat(patientService.getPatients("London"), is(empty()));
+
+		dao.updateSearchIndexForType(PersonAttribute.class, "attributeType.personAttributeTypeId = :attributeTypeId",
+		    Collections.singletonMap("attributeTypeId", 2), false);
+
+		assertThat(patientService.getPatients("London"), contains(patientService.getPatient(2)));
+		assertThat(patientService.getPatients("Paris"), is(empty()));
+	}
+
+	/**
+	 * @see ContextDAO#updateSearchIndexForType(Class, String, java.util.Map, boolean)
+	 */
+	@Test
+	public void updateSearchIndexForType_shouldReindexTheObjectsOnlyOnceTheTransactionIsCommittedIfRequested() {
+		PatientService patientService = Context.getPatientService();
+		Context.getPersonService().getPersonAttributeType(2).setSearchable(true);
+		Context.flushSession();
+
+		dao.updateSearchIndexForType(PersonAttribute.class, "attributeType.personAttributeTypeId = :attributeTypeId",
+		    Collections.singletonMap("attributeTypeId", 2), true);
+
+		// the test transaction is rolled back, so the re-index never runs
+		assertThat(patientService.getPatients("London"), is(empty()));
+	}
 }
@@ -291,4 +291,12 @@ public class HibernatePatientDAOTest extends BaseContextSensitiveTest {
 		// then
 		assertThat(duplicatePatients.size(), equalTo(2));
 	}
+
+	@Test
+	public void getPatients_shouldLoadEachMatchingPatientOnceWhenSeveralNamesMatch() {
+		List<Patient> patients = hibernatePatientDao.getPatients("Hornblower", false, 0, 10);
+
+		assertEquals(1, patients.size());
+		assertEquals(2, patients.get(0).getPatientId().intValue());
+	}
 }
@@ -0,0 +1,163 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.db.hibernate.search.SearchIndexOutbox.EntityKey;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests the {@link SearchIndexOutbox} without a database, the entities are "indexed" by a stubbed
+ * {@link SearchIndexOutbox#index(List)}
+ */
+public class SearchIndexOutboxTest {
+
+	private static final String PATIENT = "org.openmrs.Patient";
+
+	private SearchIndexOutbox outbox;
+
+	private Session session;
+
+	private final Object patient2 = new Object();
+
+	private final Object patient7 = new Object();
+
+	@BeforeEach
+	public void setUp() {
+		outbox = spy(new SearchIndexOutbox());
+		doNothing().when(outbox).index(anyList());
+		session = mock(Session.class);
+		when(session.getEntityName(patient2)).thenReturn(PATIENT);
+		when(session.getIdentifier(patient2)).thenReturn(2);
+		when(session.getEntityName(patient7)).thenReturn(PATIENT);
+		when(session.getIdentifier(patient7)).thenReturn(7);
+	}
+
+	@AfterEach
+	public void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void add_shouldAddAnEntityOnlyOnceOutsideOfATransaction() {
+		outbox.add(session, patient2);
+		outbox.add(session, patient2);
+
+		assertEquals(1, outbox.getQueueDepth());
+	}
+
+	@Test
+	public void add_shouldAddTheChangesOfATransactionOnceItIsCommitted() {
+		TransactionSynchronizationManager.initSynchronization();
+		outbox.add(session, patient2);
+		outbox.add(session, patient7);
+		assertEquals(0, outbox.getQueueDepth());
+
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertEquals(2, outbox.getQueueDepth());
+	}
+
+	@Test
+	public void add_shouldDiscardTheChangesOfARolledBackTransaction() {
+		TransactionSynchronizationManager.initSynchronization();
+		outbox.add(session, patient2);
+
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertEquals(0, outbox.getQueueDepth());
+		verify(outbox, never()).index(anyList());
+	}
+
+	@Test
+	public void indexChangesOfCurrentTransaction_shouldIndexTheChangesAgainRightAwayIfTheTransactionIsRolledBack() {
+		TransactionSynchronizationManager.initSynchronization();
+		outbox.add(session, patient2);
+		SearchSession searchSession = mock(SearchSession.class);
+		SearchIndexingPlan indexingPlan = mock(SearchIndexingPlan.class);
+		when(searchSession.indexingPlan()).thenReturn(indexingPlan);
+		when(searchSession.toOrmSession()).thenReturn(session);
+		when(session.get(PATIENT, 2)).thenReturn(patient2);
+
+		outbox.indexChangesOfCurrentTransaction(searchSession);
+		verify(indexingPlan).addOrUpdate(patient2);
+		verify(indexingPlan).execute();
+
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		verify(outbox).index(Collections.singletonList(new EntityKey(PATIENT, 2)));
+		assertEquals(0, outbox.getQueueDepth());
+	}
+
+	@Test
+	public void indexPending_shouldIndexThePendingEntities() {
+		outbox.add(session, patient2);
+		outbox.add(session, patient7);
+
+		outbox.indexPending();
+
+		verify(outbox).index(Arrays.asList(new EntityKey(PATIENT, 2), new EntityKey(PATIENT, 7)));
+		assertEquals(0, outbox.getQueueDepth());
+		assertEquals(2, outbox.getIndexedCount());
+	}
+
+	@Test
+	public void indexPending_shouldRetryOnlyTheEntitiesWhichFailToBeIndexed() {
+		EntityKey failing = new EntityKey(PATIENT, 7);
+		doAnswer(invocation -> {
+			if (((List<?>) invocation.getArgument(0)).contains(failing)) {
+				throw new IllegalStateException("Failed to index");
+			}
+			return null;
+		}).when(outbox).index(anyList());
+		outbox.add(session, patient2);
+		outbox.add(session, patient7);
+
+		outbox.indexPending();
+		assertEquals(1, outbox.getIndexedCount());
+		assertEquals(1, outbox.getQueueDepth());
+
+		for (int attempt = 2; attempt < SearchIndexOutbox.MAX_ATTEMPTS; attempt++) {
+			outbox.indexPending();
+			assertEquals(1, outbox.getQueueDepth());
+		}
+		outbox.indexPending();
+		assertEquals(0, outbox.getQueueDepth());
+		assertEquals(1, outbox.getIndexedCount());
+	}
+
+	private void completeTransaction(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+	}
+}
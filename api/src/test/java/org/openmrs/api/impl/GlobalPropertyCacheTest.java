@@ -0,0 +1,65 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+
+public class GlobalPropertyCacheTest extends BaseContextSensitiveTest {
+
+	private static final String PROPERTY_NAME = "a-global-property-being-loaded";
+
+	private GlobalPropertyCache globalPropertyCache;
+
+	@BeforeEach
+	public void before() {
+		globalPropertyCache = Context.getRegisteredComponent("globalPropertyCache", GlobalPropertyCache.class);
+	}
+
+	/**
+	 * @see GlobalPropertyCache#put(String, GlobalProperty, long)
+	 */
+	@Test
+	public void put_shouldNotCacheAValueLoadedBeforeTheGlobalPropertyWasEvicted() throws Exception {
+		long loadVersion = globalPropertyCache.startLoad(PROPERTY_NAME);
+		// another transaction commits a new value while the old one is read
+		evictInAnotherTransaction();
+
+		assertEquals("old", globalPropertyCache.put(PROPERTY_NAME, new GlobalProperty(PROPERTY_NAME, "old"), loadVersion)
+		        .getValue());
+
+		assertNull(globalPropertyCache.get(PROPERTY_NAME));
+	}
+
+	/**
+	 * @see GlobalPropertyCache#put(String, GlobalProperty, long)
+	 */
+	@Test
+	public void put_shouldCacheAValueLoadedAfterTheGlobalPropertyWasEvicted() throws Exception {
+		evictInAnotherTransaction();
+		long loadVersion = globalPropertyCache.startLoad(PROPERTY_NAME);
+
+		globalPropertyCache.put(PROPERTY_NAME, new GlobalProperty(PROPERTY_NAME, "new"), loadVersion);
+
+		assertEquals("new", globalPropertyCache.get(PROPERTY_NAME).getValue());
+	}
+
+	private void evictInAnotherTransaction() throws InterruptedException {
+		Thread thread = new Thread(() -> globalPropertyCache.evict(PROPERTY_NAME));
+		thread.start();
+		thread.join();
+	}
+}
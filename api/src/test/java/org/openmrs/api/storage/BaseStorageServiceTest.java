@@ -85,6 +85,48 @@ public abstract class BaseStorageServiceTest extends BaseContextSensitiveTest {
 		});
 	}
 
+	@Test
+	public void getData_shouldReturnTheGivenRange() throws IOException {
+		saveTestData(null, newKeySuffix(), (key) -> {
+			try (InputStream data = storageService.getData(key, 5, 7)) {
+				assertEquals(testFileContent.substring(5, 12), IOUtils.toString(data, Charset.defaultCharset()));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	@Test
+	public void getData_shouldReturnTheRestOfTheDataIfTheRangeEndsAfterIt() throws IOException {
+		saveTestData(null, newKeySuffix(), (key) -> {
+			try (InputStream data = storageService.getData(key, 10, 1024 * 1024);
+			     InputStream emptyData = storageService.getData(key, 1024, 10)) {
+				assertEquals(testFileContent.substring(10), IOUtils.toString(data, Charset.defaultCharset()));
+				assertEquals(-1, emptyData.read());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	@Test
+	public void getData_shouldThrowExceptionForRangeWhenFileDoesNotExist() {
+		assertThrows(IOException.class, () -> storageService.getData("none", 0, 10));
+	}
+
+	@Test
+	public void getMetadata_shouldReturnTheSameEntityTagForTheSameData() throws IOException {
+		saveTestData(null, newKeySuffix(), (key) -> {
+			try {
+				String entityTag = storageService.getMetadata(key).getEntityTag();
+				assertThat(entityTag, startsWith("\""));
+				assertEquals(entityTag, storageService.getMetadata(key).getEntityTag());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
 	public void saveTestData(String moduleId, String keySuffix, Consumer<String> verify) throws IOException {
 		saveTestData(moduleId, keySuffix, null, verify);
 	}
@@ -15,6 +15,9 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -59,6 +62,17 @@ public class LocalStorageServiceTest extends BaseStorageServiceTest {
 		}
 	}
 
+	@Test
+	public void getData_shouldSkipToTheRangeIfNotOverridden() throws IOException {
+		StorageService defaultStorageService = mock(StorageService.class, CALLS_REAL_METHODS);
+		doReturn(IOUtils.toInputStream(testFileContent, Charset.defaultCharset())).when(defaultStorageService)
+			.getData("key");
+		
+		try (InputStream data = defaultStorageService.getData("key", 5, 7)) {
+			assertEquals(testFileContent.substring(5, 12), IOUtils.toString(data, Charset.defaultCharset()));
+		}
+	}
+
 	@Test
 	public void purgeData_shouldScheduleDeletionIfFileOpen() throws IOException {
 		saveTestData(null, null, (key) -> {
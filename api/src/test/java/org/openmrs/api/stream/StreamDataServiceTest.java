@@ -0,0 +1,158 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+public class StreamDataServiceTest {
+	
+	private StreamDataService streamDataService;
+	
+	@BeforeEach
+	public void setUp() {
+		streamDataService = new StreamDataService(new SimpleAsyncTaskExecutor());
+	}
+	
+	/**
+	 * @see StreamDataService#streamData(StreamDataWriter, Long)
+	 */
+	@Test
+	public void streamData_shouldStreamDataLargerThanTheBuffer() throws IOException {
+		byte[] data = new byte[StreamDataService.BUFFER_SIZE * 20 + 13];
+		new Random(42).nextBytes(data);
+		
+		InputStream in = streamDataService.streamData(out -> {
+			// mix single byte and bulk writes so that chunks are filled both ways
+			out.write(data, 0, 7);
+			for (int i = 7; i < 1000; i++) {
+				out.write(data[i]);
+			}
+			out.write(data, 1000, data.length - 1000);
+		}, (long) data.length);
+		
+		assertEquals(255 & data[0], in.read());
+		assertArrayEquals(Arrays.copyOfRange(data, 1, data.length), IOUtils.toByteArray(in));
+		assertEquals(-1, in.read());
+	}
+	
+	/**
+	 * @see StreamDataService#streamData(StreamDataWriter, Long)
+	 */
+	@Test
+	public void streamData_shouldStreamDataOfUnknownLength() throws IOException {
+		byte[] data = "test data of unknown length".getBytes();
+		
+		InputStream in = streamDataService.streamData(out -> out.write(data), null);
+		
+		assertArrayEquals(data, IOUtils.toByteArray(in));
+	}
+	
+	/**
+	 * @see StreamDataService#streamData(StreamDataWriter, Long)
+	 */
+	@Test
+	public void streamData_shouldPassFlushedDataBeforeTheStreamIsClosed() throws IOException {
+		CountDownLatch flushedDataRead = new CountDownLatch(1);
+		InputStream in = streamDataService.streamData(out -> {
+			out.write(new byte[] { 1, 2, 3 });
+			out.flush();
+			// wait for the reader so that the data can only be read because of the flush
+			try {
+				flushedDataRead.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			out.write(4);
+		}, null);
+		
+		byte[] buffer = new byte[10];
+		assertEquals(3, in.read(buffer, 0, buffer.length));
+		flushedDataRead.countDown();
+		assertEquals(4, in.read());
+		assertEquals(-1, in.read());
+	}
+	
+	/**
+	 * @see StreamDataService#streamData(StreamDataWriter, Long)
+	 */
+	@Test
+	public void streamData_shouldPropagateTheExceptionOfTheWriter() throws IOException {
+		InputStream in = streamDataService.streamData(out -> {
+			out.write(new byte[StreamDataService.BUFFER_SIZE * 2]);
+			throw new IllegalStateException("writer failed");
+		}, null);
+		
+		IOException exception = assertThrows(IOException.class, () -> IOUtils.toByteArray(in));
+		assertEquals("writer failed", exception.getCause().getMessage());
+	}
+	
+	/**
+	 * @see StreamDataService#streamData(StreamDataWriter, Long)
+	 */
+	@Test
+	public void streamData_shouldWaitForAWriterWhichPausesBetweenSmallWrites() throws IOException {
+		streamDataService.setTimeout(Duration.ofMillis(200));
+		byte[] data = new byte[100];
+		new Random(42).nextBytes(data);
+		
+		// the writer takes longer than the timeout to fill a chunk, but keeps writing
+		InputStream in = streamDataService.streamData(out -> {
+			for (int i = 0; i < data.length; i += 10) {
+				out.write(data, i, 10);
+				pause(50);
+			}
+		}, null);
+		
+		assertArrayEquals(data, IOUtils.toByteArray(in));
+	}
+	
+	/**
+	 * @see StreamDataService#streamData(StreamDataWriter, Long)
+	 */
+	@Test
+	public void streamData_shouldFailInsteadOfEndingTheStreamIfTheWriterStopsWriting() throws IOException {
+		streamDataService.setTimeout(Duration.ofMillis(100));
+		
+		InputStream in = streamDataService.streamData(out -> {
+			out.write(1);
+			pause(1000);
+			out.write(2);
+		}, null);
+		
+		IOException exception = assertThrows(IOException.class, () -> IOUtils.toByteArray(in));
+		assertEquals("Timed out waiting for data to be written", exception.getMessage());
+	}
+	
+	private static void pause(long millis) throws InterruptedIOException {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+	}
+}
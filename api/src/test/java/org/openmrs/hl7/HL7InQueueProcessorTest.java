@@ -0,0 +1,81 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.hl7;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+
+/**
+ * Tests the {@link HL7InQueueProcessor} class
+ */
+public class HL7InQueueProcessorTest extends BaseContextSensitiveTest {
+
+	/**
+	 * @see HL7InQueueProcessor#processHL7InQueue()
+	 */
+	@Test
+	public void processHL7InQueue_shouldProcessAllPendingQueueEntries() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7Service = Context.getHL7Service();
+		List<HL7InQueue> pending = hl7Service.getNextHL7InQueues(null, 10);
+		assertEquals(2, pending.size());
+		long parseCount = HL7ProcessingStatistics.getCount(HL7ProcessingStatistics.Stage.PARSE);
+
+		new HL7InQueueProcessor().processHL7InQueue();
+
+		assertTrue(hl7Service.getNextHL7InQueues(null, 10).isEmpty());
+		assertEquals(parseCount + 1, HL7ProcessingStatistics.getCount(HL7ProcessingStatistics.Stage.PARSE));
+	}
+
+	/**
+	 * @see HL7Service#getNextHL7InQueues(Integer, int)
+	 */
+	@Test
+	public void getNextHL7InQueues_shouldReturnPendingQueueItemsAfterTheGivenIdInIdOrder() {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		List<HL7InQueue> pending = Context.getHL7Service().getNextHL7InQueues(1, 10);
+		assertEquals(1, pending.size());
+		assertEquals(2, pending.get(0).getHL7InQueueId().intValue());
+	}
+
+	/**
+	 * @see HL7InQueueProcessor#getPatientKey(String)
+	 */
+	@Test
+	public void getPatientKey_shouldReturnThePatientIdentifierListOfTheMessage() {
+		String hl7 = "MSH|^~\\&|FORMENTRY|AMRS.ELD|HL7LISTENER|AMRS.ELD|20080226102656||ORU^R01|JqnfhKKtouEz8kzTk6Zo|P|2.5\r"
+		        + "PID|||3^^^^||John3^Doe^||\r" + "OBR|1|||1238^MEDICAL RECORD OBSERVATIONS^99DCT";
+		assertEquals("3^^^^", HL7InQueueProcessor.getPatientKey(hl7));
+	}
+
+	/**
+	 * @see HL7InQueueProcessor#getPatientKey(String)
+	 */
+	@Test
+	public void getPatientKey_shouldReturnNullIfTheMessageHasNoPIDSegment() {
+		assertNull(HL7InQueueProcessor.getPatientKey("MSH|^~\\&|FORMENTRY\rOBR|1"));
+		assertNull(HL7InQueueProcessor.getPatientKey("a malformed hl7 message"));
+	}
+
+	/**
+	 * @see HL7InQueueProcessor#getPatientKey(String)
+	 */
+	@Test
+	public void getPatientKey_shouldUseTheFieldSeparatorOfTheMessage() {
+		assertEquals("7^^^^", HL7InQueueProcessor.getPatientKey("MSH#^~\\&#FORMENTRY\nPID###7^^^^##Doe^John"));
+	}
+}
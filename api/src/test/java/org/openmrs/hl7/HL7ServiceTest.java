@@ -139,6 +139,24 @@ public class HL7ServiceTest extends BaseContextSensitiveTest {
 		assertThrows(HL7Exception.class, () -> hl7service.processHL7InQueue(queueItem));
 	}
 	
+	/**
+	 * @see HL7Service#processHL7InQueue(HL7InQueue)
+	 */
+	@Test
+	public void processHL7InQueue_shouldFailIfGivenInQueueWasClaimedByAnotherProcessor() {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		
+		HL7Service hl7service = Context.getHL7Service();
+		HL7InQueue queueItem = hl7service.getHL7InQueue(1);
+		// another server claims the queue item after it was read here
+		Context.getAdministrationService().executeSQL(
+		    "update hl7_in_queue set message_state = " + HL7Constants.HL7_STATUS_PROCESSING + " where hl7_in_queue_id = 1",
+		    false);
+		
+		assertThrows(HL7Exception.class, () -> hl7service.processHL7InQueue(queueItem));
+		assertEquals(0, hl7service.getAllHL7InArchives().size());
+	}
+	
 	/**
 	 * @throws HL7Exception
 	 * @see HL7Service#processHL7Message(Message)
@@ -59,4 +59,37 @@ public class CachedMessageSourceTest {
 		assertEquals(valueAsString, valueAsPM.getMessage());
 	}
 	
+	/**
+	 * @see CachedMessageSource#resolveCode(String,Locale)
+	 */
+	@Test
+	public void resolveCode_shouldFallBackToTheLanguageOfTheLocale() {
+		CachedMessageSource cachedMessages = new CachedMessageSource();
+		cachedMessages.addPresentation(new PresentationMessage("patient.count", Locale.ENGLISH, "{0} patients", ""));
+		
+		assertEquals("3 patients", cachedMessages.getMessage("patient.count", new Object[] { 3 }, Locale.UK));
+		assertEquals("4 patients", cachedMessages.getMessage("patient.count", new Object[] { 4 }, Locale.ENGLISH));
+	}
+	
+	/**
+	 * @see CachedMessageSource#merge(org.openmrs.messagesource.MutableMessageSource,boolean)
+	 */
+	@Test
+	public void merge_shouldNotOverwriteExistingMessagesUnlessAskedTo() {
+		CachedMessageSource cachedMessages = new CachedMessageSource();
+		cachedMessages.addPresentation(new PresentationMessage("uuid.not.unique", Locale.ENGLISH, "original", ""));
+		CachedMessageSource otherMessages = new CachedMessageSource();
+		otherMessages.addPresentation(new PresentationMessage("uuid.not.unique", Locale.ENGLISH, "merged", ""));
+		otherMessages.addPresentation(new PresentationMessage("patient.name.required", Locale.GERMAN,
+		        "der patientenname ist verpflichtend", ""));
+		
+		cachedMessages.merge(otherMessages, false);
+		assertEquals("original", cachedMessages.getMessage("uuid.not.unique", null, Locale.ENGLISH));
+		assertEquals("der patientenname ist verpflichtend",
+		    cachedMessages.getMessage("patient.name.required", null, Locale.GERMAN));
+		
+		cachedMessages.merge(otherMessages, true);
+		assertEquals("merged", cachedMessages.getMessage("uuid.not.unique", null, Locale.ENGLISH));
+	}
+	
 }
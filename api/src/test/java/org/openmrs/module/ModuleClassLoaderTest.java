@@ -11,7 +11,9 @@ package org.openmrs.module;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.MalformedURLException;
@@ -20,6 +22,7 @@ import java.net.URL;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -492,4 +495,33 @@ public class ModuleClassLoaderTest extends BaseContextSensitiveTest {
 			"file:/atomfeed/lib/jackson-mapper-asl-1.9.13.jar").toURL();
 		assertFalse(ModuleClassLoader.isMatchingConditionalResource(moduleWithNullConfigVersions, fileUrl, conditionalResource));
 	}
+
+	@Test
+	public void loadClass_shouldRememberClassesThatCannotBeFoundUntilAModuleIsStartedOrStopped() throws Exception {
+		final String missingClass = "org.openmrs.module.mockmodule.DoesNotExist";
+		AtomicInteger parentLookups = new AtomicInteger();
+		ClassLoader parent = new ClassLoader(getClass().getClassLoader()) {
+			
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+				if (name.equals(missingClass)) {
+					parentLookups.incrementAndGet();
+				}
+				return super.loadClass(name, resolve);
+			}
+		};
+		mockModuleV1_0.setRequiredModulesMap(new HashMap<>());
+		mockModuleV1_0.setAwareOfModulesMap(new HashMap<>());
+		ModuleClassLoader moduleClassLoader = new ModuleClassLoader(mockModuleV1_0, Collections.emptyList(), parent, null);
+		
+		assertTrue(moduleClassLoader.isRegisteredAsParallelCapable());
+		assertThrows(ClassNotFoundException.class, () -> moduleClassLoader.loadClass(missingClass));
+		assertThrows(ClassNotFoundException.class, () -> moduleClassLoader.loadClass(missingClass));
+		assertEquals(1, parentLookups.get());
+		assertEquals(String.class, moduleClassLoader.loadClass(String.class.getName()));
+		
+		ModuleClassLoader.clearLookupCaches();
+		assertThrows(ClassNotFoundException.class, () -> moduleClassLoader.loadClass(missingClass));
+		assertEquals(2, parentLookups.get());
+	}
 }
@@ -0,0 +1,161 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ModuleLibraryCacheTest {
+
+	@TempDir
+	public Path tempDir;
+
+	private File cacheFolder;
+
+	@BeforeEach
+	public void setCacheFolder() {
+		cacheFolder = tempDir.resolve("cache").toFile();
+		ModuleLibraryCache.setCacheFolder(cacheFolder);
+	}
+
+	@AfterEach
+	public void resetCacheFolder() {
+		ModuleLibraryCache.setCacheFolder(null);
+	}
+
+	/**
+	 * @see ModuleLibraryCache#getFolder(Module)
+	 */
+	@Test
+	public void getFolder_shouldExtractTheModuleOnlyIfItsContentChanged() throws Exception {
+		File moduleFile = tempDir.resolve("cachetest.omod").toFile();
+		writeModuleFile(moduleFile, "version 1");
+		Module module = new Module("cachetest", "cachetest", "org.openmrs.module.cachetest", "author", "description",
+		        "1.0", "1.0");
+		module.setFile(moduleFile);
+
+		File folder = ModuleLibraryCache.getFolder(module);
+		File library = new File(folder, "lib/library.jar");
+		assertTrue(folder.toPath().startsWith(cacheFolder.toPath()));
+		assertTrue(new File(folder, "cachetest.jar").isFile());
+		assertEquals("version 1", Files.readString(library.toPath()));
+		long extractedAt = library.lastModified();
+
+		assertEquals(folder, ModuleLibraryCache.getFolder(module));
+		assertEquals(extractedAt, library.lastModified());
+
+		writeModuleFile(moduleFile, "the second version");
+		File newFolder = ModuleLibraryCache.getFolder(module);
+		assertNotEquals(folder, newFolder);
+		assertEquals("the second version", Files.readString(new File(newFolder, "lib/library.jar").toPath()));
+		assertFalse(folder.exists());
+	}
+
+	/**
+	 * @see ModuleLibraryCache#extractAll(java.util.Collection)
+	 */
+	@Test
+	public void extractAll_shouldExtractTheGivenModules() throws Exception {
+		File moduleFile = tempDir.resolve("cachetest2.omod").toFile();
+		writeModuleFile(moduleFile, "content");
+		Module module = new Module("cachetest2", "cachetest2", "org.openmrs.module.cachetest2", "author", "description",
+		        "1.0", "1.0");
+		module.setFile(moduleFile);
+
+		ModuleLibraryCache.extractAll(Collections.singletonList(module));
+
+		assertTrue(new File(ModuleLibraryCache.getFolder(module), "lib/library.jar").isFile());
+	}
+
+	/**
+	 * @see ModuleLibraryCache#prune(java.util.Collection)
+	 */
+	@Test
+	public void prune_shouldDeleteTheFoldersOfModulesWhichAreNotLoadedAndOfOtherVersions() throws Exception {
+		Module module = createModule("loaded", "content");
+		Module removedModule = createModule("removed", "content");
+		File folder = ModuleLibraryCache.getFolder(module);
+		File removedFolder = ModuleLibraryCache.getFolder(removedModule);
+		File otherVersion = new File(folder.getParentFile(), "0123456789abcdef");
+		assertTrue(otherVersion.mkdirs());
+
+		ModuleLibraryCache.prune(Collections.singletonList(module));
+
+		assertTrue(folder.isDirectory());
+		assertFalse(otherVersion.exists());
+		assertFalse(removedFolder.getParentFile().exists());
+	}
+
+	/**
+	 * @see ModuleLibraryCache#prune(java.util.Collection)
+	 */
+	@Test
+	public void prune_shouldKeepTheVersionsWhichAreInUseOrBeingExtractedByAnotherInstance() throws Exception {
+		Module module = createModule("shared", "content");
+		File folder = ModuleLibraryCache.getFolder(module);
+		File lockedVersion = new File(folder.getParentFile(), "0123456789abcdef");
+		assertTrue(lockedVersion.mkdirs());
+		File extraction = new File(folder.getParentFile(), "fedcba9876543210.tmp12345");
+		assertTrue(extraction.mkdirs());
+		Path lockFile = folder.getParentFile().toPath().resolve("0123456789abcdef.lock");
+
+		try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+		    StandardOpenOption.WRITE); FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+			ModuleLibraryCache.prune(Collections.emptyList());
+
+			assertTrue(lockedVersion.isDirectory());
+			assertTrue(extraction.isDirectory());
+		}
+		assertFalse(folder.exists());
+
+		ModuleLibraryCache.prune(Collections.emptyList());
+		assertFalse(lockedVersion.exists());
+		assertTrue(extraction.isDirectory());
+	}
+
+	private Module createModule(String moduleId, String libraryContent) throws IOException {
+		File moduleFile = tempDir.resolve(moduleId + ".omod").toFile();
+		writeModuleFile(moduleFile, libraryContent);
+		Module module = new Module(moduleId, moduleId, "org.openmrs.module." + moduleId, "author", "description", "1.0",
+		        "1.0");
+		module.setFile(moduleFile);
+		return module;
+	}
+
+	private void writeModuleFile(File moduleFile, String libraryContent) throws IOException {
+		try (OutputStream out = Files.newOutputStream(moduleFile.toPath());
+		        JarOutputStream jar = new JarOutputStream(out)) {
+			jar.putNextEntry(new JarEntry("config.xml"));
+			jar.write("<module/>".getBytes(StandardCharsets.UTF_8));
+			jar.putNextEntry(new JarEntry("lib/library.jar"));
+			jar.write(libraryContent.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
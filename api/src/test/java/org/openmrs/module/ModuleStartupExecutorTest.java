@@ -0,0 +1,111 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+
+public class ModuleStartupExecutorTest extends BaseContextSensitiveTest {
+
+	private static final String MODULES_TO_LOAD = "org/openmrs/module/include/test1-1.0-SNAPSHOT.omod "
+	        + "org/openmrs/module/include/test2-1.0-SNAPSHOT.omod org/openmrs/module/include/test3-1.0-SNAPSHOT.omod "
+	        + "org/openmrs/module/include/test4-1.0-SNAPSHOT.omod";
+
+	@BeforeEach
+	public void before() {
+		ModuleUtil.shutdown();
+	}
+
+	@AfterAll
+	public static void cleanUp() {
+		//ensure that we do not have any left overs to interfere with other tests
+		ModuleUtil.shutdown();
+	}
+
+	/**
+	 * @see ModuleStartupExecutor#run(String, java.util.Collection, ModuleStartupExecutor.Step)
+	 */
+	@Test
+	public void run_shouldStartModulesWhichDependOnEachOther() {
+		runtimeProperties.setProperty(ModuleConstants.RUNTIMEPROPERTY_MODULE_LIST_TO_LOAD, MODULES_TO_LOAD);
+
+		ModuleUtil.startup(runtimeProperties);
+
+		for (String moduleId : Arrays.asList("test1", "test2", "test3", "test4")) {
+			Module module = ModuleFactory.getModuleById(moduleId);
+			assertTrue(module.isStarted(), moduleId + " should be started");
+			assertNull(module.getStartupErrorMessage());
+		}
+	}
+
+	/**
+	 * @see ModuleStartupExecutor#run(String, java.util.Collection, ModuleStartupExecutor.Step)
+	 */
+	@Test
+	public void run_shouldRunTheStepForAModuleAfterTheModulesItRequiresAsTheAuthenticatedUser() {
+		runtimeProperties.setProperty(ModuleConstants.RUNTIMEPROPERTY_MODULE_LIST_TO_LOAD, MODULES_TO_LOAD);
+		ModuleUtil.startup(runtimeProperties);
+		List<Module> modules = Arrays.asList(ModuleFactory.getModuleById("test3"), ModuleFactory.getModuleById("test2"),
+		    ModuleFactory.getModuleById("test4"), ModuleFactory.getModuleById("test1"));
+		for (Module module : modules) {
+			ModuleFactory.stopModule(module);
+		}
+		List<String> started = new CopyOnWriteArrayList<>();
+		Map<String, User> users = new ConcurrentHashMap<>();
+
+		ModuleStartupExecutor.run("test", modules, module -> {
+			users.put(module.getModuleId(), Context.getAuthenticatedUser());
+			ModuleFactory.startModule(module);
+			started.add(module.getModuleId());
+		});
+
+		for (Module module : modules) {
+			assertTrue(module.isStarted(), module.getModuleId() + " should be started");
+			assertEquals(Context.getAuthenticatedUser(), users.get(module.getModuleId()));
+		}
+		assertTrue(started.indexOf("test1") < started.indexOf("test2"));
+		assertTrue(started.indexOf("test2") < started.indexOf("test3"));
+	}
+
+	/**
+	 * @see ModuleStartupExecutor#run(String, java.util.Collection, ModuleStartupExecutor.Step)
+	 */
+	@Test
+	public void run_shouldRunTheStepForDependentModulesIfItFailedForAModule() {
+		runtimeProperties.setProperty(ModuleConstants.RUNTIMEPROPERTY_MODULE_LIST_TO_LOAD, MODULES_TO_LOAD);
+		ModuleUtil.startup(runtimeProperties);
+		List<Module> modules = Arrays.asList(ModuleFactory.getModuleById("test1"), ModuleFactory.getModuleById("test2"),
+		    ModuleFactory.getModuleById("test4"));
+		List<String> finished = new CopyOnWriteArrayList<>();
+
+		ModuleStartupExecutor.run("test", modules, module -> {
+			if ("test1".equals(module.getModuleId())) {
+				throw new ModuleException("failed to start");
+			}
+			finished.add(module.getModuleId());
+		});
+
+		assertEquals(Arrays.asList("test2", "test4"), finished.stream().sorted().toList());
+	}
+}
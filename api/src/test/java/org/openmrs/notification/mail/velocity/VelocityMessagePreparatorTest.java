@@ -0,0 +1,74 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.notification.mail.velocity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.notification.MessageException;
+import org.openmrs.notification.Template;
+
+/**
+ * Tests the {@link VelocityMessagePreparator} class
+ */
+public class VelocityMessagePreparatorTest {
+
+	private VelocityMessagePreparator preparator;
+
+	@BeforeEach
+	public void before() throws MessageException {
+		VelocityMessagePreparator.clearTemplates();
+		preparator = new VelocityMessagePreparator();
+	}
+
+	/**
+	 * @see VelocityMessagePreparator#prepare(Template)
+	 */
+	@Test
+	public void prepare_shouldParseATemplateOnlyOnceForManyMessages() throws MessageException {
+		Template template = new Template(1, "greeting", "Hello $name");
+		long parseCount = VelocityMessagePreparator.getParseCount();
+		long renderCount = VelocityMessagePreparator.getRenderCount();
+
+		template.setData(Collections.singletonMap("name", "Alice"));
+		assertEquals("Hello Alice", preparator.prepare(template).getContent());
+		template.setData(Collections.singletonMap("name", "Bob"));
+		assertEquals("Hello Bob", preparator.prepare(template).getContent());
+
+		assertEquals(parseCount + 1, VelocityMessagePreparator.getParseCount());
+		assertEquals(renderCount + 2, VelocityMessagePreparator.getRenderCount());
+	}
+
+	/**
+	 * @see VelocityMessagePreparator#prepare(Template)
+	 */
+	@Test
+	public void prepare_shouldParseTheTemplateAgainWhenItIsEdited() throws MessageException {
+		Template template = new Template(1, "greeting", "Hello $name");
+		template.setData(Collections.singletonMap("name", "Alice"));
+		assertEquals("Hello Alice", preparator.prepare(template).getContent());
+
+		template.setTemplate("Goodbye $name");
+		assertEquals("Goodbye Alice", preparator.prepare(template).getContent());
+	}
+
+	/**
+	 * @see VelocityMessagePreparator#prepare(Template)
+	 */
+	@Test
+	public void prepare_shouldFailIfTheTemplateIsInvalid() {
+		Template template = new Template(1, "invalid", "#if( $name ");
+		assertThrows(MessageException.class, () -> preparator.prepare(template));
+	}
+}
@@ -12,13 +12,16 @@ package org.openmrs.obs;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -103,4 +106,25 @@ public class BinaryStreamHandlerTest  extends BaseContextSensitiveTest {
 			}
 		}
 	}
+	
+	@Test
+	public void getObs_shouldReturnTheGivenRangeOfTheData() throws IOException {
+		adminService.saveGlobalProperty(new GlobalProperty(
+			OpenmrsConstants.GLOBAL_PROPERTY_COMPLEX_OBS_DIR,
+			"obs"
+		));
+		
+		byte[] content = "Teststring".getBytes();
+		Obs obs = new Obs();
+		obs.setComplexData(new ComplexData("TestingComplexObsSaving", new ByteArrayInputStream(content)));
+		handler.saveObs(obs);
+		
+		Obs complexObs = handler.getObs(obs, 4, 3);
+		ComplexData complexData = complexObs.getComplexData();
+		try (InputStream in = (InputStream) complexData.getData()) {
+			assertEquals("str", IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+		assertEquals(content.length, complexData.getLength());
+		assertNotNull(complexData.getEntityTag());
+	}
 }
@@ -12,23 +12,28 @@ package org.openmrs.obs;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import javax.imageio.ImageIO;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.openmrs.GlobalProperty;
 import org.openmrs.Obs;
+import org.openmrs.api.APIException;
 import org.openmrs.api.AdministrationService;
+import org.openmrs.api.StorageService;
 import org.openmrs.obs.handler.ImageHandler;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 import org.openmrs.util.OpenmrsConstants;
@@ -42,10 +47,13 @@ public class ImageHandlerTest extends BaseContextSensitiveTest {
 	@Autowired
 	ImageHandler handler;
 	
+	@Autowired
+	private StorageService storageService;
+	
 	@Test
 	public void shouldReturnSupportedViews() {
 		String[] actualViews = handler.getSupportedViews();
-		String[] expectedViews = { ComplexObsHandler.RAW_VIEW };
+		String[] expectedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.PREVIEW_VIEW };
 		
 		assertArrayEquals(actualViews, expectedViews);
 	}
@@ -56,11 +64,16 @@ public class ImageHandlerTest extends BaseContextSensitiveTest {
 		assertTrue(handler.supportsView(ComplexObsHandler.RAW_VIEW));
 	}
 	
+	@Test
+	public void shouldSupportPreviewView() {
+		
+		assertTrue(handler.supportsView(ComplexObsHandler.PREVIEW_VIEW));
+	}
+	
 	@Test
 	public void shouldNotSupportOtherViews() {
 		
 		assertFalse(handler.supportsView(ComplexObsHandler.HTML_VIEW));
-		assertFalse(handler.supportsView(ComplexObsHandler.PREVIEW_VIEW));
 		assertFalse(handler.supportsView(ComplexObsHandler.TEXT_VIEW));
 		assertFalse(handler.supportsView(ComplexObsHandler.TITLE_VIEW));
 		assertFalse(handler.supportsView(ComplexObsHandler.URI_VIEW));
@@ -111,4 +124,53 @@ public class ImageHandlerTest extends BaseContextSensitiveTest {
 		        "obs"));
 		handler.saveObs(obs);
 	}
+	
+	@Test
+	public void saveObs_shouldStoreByteArraysAsTheyAre() throws IOException {
+		Path sourceFile = Paths.get("src", "test", "resources", "ComplexObsTestImage.png");
+		
+		byte[] bytes = Files.readAllBytes(sourceFile);
+		Obs obs = new Obs();
+		obs.setComplexData(new ComplexData("TestingComplexObsSaving.png", bytes));
+		adminService.saveGlobalProperty(new GlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_COMPLEX_OBS_DIR,
+		        "obs"));
+		handler.saveObs(obs);
+		
+		try (InputStream in = storageService.getData(handler.parseDataKey(obs))) {
+			assertArrayEquals(bytes, IOUtils.toByteArray(in));
+		}
+	}
+	
+	@Test
+	public void saveObs_shouldNotSaveDataWhichIsNotAnImage() {
+		Obs obs = new Obs();
+		obs.setComplexData(new ComplexData("TestingComplexObsSaving.png", "not an image".getBytes()));
+		adminService.saveGlobalProperty(new GlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_COMPLEX_OBS_DIR,
+		        "obs"));
+		
+		assertThrows(APIException.class, () -> handler.saveObs(obs));
+	}
+	
+	@Test
+	public void getObs_shouldReturnAStoredThumbnailForThePreviewView() throws IOException {
+		Path sourceFile = Paths.get("src", "test", "resources", "ComplexObsTestImage.png");
+		Obs obs = new Obs();
+		obs.setComplexData(new ComplexData("TestingComplexObsSaving.png", Files.readAllBytes(sourceFile)));
+		adminService.saveGlobalProperty(new GlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_COMPLEX_OBS_DIR,
+		        "obs"));
+		handler.saveObs(obs);
+		
+		Obs preview = handler.getObs(obs, ComplexObsHandler.PREVIEW_VIEW);
+		assertEquals("image/png", preview.getComplexData().getMimeType());
+		BufferedImage thumbnail;
+		try (InputStream in = (InputStream) preview.getComplexData().getData()) {
+			thumbnail = ImageIO.read(in);
+		}
+		assertTrue(thumbnail.getWidth() <= 256 && thumbnail.getHeight() <= 256);
+		String thumbnailKey = handler.parseDataKey(obs) + ".thumbnail";
+		assertTrue(storageService.exists(thumbnailKey));
+		
+		assertTrue(handler.purgeComplexData(obs));
+		assertFalse(storageService.exists(thumbnailKey));
+	}
 }
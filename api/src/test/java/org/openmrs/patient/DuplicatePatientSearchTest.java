@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.APIException;
+
+/**
+ * Tests the {@link DuplicatePatientSearch}
+ */
+public class DuplicatePatientSearchTest {
+
+	private static final List<Object[]> PATIENTS = Arrays.asList(patient(1, "John", "Doe"), patient(2, "Jane", "Roe"),
+	    patient(3, "Jon", "Doe"));
+
+	/**
+	 * @see DuplicatePatientSearch#readProgress(java.io.InputStream)
+	 */
+	@Test
+	public void readProgress_shouldResumeTheSearchWhereTheWrittenProgressLeftOff() throws IOException {
+		DuplicatePatientSearch search = newSearch("givenName", "familyName");
+		search.addPatients(Arrays.asList(1, 2), PATIENTS.subList(0, 2));
+
+		DuplicatePatientSearch resumed = newSearch("givenName", "familyName");
+		assertTrue(resumed.readProgress(new ByteArrayInputStream(writeProgress(search))));
+		assertEquals(2, resumed.getLastPatientId());
+		assertEquals(2, resumed.getScannedPatientCount());
+
+		resumed.addPatients(Collections.singletonList(3), PATIENTS.subList(2, 3));
+		resumed.complete(patientIds -> PATIENTS.stream().filter(row -> patientIds.contains(row[0]))
+		        .collect(Collectors.toList()));
+		assertEquals(Collections.singletonList(Arrays.asList(1, 3)), resumed.getDuplicates());
+	}
+
+	/**
+	 * @see DuplicatePatientSearch#readProgress(java.io.InputStream)
+	 */
+	@Test
+	public void readProgress_shouldNotRestoreTheProgressOfASearchOnOtherAttributes() throws IOException {
+		DuplicatePatientSearch search = newSearch("givenName", "familyName");
+		search.addPatients(Arrays.asList(1, 2), PATIENTS.subList(0, 2));
+
+		DuplicatePatientSearch otherSearch = newSearch("familyName");
+		assertFalse(otherSearch.readProgress(new ByteArrayInputStream(writeProgress(search))));
+		assertNull(otherSearch.getLastPatientId());
+		assertEquals(0, otherSearch.getScannedPatientCount());
+	}
+
+	/**
+	 * @see DuplicatePatientSearch#writeProgress(java.io.OutputStream)
+	 */
+	@Test
+	public void writeProgress_shouldFailIfTheSearchIsComplete() {
+		DuplicatePatientSearch search = newSearch("givenName", "familyName");
+		search.addPatients(Arrays.asList(1, 2, 3), PATIENTS);
+		search.complete(patientIds -> PATIENTS);
+
+		assertThrows(APIException.class, () -> writeProgress(search));
+	}
+
+	private static DuplicatePatientSearch newSearch(String... attributes) {
+		return new DuplicatePatientSearch(Arrays.asList(attributes), false, false);
+	}
+
+	private static byte[] writeProgress(DuplicatePatientSearch search) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		search.writeProgress(out);
+		return out.toByteArray();
+	}
+
+	private static Object[] patient(Integer patientId, String givenName, String familyName) {
+		return new Object[] { patientId, "M", null, givenName, null, familyName, null };
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.scheduler.SchedulerException;
+import org.openmrs.scheduler.SchedulerService;
+import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.TaskDefinition;
+import org.openmrs.scheduler.TaskExecutionMetrics;
+import org.openmrs.scheduler.tasks.AbstractTask;
+import org.openmrs.scheduler.tasks.TestTask;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+
+/**
+ * Tests methods in {@link ExecutorSchedulerServiceImpl}
+ */
+public class ExecutorSchedulerServiceImplTest extends BaseContextSensitiveTest {
+
+	/**
+	 * @see ExecutorSchedulerServiceImpl#scheduleTask(TaskDefinition)
+	 */
+	@Test
+	public void scheduleTask_shouldHandleZeroRepeatInterval() throws SchedulerException {
+		TaskDefinition taskDefinition = createTaskDefinition(Calendar.getInstance(), 0L);
+
+		Task clientTask = Context.getSchedulerService().scheduleTask(taskDefinition);
+		Context.flushSession();
+
+		assertNotNull(clientTask);
+	}
+
+	/**
+	 * @see ExecutorSchedulerServiceImpl#getTaskExecutionMetrics(Integer)
+	 */
+	@Test
+	public void getTaskExecutionMetrics_shouldReturnMetricsOnlyWhileTheTaskIsScheduled() throws SchedulerException {
+		Calendar startTime = Calendar.getInstance();
+		startTime.add(Calendar.DAY_OF_YEAR, 1);
+		TaskDefinition taskDefinition = createTaskDefinition(startTime, 3600L);
+		SchedulerService schedulerService = Context.getSchedulerService();
+
+		schedulerService.scheduleTask(taskDefinition);
+		Context.flushSession();
+
+		TaskExecutionMetrics metrics = schedulerService.getTaskExecutionMetrics(taskDefinition.getId());
+		assertNotNull(metrics);
+		assertEquals(0, metrics.getExecutionCount());
+		assertTrue(schedulerService.getStatus(taskDefinition.getId()).startsWith("Scheduled to execute at"));
+
+		schedulerService.shutdownTask(taskDefinition);
+		Context.flushSession();
+
+		assertNull(schedulerService.getTaskExecutionMetrics(taskDefinition.getId()));
+		assertEquals("Not Running", schedulerService.getStatus(taskDefinition.getId()));
+	}
+
+	/**
+	 * @see ExecutorSchedulerTask#run()
+	 */
+	@Test
+	public void run_shouldSkipTheExecutionIfThePreviousOneIsStillRunning() {
+		List<Runnable> submitted = new ArrayList<>();
+		ExecutorSchedulerTask schedulerTask = new ExecutorSchedulerTask(new TestTask(), submitted::add);
+
+		schedulerTask.run();
+		schedulerTask.run();
+
+		assertEquals(1, submitted.size());
+		assertTrue(schedulerTask.isRunning());
+		assertEquals(1, schedulerTask.getMetrics().getOverrunCount());
+	}
+
+	/**
+	 * @see ExecutorSchedulerTask#run()
+	 */
+	@Test
+	public void run_shouldExecuteTheTaskOnTheVirtualThreadOfTheTaskRunnerAsTheDaemonUser() throws InterruptedException {
+		ThreadRecordingTask task = new ThreadRecordingTask();
+		ExecutorService taskRunner = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().factory());
+		ExecutorSchedulerTask schedulerTask = new ExecutorSchedulerTask(task, taskRunner);
+
+		schedulerTask.run();
+		taskRunner.shutdown();
+		assertTrue(taskRunner.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertTrue(task.virtualThread);
+		assertTrue(task.daemonThread);
+		assertFalse(Daemon.isDaemonThread());
+		assertEquals(1, schedulerTask.getMetrics().getExecutionCount());
+		assertEquals(0, schedulerTask.getMetrics().getFailureCount());
+	}
+
+	private TaskDefinition createTaskDefinition(Calendar startTime, Long repeatInterval) {
+		TaskDefinition taskDefinition = new TaskDefinition();
+		taskDefinition.setName("TestTask");
+		taskDefinition.setTaskClass(TestTask.class.getName());
+		taskDefinition.setStartTime(startTime.getTime());
+		taskDefinition.setRepeatInterval(repeatInterval);
+		taskDefinition.setStartOnStartup(false);
+		return taskDefinition;
+	}
+
+	/**
+	 * Records the thread it is executed on
+	 */
+	private static class ThreadRecordingTask extends AbstractTask {
+
+		private volatile boolean virtualThread;
+
+		private volatile boolean daemonThread;
+
+		@Override
+		public void execute() {
+			virtualThread = Thread.currentThread().isVirtual();
+			daemonThread = Daemon.isDaemonThread();
+		}
+	}
+}
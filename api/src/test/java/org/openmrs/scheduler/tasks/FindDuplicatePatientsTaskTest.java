@@ -0,0 +1,65 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.patient.DuplicatePatientSearch;
+import org.openmrs.scheduler.SchedulerService;
+import org.openmrs.scheduler.TaskDefinition;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+
+public class FindDuplicatePatientsTaskTest extends BaseContextSensitiveTest {
+
+	@Test
+	public void execute_shouldSaveTheLastScannedPatientAndResumeFromItOnTheNextRun() {
+		SchedulerService schedulerService = Context.getSchedulerService();
+		TaskDefinition taskDefinition = new TaskDefinition();
+		taskDefinition.setName("Find Duplicate Patients Test");
+		taskDefinition.setTaskClass(FindDuplicatePatientsTask.class.getName());
+		taskDefinition.setStartOnStartup(false);
+		taskDefinition.setRepeatInterval(0L);
+		taskDefinition.setProperty(FindDuplicatePatientsTask.PROPERTY_ATTRIBUTES, "givenName,familyName");
+		taskDefinition.setProperty(FindDuplicatePatientsTask.PROPERTY_PATIENTS_PER_CHUNK, "2");
+		taskDefinition.setProperty(FindDuplicatePatientsTask.PROPERTY_MAX_PATIENTS_PER_RUN, "2");
+		schedulerService.saveTaskDefinition(taskDefinition);
+		// the task clears the session after each chunk
+		Context.flushSession();
+
+		runTask(taskDefinition.getId());
+		assertEquals("6", getLastPatientId(taskDefinition.getId()));
+
+		// every run uses a new task like after a restart, so only the saved progress is resumed
+		runTask(taskDefinition.getId());
+		assertEquals("8", getLastPatientId(taskDefinition.getId()));
+
+		runTask(taskDefinition.getId());
+		assertNull(getLastPatientId(taskDefinition.getId()));
+		DuplicatePatientSearch search = FindDuplicatePatientsTask.getLastCompletedSearch();
+		assertTrue(search.isComplete());
+		assertEquals(4, search.getScannedPatientCount());
+	}
+
+	private void runTask(Integer taskDefinitionId) {
+		FindDuplicatePatientsTask task = new FindDuplicatePatientsTask();
+		task.initialize(Context.getSchedulerService().getTask(taskDefinitionId));
+		task.execute();
+		Context.flushSession();
+	}
+
+	private String getLastPatientId(Integer taskDefinitionId) {
+		return Context.getSchedulerService().getTask(taskDefinitionId).getProperty(
+		    FindDuplicatePatientsTask.PROPERTY_LAST_PATIENT_ID);
+	}
+}
@@ -54,6 +54,7 @@ import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.DefaultDataSet;
 import org.dbunit.dataset.DefaultTable;
 import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ReplacementDataSet;
 import org.dbunit.dataset.stream.StreamingDataSet;
 import org.dbunit.dataset.xml.FlatXmlDataSet;
@@ -82,7 +83,9 @@ import org.openmrs.api.context.Context;
 import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.api.context.ContextMockHelper;
 import org.openmrs.api.context.Credentials;
+import org.openmrs.api.context.EffectivePrivileges;
 import org.openmrs.api.context.UsernamePasswordCredentials;
+import org.openmrs.api.impl.GlobalPropertyCache;
 import org.openmrs.util.DatabaseUtil;
 import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsConstants;
@@ -833,12 +836,43 @@ public abstract class BaseContextSensitiveTest extends AbstractJUnit4SpringConte
 			//Do the actual update/insert:
 			//insert new rows, update existing rows, and leave others alone
 			DatabaseOperation.REFRESH.execute(dbUnitConn, dataset);
+			
+			// the dataset may have changed global properties, roles and privileges behind the back of the caches
+			evictGlobalProperties(dataset);
+			EffectivePrivileges.invalidateAll();
 		}
 		catch (DatabaseUnitException | SQLException e) {
 			throw new DatabaseUnitRuntimeException(e);
 		}
 	}
 	
+	/**
+	 * Evicts the global properties of the given dataset from the global property cache, they are read
+	 * from the database until the current transaction completes
+	 * 
+	 * @param dataset the dataset that was run
+	 */
+	private void evictGlobalProperties(IDataSet dataset) throws DataSetException {
+		GlobalPropertyCache globalPropertyCache = Context.getRegisteredComponent("globalPropertyCache",
+		    GlobalPropertyCache.class);
+		String[] tableNames;
+		try {
+			tableNames = dataset.getTableNames();
+		}
+		catch (UnsupportedOperationException e) {
+			// a streaming dataset can only be read once, large datasets are not expected to contain global properties
+			return;
+		}
+		for (String tableName : tableNames) {
+			if ("global_property".equalsIgnoreCase(tableName)) {
+				ITable table = dataset.getTable(tableName);
+				for (int i = 0; i < table.getRowCount(); i++) {
+					globalPropertyCache.evict((String) table.getValue(i, "property"));
+				}
+			}
+		}
+	}
+	
 	protected IDatabaseConnection setupDatabaseConnection(Connection connection) throws DatabaseUnitException {
 		IDatabaseConnection dbUnitConn = new DatabaseConnection(connection, getSchemaPattern());
 		DatabaseConfig config = dbUnitConn.getConfig();
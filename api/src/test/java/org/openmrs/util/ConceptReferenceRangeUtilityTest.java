@@ -26,6 +26,7 @@ import org.openmrs.PersonAttributeType;
 import org.openmrs.api.APIException;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.ObsService;
+import org.openmrs.api.context.Context;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 
 import java.util.Calendar;
@@ -39,6 +40,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ConceptReferenceRangeUtilityTest extends BaseContextSensitiveTest {
 	
+	private static final String WEIGHT_CONCEPT_UUID = "c607c80f-1ea9-4da3-bb88-6276ce8868dd";
+	
 	private Calendar calendar;
 	private Person person;
 	private ConceptReferenceRangeUtility conceptReferenceRangeUtility;
@@ -487,6 +490,119 @@ class ConceptReferenceRangeUtilityTest extends BaseContextSensitiveTest {
 		);
 	}
 	
+	@Test
+	public void evaluateCriteria_shouldKeyTheMemoizedCriteriaResultsOnThePatientPropertiesTheyRead() {
+		person.setId(1);
+		person.setGender("M");
+
+		Obs obs = buildObs();
+		obs.setPerson(person);
+
+		assertTrue(conceptReferenceRangeUtility.evaluateCriteria("$patient.getGender().equals('M')", obs));
+		
+		person.setGender("F");
+		assertFalse(conceptReferenceRangeUtility.evaluateCriteria("$patient.getGender().equals('M')", obs));
+		
+		Person otherPerson = new Person(2);
+		otherPerson.setGender("M");
+		Obs otherObs = buildObs();
+		otherObs.setPerson(otherPerson);
+		assertTrue(conceptReferenceRangeUtility.evaluateCriteria("$patient.getGender().equals('M')", otherObs));
+	}
+
+	@Test
+	public void evaluateCriteria_shouldNotMemoizeCriteriaThatReadOtherPatientProperties() {
+		person.setId(1);
+		PersonAttributeType personAttributeType = new PersonAttributeType();
+		personAttributeType.setName("Race");
+		PersonAttribute personAttribute = new PersonAttribute();
+		personAttribute.setAttributeType(personAttributeType);
+		personAttribute.setValue("Maasai");
+		person.setAttributes(Collections.singleton(personAttribute));
+
+		Obs obs = buildObs();
+		obs.setPerson(person);
+
+		assertTrue(conceptReferenceRangeUtility.evaluateCriteria("$patient.getAttribute('Race').getValue() == 'Maasai'", obs));
+		
+		personAttribute.setValue("Kikuyu");
+		assertFalse(conceptReferenceRangeUtility.evaluateCriteria("$patient.getAttribute('Race').getValue() == 'Maasai'", obs));
+	}
+
+	@Test
+	public void evaluateCriteria_shouldNotMemoizeCriteriaThatReferenceTheObs() {
+		person.setId(1);
+
+		Obs obs = buildObs();
+		obs.setPerson(person);
+		obs.setValueNumeric(20.0);
+
+		assertTrue(conceptReferenceRangeUtility.evaluateCriteria("$obs.getValueNumeric() >= 20", obs));
+		
+		obs.setValueNumeric(10.0);
+		assertFalse(conceptReferenceRangeUtility.evaluateCriteria("$obs.getValueNumeric() >= 20", obs));
+	}
+
+	@Test
+	public void evaluateCriteria_shouldNotMemoizeCriteriaThatReferenceTheObsWithAFormalReference() {
+		person.setId(1);
+
+		Obs obs = buildObs();
+		obs.setPerson(person);
+		obs.setValueNumeric(20.0);
+
+		assertTrue(conceptReferenceRangeUtility.evaluateCriteria("${obs.valueNumeric} >= 20", obs));
+		
+		obs.setValueNumeric(10.0);
+		assertFalse(conceptReferenceRangeUtility.evaluateCriteria("${obs.valueNumeric} >= 20", obs));
+	}
+
+	@Test
+	public void getLatestObs_shouldLookUpTheLatestObsAgainOnceAnObsOfThePatientAndConceptIsSaved() {
+		Person patient = Context.getPersonService().getPerson(7);
+		assertEquals(61.0, conceptReferenceRangeUtility.getLatestObs(WEIGHT_CONCEPT_UUID, patient).getValueNumeric());
+
+		Obs weight = new Obs(patient, Context.getConceptService().getConceptByUuid(WEIGHT_CONCEPT_UUID), new Date(),
+		        Context.getLocationService().getLocation(1));
+		weight.setValueNumeric(70.0);
+		Context.getObsService().saveObs(weight, null);
+
+		assertEquals(70.0, conceptReferenceRangeUtility.getLatestObs(WEIGHT_CONCEPT_UUID, patient).getValueNumeric());
+	}
+
+	@Test
+	public void getLatestObs_shouldLookUpTheLatestObsAgainOnceAnObsOfThePatientAndConceptIsVoided() {
+		Person patient = Context.getPersonService().getPerson(7);
+		Obs latest = conceptReferenceRangeUtility.getLatestObs(WEIGHT_CONCEPT_UUID, patient);
+		assertEquals(61.0, latest.getValueNumeric());
+
+		Context.getObsService().voidObs(latest, "wrong weight");
+
+		assertEquals(55.0, conceptReferenceRangeUtility.getLatestObs(WEIGHT_CONCEPT_UUID, patient).getValueNumeric());
+	}
+
+	@Test
+	public void evaluateCriteria_shouldEvaluateCriteriaAfterTheCompiledCriteriaAreCleared() {
+		person.setGender("M");
+
+		Obs obs = buildObs();
+		obs.setPerson(person);
+
+		assertTrue(conceptReferenceRangeUtility.evaluateCriteria("$patient.getGender().equals('M')", obs));
+		
+		ConceptReferenceRangeUtility.clearCompiledCriteria();
+		assertTrue(conceptReferenceRangeUtility.evaluateCriteria("$patient.getGender().equals('M')", obs));
+	}
+
+	@Test
+	public void evaluateCriteria_shouldFailEveryTimeForTheSameInvalidCriteria() {
+		Obs obs = buildObs();
+		obs.setPerson(person);
+
+		assertThrows(APIException.class, () -> conceptReferenceRangeUtility.evaluateCriteria("invalidCriteria", obs));
+		assertThrows(APIException.class, () -> conceptReferenceRangeUtility.evaluateCriteria("invalidCriteria", obs));
+	}
+	
 	private Obs buildObs() {
 		Concept concept = new Concept(5089);
 		concept.setDatatype(new ConceptDatatype(3));
@@ -14,9 +14,11 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import org.openmrs.DrugOrder;
@@ -92,4 +94,23 @@ public class HandlerUtilTest extends BaseContextSensitiveTest {
 		
 		assertThat(handler, is(instanceOf(PersonValidator.class)));
 	}
+	
+	/**
+	 * @see HandlerUtil#getHandlingPlan(Class, Class, java.util.function.Function)
+	 */
+	@Test
+	public void getHandlingPlan_shouldBuildThePlanOncePerTypeUntilTheCacheIsCleared() {
+		AtomicInteger builds = new AtomicInteger();
+		
+		Object plan = HandlerUtil.getHandlingPlan(Validator.class, Patient.class, type -> builds.incrementAndGet());
+		assertSame(plan, HandlerUtil.getHandlingPlan(Validator.class, Patient.class, type -> builds.incrementAndGet()));
+		assertEquals(1, builds.get());
+		
+		HandlerUtil.getHandlingPlan(Validator.class, Person.class, type -> builds.incrementAndGet());
+		assertEquals(2, builds.get());
+		
+		HandlerUtil.clearCachedHandlers();
+		HandlerUtil.getHandlingPlan(Validator.class, Patient.class, type -> builds.incrementAndGet());
+		assertEquals(3, builds.get());
+	}
 }
@@ -30,6 +30,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.jar.JarEntry;
@@ -90,8 +91,11 @@ public class WebModuleUtil {
 	
 	private static final Lock FILTERS_LOCK = new ReentrantLock();
 	
-	// caches all modules' mapped servlets
-	private static final Map<String, HttpServlet> MODULE_SERVLETS = new HashMap<>();
+	// modules are started concurrently and all of them update the dwr-modules.xml file
+	private static final Lock DWR_LOCK = new ReentrantLock();
+	
+	// caches all modules' mapped servlets, read by requests while modules are started concurrently
+	private static final Map<String, HttpServlet> MODULE_SERVLETS = new ConcurrentHashMap<>();
 	
 	// caches all modules filters and filter-mappings
 	private static final Map<Module, Collection<Filter>> MODULE_FILTERS = new HashMap<>();
@@ -241,6 +245,7 @@ public class WebModuleUtil {
 			
 			// find and add the dwr code to the dwr-modules.xml file (if defined)
 			InputStream inputStream = null;
+			DWR_LOCK.lock();
 			try {
 				Document config = mod.getConfig();
 				Element root = config.getDocumentElement();
@@ -283,6 +288,7 @@ public class WebModuleUtil {
 				throw new ModuleException(realPath + "/WEB-INF/dwr-modules.xml file doesn't exist.", e);
 			}
 			finally {
+				DWR_LOCK.unlock();
 				if (inputStream != null) {
 					try {
 						inputStream.close();
@@ -510,21 +516,23 @@ public class WebModuleUtil {
 				throw new ModuleException("Unable to initialize servlet " + name, mod.getModuleId(), e);
 			}
 			
-			// don't allow modules to overwrite servlets of other modules.
-			HttpServlet otherServletUsingSameName = MODULE_SERVLETS.get(name);
-			if (otherServletUsingSameName != null) {
-				String otherServletName = otherServletUsingSameName.getClass().getName();
-				throw new ModuleException("A servlet mapping with name " + name + " is already in use and pointing at: "
-				        + otherServletName + " from another installed module and this module is trying"
-				        + " to use that same name.  Either the module attempting to be installed (" + mod
-				        + ") will not work or the other one will not.  Please consult the developers of these two"
-				        + " modules to sort this out.");
-			}
-			
-			log.debug("Caching the {} servlet.", name);
-			
+			// modules are started concurrently, so the check and the put are done under the same lock
 			SERVLET_LOCK.lock();
 			try {
+				// don't allow modules to overwrite servlets of other modules.
+				HttpServlet otherServletUsingSameName = MODULE_SERVLETS.get(name);
+				if (otherServletUsingSameName != null) {
+					String otherServletName = otherServletUsingSameName.getClass().getName();
+					throw new ModuleException("A servlet mapping with name " + name
+					        + " is already in use and pointing at: " + otherServletName
+					        + " from another installed module and this module is trying"
+					        + " to use that same name.  Either the module attempting to be installed (" + mod
+					        + ") will not work or the other one will not.  Please consult the developers of these two"
+					        + " modules to sort this out.");
+				}
+				
+				log.debug("Caching the {} servlet.", name);
+				
 				MODULE_SERVLETS.put(name, httpServlet);
 			} finally {
 				SERVLET_LOCK.unlock();
@@ -858,6 +866,7 @@ public class WebModuleUtil {
 		
 		// remove this module's entries in the dwr xml file
 		InputStream inputStream = null;
+		DWR_LOCK.lock();
 		try {
 			Document config = mod.getConfig();
 			Element root = config.getDocumentElement();
@@ -905,6 +914,7 @@ public class WebModuleUtil {
 			throw new ModuleException(realPath + "/WEB-INF/dwr-modules.xml file doesn't exist.", e);
 		}
 		finally {
+			DWR_LOCK.unlock();
 			if (inputStream != null) {
 				try {
 					inputStream.close();
@@ -15,6 +15,7 @@ import org.openmrs.module.MandatoryModuleException;
 import org.openmrs.module.Module;
 import org.openmrs.module.ModuleFactory;
 import org.openmrs.module.ModuleMustStartException;
+import org.openmrs.module.ModuleStartupExecutor;
 import org.openmrs.module.web.OpenmrsJspServlet;
 import org.openmrs.module.web.WebModuleUtil;
 import org.openmrs.scheduler.SchedulerUtil;
@@ -70,6 +71,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Our Listener class performs the basic starting functions for our webapp. Basic needs for starting
@@ -695,19 +697,23 @@ public final class Listener extends ContextLoader implements ServletContextListe
 	public static void performWebStartOfModules(Collection<Module> startedModules, ServletContext servletContext)
 	        throws ModuleMustStartException, Exception {
 		
-		boolean someModuleNeedsARefresh = false;
-		for (Module mod : startedModules) {
+		// modules which don't depend on each other are started concurrently, the context is refreshed once
+		// for all of them afterwards
+		AtomicBoolean someModuleNeedsARefresh = new AtomicBoolean(false);
+		ModuleStartupExecutor.run("web start", startedModules, mod -> {
 			try {
 				boolean thisModuleCausesRefresh = WebModuleUtil.startModule(mod, servletContext,
 				    /* delayContextRefresh */true);
-				someModuleNeedsARefresh = someModuleNeedsARefresh || thisModuleCausesRefresh;
+				if (thisModuleCausesRefresh) {
+					someModuleNeedsARefresh.set(true);
+				}
 			}
 			catch (Exception e) {
 				mod.setStartupErrorMessage("Unable to start module", e);
 			}
-		}
+		});
 		
-		if (someModuleNeedsARefresh) {
+		if (someModuleNeedsARefresh.get()) {
 			try {
 				WebModuleUtil.refreshWAC(servletContext, true, null);
 			}